@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.benchmarks;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAccessor;
+import com.meslewis.simplegltf2.data.GLTFAccessorComponentType;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reading every component of a VEC3 accessor, for each component type, tightly packed and
+ * interleaved with the mesh's other attributes, one component at a time and in bulk. Scores are
+ * per component.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccessorBenchmark {
+
+  /**
+   * A square grid, so the generator doesn't round it up
+   */
+  private static final int COUNT = 256 * 256;
+
+  @Param({"BYTE", "UNSIGNED_BYTE", "SHORT", "UNSIGNED_SHORT", "UNSIGNED_INT", "FLOAT"})
+  public String componentType;
+
+  @Param({"packed", "interleaved"})
+  public String layout;
+
+  private GLTF gltf;
+  private GLTFAccessor accessor;
+  private final Vector3f vector = new Vector3f();
+  private final float[] floats = new float[COUNT * 3];
+  private final FloatBuffer floatBuffer = ByteBuffer.allocateDirect(COUNT * 3 * Float.BYTES)
+      .order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+  @Setup
+  public void setup() throws IOException {
+    BenchmarkAssets.quietLogging();
+    gltf = new GLTFImporter().load(new SceneGenerator()
+        .meshes(1, COUNT)
+        .valuesComponentType(GLTFAccessorComponentType.valueOf(componentType))
+        .interleaved(layout.equals("interleaved"))
+        .write(BenchmarkAssets.tempDirectory(), "accessors")
+        .toUri());
+    accessor = gltf.getMeshes().orElseThrow().get(0).getPrimitives().get(0).getAttributes()
+        .get("_VALUES");
+    //Fetch outside the measurement
+    accessor.getFloat(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    gltf.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT * 3)
+  public float getFloat() {
+    float sum = 0;
+    int count = accessor.getPrimitiveCount();
+    for (int i = 0; i < count; i++) {
+      sum += accessor.getFloat(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT * 3)
+  public float readInto() {
+    float sum = 0;
+    int count = accessor.getElementCount();
+    for (int i = 0; i < count; i++) {
+      accessor.readInto(i, vector);
+      sum += vector.x + vector.y + vector.z;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT * 3)
+  public float[] readFloats() {
+    accessor.readFloats(0, accessor.getElementCount(), floats, 0);
+    return floats;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT * 3)
+  public FloatBuffer readFloatBuffer() {
+    floatBuffer.clear();
+    accessor.readFloats(0, accessor.getElementCount(), floatBuffer);
+    return floatBuffer;
+  }
+}
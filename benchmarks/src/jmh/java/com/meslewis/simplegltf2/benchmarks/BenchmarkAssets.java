@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Setup shared by benchmarks. Their glTF files come from the core test fixtures' SceneGenerator,
+ * so results don't depend on downloaded sample models.
+ */
+final class BenchmarkAssets {
+
+  private BenchmarkAssets() {
+  }
+
+  /**
+   * The importer logs every load at info level, which would otherwise be measured too.
+   */
+  static void quietLogging() {
+    Logger.getLogger("").setLevel(Level.WARNING);
+  }
+
+  /**
+   * @return an empty directory, deleted with everything in it when the JVM exits
+   */
+  static Path tempDirectory() throws IOException {
+    Path dir = Files.createTempDirectory("simplegltf2-bench");
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try (Stream<Path> paths = Files.walk(dir)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      } catch (IOException ignored) {
+        //Left for the OS to clean up
+      }
+    }));
+    return dir;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.benchmarks;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAnimation;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler.GLTFInterpolation;
+import com.meslewis.simplegltf2.data.GLTFChannel;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import com.meslewis.simplegltf2.simpleviewer.render.RenderNode;
+import com.meslewis.simplegltf2.simpleviewer.render.animation.Interpolator;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * One {@link Interpolator#interpolate} call per frame of a 60 fps playback, for each
+ * interpolation mode on a rotation and a translation channel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterpolatorBenchmark {
+
+  @Param({"LINEAR", "STEP", "CUBICSPLINE"})
+  public String interpolation;
+
+  @Param({"rotation", "translation"})
+  public String path;
+
+  @Param({"1024"})
+  public int keyframes;
+
+  private GLTF gltf;
+  private Interpolator interpolator;
+  private GLTFAnimationSampler sampler;
+  private final Quaternionf rotation = new Quaternionf();
+  private final Vector3f translation = new Vector3f();
+  private float time;
+
+  @Setup
+  public void setup() throws IOException {
+    BenchmarkAssets.quietLogging();
+    //Channel 0 translates node 0 and channel 1 rotates it
+    gltf = new GLTFImporter().load(new SceneGenerator()
+        .meshes(0, 4)
+        .animation(2, keyframes, GLTFInterpolation.valueOf(interpolation))
+        .write(BenchmarkAssets.tempDirectory(), "animation")
+        .toUri());
+    //Interpolators animate the RenderNode of their target
+    new RenderNode(gltf.getNodes().orElseThrow().get(0), null);
+    GLTFAnimation animation = gltf.getAnimations().orElseThrow().get(0);
+    for (GLTFChannel channel : animation.getChannels()) {
+      if (channel.getTarget().getPath().name().equalsIgnoreCase(path)) {
+        sampler = animation.getSamplers().get(channel.getAnimationSamplerIndex());
+        interpolator = new Interpolator(channel);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    gltf.close();
+  }
+
+  @Benchmark
+  public Object interpolate() {
+    time += 1 / 60f;
+    if (path.equals("rotation")) {
+      interpolator.interpolate(time, sampler, rotation);
+      return rotation;
+    }
+    interpolator.interpolate(time, sampler, translation);
+    return translation;
+  }
+}
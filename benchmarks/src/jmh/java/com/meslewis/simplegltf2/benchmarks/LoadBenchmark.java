@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.benchmarks;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.GLTFImporter.ParseEngine;
+import com.meslewis.simplegltf2.SnapshotCache;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler.GLTFInterpolation;
+import com.meslewis.simplegltf2.data.GLTFBuffer;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import com.meslewis.simplegltf2.generator.SceneGenerator.Format;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link GLTFImporter#load(URI)} of a 32 mesh, 4 texture, animated model stored as .gltf with
+ * external files, as .glb and as .gltf with everything embedded, and of the same model through a
+ * {@link SnapshotCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadBenchmark {
+
+  @Param({"GLTF", "GLB", "EMBEDDED"})
+  public String format;
+
+  @Param({"DATABIND", "STREAMING"})
+  public String engine;
+
+  private GLTFImporter importer;
+  private SnapshotCache snapshots;
+  private URI uri;
+
+  @Setup
+  public void setup() throws IOException {
+    BenchmarkAssets.quietLogging();
+    uri = new SceneGenerator()
+        .nodes(33, 32)
+        .meshes(32, 4096)
+        .textures(4, 256)
+        .animation(33, 64, GLTFInterpolation.LINEAR)
+        .format(Format.valueOf(format))
+        .write(BenchmarkAssets.tempDirectory(), "model")
+        .toUri();
+    importer = new GLTFImporter();
+    importer.setParseEngine(ParseEngine.valueOf(engine));
+    snapshots = new SnapshotCache(BenchmarkAssets.tempDirectory(), importer);
+    snapshots.cook(uri);
+  }
+
+  /**
+   * Parse, validate and resolve indices. Buffers are fetched lazily so are not touched.
+   */
+  @Benchmark
+  public long load() {
+    try (GLTF gltf = importer.load(uri)) {
+      return gltf.getLoadStats().getBufferReadBytes();
+    }
+  }
+
+  /**
+   * Load and then fetch every buffer, as a renderer uploading the whole model would.
+   */
+  @Benchmark
+  public long loadResident() {
+    try (GLTF gltf = importer.load(uri)) {
+      gltf.getBuffers().ifPresent(buffers -> buffers.forEach(GLTFBuffer::resolveBufferData));
+      return gltf.getLoadStats().getBufferReadBytes();
+    }
+  }
+
+  /**
+   * Reload from the snapshot cooked in setup, to compare with {@link #load()} of the source. The
+   * snapshot is always parsed with the streaming engine and without validation, so the engine param
+   * makes no difference here.
+   */
+  @Benchmark
+  public long loadSnapshot() {
+    try (GLTF gltf = snapshots.load(uri)) {
+      return gltf.getLoadStats().getBufferReadBytes();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.benchmarks;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFNode;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import com.meslewis.simplegltf2.simpleviewer.render.RenderMesh;
+import com.meslewis.simplegltf2.simpleviewer.render.RenderNode;
+import com.meslewis.simplegltf2.simpleviewer.render.RenderSkin;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link RenderSkin#computeJoints(RenderMesh)} for skins of increasing joint count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SkinBenchmark {
+
+  @Param({"16", "64", "256"})
+  public int joints;
+
+  private GLTF gltf;
+  private RenderMesh mesh;
+  private RenderSkin skin;
+
+  @Setup
+  public void setup() throws IOException {
+    BenchmarkAssets.quietLogging();
+    gltf = new GLTFImporter().load(new SceneGenerator()
+        .meshes(0, 4)
+        .skin(joints)
+        .write(BenchmarkAssets.tempDirectory(), "skin")
+        .toUri());
+    RenderNode root = new RenderNode(null, null);
+    gltf.getDefaultScene().orElseThrow().getRootNodes().forEach(node -> build(node, root));
+    root.applyTransform(new Matrix4f());
+    GLTFNode skinned = gltf.getNodes().orElseThrow().stream()
+        .filter(node -> "skinned".equals(node.getName()))
+        .findFirst().orElseThrow();
+    mesh = (RenderMesh) RenderNode.from(skinned).orElseThrow();
+    skin = mesh.getSkin().orElseThrow();
+  }
+
+  /**
+   * Same hierarchy the viewer builds, without the GL side
+   */
+  private static void build(GLTFNode node, RenderNode parent) {
+    RenderNode renderNode = node.getMesh().isPresent() ? new RenderMesh(node, parent)
+        : new RenderNode(node, parent);
+    node.getChildren().ifPresent(children -> children.forEach(child -> build(child, renderNode)));
+  }
+
+  @TearDown
+  public void tearDown() {
+    gltf.close();
+  }
+
+  @Benchmark
+  public RenderSkin computeJoints() {
+    skin.computeJoints(mesh);
+    return skin;
+  }
+}
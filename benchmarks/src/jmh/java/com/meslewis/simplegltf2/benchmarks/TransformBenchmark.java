@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.benchmarks;
+
+import com.meslewis.simplegltf2.simpleviewer.render.RenderNode;
+import java.util.concurrent.TimeUnit;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link RenderNode#applyTransform(Matrix4f)} from the root of a hierarchy of NODES nodes, either
+ * one deep chain or a root with every other node as its child. Scores are per node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransformBenchmark {
+
+  /**
+   * Kept low enough for the recursion of a deep chain to fit the default stack
+   */
+  private static final int NODES = 1000;
+
+  @Param({"deep", "wide"})
+  public String shape;
+
+  /**
+   * Whether every node's TRS changed since the last frame, as when all are animated
+   */
+  @Param({"false", "true"})
+  public boolean animated;
+
+  private final Matrix4f identity = new Matrix4f();
+  private RenderNode root;
+  private RenderNode[] nodes;
+
+  @Setup
+  public void setup() {
+    root = new RenderNode(null, null);
+    nodes = new RenderNode[NODES];
+    RenderNode parent = root;
+    for (int i = 0; i < NODES; i++) {
+      nodes[i] = new RenderNode(null, parent);
+      nodes[i].getTranslation().set(0, 0.1f, 0);
+      nodes[i].getRotation().rotateY(0.01f * i);
+      if (shape.equals("deep")) {
+        parent = nodes[i];
+      }
+    }
+    root.applyTransform(identity);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NODES)
+  public Matrix4f applyTransform() {
+    if (animated) {
+      for (RenderNode node : nodes) {
+        //Marks the local transform for recalculation
+        node.getRotation();
+      }
+    }
+    root.applyTransform(identity);
+    return nodes[NODES - 1].getWorldTransform();
+  }
+}
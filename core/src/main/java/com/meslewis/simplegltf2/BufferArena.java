@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Owns every buffer created for one load. Buffers fetched through it are recorded, as are buffers
+ * allocated by the loader itself, and all of them are released together when it is closed.
+ */
+public final class BufferArena implements BufferIO, AutoCloseable {
+
+  private final BufferIO source;
+  private final LoadStats stats = new LoadStats();
+
+  /**
+   * Each owned buffer and the BufferIO to release it to, null for buffers this arena frees
+   */
+  private final Map<ByteBuffer, BufferIO> owned = new IdentityHashMap<>();
+  private long mappedBytes;
+  private long directBytes;
+  private boolean closed;
+
+  /**
+   * @param source BufferIO the data is fetched from, and released back to on close
+   */
+  public BufferArena(BufferIO source) {
+    this.source = source;
+  }
+
+  @Override
+  public ByteBuffer getDirectByteBuffer(URI uri) {
+    checkOpen();
+    LoadEvents.BufferRead event = new LoadEvents.BufferRead();
+    event.begin();
+    long start = System.nanoTime();
+    ByteBuffer buffer = source.getDirectByteBuffer(uri);
+    recordRead(event, start, uri, 0, buffer);
+    add(buffer, source);
+    return buffer;
+  }
+
+  @Override
+  public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+    checkOpen();
+    LoadEvents.BufferRead event = new LoadEvents.BufferRead();
+    event.begin();
+    long start = System.nanoTime();
+    ByteBuffer buffer = source.getDirectByteBuffer(uri, offset, length);
+    recordRead(event, start, uri, offset, buffer);
+    add(buffer, source);
+    return buffer;
+  }
+
+  /**
+   * @return timings for the load this arena belongs to
+   */
+  public LoadStats getStats() {
+    return stats;
+  }
+
+  /**
+   * Take ownership of a buffer allocated outside any BufferIO. It is freed when this arena is
+   * closed, or straight away if it already has been.
+   */
+  public void register(ByteBuffer buffer) {
+    add(buffer, null);
+  }
+
+  /**
+   * Release one buffer before the rest of the arena. Buffers this arena does not own are passed on
+   * to the source.
+   */
+  @Override
+  public void release(ByteBuffer buffer) {
+    BufferIO owner;
+    synchronized (this) {
+      if (!owned.containsKey(buffer)) {
+        owner = source;
+      } else {
+        owner = owned.remove(buffer);
+        count(buffer, owner, -1);
+      }
+    }
+    release(buffer, owner);
+  }
+
+  /**
+   * @return bytes currently held from the source BufferIO, memory mapped files when it is a
+   * DefaultBufferIO
+   */
+  public synchronized long getMappedByteCount() {
+    return mappedBytes;
+  }
+
+  /**
+   * @return bytes currently held in direct buffers allocated by the load itself
+   */
+  public synchronized long getDirectByteCount() {
+    return directBytes;
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Release every owned buffer. Buffers from this arena, and slices of them, must not be used
+   * afterwards.
+   */
+  @Override
+  public void close() {
+    Map<ByteBuffer, BufferIO> toRelease;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      toRelease = new IdentityHashMap<>(owned);
+      owned.clear();
+      mappedBytes = 0;
+      directBytes = 0;
+    }
+    for (Entry<ByteBuffer, BufferIO> entry : toRelease.entrySet()) {
+      release(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void add(ByteBuffer buffer, BufferIO owner) {
+    synchronized (this) {
+      if (!closed) {
+        if (!owned.containsKey(buffer)) {
+          owned.put(buffer, owner);
+          count(buffer, owner, 1);
+        }
+        return;
+      }
+    }
+    //A fetch finished after close, nothing else will release it
+    release(buffer, owner);
+    throw new IllegalStateException("BufferArena is closed");
+  }
+
+  /**
+   * Mapped and allocated direct buffers can't be told apart by type, allocateDirect also returns a
+   * MappedByteBuffer, so they are counted by where they came from.
+   */
+  private void count(ByteBuffer buffer, BufferIO owner, int sign) {
+    if (owner != null) {
+      mappedBytes += sign * buffer.capacity();
+    } else if (buffer.isDirect()) {
+      directBytes += sign * buffer.capacity();
+    }
+  }
+
+  private void recordRead(LoadEvents.BufferRead event, long start, URI uri, long offset,
+      ByteBuffer buffer) {
+    stats.addBufferRead(System.nanoTime() - start, buffer.remaining());
+    if (event.shouldCommit()) {
+      event.uri = String.valueOf(uri);
+      event.offset = offset;
+      event.bytes = buffer.remaining();
+      event.commit();
+    }
+  }
+
+  private static void release(ByteBuffer buffer, BufferIO owner) {
+    if (owner == null) {
+      DirectBuffers.free(buffer);
+    } else {
+      owner.release(buffer);
+    }
+  }
+
+  private synchronized void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("BufferArena is closed");
+    }
+  }
+}
@@ -15,4 +15,26 @@ import java.nio.ByteBuffer;
 public interface BufferIO {
 
   ByteBuffer getDirectByteBuffer(URI uri);
+
+  /**
+   * Fetch length bytes of uri starting at offset, so large files don't have to be mapped or read
+   * whole. The default fetches the whole file and slices it, implementations should override it
+   * to fetch only the range.
+   *
+   * @param uri    file to read
+   * @param offset first byte to read, may be past 2 GB
+   * @param length number of bytes to read
+   */
+  default ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+    return getDirectByteBuffer(uri).slice(Math.toIntExact(offset), length);
+  }
+
+  /**
+   * Called once the load that fetched buffer is closed and will not touch it again. The default
+   * leaves it to the garbage collector.
+   *
+   * @param buffer a buffer previously returned by {@link #getDirectByteBuffer(URI)}
+   */
+  default void release(ByteBuffer buffer) {
+  }
 }
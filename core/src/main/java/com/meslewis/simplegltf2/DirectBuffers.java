@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Frees direct and mapped buffers without waiting for the garbage collector.
+ */
+public final class DirectBuffers {
+
+  private static final Logger logger = LoggerFactory.getLogger(DirectBuffers.class);
+
+  private static final Object unsafe;
+  private static final Method invokeCleaner;
+
+  static {
+    Object theUnsafe = null;
+    Method cleaner = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      theUnsafe = field.get(null);
+      cleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.warn("Direct buffers can't be freed early, leaving them to the garbage collector");
+    }
+    unsafe = theUnsafe;
+    invokeCleaner = cleaner;
+  }
+
+  private DirectBuffers() {
+  }
+
+  /**
+   * Unmap or free buffer now. Any access to buffer, or to any slice or duplicate of it, after this
+   * call is undefined and may crash the JVM.
+   *
+   * @param buffer a direct buffer as returned by allocateDirect or FileChannel.map, not a slice
+   * @return true if the memory was released, false if buffer is not direct, is a slice or duplicate,
+   * or freeing is not supported on this JVM
+   */
+  public static boolean free(ByteBuffer buffer) {
+    if (invokeCleaner == null || buffer == null || !buffer.isDirect()) {
+      return false;
+    }
+    try {
+      invokeCleaner.invoke(unsafe, buffer);
+      return true;
+    } catch (InvocationTargetException e) {
+      //Slices and duplicates have no cleaner of their own
+      return false;
+    } catch (IllegalAccessException e) {
+      return false;
+    }
+  }
+}
@@ -30,9 +30,41 @@ class GLBBufferIO implements BufferIO {
   public ByteBuffer getDirectByteBuffer(URI uri) {
     if (uri == null) { //Referencing the first bin chunk
       logger.debug("Getting direct buffer of .glb bin chunk.");
-      return loader.binData();
+      return binChunk();
     } else {
       return fallback.getDirectByteBuffer(uri);
     }
   }
+
+  @Override
+  public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+    if (uri == null) {
+      return binChunk().slice(Math.toIntExact(offset), length);
+    } else {
+      return fallback.getDirectByteBuffer(uri, offset, length);
+    }
+  }
+
+  /**
+   * @throws IllegalStateException if the .glb has no BIN chunk for a buffer without a uri to refer
+   *                               to
+   */
+  private ByteBuffer binChunk() {
+    ByteBuffer bin = loader.binData();
+    if (bin == null) {
+      throw new IllegalStateException(
+          "Buffer has no uri, so refers to the BIN chunk, but the .glb has no BIN chunk");
+    }
+    return bin;
+  }
+
+  /**
+   * The bin chunk is owned by the load's BufferArena, everything else belongs to the fallback.
+   */
+  @Override
+  public void release(ByteBuffer buffer) {
+    if (buffer != loader.binFuture().getNow(null)) {
+      fallback.release(buffer);
+    }
+  }
 }
@@ -6,13 +6,15 @@
 
 package com.meslewis.simplegltf2;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,16 +42,38 @@ public class GLBLoader {
     }
   }
 
-  private static final byte[] magic = "glTF".getBytes();
+  /**
+   * "glTF" read as a little endian int
+   */
+  private static final int MAGIC = 0x46546C67;
+  private static final int VERSION = 2;
+  private static final int HEADER_LENGTH = 12;
+  private static final int CHUNK_HEADER_LENGTH = 8;
 
-  private Map<ChunkType, ByteBuffer> chunkBufferMap = new HashMap<>();
-  private GLTFImporter importer;
+  private BufferArena arena;
   private BufferIO bufferIO;
 
-  GLBLoader(GLTFImporter importer) {
-    this.importer = importer;
-    this.bufferIO = new GLBBufferIO(importer.getBufferIO(), this);
-    importer.setBufferIO(bufferIO);
+  private ByteBuffer jsonChunk;
+  /**
+   * Completes with the first BIN chunk, or null if there is none
+   */
+  private CompletableFuture<ByteBuffer> binChunk = CompletableFuture.completedFuture(null);
+
+  /**
+   * @param arena used to read the .glb itself and any external resources, and owns the BIN chunk
+   *              when it is read from a stream
+   */
+  GLBLoader(BufferArena arena) {
+    this.arena = arena;
+    this.bufferIO = new GLBBufferIO(arena, this);
+  }
+
+  /**
+   * @return BufferIO that resolves the bin chunk of this .glb and passes other URIs to the
+   * fallback. Only valid for the load this loader was created for.
+   */
+  BufferIO getBufferIO() {
+    return bufferIO;
   }
 
   void procesGLB(URI uri) throws IOException {
@@ -57,41 +81,203 @@ public class GLBLoader {
     //One or more `chunks` that contain JSON and binary data
     //Possible to reference external resources and other chunks
 
-    ByteBuffer glb = importer.getDirectByteBuffer(uri);
+    ByteBuffer glb = arena.getDirectByteBuffer(uri).order(ByteOrder.LITTLE_ENDIAN).rewind();
+    long start = System.nanoTime();
 
     assert (glb.order() == ByteOrder.LITTLE_ENDIAN);
 
-    //Read magic
-    byte[] magicRead = new byte[magic.length];
-    glb.get(magicRead);
-    if (!Arrays.equals(magicRead, magic)) {
-      logger.error("GLB file is not a valid glb file.");
-      return;
+    if (glb.remaining() < HEADER_LENGTH) {
+      throw new EOFException("GLB file is shorter than its header");
+    }
+    int length = readHeader(glb);
+    if (length > glb.limit()) {
+      throw new EOFException("GLB header length " + length + " but file is only " + glb.limit()
+          + " bytes long");
+    }
+
+    ByteBuffer bin = null;
+    while (glb.position() + CHUNK_HEADER_LENGTH <= length) {
+      LoadEvents.GLBChunk event = new LoadEvents.GLBChunk();
+      event.begin();
+      int chunkLength = glb.getInt();
+      ChunkType chunkType = ChunkType.findTypeString(glb.getInt());
+      checkChunk(jsonChunk == null, chunkType, chunkLength, length - glb.position());
+      ByteBuffer chunkBuffer = glb.slice(glb.position(), chunkLength);
+      if (chunkType == ChunkType.JSON && jsonChunk == null) {
+        jsonChunk = chunkBuffer;
+      } else if (chunkType == ChunkType.BIN && bin == null) {
+        bin = chunkBuffer;
+      }
+      glb.position(Math.min(length, glb.position() + chunkLength + padding(chunkLength)));
+      commit(event, chunkType, chunkLength, false);
     }
+    binChunk = CompletableFuture.completedFuture(bin);
+    arena.getStats().addGLB(System.nanoTime() - start);
+  }
 
-    //TODO check version
-    int version = glb.getInt();
-    int length = glb.getInt();
+  /**
+   * Read a .glb from a channel that cannot be mapped or seeked. The header and JSON chunk are read
+   * before this returns. The BIN chunk is then read on executor into a direct buffer of its exact
+   * size, so the JSON can be parsed while it arrives. The channel must not be used by anything
+   * else until {@link #binFuture()} completes.
+   */
+  void procesGLB(ReadableByteChannel channel, Executor executor) throws IOException {
+    long start = System.nanoTime();
+    LoadEvents.GLBChunk event = new LoadEvents.GLBChunk();
+    event.begin();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH + CHUNK_HEADER_LENGTH)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, header);
+    header.flip();
+    int length = readHeader(header);
 
-    try {
-      while (glb.hasRemaining()) {
-        int chunkLength = glb.getInt();
-        ChunkType chunkType = ChunkType.findTypeString(glb.getInt());
-        ByteBuffer chunkBuffer = glb.slice(glb.position(), chunkLength);
-        chunkBufferMap.put(chunkType, chunkBuffer);
+    int jsonLength = header.getInt();
+    ChunkType chunkType = ChunkType.findTypeString(header.getInt());
+    checkChunk(true, chunkType, jsonLength, length - header.limit());
+    jsonChunk = ByteBuffer.allocate(jsonLength).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, jsonChunk);
+    jsonChunk.flip();
+    commit(event, chunkType, jsonLength, true);
 
-        glb.position(glb.position() + chunkLength);
+    long position = header.limit() + jsonLength;
+    int jsonPadding = (int) Math.min(padding(jsonLength), length - position);
+    skip(channel, jsonPadding);
+    long remaining = length - position - jsonPadding;
+    arena.getStats().addGLB(System.nanoTime() - start);
+
+    if (remaining >= CHUNK_HEADER_LENGTH) {
+      binChunk = CompletableFuture.supplyAsync(() -> {
+        try {
+          ByteBuffer bin = readBinChunk(channel, remaining);
+          if (bin != null) {
+            arena.register(bin);
+          }
+          return bin;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, executor);
+    }
+  }
+
+  /**
+   * Read the chunks after the JSON chunk, keeping the first BIN chunk and skipping the rest.
+   */
+  private ByteBuffer readBinChunk(ReadableByteChannel channel, long remaining)
+      throws IOException {
+    long start = System.nanoTime();
+    ByteBuffer bin = null;
+    ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_LENGTH)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    while (remaining >= CHUNK_HEADER_LENGTH) {
+      LoadEvents.GLBChunk event = new LoadEvents.GLBChunk();
+      event.begin();
+      chunkHeader.clear();
+      readFully(channel, chunkHeader);
+      chunkHeader.flip();
+      int chunkLength = chunkHeader.getInt();
+      ChunkType chunkType = ChunkType.findTypeString(chunkHeader.getInt());
+      remaining -= CHUNK_HEADER_LENGTH;
+      checkChunk(false, chunkType, chunkLength, remaining);
+      if (chunkType == ChunkType.BIN && bin == null) {
+        bin = ByteBuffer.allocateDirect(chunkLength).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, bin);
+        bin.flip();
+      } else {
+        skip(channel, chunkLength);
       }
-    } catch (Exception e) {
-      logger.error("Error loading glb file: " + e.getLocalizedMessage());
+      remaining -= chunkLength;
+      int chunkPadding = (int) Math.min(padding(chunkLength), remaining);
+      skip(channel, chunkPadding);
+      remaining -= chunkPadding;
+      commit(event, chunkType, chunkLength, true);
+    }
+    arena.getStats().addGLB(System.nanoTime() - start);
+    return bin;
+  }
+
+  private static void commit(LoadEvents.GLBChunk event, ChunkType chunkType, int chunkLength,
+      boolean streamed) {
+    if (event.shouldCommit()) {
+      event.chunkType = chunkType == null ? "unknown" : chunkType.name();
+      event.bytes = chunkLength;
+      event.streamed = streamed;
+      event.commit();
+    }
+  }
+
+  /**
+   * Check the magic and version of a 12 byte GLB header.
+   *
+   * @return total length of the .glb in bytes
+   */
+  private static int readHeader(ByteBuffer header) throws IOException {
+    if (header.getInt() != MAGIC) {
+      throw new IOException("GLB file is not a valid glb file.");
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported GLB version " + version);
+    }
+    int length = header.getInt();
+    if (length < HEADER_LENGTH + CHUNK_HEADER_LENGTH) {
+      throw new IOException("GLB header length " + length + " is too short for a JSON chunk");
+    }
+    return length;
+  }
+
+  private static void checkChunk(boolean first, ChunkType chunkType, int chunkLength,
+      long remaining) throws IOException {
+    if (first && chunkType != ChunkType.JSON) {
+      throw new IOException("First GLB chunk must be JSON");
+    }
+    if (chunkLength < 0 || chunkLength > remaining) {
+      throw new IOException("GLB chunk length " + Integer.toUnsignedString(chunkLength)
+          + " runs past the end of the file");
+    }
+    if (chunkType == null) {
+      logger.debug("Skipping unknown GLB chunk type");
+    }
+  }
+
+  /**
+   * Chunks start on 4 byte boundaries. Writers are meant to include padding in the chunk length,
+   * this covers the ones that don't.
+   */
+  private static int padding(int chunkLength) {
+    return -chunkLength & 3;
+  }
+
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("GLB stream ended early");
+      }
+    }
+  }
+
+  private static void skip(ReadableByteChannel channel, long count) throws IOException {
+    ByteBuffer scratch = ByteBuffer.allocate((int) Math.min(count, 8192));
+    while (count > 0) {
+      scratch.clear().limit((int) Math.min(count, scratch.capacity()));
+      readFully(channel, scratch);
+      count -= scratch.limit();
     }
   }
 
   ByteBuffer jsonData() {
-    return chunkBufferMap.get(ChunkType.JSON);
+    return jsonChunk;
   }
 
+  /**
+   * Waits for the BIN chunk if it is still being read.
+   */
   ByteBuffer binData() {
-    return chunkBufferMap.get(ChunkType.BIN);
+    return binChunk.join();
+  }
+
+  CompletableFuture<ByteBuffer> binFuture() {
+    return binChunk;
   }
 }
@@ -6,25 +6,41 @@
 
 package com.meslewis.simplegltf2;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFDataModule;
+import com.meslewis.simplegltf2.data.GLTFStreamingParser;
+import com.meslewis.simplegltf2.data.StructuralValidator;
 import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
 import com.meslewis.simplegltf2.jomlDeserialize.JomlModule;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Loads glTF files. A single instance may be shared between threads, every load works on its own
+ * reader and BufferIO chain and leaves the importer untouched.
+ */
 public class GLTFImporter {
 
   private static final Logger logger = LoggerFactory.getLogger(GLTFImporter.class);
@@ -33,50 +49,347 @@ public class GLTFImporter {
    */
   public static final GLTFImporter instance = new GLTFImporter();
 
-  private BufferIO bufferIO = new DefaultBufferIO();
+  private volatile BufferIO bufferIO = new DefaultBufferIO();
+
+  private volatile ParseEngine parseEngine = ParseEngine.DATABIND;
+
+  private volatile ValidationLevel validationLevel = ValidationLevel.FULL;
 
   private final ObjectMapper mapper = new ObjectMapper();
 
   public GLTFImporter() {
     mapper.registerModule(JomlModule.getModule());
+    mapper.registerModule(GLTFDataModule.getModule());
   }
 
   public GLTF load(URI uri) {
+    return load(uri, LoadOptions.all());
+  }
+
+  /**
+   * Load part of a glTF file.
+   *
+   * @param uri     the .gltf or .glb file to load
+   * @param options which scenes, nodes or meshes to keep
+   * @return the loaded GLTF, or null if loading failed
+   */
+  public GLTF load(URI uri, LoadOptions options) {
     try {
-      InputStream jsonStream;
+      return validateData(parse(uri, options), uri);
+    } catch (Exception e) {
+      logger.error("Error loading gltf file: " + uri.toString());
+      logger.error(e.getLocalizedMessage());
+      e.printStackTrace();
+      return null;
+    }
+  }
 
-      if (uri.toString().endsWith(".glb")) {
-        logger.info("Loading .glb file: " + uri.toString());
-        GLBLoader glbLoader = new GLBLoader(this);
-        glbLoader.procesGLB(uri);
-        jsonStream = new ByteBufferBackedInputStream(
-            glbLoader.jsonData().order(ByteOrder.LITTLE_ENDIAN));
-      } else {
-        jsonStream = new ByteBufferBackedInputStream(
-            bufferIO.getDirectByteBuffer(uri).order(ByteOrder.LITTLE_ENDIAN));
+  /**
+   * Load a glTF file without blocking the caller. The JSON is parsed on the executor, then every
+   * buffer and image referenced by URI is fetched through the BufferIO at the same time. The
+   * returned future completes once all of them are resident, so no accessor or texture access
+   * afterwards will hit the disk.
+   *
+   * @param uri      the .gltf or .glb file to load
+   * @param executor used for parsing and for each individual fetch
+   * @return a future completed with the loaded GLTF, or exceptionally if any part failed to load
+   */
+  public CompletableFuture<GLTF> loadAsync(URI uri, Executor executor) {
+    return loadAsync(uri, executor, LoadOptions.all());
+  }
+
+  /**
+   * Load part of a glTF file without blocking the caller. Only buffers and images the selection
+   * depends on are prefetched.
+   *
+   * @see #loadAsync(URI, Executor)
+   */
+  public CompletableFuture<GLTF> loadAsync(URI uri, Executor executor, LoadOptions options) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return parse(uri, options);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
       }
+    }, executor).thenCompose(gltf -> closeOnFailure(gltf, prefetch(gltf, executor)))
+        .thenApply(gltf -> validateDataUnchecked(gltf, uri));
+  }
 
-      GLTF gltf = new GLTF(this, uri);
-      ObjectReader reader = mapper.setInjectableValues(injectGLTF(gltf)).readerForUpdating(gltf);
-      reader.readValue(jsonStream);
-      gltf.applyLookupMap();
+  /**
+   * Load a .glb from a stream, such as a socket, without spooling it to disk first. See {@link
+   * #loadGLB(ReadableByteChannel, URI)}.
+   */
+  public GLTF loadGLB(InputStream in, URI baseURI) {
+    return loadGLB(Channels.newChannel(in), baseURI);
+  }
 
-      boolean valid = validateGLTF(gltf);
+  /**
+   * Load a .glb from a channel read front to back. The JSON chunk is parsed on the calling thread
+   * while the BIN chunk is read into memory on a thread started for this load. Returns once the
+   * whole .glb has been read, the channel is not closed.
+   *
+   * @param channel positioned at the start of the .glb
+   * @param baseURI used to resolve external references, may be null if there are none
+   * @return the loaded GLTF, or null if loading failed
+   */
+  public GLTF loadGLB(ReadableByteChannel channel, URI baseURI) {
+    return loadGLB(channel, baseURI, GLTFImporter::startBinReader);
+  }
 
-      return gltf;
+  /**
+   * Load a .glb from a channel read front to back, reading the BIN chunk on executor. The read
+   * blocks on the channel, so executor should not be a pool shared with CPU bound work.
+   *
+   * @see #loadGLB(ReadableByteChannel, URI)
+   */
+  public GLTF loadGLB(ReadableByteChannel channel, URI baseURI, Executor executor) {
+    BufferArena arena = new BufferArena(this.bufferIO);
+    GLBLoader glbLoader = new GLBLoader(arena);
+    try {
+      glbLoader.procesGLB(channel, executor);
+      GLTF gltf = readJSON(baseURI, arena, glbLoader.getBufferIO(), glbLoader.jsonData(),
+          LoadOptions.all());
+      glbLoader.binData();
+      return validateData(gltf, baseURI);
     } catch (Exception e) {
-      logger.error("Error loading gltf file: " + uri.toString());
+      logger.error("Error loading glb stream: " + baseURI);
       logger.error(e.getLocalizedMessage());
       e.printStackTrace();
+      //Don't hand the channel back, or free the arena, while the BIN chunk is still being read
+      glbLoader.binFuture().exceptionally(t -> null).join();
+      arena.close();
       return null;
     }
   }
 
-  private boolean validateGLTF(GLTF gltf) {
-    ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-    Validator validator = factory.getValidator();
+  private static void startBinReader(Runnable read) {
+    Thread thread = new Thread(read, "GLB BIN reader");
+    thread.setDaemon(true);
+    thread.start();
+  }
 
-    Set<ConstraintViolation<GLTF>> violations = validator.validate(gltf);
+  /**
+   * Load a .glb from a channel without blocking the caller. The header and JSON chunk are read
+   * and parsed on executor while a second task reads the BIN chunk. External buffers and images
+   * are then prefetched as in {@link #loadAsync(URI, Executor)}.
+   *
+   * @param channel  positioned at the start of the .glb, not closed
+   * @param baseURI  used to resolve external references, may be null if there are none
+   * @param executor used for parsing, the BIN chunk and each external fetch
+   * @return a future completed with the loaded GLTF once every buffer is resident
+   */
+  public CompletableFuture<GLTF> loadGLBAsync(ReadableByteChannel channel, URI baseURI,
+      Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      BufferArena arena = new BufferArena(this.bufferIO);
+      GLBLoader glbLoader = new GLBLoader(arena);
+      try {
+        glbLoader.procesGLB(channel, executor);
+        GLTF gltf = readJSON(baseURI, arena, glbLoader.getBufferIO(), glbLoader.jsonData(),
+            LoadOptions.all());
+        return closeOnFailure(gltf, glbLoader.binFuture());
+      } catch (IOException | RuntimeException e) {
+        //The channel belongs to the BIN read until it finishes
+        glbLoader.binFuture().exceptionally(t -> null).join();
+        arena.close();
+        throw e instanceof IOException ? new UncheckedIOException((IOException) e)
+            : (RuntimeException) e;
+      }
+    }, executor)
+        .thenCompose(pending -> pending)
+        .thenCompose(gltf -> closeOnFailure(gltf, prefetch(gltf, executor)))
+        .thenApply(gltf -> validateDataUnchecked(gltf, baseURI));
+  }
+
+  private GLTF parse(URI uri, LoadOptions options) throws IOException {
+    //Everything this load maps or allocates is owned by the arena, and so by the returned GLTF
+    BufferArena arena = new BufferArena(this.bufferIO);
+
+    if (uri.toString().endsWith(".glb")) {
+      logger.info("Loading .glb file: " + uri.toString());
+      GLBLoader glbLoader = new GLBLoader(arena);
+      try {
+        glbLoader.procesGLB(uri);
+      } catch (IOException | RuntimeException e) {
+        arena.close();
+        throw e;
+      }
+      return parseJSON(uri, arena, glbLoader.getBufferIO(), glbLoader.jsonData(), options);
+    } else {
+      ByteBuffer jsonData = arena.getDirectByteBuffer(uri);
+      GLTF gltf = parseJSON(uri, arena, arena, jsonData, options);
+      //The JSON is not needed once parsed
+      arena.release(jsonData);
+      return gltf;
+    }
+  }
+
+  /**
+   * Read glTF JSON into a new GLTF, validate it, resolve its indices and drop what options don't
+   * select. Closes arena if that fails.
+   */
+  private GLTF parseJSON(URI uri, BufferArena arena, BufferIO loadBufferIO, ByteBuffer jsonData,
+      LoadOptions options) throws IOException {
+    try {
+      return readJSON(uri, arena, loadBufferIO, jsonData, options);
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * {@link #parseJSON(URI, BufferArena, BufferIO, ByteBuffer, LoadOptions)} leaving arena open on
+   * failure, for callers that must wait for other reads into it before closing it.
+   */
+  private GLTF readJSON(URI uri, BufferArena arena, BufferIO loadBufferIO, ByteBuffer jsonData,
+      LoadOptions options) throws IOException {
+    GLTF gltf = parseJSON(new GLTF(loadBufferIO, arena, uri), uri, jsonData, arena.getStats());
+    options.apply(gltf);
+    return gltf;
+  }
+
+  private GLTF parseJSON(GLTF gltf, URI uri, ByteBuffer jsonData, LoadStats stats)
+      throws IOException {
+    String source = String.valueOf(uri);
+    ParseEngine engine = parseEngine;
+    LoadEvents.JSONParse parseEvent = new LoadEvents.JSONParse();
+    parseEvent.begin();
+    long start = System.nanoTime();
+    int jsonLength = jsonData.remaining();
+    InputStream jsonStream = new ByteBufferBackedInputStream(
+        jsonData.order(ByteOrder.LITTLE_ENDIAN));
+    if (engine == ParseEngine.STREAMING) {
+      try (JsonParser parser = mapper.getFactory().createParser(jsonStream)) {
+        GLTFStreamingParser.parse(parser, gltf);
+      }
+    } else {
+      //ObjectReaders are immutable, each load gets its own with its own injectable values
+      ObjectReader reader = mapper.readerForUpdating(gltf).with(injectGLTF(gltf));
+      reader.readValue(jsonStream);
+    }
+    stats.addJSONParse(System.nanoTime() - start);
+    if (parseEvent.shouldCommit()) {
+      parseEvent.uri = source;
+      parseEvent.engine = engine.name();
+      parseEvent.bytes = jsonLength;
+      parseEvent.commit();
+    }
+
+    ValidationLevel level = validationLevel;
+    if (level != ValidationLevel.OFF) {
+      LoadEvents.Validation validationEvent = new LoadEvents.Validation();
+      validationEvent.begin();
+      start = System.nanoTime();
+      List<String> errors = StructuralValidator.validate(gltf);
+      stats.addValidation(System.nanoTime() - start);
+      commit(validationEvent, source, ValidationLevel.STRUCTURAL, errors.isEmpty());
+      if (!errors.isEmpty()) {
+        //Indices and byte ranges that don't fit can't be resolved or read safely
+        throw new IOException(source + " is not structurally valid glTF: " + errors);
+      }
+    }
+
+    LoadEvents.Lookup lookupEvent = new LoadEvents.Lookup();
+    lookupEvent.begin();
+    start = System.nanoTime();
+    gltf.applyLookupMap();
+    stats.addLookup(System.nanoTime() - start);
+    if (lookupEvent.shouldCommit()) {
+      lookupEvent.uri = source;
+      lookupEvent.commit();
+    }
+
+    if (level == ValidationLevel.FULL) {
+      LoadEvents.Validation validationEvent = new LoadEvents.Validation();
+      validationEvent.begin();
+      start = System.nanoTime();
+      boolean passed = validateGLTF(gltf);
+      stats.addValidation(System.nanoTime() - start);
+      commit(validationEvent, source, ValidationLevel.FULL, passed);
+    }
+    return gltf;
+  }
+
+  private static void commit(LoadEvents.Validation event, String source, ValidationLevel level,
+      boolean passed) {
+    if (event.shouldCommit()) {
+      event.uri = source;
+      event.level = level.name();
+      event.passed = passed;
+      event.commit();
+    }
+  }
+
+  /**
+   * Complete with gltf once pending does, closing gltf if pending fails.
+   */
+  private static CompletableFuture<GLTF> closeOnFailure(GLTF gltf, CompletableFuture<?> pending) {
+    return pending.handle((ignored, t) -> {
+      if (t != null) {
+        gltf.close();
+        throw t instanceof CompletionException ? (CompletionException) t
+            : new CompletionException(t);
+      }
+      return gltf;
+    });
+  }
+
+  /**
+   * Check the rules that need buffer data, see {@link StructuralValidator#validateData(GLTF)}. Run
+   * once the buffers can be read without waiting on the load, so parsing is not held up by them.
+   * Closes gltf if it is not valid.
+   */
+  private GLTF validateData(GLTF gltf, URI uri) throws IOException {
+    if (validationLevel == ValidationLevel.OFF) {
+      return gltf;
+    }
+    String source = String.valueOf(uri);
+    LoadEvents.Validation validationEvent = new LoadEvents.Validation();
+    validationEvent.begin();
+    long start = System.nanoTime();
+    List<String> errors;
+    try {
+      errors = StructuralValidator.validateData(gltf);
+    } catch (RuntimeException e) {
+      gltf.close();
+      throw e;
+    }
+    gltf.getLoadStats().addValidation(System.nanoTime() - start);
+    commit(validationEvent, source, ValidationLevel.STRUCTURAL, errors.isEmpty());
+    if (!errors.isEmpty()) {
+      gltf.close();
+      //Sparse indices out of order or range would be read wrongly rather than fail
+      throw new IOException(source + " is not structurally valid glTF: " + errors);
+    }
+    return gltf;
+  }
+
+  private GLTF validateDataUnchecked(GLTF gltf, URI uri) {
+    try {
+      return validateData(gltf, uri);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Start fetching every buffer and every URI referenced image at once. Images stored in a
+   * bufferView are covered by fetching their buffer.
+   */
+  private CompletableFuture<Void> prefetch(GLTF gltf, Executor executor) {
+    List<CompletableFuture<?>> fetches = new ArrayList<>();
+    gltf.getBuffers().ifPresent(buffers -> buffers.forEach(buffer ->
+        fetches.add(CompletableFuture.runAsync(buffer::resolveBufferData, executor))));
+    gltf.getImages().ifPresent(images -> images.stream()
+        .filter(image -> image.getURI() != null)
+        .forEach(image ->
+            fetches.add(CompletableFuture.runAsync(image::getDirectByteBuffer, executor))));
+    return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private boolean validateGLTF(GLTF gltf) {
+    Set<ConstraintViolation<GLTF>> violations = ValidatorHolder.validator.validate(gltf);
 
     boolean ret = true;
     for (ConstraintViolation<GLTF> violation : violations) {
@@ -100,6 +413,21 @@ public class GLTFImporter {
     return iv;
   }
 
+  /**
+   * Set how JSON is turned into the data model for loads started after this call.
+   */
+  public void setParseEngine(ParseEngine parseEngine) {
+    this.parseEngine = parseEngine;
+  }
+
+  public ParseEngine getParseEngine() {
+    return parseEngine;
+  }
+
+  /**
+   * Set the BufferIO used by loads started after this call. Loads already running keep the
+   * BufferIO they started with.
+   */
   public void setBufferIO(BufferIO bufferIO) {
     this.bufferIO = bufferIO;
   }
@@ -108,6 +436,18 @@ public class GLTFImporter {
     return this.bufferIO;
   }
 
+  /**
+   * Set how much checking loads started after this call do. Defaults to {@link
+   * ValidationLevel#FULL}.
+   */
+  public void setValidationLevel(ValidationLevel validationLevel) {
+    this.validationLevel = validationLevel;
+  }
+
+  public ValidationLevel getValidationLevel() {
+    return validationLevel;
+  }
+
   /**
    * Route bufferIO function through this to ensure little endian.
    *
@@ -117,4 +457,51 @@ public class GLTFImporter {
   public ByteBuffer getDirectByteBuffer(URI uri) {
     return bufferIO.getDirectByteBuffer(uri).order(ByteOrder.LITTLE_ENDIAN).rewind();
   }
+
+  /**
+   * Engine used to read glTF JSON into the data model.
+   */
+  public enum ParseEngine {
+    /**
+     * Jackson databind, driven by the annotations on the data classes. Accessors, bufferViews,
+     * nodes and mesh primitives are read by {@link GLTFDataModule}. Fails on unknown properties.
+     */
+    DATABIND,
+    /**
+     * {@link GLTFStreamingParser}, reads tokens straight into the data classes without reflection.
+     * Skips unknown properties.
+     */
+    STREAMING
+  }
+
+  /**
+   * How much a load checks the glTF before handing it out. A load failing the structural checks
+   * fails with an IOException listing them. Bean validation problems are logged, and fail an
+   * assertion when assertions are enabled.
+   */
+  public enum ValidationLevel {
+    /**
+     * No checks.
+     */
+    OFF,
+    /**
+     * {@link StructuralValidator} only: required properties, index bounds, byte ranges and the
+     * order and range of sparse indices.
+     */
+    STRUCTURAL,
+    /**
+     * Structural checks followed by bean validation of the whole object graph.
+     */
+    FULL
+  }
+
+  /**
+   * Building a ValidatorFactory is expensive, so it is done once and only when FULL validation is
+   * first used. Validators are thread safe.
+   */
+  private static final class ValidatorHolder {
+
+    private static final Validator validator =
+        Validation.buildDefaultValidatorFactory().getValidator();
+  }
 }
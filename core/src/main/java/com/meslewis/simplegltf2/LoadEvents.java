@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for each phase of a load, all in the "SimpleGLTF2" category. They
+ * cost next to nothing unless a recording has them enabled, e.g. {@code java
+ * -XX:StartFlightRecording ...}. Lazy buffer resolution is recorded by the data package's own
+ * event.
+ */
+final class LoadEvents {
+
+  private LoadEvents() {
+  }
+
+  @Name("com.meslewis.simplegltf2.BufferRead")
+  @Label("glTF Buffer Read")
+  @Category("SimpleGLTF2")
+  @StackTrace(false)
+  static final class BufferRead extends Event {
+
+    @Label("URI")
+    String uri;
+    @Label("Offset")
+    long offset;
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+  }
+
+  @Name("com.meslewis.simplegltf2.GLBChunk")
+  @Label("GLB Chunk")
+  @Category("SimpleGLTF2")
+  @StackTrace(false)
+  static final class GLBChunk extends Event {
+
+    @Label("Chunk Type")
+    String chunkType;
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+    @Label("Streamed")
+    boolean streamed;
+  }
+
+  @Name("com.meslewis.simplegltf2.JSONParse")
+  @Label("glTF JSON Parse")
+  @Category("SimpleGLTF2")
+  @StackTrace(false)
+  static final class JSONParse extends Event {
+
+    @Label("URI")
+    String uri;
+    @Label("Parse Engine")
+    String engine;
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+  }
+
+  @Name("com.meslewis.simplegltf2.Lookup")
+  @Label("glTF Index Resolution")
+  @Category("SimpleGLTF2")
+  @StackTrace(false)
+  static final class Lookup extends Event {
+
+    @Label("URI")
+    String uri;
+  }
+
+  @Name("com.meslewis.simplegltf2.Validation")
+  @Label("glTF Validation")
+  @Category("SimpleGLTF2")
+  @StackTrace(false)
+  static final class Validation extends Event {
+
+    @Label("URI")
+    String uri;
+    @Label("Validation Level")
+    String level;
+    @Label("Passed")
+    boolean passed;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import com.meslewis.simplegltf2.data.DependencyClosure;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFMesh;
+import com.meslewis.simplegltf2.data.GLTFNode;
+import com.meslewis.simplegltf2.data.GLTFScene;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which part of a glTF file a load keeps. Anything the selection does not depend on is dropped
+ * once the JSON has been read, so its buffers and images are never fetched.
+ */
+public class LoadOptions {
+
+  private static final int ALL_SCENES = -2;
+  private static final int DEFAULT_SCENE = -1;
+
+  private int scene = ALL_SCENES;
+  private int[] nodes;
+  private int[] meshes;
+  private boolean includeAnimations = true;
+
+  private LoadOptions() {
+  }
+
+  /**
+   * Keep the whole file.
+   */
+  public static LoadOptions all() {
+    return new LoadOptions();
+  }
+
+  /**
+   * Keep the default scene, or the first scene if the file has no default.
+   */
+  public static LoadOptions defaultScene() {
+    return scene(DEFAULT_SCENE);
+  }
+
+  public static LoadOptions scene(int sceneIndex) {
+    LoadOptions options = new LoadOptions();
+    options.scene = sceneIndex;
+    return options;
+  }
+
+  /**
+   * Keep the given nodes and the hierarchy below them. No scenes are kept.
+   */
+  public static LoadOptions nodes(int... nodeIndices) {
+    LoadOptions options = new LoadOptions();
+    options.nodes = nodeIndices.clone();
+    return options;
+  }
+
+  /**
+   * Keep the given meshes only. No scenes or nodes are kept.
+   */
+  public static LoadOptions meshes(int... meshIndices) {
+    LoadOptions options = new LoadOptions();
+    options.meshes = meshIndices.clone();
+    return options;
+  }
+
+  /**
+   * Set whether animations targeting the kept nodes are kept, true by default.
+   *
+   * @return this
+   */
+  public LoadOptions setIncludeAnimations(boolean includeAnimations) {
+    this.includeAnimations = includeAnimations;
+    return this;
+  }
+
+  public boolean isIncludeAnimations() {
+    return includeAnimations;
+  }
+
+  /**
+   * @return true if these options keep the whole file
+   */
+  public boolean isAll() {
+    return scene == ALL_SCENES && nodes == null && meshes == null;
+  }
+
+  /**
+   * Drop everything from gltf these options don't select.
+   *
+   * @throws IllegalArgumentException if a selected scene, node or mesh does not exist
+   */
+  void apply(GLTF gltf) {
+    if (isAll()) {
+      return;
+    }
+    DependencyClosure closure = new DependencyClosure();
+    if (scene != ALL_SCENES) {
+      closure.addScene(findScene(gltf));
+    }
+    if (nodes != null) {
+      List<GLTFNode> gltfNodes = gltf.getNodes().orElse(Collections.emptyList());
+      for (int index : nodes) {
+        closure.addNode(get(gltfNodes, index, "node"));
+      }
+    }
+    if (meshes != null) {
+      List<GLTFMesh> gltfMeshes = gltf.getMeshes().orElse(Collections.emptyList());
+      for (int index : meshes) {
+        closure.addMesh(get(gltfMeshes, index, "mesh"));
+      }
+    }
+    if (includeAnimations) {
+      closure.addAnimations(gltf);
+    }
+    closure.retainIn(gltf);
+  }
+
+  private GLTFScene findScene(GLTF gltf) {
+    if (scene == DEFAULT_SCENE && gltf.getDefaultScene().isPresent()) {
+      return gltf.getDefaultScene().get();
+    }
+    return get(gltf.getScenes(), scene == DEFAULT_SCENE ? 0 : scene, "scene");
+  }
+
+  private static <T> T get(List<T> list, int index, String name) {
+    if (index < 0 || index >= list.size()) {
+      throw new IllegalArgumentException("No " + name + " " + index + " to load");
+    }
+    return list.get(index);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where one load spent its time. Each phase is also emitted as a JDK Flight Recorder event in the
+ * "SimpleGLTF2" category, this is the summary for code that wants the numbers without a recording.
+ * <p>
+ * Buffer reads keep counting after the load returns, buffers are fetched on first touch unless the
+ * load was asynchronous. Safe to read while the load is still running.
+ */
+public final class LoadStats {
+
+  private long glbNanos;
+  private long jsonParseNanos;
+  private long lookupNanos;
+  private long validationNanos;
+  private long bufferReadNanos;
+  private long bufferReadCount;
+  private long bufferReadBytes;
+
+  LoadStats() {
+  }
+
+  /**
+   * @return time spent reading the .glb header and chunks, including waiting on a streamed BIN
+   * chunk
+   */
+  public synchronized long getGLBNanos() {
+    return glbNanos;
+  }
+
+  public synchronized long getJSONParseNanos() {
+    return jsonParseNanos;
+  }
+
+  /**
+   * @return time spent turning indices read from the JSON into object references
+   */
+  public synchronized long getLookupNanos() {
+    return lookupNanos;
+  }
+
+  /**
+   * @return time spent in structural and bean validation
+   */
+  public synchronized long getValidationNanos() {
+    return validationNanos;
+  }
+
+  /**
+   * @return total time of every BufferIO fetch made for the load. Concurrent fetches each count
+   * in full.
+   */
+  public synchronized long getBufferReadNanos() {
+    return bufferReadNanos;
+  }
+
+  public synchronized long getBufferReadCount() {
+    return bufferReadCount;
+  }
+
+  public synchronized long getBufferReadBytes() {
+    return bufferReadBytes;
+  }
+
+  synchronized void addGLB(long nanos) {
+    glbNanos += nanos;
+  }
+
+  synchronized void addJSONParse(long nanos) {
+    jsonParseNanos += nanos;
+  }
+
+  synchronized void addLookup(long nanos) {
+    lookupNanos += nanos;
+  }
+
+  synchronized void addValidation(long nanos) {
+    validationNanos += nanos;
+  }
+
+  synchronized void addBufferRead(long nanos, long bytes) {
+    bufferReadNanos += nanos;
+    bufferReadCount++;
+    bufferReadBytes += bytes;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "LoadStats{glb=" + millis(glbNanos)
+        + ", json=" + millis(jsonParseNanos)
+        + ", lookup=" + millis(lookupNanos)
+        + ", validation=" + millis(validationNanos)
+        + ", bufferReads=" + bufferReadCount + " (" + bufferReadBytes + " bytes, "
+        + millis(bufferReadNanos) + ")}";
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import com.meslewis.simplegltf2.GLTFImporter.ParseEngine;
+import com.meslewis.simplegltf2.GLTFImporter.ValidationLevel;
+import com.meslewis.simplegltf2.data.GLTF;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads glTF files through cooked snapshots kept in a directory. The first load of a file parses,
+ * validates and resolves it as usual, then writes a snapshot: a .glb with every buffer and image
+ * in one 16 byte aligned BIN chunk, and min and max filled in for FLOAT accessors that lack them.
+ * Later loads map the snapshot read only, so any number of processes can share one directory and
+ * the page cache behind it.
+ * <p>
+ * A snapshot is not a binary image of the resolved object graph. Its JSON chunk is parsed again
+ * on every load, with the streaming engine, and indices are resolved again. What a reload saves
+ * is validation, one fetch per external buffer and image, and decoding data URIs; see
+ * LoadBenchmark.loadSnapshot for how much that is on a given model.
+ * <p>
+ * A snapshot is cooked again once any of its source files change. Files with the same size and
+ * modification time as when it was cooked are trusted, otherwise they are hashed and compared to
+ * the SHA-256 recorded in the snapshot. A file rewritten with the same size within the file
+ * system's timestamp resolution is not noticed.
+ * <p>
+ * Only "file" URIs are cooked, anything else and any file that can't be cooked is loaded
+ * directly. A GLTF loaded from a snapshot reports the snapshot as its source.
+ */
+public final class SnapshotCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotCache.class);
+
+  private final Path directory;
+  private final GLTFImporter importer;
+  private final GLTFImporter snapshotImporter = new GLTFImporter();
+
+  /**
+   * @param directory where snapshots are kept, created if missing
+   * @param importer  loads sources, with its own validation level and parse engine. Its BufferIO,
+   *                  as set when this cache is created, also reads snapshots.
+   */
+  public SnapshotCache(Path directory, GLTFImporter importer) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.importer = importer;
+    //Validated when cooked
+    snapshotImporter.setValidationLevel(ValidationLevel.OFF);
+    snapshotImporter.setParseEngine(ParseEngine.STREAMING);
+    snapshotImporter.setBufferIO(importer.getBufferIO());
+  }
+
+  public GLTF load(URI source) {
+    return load(source, LoadOptions.all());
+  }
+
+  /**
+   * Load source from its snapshot, cooking it first if it is missing or stale.
+   *
+   * @return the loaded GLTF, or null if loading failed
+   */
+  public GLTF load(URI source, LoadOptions options) {
+    if (!"file".equals(source.getScheme())) {
+      return importer.load(source, options);
+    }
+    Path snapshot = getSnapshotPath(source);
+    try {
+      if (!SnapshotCooker.isFresh(snapshot)) {
+        logger.info("Cooking snapshot of " + source + " to " + snapshot);
+        SnapshotCooker.cook(importer, source, snapshot);
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not snapshot " + source + ", loading it directly: " + e);
+      return importer.load(source, options);
+    }
+    return snapshotImporter.load(snapshot.toUri(), options);
+  }
+
+  /**
+   * Cook source now, replacing any snapshot of it, e.g. ahead of the first job that loads it.
+   */
+  public void cook(URI source) throws IOException {
+    SnapshotCooker.cook(importer, source, getSnapshotPath(source));
+  }
+
+  /**
+   * @return true if source has a snapshot that is up to date
+   */
+  public boolean isFresh(URI source) throws IOException {
+    return SnapshotCooker.isFresh(getSnapshotPath(source));
+  }
+
+  /**
+   * @return where the snapshot of source is kept, named by a hash of its URI
+   */
+  public Path getSnapshotPath(URI source) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest(source.normalize().toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder name = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        name.append(String.format("%02x", hash[i]));
+      }
+      return directory.resolve(name + ".glb");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required of every JVM", e);
+    }
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+}
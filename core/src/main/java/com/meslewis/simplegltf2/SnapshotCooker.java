@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.meslewis.simplegltf2.data.BufferSegment;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFBuffer;
+import com.meslewis.simplegltf2.data.GLTFImage;
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes and checks snapshots, see {@link SnapshotCache}. A snapshot is a .glb laid out for
+ * loading straight from a mapping:
+ * <ul>
+ * <li>a JSON chunk padded so the BIN chunk's data starts 16 byte aligned in the file</li>
+ * <li>a BIN chunk holding every bufferView, each 16 byte aligned, followed by every image that
+ * was referenced by URI</li>
+ * <li>a "SNAP" chunk, skipped by .glb readers, with the fingerprint of the source files</li>
+ * </ul>
+ * Buffers and images move into the BIN chunk, and FLOAT accessors without min and max get them.
+ * Other accessors, and sparse ones, are left as they were. The JSON otherwise keeps the source's
+ * object graph, it is re-parsed and re-resolved whenever the snapshot is loaded.
+ */
+final class SnapshotCooker {
+
+  /**
+   * Bumped whenever the layout changes, so older snapshots are cooked again
+   */
+  static final int VERSION = 1;
+
+  private static final int GLB_MAGIC = 0x46546C67;
+  private static final int JSON_CHUNK = 0x4E4F534A;
+  private static final int BIN_CHUNK = 0x004E4942;
+  /**
+   * "SNAP" read as a little endian int
+   */
+  private static final int SNAPSHOT_CHUNK = 0x50414E53;
+  private static final int ALIGNMENT = 16;
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private SnapshotCooker() {
+  }
+
+  /**
+   * Load source with importer and write its snapshot. The snapshot is written beside its final
+   * path and moved into place, so readers never see part of one.
+   */
+  static void cook(GLTFImporter importer, URI source, Path snapshot) throws IOException {
+    ObjectNode json = readJSON(source);
+    //Fingerprint before loading, a source changed in between then only costs another cook
+    ObjectNode fingerprint = fingerprint(source, sourceFiles(source, json));
+
+    GLTF gltf = importer.load(source);
+    if (gltf == null) {
+      throw new IOException("Could not load " + source);
+    }
+    try (gltf) {
+      List<BufferSegment> pieces = new ArrayList<>();
+      long binLength = layOut(gltf, json, pieces);
+      addBounds(json, pieces);
+      write(snapshot, mapper.writeValueAsBytes(json), pieces, json,
+          mapper.writeValueAsBytes(fingerprint), binLength);
+    }
+  }
+
+  /**
+   * @return true if snapshot was cooked by this version from source files that still have the
+   * same size and modification time, or failing that the same content hash
+   */
+  static boolean isFresh(Path snapshot) throws IOException {
+    if (!Files.isRegularFile(snapshot)) {
+      return false;
+    }
+    JsonNode fingerprint = readFingerprint(snapshot);
+    if (fingerprint == null || fingerprint.path("version").asInt() != VERSION) {
+      return false;
+    }
+    List<Path> files = new ArrayList<>();
+    boolean unchanged = true;
+    for (JsonNode file : fingerprint.path("files")) {
+      Path path = Paths.get(URI.create(file.path("uri").asText()));
+      if (!Files.isRegularFile(path)) {
+        return false;
+      }
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      unchanged &= attributes.size() == file.path("size").asLong()
+          && attributes.lastModifiedTime().toMillis() == file.path("modified").asLong();
+      files.add(path);
+    }
+    //Touched but not changed is still fresh
+    return unchanged || hash(files).equals(fingerprint.path("sha256").asText());
+  }
+
+  private static ObjectNode readJSON(URI source) throws IOException {
+    if (!source.toString().endsWith(".glb")) {
+      return (ObjectNode) mapper.readTree(Files.readAllBytes(Paths.get(source)));
+    }
+    try (BufferArena arena = new BufferArena(new DefaultBufferIO())) {
+      GLBLoader glbLoader = new GLBLoader(arena);
+      glbLoader.procesGLB(source);
+      ByteBuffer json = glbLoader.jsonData();
+      byte[] bytes = new byte[json.remaining()];
+      json.get(bytes);
+      return (ObjectNode) mapper.readTree(bytes);
+    }
+  }
+
+  /**
+   * @return source and every buffer and image file it references, in document order
+   */
+  private static List<Path> sourceFiles(URI source, ObjectNode json) {
+    Set<Path> files = new LinkedHashSet<>();
+    files.add(Paths.get(source));
+    for (String property : new String[]{"buffers", "images"}) {
+      for (JsonNode node : json.path(property)) {
+        String uri = node.path("uri").asText(null);
+        if (uri != null && !uri.startsWith("data:")) {
+          //Resolved the way GLTF resolves it
+          files.add(Paths.get(source.resolve(URI.create(uri).getPath())));
+        }
+      }
+    }
+    return new ArrayList<>(files);
+  }
+
+  private static ObjectNode fingerprint(URI source, List<Path> files) throws IOException {
+    ObjectNode fingerprint = mapper.createObjectNode().put("version", VERSION)
+        .put("source", source.toString());
+    ArrayNode entries = fingerprint.putArray("files");
+    for (Path file : files) {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      entries.addObject().put("uri", file.toUri().toString()).put("size", attributes.size())
+          .put("modified", attributes.lastModifiedTime().toMillis());
+    }
+    return fingerprint.put("sha256", hash(files));
+  }
+
+  /**
+   * SHA-256 of each file's length and content in turn
+   */
+  private static String hash(List<Path> files) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required of every JVM", e);
+    }
+    ByteBuffer scratch = ByteBuffer.allocateDirect(1 << 16);
+    for (Path file : files) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, channel.size()));
+        while (channel.read(scratch.clear()) > 0) {
+          digest.update(scratch.flip());
+        }
+      }
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Point every bufferView at its aligned place in the one snapshot buffer, and move images
+   * referenced by URI into bufferViews of their own at the end.
+   *
+   * @param pieces filled with the data of each bufferView, in order
+   * @return length of the snapshot buffer
+   */
+  private static long layOut(GLTF gltf, ObjectNode json, List<BufferSegment> pieces) {
+    List<GLTFBuffer> buffers = gltf.getBuffers().orElse(List.of());
+    ArrayNode views = json.has("bufferViews") ? (ArrayNode) json.get("bufferViews")
+        : mapper.createArrayNode();
+    long position = 0;
+    for (JsonNode node : views) {
+      ObjectNode view = (ObjectNode) node;
+      GLTFBuffer buffer = buffers.get(view.path("buffer").asInt());
+      long length = view.path("byteLength").asLong();
+      pieces.add(buffer.getSegment(view.path("byteOffset").asLong(0), length));
+      position = align(position);
+      view.put("buffer", 0).put("byteOffset", position);
+      position += length;
+    }
+
+    List<GLTFImage> images = gltf.getImages().orElse(List.of());
+    for (int i = 0; i < images.size(); i++) {
+      ObjectNode image = (ObjectNode) json.get("images").get(i);
+      if (image.has("uri")) {
+        GLTFImage loaded = images.get(i);
+        BufferSegment data = BufferSegment.of(loaded.getDirectByteBuffer());
+        pieces.add(data);
+        position = align(position);
+        image.put("bufferView", views.size()).put("mimeType", loaded.getMimeType());
+        image.remove("uri");
+        views.addObject().put("buffer", 0).put("byteOffset", position)
+            .put("byteLength", data.length());
+        position += data.length();
+      }
+    }
+
+    if (views.size() > 0) {
+      json.set("bufferViews", views);
+      json.putArray("buffers").addObject().put("byteLength", position);
+    } else {
+      json.remove("buffers");
+    }
+    return position;
+  }
+
+  /**
+   * Fill in min and max of FLOAT accessors stored in a bufferView, unless they are sparse or hold
+   * values that JSON can't
+   */
+  private static void addBounds(ObjectNode json, List<BufferSegment> pieces) {
+    for (JsonNode node : json.path("accessors")) {
+      ObjectNode accessor = (ObjectNode) node;
+      if (accessor.path("componentType").asInt() != 5126 || !accessor.has("bufferView")
+          || accessor.has("sparse") || (accessor.has("min") && accessor.has("max"))) {
+        continue;
+      }
+      int components = components(accessor.path("type").asText());
+      int view = accessor.path("bufferView").asInt();
+      int stride = json.get("bufferViews").get(view).path("byteStride").asInt(0);
+      if (stride == 0) {
+        stride = components * Float.BYTES;
+      }
+      float[] min = new float[components];
+      float[] max = new float[components];
+      if (bounds(pieces.get(view), accessor.path("byteOffset").asLong(0), stride,
+          accessor.path("count").asInt(), min, max)) {
+        ArrayNode minArray = accessor.putArray("min");
+        ArrayNode maxArray = accessor.putArray("max");
+        for (int c = 0; c < components; c++) {
+          minArray.add(min[c]);
+          maxArray.add(max[c]);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return false if a value is NaN or infinite
+   */
+  private static boolean bounds(BufferSegment data, long byteOffset, int stride, int count,
+      float[] min, float[] max) {
+    if (count == 0) {
+      return false;
+    }
+    for (int c = 0; c < min.length; c++) {
+      min[c] = Float.POSITIVE_INFINITY;
+      max[c] = Float.NEGATIVE_INFINITY;
+    }
+    for (int e = 0; e < count; e++) {
+      for (int c = 0; c < min.length; c++) {
+        float value = data.getFloat(byteOffset + (long) e * stride + c * Float.BYTES);
+        if (!Float.isFinite(value)) {
+          return false;
+        }
+        min[c] = Math.min(min[c], value);
+        max[c] = Math.max(max[c], value);
+      }
+    }
+    return true;
+  }
+
+  private static int components(String type) {
+    switch (type) {
+      case "VEC2":
+        return 2;
+      case "VEC3":
+        return 3;
+      case "VEC4":
+      case "MAT2":
+        return 4;
+      case "MAT3":
+        return 9;
+      case "MAT4":
+        return 16;
+      default:
+        return 1;
+    }
+  }
+
+  private static void write(Path snapshot, byte[] jsonBytes, List<BufferSegment> pieces,
+      ObjectNode json, byte[] fingerprint, long binLength) throws IOException {
+    //Header, JSON chunk header and BIN chunk header before the BIN data
+    int jsonLength = (int) (align(jsonBytes.length + 28L) - 28);
+    int fingerprintLength = (fingerprint.length + 3) & ~3;
+    long paddedBin = (binLength + 3) & ~3L;
+    long binStart = 12 + 8 + jsonLength + 8;
+    long total = 12 + 8 + jsonLength + (binLength > 0 ? 8 + paddedBin : 0) + 8 + fingerprintLength;
+    if (total > Integer.MAX_VALUE) {
+      throw new IOException("Snapshot would be " + total + " bytes, over the 2 GB .glb limit");
+    }
+
+    Path temp = Files.createTempFile(snapshot.getParent(), "snapshot", ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(GLB_MAGIC).putInt(2).putInt((int) total).putInt(jsonLength)
+            .putInt(JSON_CHUNK);
+        writeFully(out, header.flip());
+        writeFully(out, padded(jsonBytes, jsonLength));
+        if (binLength > 0) {
+          ByteBuffer binHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+          writeFully(out, binHeader.putInt((int) paddedBin).putInt(BIN_CHUNK).flip());
+          JsonNode views = json.get("bufferViews");
+          for (int i = 0; i < pieces.size(); i++) {
+            out.position(binStart + views.get(i).path("byteOffset").asLong());
+            pieces.get(i).writeTo(out);
+          }
+          out.position(binStart + paddedBin);
+        }
+        ByteBuffer snapshotHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        writeFully(out, snapshotHeader.putInt(fingerprintLength).putInt(SNAPSHOT_CHUNK).flip());
+        writeFully(out, padded(fingerprint, fingerprintLength));
+      }
+      Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * @return the fingerprint in the SNAP chunk, or null if there isn't one
+   */
+  private static JsonNode readFingerprint(Path snapshot) throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+      if (channel.read(header, 0) < 12 || header.getInt(0) != GLB_MAGIC) {
+        return null;
+      }
+      long length = Math.min(Integer.toUnsignedLong(header.getInt(8)), channel.size());
+      long position = 12;
+      ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+      while (position + 8 <= length) {
+        chunkHeader.clear();
+        channel.read(chunkHeader, position);
+        long chunkLength = Integer.toUnsignedLong(chunkHeader.getInt(0));
+        position += 8;
+        if (chunkHeader.getInt(4) == SNAPSHOT_CHUNK && position + chunkLength <= length) {
+          ByteBuffer chunk = ByteBuffer.allocate((int) chunkLength);
+          channel.read(chunk, position);
+          return mapper.readTree(chunk.array());
+        }
+        position += (chunkLength + 3) & ~3L;
+      }
+      return null;
+    }
+  }
+
+  private static ByteBuffer padded(byte[] bytes, int length) {
+    ByteBuffer buffer = ByteBuffer.allocate(length).put(bytes);
+    while (buffer.hasRemaining()) {
+      buffer.put((byte) ' ');
+    }
+    return buffer.flip();
+  }
+
+  private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+
+  private static long align(long position) {
+    return (position + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Decodes runs of accessor elements from one little endian ByteBuffer. The component type is
+ * switched on once per run instead of once per component, tightly packed floats are copied in bulk
+ * and byte types are converted through lookup tables.
+ */
+final class AccessorDecoder {
+
+  /**
+   * {@link GLTFAccessorComponentType#intToFloat(int)} of every byte value, indexed by the unsigned
+   * byte
+   */
+  private static final float[] BYTE_TABLE = table(GLTFAccessorComponentType.BYTE, true);
+  private static final float[] UNSIGNED_BYTE_TABLE = table(GLTFAccessorComponentType.UNSIGNED_BYTE,
+      false);
+
+  private AccessorDecoder() {
+  }
+
+  private static float[] table(GLTFAccessorComponentType type, boolean signed) {
+    float[] table = new float[256];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = type.intToFloat(signed ? (byte) i : i);
+    }
+    return table;
+  }
+
+  /**
+   * @return a little endian view of the floats in data from byte offset on
+   */
+  static FloatBuffer floatView(ByteBuffer data, int offset) {
+    ByteBuffer view = data.duplicate();
+    view.position(offset);
+    return view.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+  }
+
+  /**
+   * Convert elementCount elements of components each to floats, as {@link
+   * GLTFAccessor#getFloat(long)} would.
+   *
+   * @param offset byte offset of the first element in data
+   * @param stride bytes from the start of one element to the next
+   */
+  static void decodeFloats(ByteBuffer data, int offset, int stride,
+      GLTFAccessorComponentType type, int components, int elementCount, float[] dest,
+      int destOffset) {
+    int size = type.getSizeInBytes();
+    if (type == GLTFAccessorComponentType.FLOAT && stride == components * size) {
+      floatView(data, offset).get(dest, destOffset, elementCount * components);
+      return;
+    }
+    int out = destOffset;
+    int position = offset;
+    switch (type) {
+      case FLOAT:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.getFloat(position + c * Float.BYTES);
+          }
+        }
+        break;
+      case BYTE:
+        decodeBytes(data, position, stride, components, elementCount, dest, out, BYTE_TABLE);
+        break;
+      case UNSIGNED_BYTE:
+        decodeBytes(data, position, stride, components, elementCount, dest, out,
+            UNSIGNED_BYTE_TABLE);
+        break;
+      case SHORT:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = GLTFAccessorComponentType.SHORT
+                .intToFloat(data.getShort(position + c * Short.BYTES));
+          }
+        }
+        break;
+      case UNSIGNED_SHORT:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = GLTFAccessorComponentType.UNSIGNED_SHORT
+                .intToFloat(data.getShort(position + c * Short.BYTES) & 0xFFFF);
+          }
+        }
+        break;
+      case UNSIGNED_INT:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.getInt(position + c * Integer.BYTES);
+          }
+        }
+        break;
+    }
+  }
+
+  private static void decodeBytes(ByteBuffer data, int position, int stride, int components,
+      int elementCount, float[] dest, int out, float[] table) {
+    for (int e = 0; e < elementCount; e++, position += stride) {
+      for (int c = 0; c < components; c++) {
+        dest[out++] = table[data.get(position + c) & 0xFF];
+      }
+    }
+  }
+
+  /**
+   * Read elementCount elements of components each as integers, without normalization. Signed
+   * types are sign extended.
+   *
+   * @param offset byte offset of the first element in data
+   * @param stride bytes from the start of one element to the next
+   * @throws IllegalStateException if type is FLOAT
+   */
+  static void decodeInts(ByteBuffer data, int offset, int stride,
+      GLTFAccessorComponentType type, int components, int elementCount, int[] dest,
+      int destOffset) {
+    int out = destOffset;
+    int position = offset;
+    switch (type) {
+      case BYTE:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.get(position + c);
+          }
+        }
+        break;
+      case UNSIGNED_BYTE:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.get(position + c) & 0xFF;
+          }
+        }
+        break;
+      case SHORT:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.getShort(position + c * Short.BYTES);
+          }
+        }
+        break;
+      case UNSIGNED_SHORT:
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.getShort(position + c * Short.BYTES) & 0xFFFF;
+          }
+        }
+        break;
+      case UNSIGNED_INT:
+        if (components == 1 && stride == Integer.BYTES) {
+          ByteBuffer view = data.duplicate();
+          view.position(offset);
+          view.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()
+              .get(dest, destOffset, elementCount);
+          return;
+        }
+        for (int e = 0; e < elementCount; e++, position += stride) {
+          for (int c = 0; c < components; c++) {
+            dest[out++] = data.getInt(position + c * Integer.BYTES);
+          }
+        }
+        break;
+      default:
+        throw new IllegalStateException("Can't read " + type + " components as integers");
+    }
+  }
+}
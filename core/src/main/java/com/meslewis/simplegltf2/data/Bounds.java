@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import org.joml.AABBf;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+/**
+ * An immutable axis aligned box and bounding sphere around some geometry, see {@link
+ * BoundsService}. The sphere encloses the geometry but is not the smallest one that does.
+ */
+public final class Bounds {
+
+  /**
+   * Bounds of nothing, e.g. a primitive without POSITION. Its box has min above max and its radius
+   * is negative.
+   */
+  public static final Bounds EMPTY = new Bounds(
+      new Vector3f(Float.POSITIVE_INFINITY), new Vector3f(Float.NEGATIVE_INFINITY),
+      new Vector3f(), -1);
+
+  private final Vector3f min;
+  private final Vector3f max;
+  private final Vector3f center;
+  private final float radius;
+
+  Bounds(Vector3f min, Vector3f max, Vector3f center, float radius) {
+    this.min = min;
+    this.max = max;
+    this.center = center;
+    this.radius = radius;
+  }
+
+  public boolean isEmpty() {
+    return radius < 0;
+  }
+
+  public Vector3fc getMin() {
+    return min;
+  }
+
+  public Vector3fc getMax() {
+    return max;
+  }
+
+  /**
+   * @return the center of the bounding sphere
+   */
+  public Vector3fc getCenter() {
+    return center;
+  }
+
+  /**
+   * @return the radius of the bounding sphere, negative if empty
+   */
+  public float getRadius() {
+    return radius;
+  }
+
+  /**
+   * @return dest, set to this box
+   */
+  public AABBf getBox(AABBf dest) {
+    return dest.setMin(min).setMax(max);
+  }
+
+  /**
+   * @return bounds enclosing both this and other
+   */
+  public Bounds union(Bounds other) {
+    if (isEmpty()) {
+      return other;
+    }
+    if (other.isEmpty()) {
+      return this;
+    }
+    Vector3f unionMin = new Vector3f(min).min(other.min);
+    Vector3f unionMax = new Vector3f(max).max(other.max);
+    float distance = center.distance(other.center);
+    if (distance + other.radius <= radius) {
+      return new Bounds(unionMin, unionMax, center, radius);
+    }
+    if (distance + radius <= other.radius) {
+      return new Bounds(unionMin, unionMax, other.center, other.radius);
+    }
+    float unionRadius = (distance + radius + other.radius) / 2;
+    Vector3f unionCenter = new Vector3f(other.center).sub(center)
+        .mul((unionRadius - radius) / distance).add(center);
+    return new Bounds(unionMin, unionMax, unionCenter, unionRadius);
+  }
+
+  /**
+   * @return bounds enclosing this after transforming it by matrix, an affine transform
+   */
+  public Bounds transform(Matrix4fc matrix) {
+    if (isEmpty()) {
+      return this;
+    }
+    Vector3f transformedMin = new Vector3f();
+    Vector3f transformedMax = new Vector3f();
+    matrix.transformAab(min, max, transformedMin, transformedMax);
+    Vector3f scale = matrix.getScale(new Vector3f());
+    float maxScale = Math.max(scale.x, Math.max(scale.y, scale.z));
+    return new Bounds(transformedMin, transformedMax,
+        matrix.transformPosition(center, new Vector3f()), radius * maxScale);
+  }
+
+  @Override
+  public String toString() {
+    return "Bounds{min=" + min + ", max=" + max + ", center=" + center + ", radius=" + radius
+        + "}";
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * Computes bounds of accessors, primitives, meshes and scenes, splitting passes over large
+ * accessors into fork-join tasks. Results are cached on the model, so each is computed at most once
+ * per GLTF unless two threads ask for it at the same time, and remain available after the GLTF is
+ * closed. Rewriting a primitive, e.g. with {@link MeshOptimizer}, forgets the bounds of it, its
+ * mesh and every scene, so bounds must not be asked for while a pass rewrites the primitives they
+ * cover.
+ * <p>
+ * Morph targets and skinning are not taken into account.
+ */
+public final class BoundsService {
+
+  /**
+   * Elements a task reads itself rather than splitting
+   */
+  static final int LEAF_ELEMENTS = 1 << 15;
+  /**
+   * Elements decoded per call to readFloats
+   */
+  private static final int BATCH = 1024;
+
+  private static final BoundsService DEFAULT = new BoundsService(ForkJoinPool.commonPool());
+
+  private final ForkJoinPool pool;
+
+  public BoundsService(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * @return a service running on the common pool
+   */
+  public static BoundsService getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Min and max of each component of accessor, as {@link GLTFAccessor#getFloat(long)} reads them.
+   * Declared values are used when present, converted from the raw component values they are
+   * written in, otherwise they are computed from the data with sparse values applied.
+   *
+   * @return min then max, shared and not to be modified
+   */
+  public float[][] getMinMax(GLTFAccessor accessor) {
+    int components = accessor.getDataType().getPrimitiveCount();
+    GLTFAccessorComponentType type = accessor.getPrimitiveType();
+    float[] min = accessor.getMin();
+    float[] max = accessor.getMax();
+    boolean declared = min != null && max != null && min.length == components
+        && max.length == components;
+    if (declared && type == GLTFAccessorComponentType.FLOAT) {
+      return new float[][]{min, max};
+    }
+    float[][] computed = accessor.getComputedMinMax();
+    if (computed == null) {
+      if (declared) {
+        computed = new float[][]{toFloats(type, min), toFloats(type, max)};
+      } else {
+        accessor.gltf.checkOpen();
+        float[] packed = invoke(new MinMaxTask(accessor, 0, accessor.getElementCount()));
+        computed = new float[][]{Arrays.copyOf(packed, components),
+            Arrays.copyOfRange(packed, components, components * 2)};
+      }
+      accessor.setComputedMinMax(computed);
+    }
+    return computed;
+  }
+
+  /**
+   * Convert declared integer component values the way getFloat converts the data
+   */
+  private static float[] toFloats(GLTFAccessorComponentType type, float[] values) {
+    float[] converted = new float[values.length];
+    for (int c = 0; c < values.length; c++) {
+      //Through long so UNSIGNED_INT values past Integer.MAX_VALUE wrap as they do when read
+      converted[c] = type.intToFloat((int) (long) values[c]);
+    }
+    return converted;
+  }
+
+  /**
+   * Bounds of the POSITION attribute of primitive. The box is its min and max, the sphere is
+   * centered on the box and just reaches the furthest vertex.
+   *
+   * @return bounds in the primitive's space, {@link Bounds#EMPTY} if it has no positions
+   */
+  public Bounds getBounds(GLTFMeshPrimitive primitive) {
+    Bounds bounds = primitive.getCachedBounds();
+    if (bounds == null) {
+      GLTFAccessor positions = primitive.getAttributes() == null ? null
+          : primitive.getAttributes().get("POSITION");
+      if (positions == null || positions.getDataType() != GLTFAccessorDataType.VEC3) {
+        bounds = Bounds.EMPTY;
+      } else {
+        float[][] minMax = getMinMax(positions);
+        Vector3f min = new Vector3f(minMax[0][0], minMax[0][1], minMax[0][2]);
+        Vector3f max = new Vector3f(minMax[1][0], minMax[1][1], minMax[1][2]);
+        Vector3f center = new Vector3f(min).add(max).mul(0.5f);
+        positions.gltf.checkOpen();
+        float radiusSquared = invoke(
+            new RadiusTask(positions, center, 0, positions.getElementCount()));
+        bounds = new Bounds(min, max, center, (float) Math.sqrt(radiusSquared));
+      }
+      primitive.setCachedBounds(bounds);
+    }
+    return bounds;
+  }
+
+  /**
+   * @return the union of the bounds of the primitives of mesh, in the mesh's space
+   */
+  public Bounds getBounds(GLTFMesh mesh) {
+    Bounds bounds = mesh.getCachedBounds();
+    if (bounds == null) {
+      bounds = Bounds.EMPTY;
+      for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+        bounds = bounds.union(getBounds(primitive));
+      }
+      mesh.setCachedBounds(bounds);
+    }
+    return bounds;
+  }
+
+  /**
+   * @return the union of the bounds of every mesh in scene, each transformed by the world transform
+   * of its node
+   */
+  public Bounds getBounds(GLTFScene scene) {
+    Bounds bounds = scene.getCachedBounds();
+    if (bounds == null) {
+      bounds = Bounds.EMPTY;
+      if (scene.getRootNodes() != null) {
+        SceneGraph graph = SceneGraph.of(scene.gltf);
+        float[] worlds = new float[graph.getNodeCount() * 16];
+        graph.computeWorldMatrices(worlds);
+        Matrix4f world = new Matrix4f();
+        Deque<Integer> pending = new ArrayDeque<>();
+        for (GLTFNode root : scene.getRootNodes()) {
+          pending.push(root.getIndex());
+        }
+        while (!pending.isEmpty()) {
+          int node = pending.pop();
+          int mesh = graph.getMesh(node);
+          if (mesh != -1) {
+            world.set(worlds, node * 16);
+            bounds = bounds.union(getBounds(scene.gltf.getMesh(mesh)).transform(world));
+          }
+          for (int i = 0; i < graph.getChildCount(node); i++) {
+            pending.push(graph.getChild(node, i));
+          }
+        }
+      }
+      scene.setCachedBounds(bounds);
+    }
+    return bounds;
+  }
+
+  /**
+   * {@link #getBounds(GLTFMeshPrimitive)} on this service's pool
+   */
+  public CompletableFuture<Bounds> getBoundsAsync(GLTFMeshPrimitive primitive) {
+    return CompletableFuture.supplyAsync(() -> getBounds(primitive), pool);
+  }
+
+  /**
+   * {@link #getBounds(GLTFScene)} on this service's pool, e.g. to fit a camera without blocking
+   * the render thread
+   */
+  public CompletableFuture<Bounds> getBoundsAsync(GLTFScene scene) {
+    return CompletableFuture.supplyAsync(() -> getBounds(scene), pool);
+  }
+
+  private <T> T invoke(RecursiveTask<T> task) {
+    return ForkJoinTask.inForkJoinPool() ? task.invoke() : pool.invoke(task);
+  }
+
+  /**
+   * Reads elements [first, first + count) in batches, passing each to visit
+   */
+  private abstract static class AccessorTask<T> extends RecursiveTask<T> {
+
+    final GLTFAccessor accessor;
+    final int first;
+    final int count;
+
+    AccessorTask(GLTFAccessor accessor, int first, int count) {
+      this.accessor = accessor;
+      this.first = first;
+      this.count = count;
+    }
+
+    @Override
+    protected T compute() {
+      if (count <= LEAF_ELEMENTS) {
+        int components = accessor.getDataType().getPrimitiveCount();
+        float[] batch = new float[Math.min(count, BATCH) * components];
+        for (int e = 0; e < count; e += BATCH) {
+          int n = Math.min(BATCH, count - e);
+          accessor.readFloats(first + e, n, batch, 0);
+          visit(batch, n * components);
+        }
+        return result();
+      }
+      int half = count / 2;
+      AccessorTask<T> left = split(first, half);
+      left.fork();
+      T right = split(first + half, count - half).compute();
+      return merge(left.join(), right);
+    }
+
+    abstract AccessorTask<T> split(int first, int count);
+
+    abstract void visit(float[] batch, int length);
+
+    abstract T result();
+
+    abstract T merge(T left, T right);
+  }
+
+  /**
+   * Min of each component followed by max of each component
+   */
+  private static final class MinMaxTask extends AccessorTask<float[]> {
+
+    private final float[] minMax;
+
+    MinMaxTask(GLTFAccessor accessor, int first, int count) {
+      super(accessor, first, count);
+      int components = accessor.getDataType().getPrimitiveCount();
+      minMax = new float[components * 2];
+      Arrays.fill(minMax, 0, components, Float.POSITIVE_INFINITY);
+      Arrays.fill(minMax, components, components * 2, Float.NEGATIVE_INFINITY);
+    }
+
+    @Override
+    AccessorTask<float[]> split(int first, int count) {
+      return new MinMaxTask(accessor, first, count);
+    }
+
+    @Override
+    void visit(float[] batch, int length) {
+      int components = minMax.length / 2;
+      for (int i = 0; i < length; i += components) {
+        for (int c = 0; c < components; c++) {
+          float value = batch[i + c];
+          if (value < minMax[c]) {
+            minMax[c] = value;
+          }
+          if (value > minMax[components + c]) {
+            minMax[components + c] = value;
+          }
+        }
+      }
+    }
+
+    @Override
+    float[] result() {
+      return minMax;
+    }
+
+    @Override
+    float[] merge(float[] left, float[] right) {
+      int components = left.length / 2;
+      for (int c = 0; c < components; c++) {
+        left[c] = Math.min(left[c], right[c]);
+        left[components + c] = Math.max(left[components + c], right[components + c]);
+      }
+      return left;
+    }
+  }
+
+  /**
+   * Largest squared distance of a VEC3 element from center
+   */
+  private static final class RadiusTask extends AccessorTask<Float> {
+
+    private final Vector3f center;
+    private float radiusSquared;
+
+    RadiusTask(GLTFAccessor accessor, Vector3f center, int first, int count) {
+      super(accessor, first, count);
+      this.center = center;
+    }
+
+    @Override
+    AccessorTask<Float> split(int first, int count) {
+      return new RadiusTask(accessor, center, first, count);
+    }
+
+    @Override
+    void visit(float[] batch, int length) {
+      for (int i = 0; i < length; i += 3) {
+        float x = batch[i] - center.x;
+        float y = batch[i + 1] - center.y;
+        float z = batch[i + 2] - center.z;
+        radiusSquared = Math.max(radiusSquared, x * x + y * y + z * z);
+      }
+    }
+
+    @Override
+    Float result() {
+      return radiusSquared;
+    }
+
+    @Override
+    Float merge(Float left, Float right) {
+      return Math.max(left, right);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for the first touch of a range of a {@link GLTFBuffer}, whether from
+ * {@link GLTFBuffer#resolveBufferData()} or a lazy accessor read. The stack trace shows which.
+ */
+@Name("com.meslewis.simplegltf2.BufferResolve")
+@Label("glTF Buffer Resolve")
+@Category("SimpleGLTF2")
+final class BufferResolveEvent extends Event {
+
+  @Label("URI")
+  String uri;
+  @Label("Offset")
+  long offset;
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Read only, little endian view of buffer data addressed with long offsets. A ByteBuffer is limited
+ * to 2 GB, so larger ranges are made of several chunks laid end to end. Every read is bounds
+ * checked against the segment, not just the chunk it lands in.
+ * <p>
+ * Chunks are slices of buffers owned by the GLTF they came from and must not be used after it is
+ * closed.
+ */
+public final class BufferSegment {
+
+  private final ByteBuffer[] chunks;
+  /**
+   * Offset of each chunk within this segment
+   */
+  private final long[] starts;
+  private final long length;
+
+  /**
+   * @param chunks the remaining bytes of each, in order. Empty chunks are left out.
+   */
+  BufferSegment(ByteBuffer... chunks) {
+    ByteBuffer[] kept = new ByteBuffer[chunks.length];
+    long[] keptStarts = new long[chunks.length];
+    int count = 0;
+    long offset = 0;
+    for (ByteBuffer chunk : chunks) {
+      if (chunk.hasRemaining()) {
+        kept[count] = chunk.slice().order(ByteOrder.LITTLE_ENDIAN);
+        keptStarts[count++] = offset;
+        offset += chunk.remaining();
+      }
+    }
+    this.chunks = Arrays.copyOf(kept, count);
+    this.starts = Arrays.copyOf(keptStarts, count);
+    this.length = offset;
+  }
+
+  /**
+   * @return a segment over the remaining bytes of each chunk, in order
+   */
+  public static BufferSegment of(ByteBuffer... chunks) {
+    return new BufferSegment(chunks);
+  }
+
+  public long length() {
+    return length;
+  }
+
+  /**
+   * @return true if this segment is a single ByteBuffer, see {@link #asByteBuffer()}
+   */
+  public boolean isContiguous() {
+    return chunks.length <= 1;
+  }
+
+  /**
+   * @return a little endian view of this segment's memory
+   * @throws IllegalStateException if the segment spans more than one chunk
+   */
+  public ByteBuffer asByteBuffer() {
+    if (chunks.length == 0) {
+      return ByteBuffer.allocateDirect(0).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if (chunks.length > 1) {
+      throw new IllegalStateException(
+          "Segment of " + length + " bytes does not fit in one ByteBuffer");
+    }
+    return chunks[0].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return a segment of length bytes starting at offset, sharing this segment's memory
+   */
+  public BufferSegment slice(long offset, long length) {
+    checkBounds(offset, length);
+    if (length == 0) {
+      return new BufferSegment();
+    }
+    int first = chunkIndex(offset);
+    int last = chunkIndex(offset + length - 1);
+    ByteBuffer[] sliced = new ByteBuffer[last - first + 1];
+    for (int i = first; i <= last; i++) {
+      long from = Math.max(offset, starts[i]) - starts[i];
+      long to = Math.min(offset + length, starts[i] + chunks[i].capacity()) - starts[i];
+      sliced[i - first] = chunks[i].slice((int) from, (int) (to - from));
+    }
+    return new BufferSegment(sliced);
+  }
+
+  /**
+   * @return where the chunk holding offset ends, so [offset, chunkEnd(offset)) is contiguous
+   */
+  long chunkEnd(long offset) {
+    checkBounds(offset, 1);
+    int index = chunkIndex(offset);
+    return starts[index] + chunks[index].capacity();
+  }
+
+  public byte get(long offset) {
+    checkBounds(offset, 1);
+    int index = chunkIndex(offset);
+    return chunks[index].get((int) (offset - starts[index]));
+  }
+
+  public short getShort(long offset) {
+    checkBounds(offset, Short.BYTES);
+    int index = chunkIndex(offset);
+    ByteBuffer chunk = chunks[index];
+    int local = (int) (offset - starts[index]);
+    if (local + Short.BYTES <= chunk.capacity()) {
+      return chunk.getShort(local);
+    }
+    return (short) assemble(offset, Short.BYTES);
+  }
+
+  public int getInt(long offset) {
+    checkBounds(offset, Integer.BYTES);
+    int index = chunkIndex(offset);
+    ByteBuffer chunk = chunks[index];
+    int local = (int) (offset - starts[index]);
+    if (local + Integer.BYTES <= chunk.capacity()) {
+      return chunk.getInt(local);
+    }
+    return (int) assemble(offset, Integer.BYTES);
+  }
+
+  public float getFloat(long offset) {
+    return Float.intBitsToFloat(getInt(offset));
+  }
+
+  /**
+   * Write every byte of this segment to channel, chunk by chunk without copying
+   */
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    for (ByteBuffer chunk : chunks) {
+      ByteBuffer remaining = chunk.duplicate();
+      while (remaining.hasRemaining()) {
+        channel.write(remaining);
+      }
+    }
+  }
+
+  /**
+   * Read a little endian value that straddles two chunks a byte at a time
+   */
+  private long assemble(long offset, int size) {
+    long value = 0;
+    for (int i = 0; i < size; i++) {
+      value |= (get(offset + i) & 0xFFL) << (8 * i);
+    }
+    return value;
+  }
+
+  private int chunkIndex(long offset) {
+    if (chunks.length == 1) {
+      return 0;
+    }
+    int index = Arrays.binarySearch(starts, offset);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  private void checkBounds(long offset, long size) {
+    if (offset < 0 || size < 0 || offset > length - size) {
+      throw new IndexOutOfBoundsException(
+          "Range [" + offset + ", " + offset + " + " + size + ") out of bounds for length "
+              + length);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a chosen set of scenes, nodes or meshes needs to be displayed: the node hierarchy,
+ * meshes, materials, textures, images, skins, accessors, bufferViews and buffers they reference.
+ * <p>
+ * Used to keep only part of a GLTF, see {@link #retainIn(GLTF)}. Works on resolved references, so
+ * build it after {@link GLTF#applyLookupMap()}.
+ */
+public final class DependencyClosure {
+
+  private final Set<GLTFProperty> included = Collections
+      .newSetFromMap(new IdentityHashMap<>());
+
+  public DependencyClosure addScene(GLTFScene scene) {
+    if (included.add(scene)) {
+      scene.getRootNodes().forEach(this::addNode);
+    }
+    return this;
+  }
+
+  /**
+   * Add node and everything below it in the hierarchy.
+   */
+  public DependencyClosure addNode(GLTFNode node) {
+    if (included.add(node)) {
+      node.getChildren().ifPresent(children -> children.forEach(this::addNode));
+      node.getMesh().ifPresent(this::addMesh);
+      node.getCamera().ifPresent(included::add);
+      node.getSkin().ifPresent(this::addSkin);
+    }
+    return this;
+  }
+
+  public DependencyClosure addMesh(GLTFMesh mesh) {
+    if (included.add(mesh)) {
+      for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+        primitive.getAttributes().values().forEach(this::addAccessor);
+        primitive.getIndicesAccessor().ifPresent(this::addAccessor);
+        primitive.getMaterial().ifPresent(this::addMaterial);
+        if (primitive.getMorphTargets() != null) {
+          for (Map<String, GLTFAccessor> target : primitive.getMorphTargets()) {
+            target.values().forEach(this::addAccessor);
+          }
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Add every animation of gltf that targets an included node. Channels targeting nodes outside
+   * the closure are dropped by {@link #retainIn(GLTF)}. Call after every node has been added.
+   */
+  public DependencyClosure addAnimations(GLTF gltf) {
+    gltf.getAnimations().ifPresent(animations -> {
+      for (GLTFAnimation animation : animations) {
+        boolean targetsClosure = animation.getChannels().stream()
+            .anyMatch(channel -> isTargetIncluded(channel));
+        if (targetsClosure && included.add(animation)) {
+          for (GLTFAnimationSampler sampler : animation.getSamplers()) {
+            addAccessor(sampler.getInput());
+            addAccessor(sampler.getOutput());
+          }
+        }
+      }
+    });
+    return this;
+  }
+
+  /**
+   * @return true if property is one of the root level objects in this closure
+   */
+  public boolean contains(GLTFProperty property) {
+    return included.contains(property);
+  }
+
+  /**
+   * Remove every root level object that is not in this closure from gltf. References between the
+   * objects that remain are unaffected, index based lookups into gltf are not valid afterwards.
+   */
+  public void retainIn(GLTF gltf) {
+    gltf.retain(this);
+    gltf.getAnimations().ifPresent(animations -> animations
+        .forEach(animation -> animation.retainChannels(this::isTargetIncluded)));
+  }
+
+  private boolean isTargetIncluded(GLTFChannel channel) {
+    return channel.getTarget().getNode().map(included::contains).orElse(false);
+  }
+
+  private void addSkin(GLTFSkin skin) {
+    if (included.add(skin)) {
+      skin.getJoints().forEach(this::addNode);
+      skin.getSkeletonRootNode().ifPresent(this::addNode);
+      skin.getInverseBindMatricesAccessor().ifPresent(this::addAccessor);
+    }
+  }
+
+  private void addMaterial(GLTFMaterial material) {
+    if (included.add(material)) {
+      GLTFPBRMetallicRoughness pbr = material.getPbrMetallicRoughness();
+      if (pbr != null) {
+        addTexture(pbr.getBaseColorTexture());
+        addTexture(pbr.getMetallicRoughnessTexture());
+      }
+      addTexture(material.getNormalTexture());
+      addTexture(material.getOcclusionTexture());
+      addTexture(material.getEmissiveTexture());
+    }
+  }
+
+  private void addTexture(GLTFTextureInfo textureInfo) {
+    if (textureInfo == null || textureInfo.getTexture() == null) {
+      return;
+    }
+    GLTFTexture texture = textureInfo.getTexture();
+    if (included.add(texture)) {
+      included.add(texture.getSampler());
+      GLTFImage image = texture.getSourceImage();
+      if (image != null && included.add(image)) {
+        addBufferView(image.getBufferView());
+      }
+    }
+  }
+
+  private void addAccessor(GLTFAccessor accessor) {
+    if (accessor != null && included.add(accessor)) {
+      addBufferView(accessor.getBufferView());
+      GLTFAccessorSparse sparse = accessor.getSparse();
+      if (sparse != null) {
+        addBufferView(sparse.getIndices().getBufferView());
+        addBufferView(sparse.getValues().getBufferView());
+      }
+    }
+  }
+
+  private void addBufferView(GLTFBufferView bufferView) {
+    if (bufferView != null && included.add(bufferView)) {
+      included.add(bufferView.getDataBuffer());
+    }
+  }
+
+  /**
+   * Remove objects outside this closure from list, if there is one.
+   */
+  void retain(List<? extends GLTFProperty> list) {
+    if (list != null) {
+      list.removeIf(property -> !included.contains(property));
+    }
+  }
+}
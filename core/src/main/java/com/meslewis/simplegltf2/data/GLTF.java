@@ -7,14 +7,24 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.meslewis.simplegltf2.GLTFImporter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.meslewis.simplegltf2.BufferArena;
+import com.meslewis.simplegltf2.LoadStats;
+import com.meslewis.simplegltf2.BufferIO;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.WeakHashMap;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -23,15 +33,10 @@ import org.slf4j.LoggerFactory;
 /**
  * The root object fr a glTF asset
  */
-public class GLTF extends GLTFProperty {
+public class GLTF extends GLTFProperty implements AutoCloseable {
 
   private static final Logger logger = LoggerFactory.getLogger(GLTF.class);
 
-  /**
-   * Holds references of a field to set, an index to get, and a field to get from
-   */
-  List<Runnable> indexResolvers = new ArrayList<>();
-
   /**
    * Names of glTF extensions used somewhere in this asset.
    */
@@ -114,6 +119,7 @@ public class GLTF extends GLTFProperty {
    * The index of the default scene.
    */
   private GLTFScene defaultScene;
+  private int defaultSceneIndex = -1;
 
   /**
    * An array of scenes.
@@ -139,17 +145,116 @@ public class GLTF extends GLTFProperty {
   private URI source;
 
   /**
-   * The implementation of how to convert from a URI to a Stream Used to load all files
+   * The implementation of how to convert from a URI to a Stream Used to load all files. Scoped to
+   * the load that created this GLTF.
+   */
+  private BufferIO bufferIO;
+
+  /**
+   * Owns all memory mapped or allocated for this GLTF
+   */
+  private BufferArena arena;
+
+  /**
+   * Accessors created after loading, not part of the asset, and the memory each one reads
+   */
+  private final Map<GLTFAccessor, ByteBuffer> written = new IdentityHashMap<>();
+  /**
+   * Primitives made after loading that belong to no mesh, such as simplified levels, and may share
+   * written accessors with those that do. Held weakly, a dropped primitive references nothing.
    */
-  private GLTFImporter gltfImporter;
+  private final Set<GLTFMeshPrimitive> detached =
+      Collections.newSetFromMap(new WeakHashMap<>());
 
-  public GLTF(GLTFImporter gltfImporter, URI source) {
-    this.gltfImporter = gltfImporter;
+  /**
+   * @param bufferIO used to fetch buffers and images, should fetch through arena
+   * @param arena    released when this GLTF is closed
+   * @param source   base URI for relative references
+   */
+  public GLTF(BufferIO bufferIO, BufferArena arena, URI source) {
+    this.bufferIO = bufferIO;
+    this.arena = arena;
     this.source = source;
   }
 
-  GLTFImporter getGltfImporter() {
-    return gltfImporter;
+  /**
+   * Route bufferIO function through this to ensure little endian.
+   */
+  ByteBuffer getDirectByteBuffer(URI uri) {
+    checkOpen();
+    return bufferIO.getDirectByteBuffer(uri).order(ByteOrder.LITTLE_ENDIAN).rewind();
+  }
+
+  void checkOpen() {
+    if (arena.isClosed()) {
+      throw new IllegalStateException("GLTF is closed");
+    }
+  }
+
+  /**
+   * Fetch only part of a file, little endian.
+   */
+  ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+    checkOpen();
+    return bufferIO.getDirectByteBuffer(uri, offset, length).order(ByteOrder.LITTLE_ENDIAN)
+        .rewind();
+  }
+
+  /**
+   * Take ownership of memory allocated while loading, such as decoded data URIs
+   */
+  void own(ByteBuffer buffer) {
+    arena.register(buffer);
+  }
+
+  /**
+   * @return bytes of memory mapped files this GLTF holds
+   */
+  public long getMappedByteCount() {
+    return arena.getMappedByteCount();
+  }
+
+  /**
+   * @return bytes of direct memory, other than mapped files, this GLTF holds
+   */
+  public long getDirectByteCount() {
+    return arena.getDirectByteCount();
+  }
+
+  /**
+   * @return where the load of this GLTF spent its time. Keeps counting buffers fetched later.
+   */
+  public LoadStats getLoadStats() {
+    return arena.getStats();
+  }
+
+  /**
+   * Unmap and free all memory loaded for this GLTF. Data already loaded is dropped and any later
+   * attempt to load it throws IllegalStateException. Buffers returned by accessors, buffers or
+   * images before closing must not be used afterwards.
+   */
+  @Override
+  public void close() {
+    if (arena.isClosed()) {
+      return;
+    }
+    if (buffers != null) {
+      buffers.forEach(GLTFBuffer::dropData);
+    }
+    if (accessors != null) {
+      accessors.forEach(GLTFAccessor::dropData);
+    }
+    synchronized (this) {
+      written.keySet().forEach(GLTFAccessor::dropData);
+      written.clear();
+    }
+    if (meshes != null) {
+      meshes.forEach(GLTFMesh::dropData);
+    }
+    if (images != null) {
+      images.forEach(GLTFImage::dropData);
+    }
+    arena.close();
   }
 
   /**
@@ -159,6 +264,9 @@ public class GLTF extends GLTFProperty {
    * @return
    */
   URI resolveURI(String relativePath) {
+    if (source == null) {
+      throw new IllegalStateException("No base URI to resolve " + relativePath + " against");
+    }
     URI resolved = source.resolve(relativePath);
     logger.info("GLTF debug resolve relativePath: " + resolved);
     return resolved;
@@ -173,7 +281,7 @@ public class GLTF extends GLTFProperty {
 
   @JsonProperty("scene")
   private void setDefaultScene(int index) {
-    gltf.indexResolvers.add(() -> defaultScene = gltf.getScene(index));
+    this.defaultSceneIndex = index;
   }
 
   public List<GLTFScene> getScenes() {
@@ -196,6 +304,102 @@ public class GLTF extends GLTFProperty {
     return this.accessors.get(indexAccessor);
   }
 
+  /**
+   * Append a mesh created after loading, e.g. a level of detail from {@link MeshSimplifier}
+   */
+  synchronized void addMesh(GLTFMesh mesh) {
+    if (meshes == null) {
+      meshes = new ArrayList<>();
+    }
+    meshes.add(mesh);
+  }
+
+  /**
+   * Append a node created after loading and give it its index
+   */
+  synchronized void addNode(GLTFNode node) {
+    if (nodes == null) {
+      nodes = new ArrayList<>();
+    }
+    node.index = nodes.size();
+    nodes.add(node);
+  }
+
+  synchronized void addExtensionUsed(String extension) {
+    if (extensionsUsed == null) {
+      extensionsUsed = new LinkedHashSet<>();
+    }
+    extensionsUsed.add(extension);
+  }
+
+  /**
+   * Take ownership of an accessor created after loading and the memory it reads. It is dropped on
+   * close but not added to the accessors of the asset.
+   */
+  synchronized void own(GLTFAccessor accessor, ByteBuffer data) {
+    arena.register(data);
+    written.put(accessor, data);
+  }
+
+  /**
+   * Count primitive's accessors as referenced by {@link #releaseUnreferenced(Collection)} for as
+   * long as primitive is reachable, whether or not it is in a mesh.
+   */
+  synchronized void addDetached(GLTFMeshPrimitive primitive) {
+    detached.add(primitive);
+  }
+
+  /**
+   * Free the memory of those of candidates passed to {@link #own(GLTFAccessor, ByteBuffer)} that no
+   * primitive points at any more, in a mesh or not. Hold the lock on this GLTF from replacing a
+   * primitive's accessors until this returns, so two primitives letting go of a shared accessor at
+   * once can't each see the other still using it.
+   */
+  synchronized void releaseUnreferenced(Collection<GLTFAccessor> candidates) {
+    Set<GLTFAccessor> unused = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (GLTFAccessor accessor : candidates) {
+      if (written.containsKey(accessor)) {
+        unused.add(accessor);
+      }
+    }
+    if (unused.isEmpty() || arena.isClosed()) {
+      return;
+    }
+    if (meshes != null) {
+      for (GLTFMesh mesh : meshes) {
+        for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+          removeReferenced(primitive, unused);
+        }
+      }
+    }
+    for (GLTFMeshPrimitive primitive : detached) {
+      removeReferenced(primitive, unused);
+    }
+    for (GLTFAccessor accessor : unused) {
+      accessor.dropData();
+      arena.release(written.remove(accessor));
+    }
+  }
+
+  private static void removeReferenced(GLTFMeshPrimitive primitive, Set<GLTFAccessor> unused) {
+    if (primitive.getAttributes() != null) {
+      unused.removeAll(primitive.getAttributes().values());
+    }
+    primitive.getIndicesAccessor().ifPresent(unused::remove);
+    if (primitive.getMorphTargets() != null) {
+      primitive.getMorphTargets().forEach(target -> unused.removeAll(target.values()));
+    }
+  }
+
+  /**
+   * Forget the bounds of every scene, after the geometry of a mesh changed
+   */
+  void invalidateSceneBounds() {
+    if (scenes != null) {
+      scenes.forEach(scene -> scene.setCachedBounds(null));
+    }
+  }
+
   GLTFNode getNode(int indexNode) {
     return this.nodes.get(indexNode);
   }
@@ -228,6 +432,81 @@ public class GLTF extends GLTFProperty {
     return scenes.get(index);
   }
 
+  /**
+   * Drop every root level object outside closure
+   */
+  void retain(DependencyClosure closure) {
+    closure.retain(accessors);
+    closure.retain(animations);
+    closure.retain(buffers);
+    closure.retain(bufferViews);
+    closure.retain(cameras);
+    closure.retain(images);
+    closure.retain(materials);
+    closure.retain(meshes);
+    closure.retain(nodes);
+    indexNodes();
+    closure.retain(samplers);
+    closure.retain(scenes);
+    closure.retain(skins);
+    closure.retain(textures);
+    if (defaultScene != null && !closure.contains(defaultScene)) {
+      defaultScene = null;
+    }
+  }
+
+  private static int count(List<?> list) {
+    return list == null ? 0 : list.size();
+  }
+
+  int getAccessorCount() {
+    return count(accessors);
+  }
+
+  int getBufferCount() {
+    return count(buffers);
+  }
+
+  int getBufferViewCount() {
+    return count(bufferViews);
+  }
+
+  int getCameraCount() {
+    return count(cameras);
+  }
+
+  int getImageCount() {
+    return count(images);
+  }
+
+  int getMaterialCount() {
+    return count(materials);
+  }
+
+  int getMeshCount() {
+    return count(meshes);
+  }
+
+  int getNodeCount() {
+    return count(nodes);
+  }
+
+  int getSamplerCount() {
+    return count(samplers);
+  }
+
+  int getSceneCount() {
+    return count(scenes);
+  }
+
+  int getSkinCount() {
+    return count(skins);
+  }
+
+  int getTextureCount() {
+    return count(textures);
+  }
+
   public Optional<LinkedHashSet<String>> getExtensionsUsed() {
     return Optional.ofNullable(extensionsUsed);
   }
@@ -240,7 +519,147 @@ public class GLTF extends GLTFProperty {
     return Optional.ofNullable(animations);
   }
 
+  public Optional<List<GLTFBuffer>> getBuffers() {
+    return Optional.ofNullable(buffers);
+  }
+
+  public Optional<List<GLTFMesh>> getMeshes() {
+    return Optional.ofNullable(meshes);
+  }
+
+  public Optional<List<GLTFNode>> getNodes() {
+    return Optional.ofNullable(nodes);
+  }
+
+  public Optional<List<GLTFImage>> getImages() {
+    return Optional.ofNullable(images);
+  }
+
+  /**
+   * Resolve every index read from JSON into a reference, in a single pass over each top level
+   * array.
+   */
   public void applyLookupMap() {
-    indexResolvers.forEach(Runnable::run);
+    resolveIndices();
+  }
+
+  @Override
+  void resolveIndices() {
+    if (defaultSceneIndex >= 0) {
+      defaultScene = getScene(defaultSceneIndex);
+    }
+    resolveAll(accessors);
+    resolveAll(animations);
+    resolveAll(bufferViews);
+    resolveAll(images);
+    resolveAll(materials);
+    resolveAll(meshes);
+    indexNodes();
+    resolveAll(nodes);
+    resolveAll(scenes);
+    resolveAll(skins);
+    resolveAll(textures);
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    if (asset == null) {
+      validator.error("asset is required");
+    } else {
+      asset.validate(validator);
+    }
+    validator.checkIndex("scene", defaultSceneIndex, getSceneCount());
+    validator.validateAll("accessors", accessors);
+    validator.validateAll("animations", animations);
+    validator.validateAll("buffers", buffers);
+    validator.validateAll("bufferViews", bufferViews);
+    validator.validateAll("cameras", cameras);
+    validator.validateAll("images", images);
+    validator.validateAll("materials", materials);
+    validator.validateAll("meshes", meshes);
+    validator.validateAll("nodes", nodes);
+    validator.validateAll("scenes", scenes);
+    validator.validateAll("skins", skins);
+    validator.validateAll("textures", textures);
+  }
+
+  /**
+   * See {@link StructuralValidator#validateData(GLTF)}
+   */
+  void validateData(StructuralValidator validator) {
+    validator.validateAll("accessors", accessors, GLTFAccessor::validateData);
+  }
+
+  private void indexNodes() {
+    for (int i = 0; i < getNodeCount(); i++) {
+      nodes.get(i).index = i;
+    }
+  }
+
+  private static void resolveAll(List<? extends GLTFProperty> properties) {
+    if (properties != null) {
+      for (GLTFProperty property : properties) {
+        property.resolveIndices();
+      }
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "extensionsUsed":
+        extensionsUsed = GLTFStreamingParser.readStringSet(p);
+        return true;
+      case "extensionsRequired":
+        extensionsRequired = GLTFStreamingParser.readStringSet(p);
+        return true;
+      case "accessors":
+        accessors = GLTFStreamingParser.readList(p, this, GLTFAccessor::new);
+        return true;
+      case "animations":
+        animations = GLTFStreamingParser.readList(p, this, GLTFAnimation::new);
+        return true;
+      case "asset":
+        asset = GLTFStreamingParser.readObject(p, this, new GLTFAsset());
+        return true;
+      case "buffers":
+        buffers = GLTFStreamingParser.readList(p, this, GLTFBuffer::new);
+        return true;
+      case "bufferViews":
+        bufferViews = GLTFStreamingParser.readList(p, this, GLTFBufferView::new);
+        return true;
+      case "cameras":
+        cameras = GLTFStreamingParser.readList(p, this, GLTFCamera::new);
+        return true;
+      case "images":
+        images = GLTFStreamingParser.readList(p, this, GLTFImage::new);
+        return true;
+      case "materials":
+        materials = GLTFStreamingParser.readList(p, this, GLTFMaterial::new);
+        return true;
+      case "meshes":
+        meshes = GLTFStreamingParser.readList(p, this, GLTFMesh::new);
+        return true;
+      case "nodes":
+        nodes = GLTFStreamingParser.readList(p, this, GLTFNode::new);
+        return true;
+      case "samplers":
+        samplers = GLTFStreamingParser.readList(p, this, GLTFSampler::new);
+        return true;
+      case "scene":
+        defaultSceneIndex = p.getIntValue();
+        return true;
+      case "scenes":
+        scenes = GLTFStreamingParser.readList(p, this, GLTFScene::new);
+        return true;
+      case "skins":
+        skins = GLTFStreamingParser.readList(p, this, GLTFSkin::new);
+        return true;
+      case "textures":
+        textures = GLTFStreamingParser.readList(p, this, GLTFTexture::new);
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
   }
 }
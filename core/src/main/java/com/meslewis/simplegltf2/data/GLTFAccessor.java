@@ -8,8 +8,15 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Size;
@@ -25,6 +32,10 @@ import org.slf4j.LoggerFactory;
 public class GLTFAccessor extends GLTFChildOfRootProperty {
 
   private static final Logger logger = LoggerFactory.getLogger(GLTFAccessor.class);
+  /**
+   * Components decoded at a time when the destination buffer has no backing array
+   */
+  private static final int CHUNK_COMPONENTS = 4096;
   /**
    * The data type of components in the attribute. All valid values correspond to WebGL enums. The
    * corresponding typed arrays are `Int8Array`, `Uint8Array`, `Int16Array`, `Uint16Array`,
@@ -78,13 +89,14 @@ public class GLTFAccessor extends GLTFChildOfRootProperty {
    * extensions could override zeros with actual values.
    */
   private GLTFBufferView bufferView;
+  private int bufferViewIndex = -1;
   /**
    * The offset relative to the start of the bufferView in bytes. This must be a multiple of the
    * size of the component data type.
    */
   @JsonProperty("byteOffset")
   @Min(0)
-  private int byteOffset = 0;
+  private long byteOffset = 0;
   /**
    * The number of attributes referenced by this accessor, not to be confused with the number of
    * bytes or number of components.
@@ -98,7 +110,34 @@ public class GLTFAccessor extends GLTFChildOfRootProperty {
   @JsonProperty("sparse")
   @Valid
   private GLTFAccessorSparse sparse;
-  private ByteBuffer data;
+  private BufferSegment data;
+  /**
+   * Densified copy for sparse accessors and accessors without a bufferView, see {@link #getData()}
+   */
+  private volatile BufferSegment dense;
+  /**
+   * Min and max computed by {@link BoundsService} when they are not declared
+   */
+  private volatile float[][] computedMinMax;
+
+  /**
+   * An accessor over data held in memory instead of a bufferView, e.g. geometry rewritten by
+   * {@link MeshOptimizer}. Reads of it behave as reads of a densified accessor.
+   *
+   * @param data tightly packed elements, ownership passes to gltf
+   */
+  static GLTFAccessor ofData(GLTF gltf, GLTFAccessorComponentType componentType,
+      GLTFAccessorDataType dataType, boolean normalized, int elementCount, ByteBuffer data) {
+    GLTFAccessor accessor = new GLTFAccessor();
+    accessor.gltf = gltf;
+    accessor.componentType = componentType;
+    accessor.dataType = dataType;
+    accessor.normalized = normalized;
+    accessor.elementCount = elementCount;
+    accessor.dense = BufferSegment.of(data);
+    gltf.own(accessor, data);
+    return accessor;
+  }
 
   @JsonSetter("componentType")
   private void setComponentType(int value) {
@@ -110,13 +149,17 @@ public class GLTFAccessor extends GLTFChildOfRootProperty {
    *
    * @return
    */
-  private GLTFBufferView getBufferView() {
+  GLTFAccessorSparse getSparse() {
+    return sparse;
+  }
+
+  GLTFBufferView getBufferView() {
     return bufferView;
   }
 
   @JsonSetter("bufferView")
   private void setBufferView(int index) {
-    gltf.indexResolvers.add(() -> bufferView = gltf.getBufferView(index));
+    this.bufferViewIndex = index;
   }
 
   /**
@@ -125,69 +168,414 @@ public class GLTFAccessor extends GLTFChildOfRootProperty {
    *
    * @return the size of the entire Accessor in bytes
    */
-  public int getSizeInBytes() {
-    return getElementIndexAsByteIndex(elementCount);
+  public long getSizeInBytes() {
+    if (elementCount == 0) {
+      return 0;
+    }
+    //The last element isn't followed by padding up to the stride
+    return getElementIndexAsByteIndex(elementCount - 1) + getElementSizeInBytes();
   }
 
-  private int getElementIndexAsByteIndex(int elementIndex) {
-    int elementSizeInBytes =
-        getDataType().getPrimitiveCount() * getPrimitiveType().getSizeInBytes();
-    int byteStride = getByteStride() - elementSizeInBytes;
-    if (getByteStride() > 0) {
-      return ((elementIndex - 1) * byteStride) + (elementIndex * elementSizeInBytes);
-    }
-    return elementIndex * elementSizeInBytes;
+  private int getElementSizeInBytes() {
+    return getDataType().getPrimitiveCount() * getPrimitiveType().getSizeInBytes();
   }
 
-  private int getPrimitiveIndexAsByteIndex(int primitiveIndex) {
-    int primitiveSizeInBytes = getPrimitiveType().getSizeInBytes();
-    int elementByteIndex = getElementIndexAsByteIndex(
-        primitiveIndex / dataType.getPrimitiveCount());
-    return elementByteIndex
-        + (primitiveIndex % dataType.getPrimitiveCount()) * primitiveSizeInBytes;
+  /**
+   * @return offset of the first byte of an element from the start of this accessor
+   */
+  private long getElementIndexAsByteIndex(long elementIndex) {
+    return elementIndex * getElementStride();
   }
 
   /**
-   * @return a Buffer containing data this Accessor references //TODO sparse
+   * Sparse accessors, and accessors without a bufferView, are densified into a buffer owned by the
+   * GLTF on first call and that buffer is kept. It has the same layout, including byte stride, as
+   * the bufferView data would.
+   *
+   * @return a Buffer containing data this Accessor references
+   * @throws IllegalStateException if the data is larger than 2 GB, use {@link #getSegment()}
    */
   public ByteBuffer getData() {
-    if (data != null) {
-      return data;
+    if (isDensified()) {
+      return getDense().asByteBuffer();
     }
-    if (sparse != null) {
-      //TODO
-//      sparse.
+    if (data != null && data.isContiguous()) {
+      return data.asByteBuffer();
     }
+    long size = checkedSize();
     //Don't set data, most large buffers are only used once.
     //Data will be set by getFloat
-    return this.getBufferView().getData(byteOffset, getSizeInBytes());
+    return this.getBufferView().getData(byteOffset, (int) size);
   }
 
-  public float getFloat(int index) {
+  /**
+   * @return the data this Accessor references, with no 2 GB limit except for sparse accessors and
+   * accessors without a bufferView, which are densified as in {@link #getData()}. Reads are bounds
+   * checked against the accessor's own range.
+   */
+  public BufferSegment getSegment() {
+    if (isDensified()) {
+      return getDense();
+    }
+    return getBaseSegment();
+  }
+
+  /**
+   * @return the bufferView data, without sparse substitution
+   */
+  private BufferSegment getBaseSegment() {
     if (data == null) {
-      data = getData();
-      assert (data.order() == ByteOrder.LITTLE_ENDIAN);
+      data = this.getBufferView().getSegment(byteOffset, getSizeInBytes());
     }
-    int byteIndex = getPrimitiveIndexAsByteIndex(index);
+    return data;
+  }
+
+  private boolean isDensified() {
+    return sparse != null || bufferView == null;
+  }
+
+  private long checkedSize() {
+    long size = getSizeInBytes();
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+          "Accessor data is " + size + " bytes, too large for a ByteBuffer");
+    }
+    return size;
+  }
+
+  /**
+   * Copy the bufferView data, or zeros, into a new direct buffer and write the sparse values over
+   * it.
+   */
+  private synchronized BufferSegment getDense() {
+    if (dense == null) {
+      gltf.checkOpen();
+      int size = (int) checkedSize();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+      if (bufferView != null) {
+        buffer.put(this.getBufferView().getData(byteOffset, size));
+      }
+      if (sparse != null) {
+        int elementSize = getElementSizeInBytes();
+        int[] indices = sparse.getIndexArray();
+        BufferSegment values = sparse.getValueData(elementSize);
+        for (int i = 0; i < indices.length; i++) {
+          int position = (int) getElementIndexAsByteIndex(indices[i]);
+          long valueOffset = (long) i * elementSize;
+          for (int b = 0; b < elementSize; b++) {
+            buffer.put(position + b, values.get(valueOffset + b));
+          }
+        }
+      }
+      gltf.own(buffer);
+      dense = BufferSegment.of(buffer.clear());
+    }
+    return dense;
+  }
+
+  /**
+   * Forget loaded data, called when the GLTF is closed
+   */
+  synchronized void dropData() {
+    data = null;
+    dense = null;
+    if (sparse != null) {
+      sparse.dropData();
+    }
+  }
+
+  /**
+   * Read one component as a float. Sparse values are looked up without densifying the accessor
+   * and an accessor without a bufferView reads as zeros.
+   *
+   * @param index component index, element index times the number of components plus the component
+   */
+  public float getFloat(long index) {
+    int components = dataType.getPrimitiveCount();
+    return getComponent(index / components, (int) (index % components));
+  }
+
+  private float getComponent(long element, int component) {
+    int componentOffset = component * componentType.getSizeInBytes();
+    BufferSegment dense = this.dense;
+    if (dense != null) {
+      return readComponent(dense, getElementIndexAsByteIndex(element) + componentOffset);
+    }
+    if (sparse != null) {
+      int position = sparse.find((int) element);
+      if (position >= 0) {
+        int elementSize = getElementSizeInBytes();
+        return readComponent(sparse.getValueData(elementSize),
+            (long) position * elementSize + componentOffset);
+      }
+    }
+    if (bufferView == null) {
+      return 0f;
+    }
+    return readComponent(getBaseSegment(), getElementIndexAsByteIndex(element) + componentOffset);
+  }
+
+  /**
+   * Read elementCount whole elements starting at firstElement into dest, converted as {@link
+   * #getFloat(long)} does. Runs that lie in one ByteBuffer are decoded in bulk, and sparse values
+   * are written over them as it goes rather than densifying.
+   *
+   * @param dest at least destOffset + elementCount times the number of components floats
+   */
+  public void readFloats(int firstElement, int elementCount, float[] dest, int destOffset) {
+    Objects.checkFromIndexSize(firstElement, elementCount, this.elementCount);
+    int components = dataType.getPrimitiveCount();
+    BufferSegment dense = this.dense;
+    if (dense != null) {
+      decodeFloats(dense, getElementIndexAsByteIndex(firstElement), getElementStride(),
+          elementCount, dest, destOffset);
+      return;
+    }
+    if (bufferView == null) {
+      Arrays.fill(dest, destOffset, destOffset + elementCount * components, 0f);
+    } else {
+      decodeFloats(getBaseSegment(), getElementIndexAsByteIndex(firstElement),
+          getElementStride(), elementCount, dest, destOffset);
+    }
+    if (sparse != null) {
+      int[] indices = sparse.getIndexArray();
+      int elementSize = getElementSizeInBytes();
+      int componentSize = componentType.getSizeInBytes();
+      BufferSegment values = sparse.getValueData(elementSize);
+      int end = firstElement + elementCount;
+      for (int i = sparse.findFrom(firstElement); i < indices.length && indices[i] < end; i++) {
+        int out = destOffset + (indices[i] - firstElement) * components;
+        for (int c = 0; c < components; c++) {
+          dest[out + c] = readComponent(values, (long) i * elementSize + c * componentSize);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read elementCount whole elements starting at firstElement into dest at its position, advancing
+   * it. Tightly packed FLOAT data is copied from a view of the buffer without decoding.
+   */
+  public void readFloats(int firstElement, int elementCount, FloatBuffer dest) {
+    int length = elementCount * dataType.getPrimitiveCount();
+    if (dest.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    if (dest.hasArray()) {
+      readFloats(firstElement, elementCount, dest.array(), dest.arrayOffset() + dest.position());
+      dest.position(dest.position() + length);
+      return;
+    }
+    FloatBuffer view = floatView(firstElement, elementCount);
+    if (view != null) {
+      dest.put(view);
+      return;
+    }
+    float[] chunk = new float[Math.min(length, CHUNK_COMPONENTS)];
+    int step = chunk.length / dataType.getPrimitiveCount();
+    for (int e = 0; e < elementCount; e += step) {
+      int count = Math.min(step, elementCount - e);
+      readFloats(firstElement + e, count, chunk, 0);
+      dest.put(chunk, 0, count * dataType.getPrimitiveCount());
+    }
+  }
+
+  /**
+   * @return a read only view of the data if it is tightly packed FLOAT, otherwise a new buffer
+   * holding every component as {@link #getFloat(long)} reads it
+   */
+  public FloatBuffer getFloatBuffer() {
+    FloatBuffer view = floatView(0, elementCount);
+    if (view != null) {
+      return view.asReadOnlyBuffer();
+    }
+    float[] values = new float[getPrimitiveCount()];
+    readFloats(0, elementCount, values, 0);
+    return FloatBuffer.wrap(values);
+  }
+
+  /**
+   * @return a view of the floats of the elements if they are tightly packed FLOAT in one
+   * ByteBuffer with no sparse values left to apply, otherwise null
+   */
+  private FloatBuffer floatView(int firstElement, int elementCount) {
+    Objects.checkFromIndexSize(firstElement, elementCount, this.elementCount);
+    if (componentType != GLTFAccessorComponentType.FLOAT
+        || getElementStride() != getElementSizeInBytes()) {
+      return null;
+    }
+    BufferSegment source = dense;
+    if (source == null) {
+      if (sparse != null || bufferView == null) {
+        return null;
+      }
+      source = getBaseSegment();
+    }
+    BufferSegment run = source.slice(getElementIndexAsByteIndex(firstElement),
+        (long) elementCount * getElementSizeInBytes());
+    return run.isContiguous() ? AccessorDecoder.floatView(run.asByteBuffer(), 0) : null;
+  }
+
+  /**
+   * Read elementCount whole elements starting at firstElement into dest as integers, without
+   * normalization, e.g. primitive indices or joint indices. Sparse values are applied.
+   *
+   * @param dest at least destOffset + elementCount times the number of components ints
+   * @throws IllegalStateException if the component type is FLOAT
+   */
+  public void readIndices(int firstElement, int elementCount, int[] dest, int destOffset) {
+    Objects.checkFromIndexSize(firstElement, elementCount, this.elementCount);
+    if (componentType == GLTFAccessorComponentType.FLOAT) {
+      throw new IllegalStateException("Can't read FLOAT components as integers");
+    }
+    int components = dataType.getPrimitiveCount();
+    BufferSegment dense = this.dense;
+    if (dense != null) {
+      decodeInts(dense, getElementIndexAsByteIndex(firstElement), getElementStride(),
+          elementCount, dest, destOffset);
+      return;
+    }
+    if (bufferView == null) {
+      Arrays.fill(dest, destOffset, destOffset + elementCount * components, 0);
+    } else {
+      decodeInts(getBaseSegment(), getElementIndexAsByteIndex(firstElement), getElementStride(),
+          elementCount, dest, destOffset);
+    }
+    if (sparse != null) {
+      int[] indices = sparse.getIndexArray();
+      int elementSize = getElementSizeInBytes();
+      int componentSize = componentType.getSizeInBytes();
+      BufferSegment values = sparse.getValueData(elementSize);
+      int end = firstElement + elementCount;
+      for (int i = sparse.findFrom(firstElement); i < indices.length && indices[i] < end; i++) {
+        int out = destOffset + (indices[i] - firstElement) * components;
+        for (int c = 0; c < components; c++) {
+          dest[out + c] = readIntComponent(values, (long) i * elementSize + c * componentSize);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read elementCount whole elements starting at firstElement into dest at its position as
+   * integers, advancing it.
+   *
+   * @see #readIndices(int, int, int[], int)
+   */
+  public void readIndices(int firstElement, int elementCount, IntBuffer dest) {
+    int length = elementCount * dataType.getPrimitiveCount();
+    if (dest.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    if (dest.hasArray()) {
+      readIndices(firstElement, elementCount, dest.array(), dest.arrayOffset() + dest.position());
+      dest.position(dest.position() + length);
+      return;
+    }
+    int[] chunk = new int[Math.min(length, CHUNK_COMPONENTS)];
+    int step = chunk.length / dataType.getPrimitiveCount();
+    for (int e = 0; e < elementCount; e += step) {
+      int count = Math.min(step, elementCount - e);
+      readIndices(firstElement + e, count, chunk, 0);
+      dest.put(chunk, 0, count * dataType.getPrimitiveCount());
+    }
+  }
+
+  /**
+   * Decode a run of elements with {@link AccessorDecoder} when it lies in one ByteBuffer, one
+   * component at a time when it straddles two.
+   */
+  private void decodeFloats(BufferSegment source, long firstByte, int stride, int elementCount,
+      float[] dest, int destOffset) {
+    if (elementCount == 0) {
+      return;
+    }
+    int components = dataType.getPrimitiveCount();
+    BufferSegment run = source
+        .slice(firstByte, (long) (elementCount - 1) * stride + getElementSizeInBytes());
+    if (run.isContiguous()) {
+      AccessorDecoder.decodeFloats(run.asByteBuffer(), 0, stride, componentType, components,
+          elementCount, dest, destOffset);
+      return;
+    }
+    int componentSize = componentType.getSizeInBytes();
+    int out = destOffset;
+    for (int e = 0; e < elementCount; e++) {
+      for (int c = 0; c < components; c++) {
+        dest[out++] = readComponent(run, (long) e * stride + c * componentSize);
+      }
+    }
+  }
+
+  private void decodeInts(BufferSegment source, long firstByte, int stride, int elementCount,
+      int[] dest, int destOffset) {
+    if (elementCount == 0) {
+      return;
+    }
+    int components = dataType.getPrimitiveCount();
+    BufferSegment run = source
+        .slice(firstByte, (long) (elementCount - 1) * stride + getElementSizeInBytes());
+    if (run.isContiguous()) {
+      AccessorDecoder.decodeInts(run.asByteBuffer(), 0, stride, componentType, components,
+          elementCount, dest, destOffset);
+      return;
+    }
+    int componentSize = componentType.getSizeInBytes();
+    int out = destOffset;
+    for (int e = 0; e < elementCount; e++) {
+      for (int c = 0; c < components; c++) {
+        dest[out++] = readIntComponent(run, (long) e * stride + c * componentSize);
+      }
+    }
+  }
+
+  /**
+   * @return bytes from the start of one element to the next
+   */
+  private int getElementStride() {
+    int byteStride = getByteStride();
+    return byteStride > 0 ? byteStride : getElementSizeInBytes();
+  }
+
+  private int readIntComponent(BufferSegment data, long byteIndex) {
+    switch (componentType) {
+      case BYTE:
+        return data.get(byteIndex);
+      case UNSIGNED_BYTE:
+        return data.get(byteIndex) & 0xFF;
+      case SHORT:
+        return data.getShort(byteIndex);
+      case UNSIGNED_SHORT:
+        return data.getShort(byteIndex) & 0xFFFF;
+      default:
+        return data.getInt(byteIndex);
+    }
+  }
+
+  private float readComponent(BufferSegment data, long byteIndex) {
     switch (componentType) {
       case FLOAT:
         return data.getFloat(byteIndex);
       case BYTE:
         return GLTFAccessorComponentType.BYTE.intToFloat(data.get(byteIndex));
       case UNSIGNED_BYTE:
-        return GLTFAccessorComponentType.UNSIGNED_BYTE.intToFloat(data.get(byteIndex));
+        return GLTFAccessorComponentType.UNSIGNED_BYTE.intToFloat(data.get(byteIndex) & 0xFF);
       case SHORT:
         return GLTFAccessorComponentType.SHORT.intToFloat(data.getShort(byteIndex));
       case UNSIGNED_SHORT:
-        return GLTFAccessorComponentType.UNSIGNED_SHORT.intToFloat(data.getShort(byteIndex));
+        return GLTFAccessorComponentType.UNSIGNED_SHORT
+            .intToFloat(data.getShort(byteIndex) & 0xFFFF);
       case UNSIGNED_INT:
         return GLTFAccessorComponentType.UNSIGNED_INT.intToFloat(data.getInt(byteIndex));
     }
     return 0f;
   }
 
+  /**
+   * @return the target of the bufferView, null if there is none
+   */
   public GLTFBufferViewTarget getTarget() {
-    return this.getBufferView().getTarget();
+    return bufferView == null ? null : bufferView.getTarget();
   }
 
   /**
@@ -196,7 +584,7 @@ public class GLTFAccessor extends GLTFChildOfRootProperty {
    * @return the stride in bytes.
    */
   public int getByteStride() {
-    return this.getBufferView().getByteStride();
+    return bufferView == null ? 0 : bufferView.getByteStride();
   }
 
   public int getElementCount() {
@@ -231,16 +619,107 @@ public class GLTFAccessor extends GLTFChildOfRootProperty {
     return min;
   }
 
+  void setMinMax(float[] min, float[] max) {
+    this.min = min;
+    this.max = max;
+  }
+
+  float[][] getComputedMinMax() {
+    return computedMinMax;
+  }
+
+  void setComputedMinMax(float[][] computedMinMax) {
+    this.computedMinMax = computedMinMax;
+  }
+
+  @Override
+  void resolveIndices() {
+    if (bufferViewIndex >= 0) {
+      bufferView = gltf.getBufferView(bufferViewIndex);
+    }
+    if (sparse != null) {
+      sparse.resolveIndices();
+    }
+  }
+
+  /**
+   * See {@link StructuralValidator#validateData(GLTF)}
+   */
+  void validateData(StructuralValidator validator) {
+    if (sparse != null) {
+      sparse.validateData(validator, elementCount);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    GLTF gltf = validator.getGltf();
+    validator.require(componentType != null, "componentType is required");
+    validator.require(dataType != null, "type is required");
+    if (elementCount < 1) {
+      validator.error("count must be at least 1, was " + elementCount);
+    }
+    if (dataType != null) {
+      int components = dataType.getPrimitiveCount();
+      if (max != null && max.length != components) {
+        validator.error("max must have " + components + " components");
+      }
+      if (min != null && min.length != components) {
+        validator.error("min must have " + components + " components");
+      }
+      if (validator.checkIndex("bufferView", bufferViewIndex, gltf.getBufferViewCount())) {
+        validator.checkRange("accessor", gltf.getBufferView(bufferViewIndex), byteOffset,
+            componentType, components, elementCount);
+      }
+    }
+    if (sparse != null) {
+      sparse.validate(validator, this);
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "componentType":
+        setComponentType(p.getIntValue());
+        return true;
+      case "normalized":
+        normalized = p.getBooleanValue();
+        return true;
+      case "type":
+        dataType = GLTFAccessorDataType.valueOf(p.getText());
+        return true;
+      case "max":
+        max = GLTFStreamingParser.readFloatArray(p);
+        return true;
+      case "min":
+        min = GLTFStreamingParser.readFloatArray(p);
+        return true;
+      case "bufferView":
+        bufferViewIndex = p.getIntValue();
+        return true;
+      case "byteOffset":
+        byteOffset = p.getLongValue();
+        return true;
+      case "count":
+        elementCount = p.getIntValue();
+        return true;
+      case "sparse":
+        sparse = GLTFStreamingParser.readObject(p, gltf, new GLTFAccessorSparse());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
+
   public void readInto(int elementIndex, Quaternionf dest) {
-    elementIndex *= this.getDataType().getPrimitiveCount();
-    dest.set(this.getFloat(elementIndex++), this.getFloat(elementIndex++),
-        this.getFloat(elementIndex++), this.getFloat(elementIndex));
+    dest.set(getComponent(elementIndex, 0), getComponent(elementIndex, 1),
+        getComponent(elementIndex, 2), getComponent(elementIndex, 3));
   }
 
   public void readInto(int elementIndex, Vector3f dest) {
-    elementIndex *= this.getDataType().getPrimitiveCount();
-    dest.set(this.getFloat(elementIndex++), this.getFloat(elementIndex++),
-        this.getFloat(elementIndex));
+    dest.set(getComponent(elementIndex, 0), getComponent(elementIndex, 1),
+        getComponent(elementIndex, 2));
   }
 
   public void readInto(int elementIndex, float[] dest) {
@@ -7,6 +7,9 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.Arrays;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -41,6 +44,11 @@ public class GLTFAccessorSparse extends GLTFProperty {
   @NotNull
   @Valid
   private GLTFAccessorSparseValues values;
+  /**
+   * Indices read from the indices bufferView, loaded on first use
+   */
+  private volatile int[] indexArray;
+  private volatile BufferSegment valueData;
 
   public int getCount() {
     return count;
@@ -53,4 +61,143 @@ public class GLTFAccessorSparse extends GLTFProperty {
   public GLTFAccessorSparseValues getValues() {
     return values;
   }
+
+  /**
+   * @return the element index of each substituted value, strictly increasing
+   * @throws IllegalStateException if the indices don't strictly increase
+   */
+  int[] getIndexArray() {
+    if (indexArray == null) {
+      int[] read = readIndexArray();
+      for (int i = 1; i < read.length; i++) {
+        if (Integer.compareUnsigned(read[i], read[i - 1]) <= 0) {
+          throw new IllegalStateException("Sparse indices must strictly increase, index " + i
+              + " is " + Integer.toUnsignedString(read[i]) + " after "
+              + Integer.toUnsignedString(read[i - 1]));
+        }
+      }
+      indexArray = read;
+    }
+    return indexArray;
+  }
+
+  private int[] readIndexArray() {
+    int[] read = new int[count];
+    BufferSegment data = indices.getBufferView()
+        .getSegment(indices.getByteOffset(), (long) count * indices.getComponentType()
+            .getSizeInBytes());
+    for (int i = 0; i < count; i++) {
+      switch (indices.getComponentType()) {
+        case UNSIGNED_BYTE:
+          read[i] = data.get(i) & 0xFF;
+          break;
+        case UNSIGNED_SHORT:
+          read[i] = data.getShort(i * 2L) & 0xFFFF;
+          break;
+        default:
+          read[i] = data.getInt(i * 4L);
+      }
+    }
+    return read;
+  }
+
+  /**
+   * @param elementSize size in bytes of one element of the accessor
+   * @return the substituted values, tightly packed
+   */
+  BufferSegment getValueData(int elementSize) {
+    if (valueData == null) {
+      valueData = values.getBufferView()
+          .getSegment(values.getByteOffset(), (long) count * elementSize);
+    }
+    return valueData;
+  }
+
+  /**
+   * @return the position of element in {@link #getIndexArray()}, or -1 if it keeps its initial
+   * value
+   */
+  int find(int element) {
+    int position = Arrays.binarySearch(getIndexArray(), element);
+    return position >= 0 ? position : -1;
+  }
+
+  /**
+   * @return the position of the first substituted element at or after element
+   */
+  int findFrom(int element) {
+    int position = Arrays.binarySearch(getIndexArray(), element);
+    return position >= 0 ? position : -position - 1;
+  }
+
+  /**
+   * Forget loaded data, called when the GLTF is closed
+   */
+  void dropData() {
+    valueData = null;
+  }
+
+  /**
+   * Check the indices strictly increase and are below elementCount, reading them
+   */
+  void validateData(StructuralValidator validator, int elementCount) {
+    int[] read = readIndexArray();
+    for (int i = 0; i < read.length; i++) {
+      if (i > 0 && Integer.compareUnsigned(read[i], read[i - 1]) <= 0) {
+        validator.error("sparse indices must strictly increase, index " + i + " is "
+            + Integer.toUnsignedString(read[i]) + " after " + Integer.toUnsignedString(read[i - 1]));
+        return;
+      }
+      if (Integer.compareUnsigned(read[i], elementCount) >= 0) {
+        validator.error("sparse index " + Integer.toUnsignedString(read[i])
+            + " out of range for accessor count " + elementCount);
+        return;
+      }
+    }
+    indexArray = read;
+  }
+
+  void validate(StructuralValidator validator, GLTFAccessor accessor) {
+    if (count < 1 || count > accessor.getElementCount()) {
+      validator.error("sparse count must be in [1, accessor count], was " + count);
+    }
+    if (indices == null) {
+      validator.error("sparse indices are required");
+    } else {
+      indices.validate(validator, count);
+    }
+    if (values == null) {
+      validator.error("sparse values are required");
+    } else if (accessor.getDataType() != null) {
+      values.validate(validator, accessor.getPrimitiveType(),
+          accessor.getDataType().getPrimitiveCount(), count);
+    }
+  }
+
+  @Override
+  void resolveIndices() {
+    if (indices != null) {
+      indices.resolveIndices();
+    }
+    if (values != null) {
+      values.resolveIndices();
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "count":
+        count = p.getIntValue();
+        return true;
+      case "indices":
+        indices = GLTFStreamingParser.readObject(p, gltf, new GLTFAccessorSparseIndices());
+        return true;
+      case "values":
+        values = GLTFStreamingParser.readObject(p, gltf, new GLTFAccessorSparseValues());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
@@ -8,6 +8,8 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -19,22 +21,27 @@ public class GLTFAccessorSparseIndices extends GLTFProperty {
    */
   @NotNull
   private GLTFBufferView bufferView;
+  private int bufferViewIndex = -1;
   /**
    * The offset relative to the start of the bufferView in bytes. Must be aligned.
    */
   @JsonProperty("byteOffset")
   @Min(0)
-  private int byteOffset = 0;
+  private long byteOffset = 0;
   @JsonProperty("componentType")
   @NotNull
   private GLTFAccessorComponentType componentType = null;
 
   @JsonProperty("bufferView")
   private void setBufferView(int index) {
-    gltf.indexResolvers.add(() -> bufferView = gltf.getBufferView(index));
+    this.bufferViewIndex = index;
   }
 
-  public int getByteOffset() {
+  GLTFBufferView getBufferView() {
+    return bufferView;
+  }
+
+  public long getByteOffset() {
     return byteOffset;
   }
 
@@ -50,4 +57,41 @@ public class GLTFAccessorSparseIndices extends GLTFProperty {
         || ct == GLTFAccessorComponentType.UNSIGNED_SHORT);
     this.componentType = GLTFAccessorComponentType.getType(value);
   }
+
+  void validate(StructuralValidator validator, int count) {
+    GLTF gltf = validator.getGltf();
+    validator.require(componentType == GLTFAccessorComponentType.UNSIGNED_BYTE
+            || componentType == GLTFAccessorComponentType.UNSIGNED_SHORT
+            || componentType == GLTFAccessorComponentType.UNSIGNED_INT,
+        "sparse indices componentType must be an unsigned integer type");
+    if (validator.checkRequiredIndex("sparse indices bufferView", bufferViewIndex,
+        gltf.getBufferViewCount())) {
+      validator.checkRange("sparse indices", gltf.getBufferView(bufferViewIndex), byteOffset,
+          componentType, 1, count);
+    }
+  }
+
+  @Override
+  void resolveIndices() {
+    if (bufferViewIndex >= 0) {
+      bufferView = gltf.getBufferView(bufferViewIndex);
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "bufferView":
+        bufferViewIndex = p.getIntValue();
+        return true;
+      case "byteOffset":
+        byteOffset = p.getLongValue();
+        return true;
+      case "componentType":
+        setComponentType(p.getIntValue());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
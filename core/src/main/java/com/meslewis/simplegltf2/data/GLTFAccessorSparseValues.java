@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -24,6 +26,7 @@ public class GLTFAccessorSparseValues extends GLTFProperty {
    */
   @NotNull
   private GLTFBufferView bufferView;
+  private int bufferViewIndex = -1;
   /**
    * The offset relative to the start of the bufferView in bytes. Must be aligned.
    * <p>
@@ -31,7 +34,7 @@ public class GLTFAccessorSparseValues extends GLTFProperty {
    */
   @JsonProperty("byteOffset")
   @Min(0)
-  private int byteOffset = 0;
+  private long byteOffset = 0;
 
   public GLTFBufferView getBufferView() {
     return bufferView;
@@ -39,10 +42,41 @@ public class GLTFAccessorSparseValues extends GLTFProperty {
 
   @JsonProperty("bufferView")
   private void setBufferView(int index) {
-    gltf.indexResolvers.add(() -> bufferView = gltf.getBufferView(index));
+    this.bufferViewIndex = index;
   }
 
-  int getByteOffset() {
+  long getByteOffset() {
     return byteOffset;
   }
+
+  void validate(StructuralValidator validator, GLTFAccessorComponentType componentType,
+      int componentCount, int count) {
+    GLTF gltf = validator.getGltf();
+    if (validator.checkRequiredIndex("sparse values bufferView", bufferViewIndex,
+        gltf.getBufferViewCount())) {
+      validator.checkRange("sparse values", gltf.getBufferView(bufferViewIndex), byteOffset,
+          componentType, componentCount, count);
+    }
+  }
+
+  @Override
+  void resolveIndices() {
+    if (bufferViewIndex >= 0) {
+      bufferView = gltf.getBufferView(bufferViewIndex);
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "bufferView":
+        bufferViewIndex = p.getIntValue();
+        return true;
+      case "byteOffset":
+        byteOffset = p.getLongValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
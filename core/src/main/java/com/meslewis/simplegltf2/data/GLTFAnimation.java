@@ -7,7 +7,10 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Predicate;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
@@ -35,6 +38,13 @@ public class GLTFAnimation extends GLTFChildOfRootProperty {
   private List<GLTFAnimationSampler> samplers;
 
 
+  /**
+   * Remove channels that don't match filter
+   */
+  void retainChannels(Predicate<GLTFChannel> filter) {
+    channels.removeIf(filter.negate());
+  }
+
   public List<GLTFChannel> getChannels() {
     return channels;
   }
@@ -42,4 +52,49 @@ public class GLTFAnimation extends GLTFChildOfRootProperty {
   public List<GLTFAnimationSampler> getSamplers() {
     return samplers;
   }
+
+  @Override
+  void resolveIndices() {
+    if (channels != null) {
+      for (GLTFChannel channel : channels) {
+        channel.resolveIndices();
+      }
+    }
+    if (samplers != null) {
+      for (GLTFAnimationSampler sampler : samplers) {
+        sampler.resolveIndices();
+      }
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    validator.require(channels != null && !channels.isEmpty(), "channels are required");
+    validator.require(samplers != null && !samplers.isEmpty(), "samplers are required");
+    int samplerCount = samplers == null ? 0 : samplers.size();
+    if (channels != null) {
+      for (GLTFChannel channel : channels) {
+        channel.validate(validator, samplerCount);
+      }
+    }
+    if (samplers != null) {
+      for (GLTFAnimationSampler sampler : samplers) {
+        sampler.validate(validator);
+      }
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "channels":
+        channels = GLTFStreamingParser.readList(p, gltf, GLTFChannel::new);
+        return true;
+      case "samplers":
+        samplers = GLTFStreamingParser.readList(p, gltf, GLTFAnimationSampler::new);
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
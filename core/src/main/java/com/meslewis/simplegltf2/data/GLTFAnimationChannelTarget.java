@@ -8,6 +8,8 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -21,6 +23,7 @@ public class GLTFAnimationChannelTarget extends GLTFProperty {
    * The index of the node to target.
    */
   private GLTFNode node;
+  private int nodeIndex = -1;
   /**
    * The name of the node's TRS property to modify, or the \
    */
@@ -35,7 +38,7 @@ public class GLTFAnimationChannelTarget extends GLTFProperty {
 
   @JsonProperty("node")
   private void setNode(int index) {
-    gltf.indexResolvers.add(() -> node = gltf.getNode(index));
+    this.nodeIndex = index;
   }
 
   public GLTFPath getPath() {
@@ -47,6 +50,33 @@ public class GLTFAnimationChannelTarget extends GLTFProperty {
     this.path = GLTFPath.valueOf(string.toUpperCase());
   }
 
+  @Override
+  void resolveIndices() {
+    if (nodeIndex >= 0) {
+      node = gltf.getNode(nodeIndex);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    validator.require(path != null, "channel target path is required");
+    validator.checkIndex("channel target node", nodeIndex, validator.getGltf().getNodeCount());
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "node":
+        nodeIndex = p.getIntValue();
+        return true;
+      case "path":
+        setPath(p.getText());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
+
   public enum GLTFPath {
     TRANSLATION,
     ROTATION,
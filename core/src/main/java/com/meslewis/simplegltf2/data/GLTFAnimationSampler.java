@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.constraints.NotNull;
 
 /**
@@ -22,6 +24,7 @@ public class GLTFAnimationSampler extends GLTFProperty {
    */
   @NotNull
   private GLTFAccessor input;
+  private int inputIndex = -1;
   /**
    * The index of an accessor containing keyframe output values. When targeting translation or scale
    * paths, the `accessor.componentType` of the output values must be `FLOAT`. When targeting
@@ -31,6 +34,7 @@ public class GLTFAnimationSampler extends GLTFProperty {
    */
   @NotNull
   private GLTFAccessor output;
+  private int outputIndex = -1;
   /**
    * Interpolation algorithm.
    */
@@ -43,7 +47,7 @@ public class GLTFAnimationSampler extends GLTFProperty {
 
   @JsonProperty("input")
   private void setInput(int index) {
-    gltf.indexResolvers.add(() -> input = gltf.getAccessor(index));
+    this.inputIndex = index;
   }
 
   public GLTFAccessor getOutput() {
@@ -52,13 +56,47 @@ public class GLTFAnimationSampler extends GLTFProperty {
 
   @JsonProperty("output")
   private void setOutput(int index) {
-    gltf.indexResolvers.add(() -> output = gltf.getAccessor(index));
+    this.outputIndex = index;
   }
 
   public GLTFInterpolation getInterpolation() {
     return interpolation;
   }
 
+  @Override
+  void resolveIndices() {
+    if (inputIndex >= 0) {
+      input = gltf.getAccessor(inputIndex);
+    }
+    if (outputIndex >= 0) {
+      output = gltf.getAccessor(outputIndex);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    int accessorCount = validator.getGltf().getAccessorCount();
+    validator.checkRequiredIndex("sampler input", inputIndex, accessorCount);
+    validator.checkRequiredIndex("sampler output", outputIndex, accessorCount);
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "input":
+        inputIndex = p.getIntValue();
+        return true;
+      case "output":
+        outputIndex = p.getIntValue();
+        return true;
+      case "interpolation":
+        interpolation = GLTFInterpolation.valueOf(p.getText());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
+
   /**
    * Interpretation algorithm.
    */
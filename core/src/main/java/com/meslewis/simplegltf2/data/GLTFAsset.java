@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.constraints.NotNull;
 
 /**
@@ -54,4 +56,29 @@ public class GLTFAsset extends GLTFProperty {
   public String getMinVersion() {
     return minVersion;
   }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    validator.require(version != null, "asset version is required");
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "copyright":
+        copyright = p.getValueAsString();
+        return true;
+      case "generator":
+        generator = p.getValueAsString();
+        return true;
+      case "version":
+        version = p.getValueAsString();
+        return true;
+      case "minVersion":
+        minVersion = p.getValueAsString();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
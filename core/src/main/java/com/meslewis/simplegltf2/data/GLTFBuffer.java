@@ -7,11 +7,15 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -21,6 +25,16 @@ import javax.validation.constraints.NotNull;
  */
 public class GLTFBuffer extends GLTFChildOfRootProperty {
 
+  /**
+   * BufferViews closer together than this are fetched as one range
+   */
+  private static final int COALESCE_GAP = 64 * 1024;
+  /**
+   * Largest range fetched as one ByteBuffer. Regions end at bufferView boundaries rather than grow
+   * past this, only a single longer bufferView is split into several.
+   */
+  private static final int MAX_REGION_SIZE = 1 << 30;
+
   /**
    * The uri of the buffer. Relative paths are relative to the .gltf file. Instead of referencing an
    * external file, the uri can also be a data-uri. Will be null if referencing a glb buffer
@@ -34,17 +48,23 @@ public class GLTFBuffer extends GLTFChildOfRootProperty {
   @JsonProperty("byteLength")
   @NotNull
   @Min(1)
-  private int byteLength = -1;
+  private long byteLength = -1;
   /**
-   * Java nio Buffer holding data
+   * Byte ranges of this buffer used by bufferViews, sorted by offset. Only these are fetched.
+   * Computed on first use so bufferViews dropped after loading are not included.
    */
-  private ByteBuffer buffer;
+  private volatile Region[] regions;
+  /**
+   * Ranges read that no one region covers, fetched on their own and kept so reading them again
+   * doesn't fetch them again. Dropped with the regions.
+   */
+  private final List<Region> spans = new ArrayList<>();
 
   public URI getUri() {
     return uri;
   }
 
-  public int getByteLength() {
+  public long getByteLength() {
     return byteLength;
   }
 
@@ -56,30 +76,269 @@ public class GLTFBuffer extends GLTFChildOfRootProperty {
   }
 
   /**
-   * Load the data referenced by this Buffer into a java.nio.Buffer
+   * Load the data referenced by this Buffer into a java.nio.Buffer. Only the range used by the
+   * bufferViews around start is fetched.
    *
    * @return java.nio.Buffer with relevant data
    */
-  public ByteBuffer getData(int start, int length) {
-    if (start + length > this.byteLength) {
+  public ByteBuffer getData(long start, int length) {
+    if (start < 0 || length < 0 || start + length > this.byteLength) {
+      throw new BufferUnderflowException();
+    }
+    Region[] current = getRegions();
+    int index = findRegion(current, start);
+    Region region;
+    if (index < 0 || start + length > current[index].start + current[index].length) {
+      //Not inside any one region, fetch just this range
+      region = getSpan(start, length);
+    } else {
+      region = current[index];
+    }
+    return region.getData().slice((int) (start - region.start), length)
+        .order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Like {@link #getData(long, int)} but without the 2 GB limit of a single ByteBuffer. The segment
+   * is built from the regions covering the range, bytes outside every region are fetched in pieces
+   * of their own.
+   */
+  public BufferSegment getSegment(long start, long length) {
+    if (start < 0 || length < 0 || start + length > this.byteLength) {
       throw new BufferUnderflowException();
     }
-    if (buffer == null) {
-      resolveBufferData();
+    Region[] current = getRegions();
+    List<ByteBuffer> pieces = new ArrayList<>();
+    long end = start + length;
+    long position = start;
+    while (position < end) {
+      int index = findRegion(current, position);
+      int size;
+      if (index >= 0) {
+        Region region = current[index];
+        size = (int) (Math.min(end, region.start + region.length) - position);
+        pieces.add(region.getData().slice((int) (position - region.start), size));
+      } else {
+        //Gap up to the next region
+        int next = -index - 1;
+        long gapEnd = next < current.length ? Math.min(end, current[next].start) : end;
+        size = (int) Math.min(gapEnd - position, MAX_REGION_SIZE);
+        Region span = getSpan(position, size);
+        pieces.add(span.getData().slice((int) (position - span.start), size));
+      }
+      position += size;
+    }
+    return new BufferSegment(pieces.toArray(new ByteBuffer[0]));
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    if (byteLength < 1) {
+      validator.error("byteLength must be at least 1, was " + byteLength);
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "uri":
+        uri = GLTFStreamingParser.readURI(p);
+        return true;
+      case "byteLength":
+        byteLength = p.getLongValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
+
+  /**
+   * Forget loaded data, called when the GLTF is closed
+   */
+  synchronized void dropData() {
+    regions = null;
+    spans.clear();
+  }
+
+  /**
+   * @return true if every range of this buffer used by a bufferView has been loaded
+   */
+  public boolean isResident() {
+    Region[] current = regions;
+    if (current == null) {
+      return false;
+    }
+    for (Region region : current) {
+      if (region.data == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Loads every range of this buffer used by a bufferView, if not loaded already. Safe to call
+   * from multiple threads, each range is only fetched once.
+   */
+  public void resolveBufferData() {
+    for (Region region : getRegions()) {
+      region.getData();
+    }
+  }
+
+  private boolean isDataURI() {
+    return uri != null && uri.getScheme() != null;
+  }
+
+  /**
+   * @return index of the region containing position, or (-(index of the next region) - 1)
+   */
+  private static int findRegion(Region[] regions, long position) {
+    int low = 0;
+    int high = regions.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      Region region = regions[mid];
+      if (position < region.start) {
+        high = mid - 1;
+      } else if (position >= region.start + region.length) {
+        low = mid + 1;
+      } else {
+        return mid;
+      }
+    }
+    return -low - 1;
+  }
+
+  private Region[] getRegions() {
+    Region[] current = regions;
+    if (current == null) {
+      synchronized (this) {
+        current = regions;
+        if (current == null) {
+          gltf.checkOpen();
+          current = computeRegions();
+          regions = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * @return a fetched range containing start to start + length, fetching just that if there is none
+   */
+  private synchronized Region getSpan(long start, int length) {
+    gltf.checkOpen();
+    for (Region span : spans) {
+      if (start >= span.start && start + length <= span.start + span.length) {
+        return span;
+      }
+    }
+    Region span = new Region(this, start, length);
+    spans.add(span);
+    return span;
+  }
+
+  /**
+   * Merge the ranges of every bufferView of this buffer that overlap or are close together, as long
+   * as the region stays within {@link #MAX_REGION_SIZE}. Splitting between bufferViews keeps every
+   * accessor inside one region, so reading it never needs a fetch of its own. Only a bufferView
+   * longer than the limit is split inside, its accessors are read through {@link
+   * #getSegment(long, long)}.
+   */
+  private Region[] computeRegions() {
+    if (isDataURI()) {
+      //Data URIs are decoded whole
+      return new Region[]{new Region(this, 0, (int) byteLength)};
+    }
+    List<long[]> ranges = new ArrayList<>();
+    for (int i = 0; i < gltf.getBufferViewCount(); i++) {
+      GLTFBufferView bufferView = gltf.getBufferView(i);
+      if (bufferView.getDataBuffer() == this) {
+        long offset = bufferView.getByteOffset();
+        ranges.add(new long[]{offset, Math.min(byteLength, offset + bufferView.getByteLength())});
+      }
+    }
+    ranges.sort(Comparator.comparingLong(range -> range[0]));
+
+    List<Region> merged = new ArrayList<>();
+    long regionStart = -1;
+    long regionEnd = -1;
+    for (long[] range : ranges) {
+      long end = Math.max(regionEnd, range[1]);
+      if (regionStart >= 0 && range[0] <= regionEnd + COALESCE_GAP
+          && end - regionStart <= MAX_REGION_SIZE) {
+        regionEnd = end;
+      } else {
+        addRegions(merged, regionStart, regionEnd);
+        //A bufferView overlapping the full region starts where it ends, regions must not overlap
+        regionStart = Math.max(range[0], regionEnd);
+        regionEnd = end;
+      }
+    }
+    addRegions(merged, regionStart, regionEnd);
+    return merged.toArray(new Region[0]);
+  }
+
+  private void addRegions(List<Region> regions, long start, long end) {
+    for (long position = start; position < end; position += MAX_REGION_SIZE) {
+      regions.add(new Region(this, position, (int) Math.min(end - position, MAX_REGION_SIZE)));
     }
-    return buffer.slice(start, length).order(ByteOrder.LITTLE_ENDIAN);
   }
 
   /**
-   * Loads the buffer according to uri
-   * <p>
    * if URI is underfined it must be referencing the bin chunk of this glb
-   *
-   * @throws IOException
    */
-  private void resolveBufferData() {
-    this.buffer = URIUtil.getDirectBufferFromGeneralURI(gltf, uri);
+  private ByteBuffer fetch(long start, int length) {
+    ByteBuffer fetched;
+    if (isDataURI()) {
+      fetched = URIUtil.getDirectBufferFromGeneralURI(gltf, uri);
+    } else {
+      fetched = URIUtil.getDirectBufferFromGeneralURI(gltf, uri, start, length);
+    }
     //All glTF buffers are little endian
-    assert (this.buffer.order() == ByteOrder.LITTLE_ENDIAN);
+    assert (fetched.order() == ByteOrder.LITTLE_ENDIAN);
+    return fetched;
+  }
+
+  /**
+   * A range of the buffer fetched as one piece
+   */
+  private static final class Region {
+
+    private final GLTFBuffer owner;
+    private final long start;
+    private final int length;
+    private volatile ByteBuffer data;
+
+    private Region(GLTFBuffer owner, long start, int length) {
+      this.owner = owner;
+      this.start = start;
+      this.length = length;
+    }
+
+    private ByteBuffer getData() {
+      ByteBuffer current = data;
+      if (current == null) {
+        synchronized (this) {
+          current = data;
+          if (current == null) {
+            BufferResolveEvent event = new BufferResolveEvent();
+            event.begin();
+            current = owner.fetch(start, length);
+            data = current;
+            if (event.shouldCommit()) {
+              //Data URIs can be megabytes long
+              event.uri = owner.isDataURI() ? "data:" : String.valueOf(owner.uri);
+              event.offset = start;
+              event.bytes = length;
+              event.commit();
+            }
+          }
+        }
+      }
+      return current;
+    }
   }
 }
@@ -8,6 +8,8 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import javax.validation.constraints.Max;
@@ -22,18 +24,19 @@ public class GLTFBufferView extends GLTFChildOfRootProperty {
    * The index of the buffer.
    */
   private GLTFBuffer buffer;
+  private int bufferIndex = -1;
   /**
    * The offset into the buffer in bytes.
    */
   @JsonProperty("byteOffset")
   @Min(0)
-  private int byteOffset = 0;
+  private long byteOffset = 0;
   /**
    * The total byte length of the buffer view.
    */
   @JsonProperty("byteLength")
   @Min(1)
-  private int byteLength = -1;
+  private long byteLength = -1;
   /**
    * The target that the GPU buffer should be bound to. TODO "runtime must use it to determine data
    * usage, TODO otherwise it could be inferred from mesh accessor objects.
@@ -53,7 +56,7 @@ public class GLTFBufferView extends GLTFChildOfRootProperty {
 
   @JsonProperty("buffer")
   private void setBuffer(int index) {
-    gltf.indexResolvers.add(() -> buffer = gltf.getBuffer(index));
+    this.bufferIndex = index;
   }
 
   /**
@@ -68,11 +71,11 @@ public class GLTFBufferView extends GLTFChildOfRootProperty {
     return this.bufferViewTarget;
   }
 
-  public int getByteOffset() {
+  public long getByteOffset() {
     return byteOffset;
   }
 
-  public int getByteLength() {
+  public long getByteLength() {
     return byteLength;
   }
 
@@ -86,17 +89,76 @@ public class GLTFBufferView extends GLTFChildOfRootProperty {
   /**
    * @return Buffer filled with data this BufferView points to
    */
-  ByteBuffer getData(int byteOffset, int byteLength) {
-    if (byteOffset + byteLength > this.byteLength) {
+  ByteBuffer getData(long byteOffset, int byteLength) {
+    if (byteOffset < 0 || byteOffset + byteLength > this.byteLength) {
       throw new BufferUnderflowException();
     }
     return getDataBuffer().getData(this.byteOffset + byteOffset, byteLength);
   }
 
+  /**
+   * @return Segment of the data this BufferView points to, which may be larger than 2 GB
+   */
+  BufferSegment getSegment(long byteOffset, long byteLength) {
+    if (byteOffset < 0 || byteOffset + byteLength > this.byteLength) {
+      throw new BufferUnderflowException();
+    }
+    return getDataBuffer().getSegment(this.byteOffset + byteOffset, byteLength);
+  }
+
   /**
    * @return
    */
   int getByteStride() {
     return this.byteStride;
   }
+
+  @Override
+  void resolveIndices() {
+    if (bufferIndex >= 0) {
+      buffer = gltf.getBuffer(bufferIndex);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    GLTF gltf = validator.getGltf();
+    validator.require(byteOffset >= 0, "byteOffset must not be negative");
+    if (byteLength < 1) {
+      validator.error("byteLength must be at least 1, was " + byteLength);
+    }
+    validator.require(byteStride == 0 || (byteStride >= 4 && byteStride <= 252
+        && byteStride % 4 == 0), "byteStride must be a multiple of 4 in [4, 252]");
+    if (validator.checkRequiredIndex("buffer", bufferIndex, gltf.getBufferCount())) {
+      long end = byteOffset + byteLength;
+      long bufferLength = gltf.getBuffer(bufferIndex).getByteLength();
+      if (end > bufferLength) {
+        validator.error("ends at byte " + end + " but buffer is only " + bufferLength
+            + " bytes long");
+      }
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "buffer":
+        bufferIndex = p.getIntValue();
+        return true;
+      case "byteOffset":
+        byteOffset = p.getLongValue();
+        return true;
+      case "byteLength":
+        byteLength = p.getLongValue();
+        return true;
+      case "target":
+        setBufferViewTarget(p.getIntValue());
+        return true;
+      case "byteStride":
+        byteStride = p.getIntValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import com.fasterxml.jackson.annotation.JsonSetter;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -56,6 +58,35 @@ public class GLTFCamera extends GLTFChildOfRootProperty {
     return type;
   }
 
+  @Override
+  void validate(StructuralValidator validator) {
+    if (type == null) {
+      validator.error("type is required");
+    } else if (type == GLTFCameraType.PERSPECTIVE) {
+      validator.require(perspective != null, "perspective is required for a perspective camera");
+    } else {
+      validator.require(orthographic != null,
+          "orthographic is required for an orthographic camera");
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "orthographic":
+        orthographic = GLTFStreamingParser.readObject(p, gltf, new GLTFOrthographic());
+        return true;
+      case "perspective":
+        perspective = GLTFStreamingParser.readObject(p, gltf, new GLTFPerspective());
+        return true;
+      case "type":
+        setCameraType(p.getText());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
+
   public enum GLTFCameraType {
     PERSPECTIVE,
     ORTHOGRAPHIC
@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
@@ -38,4 +40,34 @@ public class GLTFChannel extends GLTFProperty {
   public GLTFAnimationChannelTarget getTarget() {
     return target;
   }
+
+  void validate(StructuralValidator validator, int samplerCount) {
+    validator.checkRequiredIndex("channel sampler", indexAnimationSampler, samplerCount);
+    if (target == null) {
+      validator.error("channel target is required");
+    } else {
+      target.validate(validator);
+    }
+  }
+
+  @Override
+  void resolveIndices() {
+    if (target != null) {
+      target.resolveIndices();
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "sampler":
+        indexAnimationSampler = p.getIntValue();
+        return true;
+      case "target":
+        target = GLTFStreamingParser.readObject(p, gltf, new GLTFAnimationChannelTarget());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
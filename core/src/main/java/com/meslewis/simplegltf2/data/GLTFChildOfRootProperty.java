@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 
 public class GLTFChildOfRootProperty extends GLTFProperty {
 
@@ -20,4 +22,17 @@ public class GLTFChildOfRootProperty extends GLTFProperty {
   public String getName() {
     return name;
   }
+
+  void setName(String name) {
+    this.name = name;
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    if ("name".equals(name)) {
+      this.name = p.getValueAsString();
+      return true;
+    }
+    return super.readProperty(p, name);
+  }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Databind deserializers for the types a large file has the most of. They read tokens through
+ * {@link GLTFProperty#readProperty(JsonParser, String)}, the same code {@link GLTFStreamingParser}
+ * uses, instead of binding annotated fields by reflection.
+ * <p>
+ * The {@link GLTF} being read must be injectable by its class, and unknown properties are handled
+ * by the {@link DeserializationContext}, so they fail the load as they do elsewhere in databind.
+ */
+public class GLTFDataModule extends SimpleModule {
+
+  private static final SimpleModule instance;
+
+  static {
+    instance = new GLTFDataModule()
+        .addDeserializer(GLTFAccessor.class,
+            new PropertyDeserializer<>(GLTFAccessor.class, GLTFAccessor::new))
+        .addDeserializer(GLTFBufferView.class,
+            new PropertyDeserializer<>(GLTFBufferView.class, GLTFBufferView::new))
+        .addDeserializer(GLTFNode.class,
+            new PropertyDeserializer<>(GLTFNode.class, GLTFNode::new))
+        .addDeserializer(GLTFMeshPrimitive.class,
+            new PropertyDeserializer<>(GLTFMeshPrimitive.class, GLTFMeshPrimitive::new))
+    ;
+  }
+
+  public static SimpleModule getModule() {
+    return instance;
+  }
+
+  private static class PropertyDeserializer<T extends GLTFProperty> extends StdDeserializer<T> {
+
+    private final Supplier<T> factory;
+
+    PropertyDeserializer(Class<T> type, Supplier<T> factory) {
+      super(type);
+      this.factory = factory;
+    }
+
+    @Override
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      String name;
+      if (p.isExpectedStartObjectToken()) {
+        name = p.nextFieldName();
+      } else if (p.hasToken(JsonToken.FIELD_NAME)) {
+        name = p.getCurrentName();
+      } else {
+        @SuppressWarnings("unchecked")
+        T value = (T) ctxt.handleUnexpectedToken(handledType(), p);
+        return value;
+      }
+
+      T target = factory.get();
+      target.gltf = (GLTF) ctxt.findInjectableValue(GLTF.class.getName(), null, target);
+      for (; name != null; name = p.nextFieldName()) {
+        p.nextToken();
+        if (!target.readProperty(p, name)) {
+          ctxt.handleUnknownProperty(p, this, target, name);
+        }
+      }
+      return target;
+    }
+  }
+}
@@ -7,8 +7,11 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,26 +43,49 @@ public class GLTFImage extends GLTFChildOfRootProperty {
    * property.
    */
   private GLTFBufferView bufferView;
+  private int bufferViewIndex = -1;
+
+  /**
+   * Image data, kept after the first fetch so it is only read or decoded once.
+   */
+  private volatile ByteBuffer data;
 
   @JsonProperty("bufferView")
   private void setBufferView(int index) {
-    gltf.indexResolvers.add(() -> bufferView = gltf.getBufferView(index));
+    this.bufferViewIndex = index;
   }
 
   /**
-   * Returns the data for this image in a buffer.
+   * Returns the data for this image in a buffer. The data is fetched on first call, later calls
+   * return a new view of the same memory.
    *
    * @return TODO
    */
   public ByteBuffer getDirectByteBuffer() {
-    ByteBuffer imgBuffer = null;
-    if (bufferView != null) {
-      imgBuffer = bufferView.getData(0, bufferView.getByteLength());
-    } else {
-      logger.info("Image data from URI");
-      imgBuffer = URIUtil.getDirectBufferFromGeneralURI(gltf, uri);
+    if (data == null) {
+      synchronized (this) {
+        if (data == null) {
+          if (bufferView != null) {
+            data = bufferView.getData(0, Math.toIntExact(bufferView.getByteLength()));
+          } else {
+            logger.info("Image data from URI");
+            data = URIUtil.getDirectBufferFromGeneralURI(gltf, uri);
+          }
+        }
+      }
     }
-    return imgBuffer;
+    return data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Forget loaded data, called when the GLTF is closed
+   */
+  synchronized void dropData() {
+    data = null;
+  }
+
+  GLTFBufferView getBufferView() {
+    return bufferView;
   }
 
   public String getMimeType() {
@@ -69,7 +95,9 @@ public class GLTFImage extends GLTFChildOfRootProperty {
         this.mimeType = getURI().getSchemeSpecificPart();
         this.mimeType = mimeType.substring(0, mimeType.indexOf(';'));
       } else { //Extract a good guess from the file name
-        this.mimeType = "image/" + uri.getPath().substring(uri.getPath().lastIndexOf('.'));
+        String extension = uri.getPath().substring(uri.getPath().lastIndexOf('.') + 1);
+        this.mimeType = "image/" + (extension.equalsIgnoreCase("jpg") ? "jpeg"
+            : extension.toLowerCase());
       }
     }
     return mimeType;
@@ -78,4 +106,40 @@ public class GLTFImage extends GLTFChildOfRootProperty {
   public URI getURI() {
     return this.uri;
   }
+
+  @Override
+  void resolveIndices() {
+    if (bufferViewIndex >= 0) {
+      bufferView = gltf.getBufferView(bufferViewIndex);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    if (uri == null) {
+      if (validator.checkRequiredIndex("bufferView", bufferViewIndex,
+          validator.getGltf().getBufferViewCount())) {
+        validator.require(mimeType != null, "mimeType is required with a bufferView");
+      }
+    } else {
+      validator.require(bufferViewIndex == -1, "must not define both uri and bufferView");
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "uri":
+        uri = GLTFStreamingParser.readURI(p);
+        return true;
+      case "mimeType":
+        mimeType = p.getValueAsString();
+        return true;
+      case "bufferView":
+        bufferViewIndex = p.getIntValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -124,6 +126,74 @@ public class GLTFMaterial extends GLTFChildOfRootProperty {
     return doubleSided;
   }
 
+  @Override
+  void validate(StructuralValidator validator) {
+    if (pbrMetallicRoughness != null) {
+      pbrMetallicRoughness.validate(validator);
+    }
+    if (normalTexture != null) {
+      normalTexture.validate(validator);
+    }
+    if (occlusionTexture != null) {
+      occlusionTexture.validate(validator);
+    }
+    if (emissiveTexture != null) {
+      emissiveTexture.validate(validator);
+    }
+  }
+
+  @Override
+  void resolveIndices() {
+    if (pbrMetallicRoughness != null) {
+      pbrMetallicRoughness.resolveIndices();
+    }
+    if (normalTexture != null) {
+      normalTexture.resolveIndices();
+    }
+    if (occlusionTexture != null) {
+      occlusionTexture.resolveIndices();
+    }
+    if (emissiveTexture != null) {
+      emissiveTexture.resolveIndices();
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "pbrMetallicRoughness":
+        pbrMetallicRoughness = GLTFStreamingParser
+            .readObject(p, gltf, new GLTFPBRMetallicRoughness());
+        return true;
+      case "normalTexture":
+        normalTexture = GLTFStreamingParser
+            .readObject(p, gltf, new GLTFTextureInfo.GLTFNormalTextureInfo());
+        return true;
+      case "occlusionTexture":
+        occlusionTexture = GLTFStreamingParser
+            .readObject(p, gltf, new GLTFTextureInfo.GLTFOcclusionTextureInfo());
+        return true;
+      case "emissiveTexture":
+        emissiveTexture = GLTFStreamingParser.readObject(p, gltf, new GLTFTextureInfo());
+        return true;
+      case "emissiveFactor":
+        float[] e = GLTFStreamingParser.readFloatArray(p);
+        emissiveFactor.set(e[0], e[1], e[2]);
+        return true;
+      case "alphaMode":
+        alphaMode = GLTFAlphaMode.valueOf(p.getText());
+        return true;
+      case "alphaCutoff":
+        alphaCutoff = p.getFloatValue();
+        return true;
+      case "doubleSided":
+        doubleSided = p.getBooleanValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
+
   @Override
   public String toString() {
     return "GLTFMaterial{" +
@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javax.validation.Valid;
@@ -31,12 +33,94 @@ public class GLTFMesh extends GLTFChildOfRootProperty {
    */
   @JsonProperty("weights")
   private float[] weights;
+  /**
+   * Computed by {@link BoundsService}
+   */
+  private volatile Bounds bounds;
+
+  /**
+   * A mesh created after loading, see {@link GLTF#addMesh(GLTFMesh)}
+   */
+  static GLTFMesh of(GLTF gltf, String name, List<GLTFMeshPrimitive> primitives,
+      float[] weights) {
+    GLTFMesh mesh = new GLTFMesh();
+    mesh.gltf = gltf;
+    mesh.setName(name);
+    mesh.primitives = primitives;
+    mesh.weights = weights;
+    primitives.forEach(primitive -> primitive.setMesh(mesh));
+    return mesh;
+  }
 
   public List<GLTFMeshPrimitive> getPrimitives() {
     return primitives;
   }
 
+  /**
+   * Replace the primitives of this mesh, e.g. with the parts {@link IndexCompactor} splits them into
+   */
+  void setPrimitives(List<GLTFMeshPrimitive> primitives) {
+    this.primitives = primitives;
+    primitives.forEach(primitive -> primitive.setMesh(this));
+    invalidateBounds();
+  }
+
   public float[] getWeights() {
     return weights;
   }
+
+  Bounds getCachedBounds() {
+    return bounds;
+  }
+
+  void setCachedBounds(Bounds bounds) {
+    this.bounds = bounds;
+  }
+
+  /**
+   * Forget the bounds of this mesh and of every scene, which may contain it
+   */
+  void invalidateBounds() {
+    bounds = null;
+    gltf.invalidateSceneBounds();
+  }
+
+  /**
+   * Forget data loaded for the primitives, called when the GLTF is closed
+   */
+  void dropData() {
+    primitives.forEach(GLTFMeshPrimitive::dropData);
+  }
+
+  @Override
+  void resolveIndices() {
+    for (GLTFMeshPrimitive primitive : primitives) {
+      primitive.setMesh(this);
+      primitive.resolveIndices();
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    validator.require(primitives != null && !primitives.isEmpty(), "primitives are required");
+    if (primitives != null) {
+      for (GLTFMeshPrimitive primitive : primitives) {
+        primitive.validate(validator);
+      }
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "primitives":
+        primitives = GLTFStreamingParser.readList(p, gltf, GLTFMeshPrimitive::new);
+        return true;
+      case "weights":
+        weights = GLTFStreamingParser.readFloatArray(p);
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
@@ -8,8 +8,12 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,6 +25,7 @@ public class GLTFMeshPrimitive extends GLTFProperty {
    * the index of the accessor containing attribute's data.
    */
   private Map<String, GLTFAccessor> attributes;
+  private Map<String, Integer> attributeIndices;
   /**
    * The type of primitives to render. All valid values correspond to WebGL enums.
    * <p>
@@ -37,10 +42,12 @@ public class GLTFMeshPrimitive extends GLTFProperty {
    * support; `type` must be `\
    */
   private GLTFAccessor indicesAccessor;
+  private int indicesAccessorIndex = -1;
   /**
    * The index of the material to apply to this primitive when rendering.
    */
   private GLTFMaterial material;
+  private int materialIndex = -1;
   /**
    * A dictionary object specifying attributes displacements in a Morph Target, where each key
    * corresponds to one of the three supported attribute semantic (`POSITION`, `NORMAL`, or
@@ -48,9 +55,24 @@ public class GLTFMeshPrimitive extends GLTFProperty {
    * data.
    */
   private List<Map<String, GLTFAccessor>> morphTargets;
+  private List<Map<String, Integer>> morphTargetIndices;
+  /**
+   * Vertex layouts built so far, by attribute order
+   */
+  private final Map<List<String>, InterleavedVertices> interleaved = new HashMap<>();
+  private final Map<List<String>, PlanarVertices> planar = new HashMap<>();
+  /**
+   * Computed by {@link BoundsService}
+   */
+  private volatile Bounds bounds;
+  /**
+   * The mesh holding this primitive, null until it is put in one
+   */
+  private GLTFMesh mesh;
 
   /**
-   * Get a Map of references to Accessors for the AdditionalProperties of this MeshPrimitive
+   * Get a Map of references to Accessors for the AdditionalProperties of this MeshPrimitive, in
+   * the order the file lists them
    *
    * @return null if attributes is null
    */
@@ -60,10 +82,7 @@ public class GLTFMeshPrimitive extends GLTFProperty {
 
   @JsonProperty("attributes")
   private void setAttributes(Map<String, Integer> indexAttributes) {
-    attributes = new HashMap<>();
-    gltf.indexResolvers.add(() -> {
-      indexAttributes.forEach((key, value) -> attributes.put(key, gltf.getAccessor(value)));
-    });
+    this.attributeIndices = indexAttributes;
   }
 
   /**
@@ -75,7 +94,7 @@ public class GLTFMeshPrimitive extends GLTFProperty {
 
   @JsonProperty("indices")
   private void setIndicesAccessor(int index) {
-    gltf.indexResolvers.add(() -> indicesAccessor = gltf.getAccessor(index));
+    this.indicesAccessorIndex = index;
   }
 
   /**
@@ -87,7 +106,7 @@ public class GLTFMeshPrimitive extends GLTFProperty {
 
   @JsonProperty("material")
   private void setMaterial(int index) {
-    gltf.indexResolvers.add(() -> material = gltf.getMaterial(index));
+    this.materialIndex = index;
   }
 
   /**
@@ -103,15 +122,217 @@ public class GLTFMeshPrimitive extends GLTFProperty {
 
   @JsonSetter("targets")
   private void setMorphTargets(List<Map<String, Integer>> stringIndexMapList) {
-    gltf.indexResolvers.add(() -> {
-      morphTargets = new ArrayList<>();
-      for (Map<String, Integer> source : stringIndexMapList) {
-        Map<String, GLTFAccessor> accessorMap = new HashMap<>();
-        source.entrySet().stream()
-            .forEach(entry -> accessorMap.put(entry.getKey(), gltf.getAccessor(entry.getValue())));
-        morphTargets.add(accessorMap);
+    this.morphTargetIndices = stringIndexMapList;
+  }
+
+  /**
+   * Copy attributes into one interleaved vertex buffer, built on first call for each attribute
+   * order and kept until the GLTF is closed.
+   *
+   * @param attributes the attributes to include, in order. Every attribute if none are given.
+   * @throws IllegalArgumentException if an attribute is missing or the attributes have different
+   *                                  counts
+   */
+  public synchronized InterleavedVertices getInterleavedVertices(String... attributes) {
+    List<String> order = attributeOrder(attributes);
+    InterleavedVertices vertices = interleaved.get(order);
+    if (vertices == null) {
+      vertices = InterleavedVertices.of(this, order);
+      interleaved.put(order, vertices);
+    }
+    return vertices;
+  }
+
+  /**
+   * Decode attributes into one float array per component, built on first call for each attribute
+   * order and kept until the GLTF is closed.
+   *
+   * @param attributes the attributes to include, in order. Every attribute if none are given.
+   * @throws IllegalArgumentException if an attribute is missing or the attributes have different
+   *                                  counts
+   */
+  public synchronized PlanarVertices getPlanarVertices(String... attributes) {
+    List<String> order = attributeOrder(attributes);
+    PlanarVertices vertices = planar.get(order);
+    if (vertices == null) {
+      vertices = PlanarVertices.of(this, order);
+      planar.put(order, vertices);
+    }
+    return vertices;
+  }
+
+  private List<String> attributeOrder(String[] attributes) {
+    if (attributes.length == 0) {
+      return this.attributes == null ? List.of() : List.copyOf(this.attributes.keySet());
+    }
+    return List.of(attributes);
+  }
+
+  /**
+   * @return the accessor of each attribute, in order
+   * @throws IllegalArgumentException if an attribute is missing or the attributes have different
+   *                                  counts
+   */
+  GLTFAccessor[] getAttributeAccessors(List<String> order) {
+    if (order.isEmpty()) {
+      throw new IllegalArgumentException("No attributes to lay out");
+    }
+    GLTFAccessor[] accessors = new GLTFAccessor[order.size()];
+    for (int i = 0; i < accessors.length; i++) {
+      accessors[i] = attributes == null ? null : attributes.get(order.get(i));
+      if (accessors[i] == null) {
+        throw new IllegalArgumentException("Primitive has no " + order.get(i) + " attribute");
+      }
+      if (accessors[i].getElementCount() != accessors[0].getElementCount()) {
+        throw new IllegalArgumentException(
+            order.get(i) + " has " + accessors[i].getElementCount() + " elements but "
+                + order.get(0) + " has " + accessors[0].getElementCount());
+      }
+    }
+    return accessors;
+  }
+
+  /**
+   * @return a primitive drawing the vertices of this one with other indices, e.g. a level of
+   * detail. It shares this primitive's attributes, morph targets and material, so it keeps the
+   * written ones of them from being released while it is reachable.
+   */
+  GLTFMeshPrimitive withIndices(GLTFAccessor indices) {
+    GLTFMeshPrimitive primitive = new GLTFMeshPrimitive();
+    primitive.gltf = gltf;
+    primitive.attributes = attributes;
+    primitive.mode = mode;
+    primitive.indicesAccessor = indices;
+    primitive.material = material;
+    primitive.morphTargets = morphTargets;
+    gltf.addDetached(primitive);
+    return primitive;
+  }
+
+  /**
+   * Point this primitive at rewritten geometry, forgetting vertex layouts and bounds built from
+   * the old, including those of its mesh and of every scene. The accessors it pointed at before
+   * are left as they were, other primitives may share them.
+   *
+   * @param morphTargets null if the primitive has none
+   */
+  synchronized void setGeometry(Map<String, GLTFAccessor> attributes, GLTFAccessor indices,
+      List<Map<String, GLTFAccessor>> morphTargets) {
+    this.attributes = attributes;
+    this.indicesAccessor = indices;
+    this.morphTargets = morphTargets;
+    interleaved.clear();
+    planar.clear();
+    bounds = null;
+    if (mesh != null) {
+      mesh.invalidateBounds();
+    }
+  }
+
+  void setMesh(GLTFMesh mesh) {
+    this.mesh = mesh;
+  }
+
+  Bounds getCachedBounds() {
+    return bounds;
+  }
+
+  void setCachedBounds(Bounds bounds) {
+    this.bounds = bounds;
+  }
+
+  /**
+   * Forget vertex layouts, called when the GLTF is closed
+   */
+  synchronized void dropData() {
+    interleaved.clear();
+    planar.clear();
+  }
+
+  @Override
+  void resolveIndices() {
+    if (attributeIndices != null) {
+      attributes = resolveAccessorMap(attributeIndices);
+    }
+    if (indicesAccessorIndex >= 0) {
+      indicesAccessor = gltf.getAccessor(indicesAccessorIndex);
+    }
+    if (materialIndex >= 0) {
+      material = gltf.getMaterial(materialIndex);
+    }
+    if (morphTargetIndices != null) {
+      morphTargets = new ArrayList<>(morphTargetIndices.size());
+      for (Map<String, Integer> source : morphTargetIndices) {
+        morphTargets.add(resolveAccessorMap(source));
       }
-    });
+    }
   }
 
+  private Map<String, GLTFAccessor> resolveAccessorMap(Map<String, Integer> indexMap) {
+    Map<String, GLTFAccessor> accessorMap = new LinkedHashMap<>();
+    for (Map.Entry<String, Integer> entry : indexMap.entrySet()) {
+      accessorMap.put(entry.getKey(), gltf.getAccessor(entry.getValue()));
+    }
+    return accessorMap;
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    GLTF gltf = validator.getGltf();
+    int accessorCount = gltf.getAccessorCount();
+    if (mode < 0 || mode > 6) {
+      validator.error("mode must be in [0, 6], was " + mode);
+    }
+    if (attributeIndices == null || attributeIndices.isEmpty()) {
+      validator.error("primitive attributes are required");
+    } else {
+      for (Integer index : attributeIndices.values()) {
+        validator.checkIndex("attribute accessor", index, accessorCount);
+      }
+    }
+    if (validator.checkIndex("indices", indicesAccessorIndex, accessorCount)) {
+      GLTFAccessor indices = gltf.getAccessor(indicesAccessorIndex);
+      validator.require(indices.getDataType() == GLTFAccessorDataType.SCALAR,
+          "indices accessor must be SCALAR");
+      GLTFAccessorComponentType type = indices.getPrimitiveType();
+      validator.require(type == GLTFAccessorComponentType.UNSIGNED_BYTE
+              || type == GLTFAccessorComponentType.UNSIGNED_SHORT
+              || type == GLTFAccessorComponentType.UNSIGNED_INT,
+          "indices accessor componentType must be an unsigned integer type");
+    }
+    validator.checkIndex("material", materialIndex, gltf.getMaterialCount());
+    if (morphTargetIndices != null) {
+      for (Map<String, Integer> target : morphTargetIndices) {
+        for (Integer index : target.values()) {
+          validator.checkIndex("morph target accessor", index, accessorCount);
+        }
+      }
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "attributes":
+        attributeIndices = GLTFStreamingParser.readIndexMap(p);
+        return true;
+      case "mode":
+        mode = p.getIntValue();
+        return true;
+      case "indices":
+        indicesAccessorIndex = p.getIntValue();
+        return true;
+      case "material":
+        materialIndex = p.getIntValue();
+        return true;
+      case "targets":
+        morphTargetIndices = new ArrayList<>();
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+          morphTargetIndices.add(GLTFStreamingParser.readIndexMap(p));
+        }
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
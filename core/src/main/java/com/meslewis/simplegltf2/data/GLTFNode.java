@@ -7,7 +7,9 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.util.HashSet;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -33,15 +35,18 @@ public class GLTFNode extends GLTFChildOfRootProperty {
    * The index of the camera referenced by this node.
    */
   private GLTFCamera camera;
+  private int cameraIndex = -1;
   /**
    * The indices of this node's children. minItems 1
    */
   private Set<GLTFNode> children;
+  private int[] childIndices;
   /**
    * The index of the skin referenced by this node. When a skin is referenced by a node within a
    * scene, all joints used by the skin must belong to the same scene.
    */
   private GLTFSkin skin;
+  private int skinIndex = -1;
   /**
    * A floating-point 4x4 transformation matrix stored in column-major order. minItems 16 maxItems
    * 16
@@ -52,6 +57,7 @@ public class GLTFNode extends GLTFChildOfRootProperty {
    * The index of the mesh in this node.
    */
   private GLTFMesh mesh;
+  private int meshIndex = -1;
   /**
    * The node's unit quaternion rotation in the order {x, y, z, w}, where w is the scalar. maxItems
    * 4 minItems 4
@@ -74,18 +80,44 @@ public class GLTFNode extends GLTFChildOfRootProperty {
    * Targets of used mesh. minItems 1
    */
   @JsonProperty("weights")
-  private List<Float> weights;
+  private float[] weights;
+  /**
+   * Position of this node in {@link GLTF#getNodes()}
+   */
+  int index = -1;
+
+  /**
+   * A node drawing mesh in place of node, with node's skin and morph weights but no transform or
+   * children, as MSFT_lod expects of the levels it refers to. See {@link GLTF#addNode(GLTFNode)}.
+   */
+  static GLTFNode levelOf(GLTFNode node, GLTFMesh mesh, String name) {
+    GLTFNode level = new GLTFNode();
+    level.gltf = node.gltf;
+    level.setName(name);
+    level.mesh = mesh;
+    level.skin = node.skin;
+    level.weights = node.weights;
+    return level;
+  }
+
+  /**
+   * @return the position of this node in {@link GLTF#getNodes()}, the index used by {@link
+   * SceneGraph}
+   */
+  public int getIndex() {
+    return index;
+  }
 
+  /**
+   * @return this node's children in the order the file lists them
+   */
   public Optional<Set<GLTFNode>> getChildren() {
     return Optional.ofNullable(children);
   }
 
   @JsonProperty("children")
-  private void setChildren(Set<Integer> indexSet) {
-    gltf.indexResolvers.add(() -> {
-      children = new HashSet<>();
-      indexSet.forEach(index -> children.add(gltf.getNode(index)));
-    });
+  private void setChildren(int[] indices) {
+    this.childIndices = indices;
   }
 
   void addSelfAndAllDescendants(List<GLTFNode> nodeList) {
@@ -101,7 +133,7 @@ public class GLTFNode extends GLTFChildOfRootProperty {
 
   @JsonProperty("skin")
   private void setSkin(int index) {
-    gltf.indexResolvers.add(() -> skin = gltf.getSkin(index));
+    this.skinIndex = index;
   }
 
   public Optional<GLTFCamera> getCamera() {
@@ -110,7 +142,7 @@ public class GLTFNode extends GLTFChildOfRootProperty {
 
   @JsonProperty("camera")
   private void setCamera(int index) {
-    gltf.indexResolvers.add(() -> camera = gltf.getCamera(index));
+    this.cameraIndex = index;
   }
 
   public Optional<GLTFMesh> getMesh() {
@@ -119,7 +151,7 @@ public class GLTFNode extends GLTFChildOfRootProperty {
 
   @JsonProperty("mesh")
   private void setMesh(int index) {
-    gltf.indexResolvers.add(() -> mesh = gltf.getMesh(index));
+    this.meshIndex = index;
   }
 
   public Matrix4fc getMatrix() {
@@ -138,7 +170,80 @@ public class GLTFNode extends GLTFChildOfRootProperty {
     return translation;
   }
 
-  public List<Float> getWeights() {
+  public float[] getWeights() {
     return weights;
   }
+
+  @Override
+  void resolveIndices() {
+    if (cameraIndex >= 0) {
+      camera = gltf.getCamera(cameraIndex);
+    }
+    if (childIndices != null) {
+      children = new LinkedHashSet<>();
+      for (int index : childIndices) {
+        children.add(gltf.getNode(index));
+      }
+    }
+    if (skinIndex >= 0) {
+      skin = gltf.getSkin(skinIndex);
+    }
+    if (meshIndex >= 0) {
+      mesh = gltf.getMesh(meshIndex);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    GLTF gltf = validator.getGltf();
+    validator.checkIndex("camera", cameraIndex, gltf.getCameraCount());
+    validator.checkIndex("skin", skinIndex, gltf.getSkinCount());
+    validator.checkIndex("mesh", meshIndex, gltf.getMeshCount());
+    validator.checkIndices("child", childIndices, gltf.getNodeCount());
+    if (childIndices != null) {
+      for (int index : childIndices) {
+        if (index >= 0 && index < gltf.getNodeCount() && gltf.getNode(index) == this) {
+          validator.error("node must not be its own child");
+        }
+      }
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "camera":
+        cameraIndex = p.getIntValue();
+        return true;
+      case "children":
+        childIndices = GLTFStreamingParser.readIntArray(p);
+        return true;
+      case "skin":
+        skinIndex = p.getIntValue();
+        return true;
+      case "matrix":
+        matrix = new Matrix4f().set(GLTFStreamingParser.readFloatArray(p, 16));
+        return true;
+      case "mesh":
+        meshIndex = p.getIntValue();
+        return true;
+      case "rotation":
+        float[] r = GLTFStreamingParser.readFloatArray(p, 4);
+        rotation.set(r[0], r[1], r[2], r[3]);
+        return true;
+      case "scale":
+        float[] s = GLTFStreamingParser.readFloatArray(p, 3);
+        scale.set(s[0], s[1], s[2]);
+        return true;
+      case "translation":
+        float[] t = GLTFStreamingParser.readFloatArray(p, 3);
+        translation.set(t[0], t[1], t[2]);
+        return true;
+      case "weights":
+        weights = GLTFStreamingParser.readFloatArray(p);
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -60,4 +62,24 @@ public class GLTFOrthographic extends GLTFProperty {
   public float getZnear() {
     return znear;
   }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "xmag":
+        xmag = p.getFloatValue();
+        return true;
+      case "ymag":
+        ymag = p.getFloatValue();
+        return true;
+      case "zfar":
+        zfar = p.getFloatValue();
+        return true;
+      case "znear":
+        znear = p.getFloatValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
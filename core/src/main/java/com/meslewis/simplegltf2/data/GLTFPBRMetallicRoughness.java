@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
@@ -89,4 +91,48 @@ public class GLTFPBRMetallicRoughness extends GLTFProperty {
   public GLTFTextureInfo getMetallicRoughnessTexture() {
     return metallicRoughnessTexture;
   }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    if (baseColorTexture != null) {
+      baseColorTexture.validate(validator);
+    }
+    if (metallicRoughnessTexture != null) {
+      metallicRoughnessTexture.validate(validator);
+    }
+  }
+
+  @Override
+  void resolveIndices() {
+    if (baseColorTexture != null) {
+      baseColorTexture.resolveIndices();
+    }
+    if (metallicRoughnessTexture != null) {
+      metallicRoughnessTexture.resolveIndices();
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "baseColorFactor":
+        float[] c = GLTFStreamingParser.readFloatArray(p);
+        baseColorFactor.set(c[0], c[1], c[2], c[3]);
+        return true;
+      case "baseColorTexture":
+        baseColorTexture = GLTFStreamingParser.readObject(p, gltf, new GLTFTextureInfo());
+        return true;
+      case "metallicFactor":
+        metallicFactor = p.getFloatValue();
+        return true;
+      case "roughnessFactor":
+        roughnessFactor = p.getFloatValue();
+        return true;
+      case "metallicRoughnessTexture":
+        metallicRoughnessTexture = GLTFStreamingParser.readObject(p, gltf, new GLTFTextureInfo());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
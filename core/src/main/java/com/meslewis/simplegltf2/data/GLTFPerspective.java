@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.util.Optional;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -14,7 +16,7 @@ import javax.validation.constraints.NotNull;
 /**
  * A perspective camera containing properties to create a perspective projection matrix.
  */
-public class GLTFPerspective {
+public class GLTFPerspective extends GLTFProperty {
 
   /**
    * The floating-point aspect ratio of the field of view. When this is undefined, the aspect ratio
@@ -63,4 +65,24 @@ public class GLTFPerspective {
   public Optional<Float> getZnear() {
     return Optional.ofNullable(znear);
   }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "aspectRatio":
+        aspectRatio = p.getFloatValue();
+        return true;
+      case "yfov":
+        yfov = p.getFloatValue();
+        return true;
+      case "zfar":
+        zfar = p.getFloatValue();
+        return true;
+      case "znear":
+        znear = p.getFloatValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
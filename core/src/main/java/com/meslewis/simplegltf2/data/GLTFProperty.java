@@ -8,6 +8,8 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JacksonInject;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -45,4 +47,35 @@ public class GLTFProperty {
     }
     return extras;
   }
+
+  /**
+   * Read a single property for {@link GLTFStreamingParser}. The parser is positioned on the value.
+   *
+   * @return false if this type does not know the property and it should be skipped
+   */
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "extensions":
+        extensions = GLTFStreamingParser.readObjectMap(p);
+        return true;
+      case "extras":
+        extras = GLTFStreamingParser.readObjectMap(p);
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Replace the indices read from JSON with references to the objects they point at. Called once
+   * every top level array has been read.
+   */
+  void resolveIndices() {
+  }
+
+  /**
+   * Check the structural rules for this object. Called before indices are resolved.
+   */
+  void validate(StructuralValidator validator) {
+  }
 }
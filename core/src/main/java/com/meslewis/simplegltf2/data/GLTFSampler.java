@@ -8,6 +8,8 @@ package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 
 /**
  * Texture sampler properties for filtering and wrapping modes.
@@ -87,4 +89,24 @@ public class GLTFSampler extends GLTFChildOfRootProperty {
   private void setWrapT(int value) {
     this.wrapT = GLTFWrap.getType(value);
   }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "magFilter":
+        setMagFilter(p.getIntValue());
+        return true;
+      case "minFilter":
+        setMinFilter(p.getIntValue());
+        return true;
+      case "wrapS":
+        setWrapS(p.getIntValue());
+        return true;
+      case "wrapT":
+        setWrapT(p.getIntValue());
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
+  }
 }
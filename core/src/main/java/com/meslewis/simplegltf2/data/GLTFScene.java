@@ -7,7 +7,9 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.util.HashSet;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class GLTFScene extends GLTFChildOfRootProperty {
@@ -16,19 +18,53 @@ public class GLTFScene extends GLTFChildOfRootProperty {
    * The indices of each root node. minItems 1
    */
   private Set<GLTFNode> rootNodes;
+  private int[] rootNodeIndices;
+  /**
+   * Computed by {@link BoundsService}
+   */
+  private volatile Bounds bounds;
 
   /**
-   * Set of GLTFNode that are the root nodes for this GLTFScene
+   * Set of GLTFNode that are the root nodes for this GLTFScene, in the order the file lists them
    */
   public Set<GLTFNode> getRootNodes() {
     return rootNodes;
   }
 
+  Bounds getCachedBounds() {
+    return bounds;
+  }
+
+  void setCachedBounds(Bounds bounds) {
+    this.bounds = bounds;
+  }
+
   @JsonProperty("nodes")
-  private void setRootNodes(Set<Integer> indexSet) {
-    gltf.indexResolvers.add(() -> {
-      rootNodes = new HashSet<>();
-      indexSet.forEach(index -> rootNodes.add(gltf.getNode(index)));
-    });
+  private void setRootNodes(int[] indices) {
+    this.rootNodeIndices = indices;
+  }
+
+  @Override
+  void resolveIndices() {
+    if (rootNodeIndices != null) {
+      rootNodes = new LinkedHashSet<>();
+      for (int index : rootNodeIndices) {
+        rootNodes.add(gltf.getNode(index));
+      }
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    validator.checkIndices("node", rootNodeIndices, validator.getGltf().getNodeCount());
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    if ("nodes".equals(name)) {
+      rootNodeIndices = GLTFStreamingParser.readIntArray(p);
+      return true;
+    }
+    return super.readProperty(p, name);
   }
 }
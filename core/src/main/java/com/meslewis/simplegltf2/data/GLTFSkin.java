@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import java.util.LinkedHashSet;
 import java.util.Optional;
 import javax.validation.constraints.NotNull;
@@ -22,21 +24,24 @@ public class GLTFSkin extends GLTFChildOfRootProperty {
    * pre-applied.
    */
   private GLTFAccessor inverseBindMatricesAccessor;
+  private int inverseBindMatricesIndex = -1;
   /**
    * The index of the node used as a skeleton root. The node must be the closest common root of the
    * joints hierarchy or a direct or indirect parent node of the closest common root.
    */
   private GLTFNode skeletonRoot;
+  private int skeletonRootIndex = -1;
   /**
    * Indices of skeleton nodes, used as joints in this skin.  The array length must be the same as
    * the `count` property of the `inverseBindMatrices` accessor (when defined). Must be ordered
    */
   @NotNull
   private LinkedHashSet<GLTFNode> joints;
+  private int[] jointIndices;
 
   @JsonProperty("skeleton")
   private void setSkeletonRoot(int index) {
-    gltf.indexResolvers.add(() -> skeletonRoot = gltf.getNode(index));
+    this.skeletonRootIndex = index;
   }
 
   public Optional<GLTFAccessor> getInverseBindMatricesAccessor() {
@@ -45,7 +50,7 @@ public class GLTFSkin extends GLTFChildOfRootProperty {
 
   @JsonProperty("inverseBindMatrices")
   private void setInverseBindMatricesAccessor(int index) {
-    gltf.indexResolvers.add(() -> inverseBindMatricesAccessor = gltf.getAccessor(index));
+    this.inverseBindMatricesIndex = index;
   }
 
   public Optional<GLTFNode> getSkeletonRootNode() {
@@ -58,10 +63,50 @@ public class GLTFSkin extends GLTFChildOfRootProperty {
 
   //It is essential that the join length is preserved
   @JsonProperty("joints")
-  private void setJoints(LinkedHashSet<Integer> indexSet) {
-    gltf.indexResolvers.add(() -> {
+  private void setJoints(int[] indices) {
+    this.jointIndices = indices;
+  }
+
+  @Override
+  void resolveIndices() {
+    if (inverseBindMatricesIndex >= 0) {
+      inverseBindMatricesAccessor = gltf.getAccessor(inverseBindMatricesIndex);
+    }
+    if (skeletonRootIndex >= 0) {
+      skeletonRoot = gltf.getNode(skeletonRootIndex);
+    }
+    if (jointIndices != null) {
       joints = new LinkedHashSet<>();
-      indexSet.forEach(index -> joints.add(gltf.getNode(index)));
-    });
+      for (int index : jointIndices) {
+        joints.add(gltf.getNode(index));
+      }
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    GLTF gltf = validator.getGltf();
+    validator.require(jointIndices != null && jointIndices.length > 0, "joints are required");
+    validator.checkIndices("joint", jointIndices, gltf.getNodeCount());
+    validator.checkIndex("skeleton", skeletonRootIndex, gltf.getNodeCount());
+    validator.checkIndex("inverseBindMatrices", inverseBindMatricesIndex,
+        gltf.getAccessorCount());
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "inverseBindMatrices":
+        inverseBindMatricesIndex = p.getIntValue();
+        return true;
+      case "skeleton":
+        skeletonRootIndex = p.getIntValue();
+        return true;
+      case "joints":
+        jointIndices = GLTFStreamingParser.readIntArray(p);
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
   }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reads glTF JSON directly from parser tokens into the data classes, without databind.
+ * <p>
+ * Each data class reads its own properties in {@link GLTFProperty#readProperty(JsonParser,
+ * String)}. Indices are stored as plain ints while reading and turned into references by {@link
+ * GLTF#applyLookupMap()} afterwards. Unknown properties are skipped.
+ */
+public final class GLTFStreamingParser {
+
+  private GLTFStreamingParser() {
+  }
+
+  /**
+   * Read a whole glTF document into gltf. Indices are not resolved, call {@link
+   * GLTF#applyLookupMap()} once this returns.
+   *
+   * @param p    parser positioned before the root object
+   * @param gltf the GLTF to fill
+   */
+  public static void parse(JsonParser p, GLTF gltf) throws IOException {
+    if (p.nextToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException(p, "glTF root must be a JSON object");
+    }
+    readObject(p, gltf, gltf);
+  }
+
+  /**
+   * Read the object the parser is positioned on into target.
+   */
+  static <T extends GLTFProperty> T readObject(JsonParser p, GLTF gltf, T target)
+      throws IOException {
+    expect(p, JsonToken.START_OBJECT);
+    target.gltf = gltf;
+    for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+      p.nextToken();
+      if (!target.readProperty(p, name)) {
+        p.skipChildren();
+      }
+    }
+    expect(p, JsonToken.END_OBJECT);
+    return target;
+  }
+
+  /**
+   * Read an array of objects, creating one instance per element with factory.
+   */
+  static <T extends GLTFProperty> List<T> readList(JsonParser p, GLTF gltf,
+      Supplier<T> factory) throws IOException {
+    expect(p, JsonToken.START_ARRAY);
+    List<T> list = new ArrayList<>();
+    while (p.nextToken() == JsonToken.START_OBJECT) {
+      list.add(readObject(p, gltf, factory.get()));
+    }
+    expect(p, JsonToken.END_ARRAY);
+    return list;
+  }
+
+  static int[] readIntArray(JsonParser p) throws IOException {
+    expect(p, JsonToken.START_ARRAY);
+    int[] values = new int[8];
+    int count = 0;
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      if (count == values.length) {
+        values = Arrays.copyOf(values, count * 2);
+      }
+      values[count++] = p.getIntValue();
+    }
+    return Arrays.copyOf(values, count);
+  }
+
+  static float[] readFloatArray(JsonParser p) throws IOException {
+    expect(p, JsonToken.START_ARRAY);
+    float[] values = new float[16];
+    int count = 0;
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      if (count == values.length) {
+        values = Arrays.copyOf(values, count * 2);
+      }
+      values[count++] = p.getFloatValue();
+    }
+    return Arrays.copyOf(values, count);
+  }
+
+  /**
+   * Read a JSON array of exactly count numbers, failing the parse if it has more or fewer.
+   */
+  static float[] readFloatArray(JsonParser p, int count) throws IOException {
+    expect(p, JsonToken.START_ARRAY);
+    float[] values = new float[count];
+    int read = 0;
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      if (read == count) {
+        throw new JsonParseException(p,
+            String.format("Expected %d numbers but found more", count));
+      }
+      values[read++] = p.getFloatValue();
+    }
+    if (read != count) {
+      throw new JsonParseException(p,
+          String.format("Expected %d numbers but found %d", count, read));
+    }
+    return values;
+  }
+
+  static LinkedHashSet<String> readStringSet(JsonParser p) throws IOException {
+    expect(p, JsonToken.START_ARRAY);
+    LinkedHashSet<String> values = new LinkedHashSet<>();
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      values.add(p.getValueAsString());
+    }
+    return values;
+  }
+
+  /**
+   * Read an object mapping names to indices, e.g. mesh primitive attributes.
+   */
+  static Map<String, Integer> readIndexMap(JsonParser p) throws IOException {
+    expect(p, JsonToken.START_OBJECT);
+    Map<String, Integer> map = new LinkedHashMap<>();
+    for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+      p.nextToken();
+      map.put(name, p.getIntValue());
+    }
+    return map;
+  }
+
+  static URI readURI(JsonParser p) throws IOException {
+    String value = p.getValueAsString();
+    return value == null ? null : URI.create(value);
+  }
+
+  /**
+   * Read a JSON object with no schema, used for extensions and extras.
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> readObjectMap(JsonParser p) throws IOException {
+    expect(p, JsonToken.START_OBJECT);
+    return (Map<String, Object>) readUntyped(p);
+  }
+
+  private static Object readUntyped(JsonParser p) throws IOException {
+    switch (p.currentToken()) {
+      case START_OBJECT:
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+          p.nextToken();
+          map.put(name, readUntyped(p));
+        }
+        return map;
+      case START_ARRAY:
+        List<Object> list = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+          list.add(readUntyped(p));
+        }
+        return list;
+      case VALUE_STRING:
+        return p.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return p.getNumberValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new JsonParseException(p, "Unexpected token " + p.currentToken());
+    }
+  }
+
+  private static void expect(JsonParser p, JsonToken token) throws JsonParseException {
+    if (p.currentToken() != token) {
+      throw new JsonParseException(p, "Expected " + token + " but was " + p.currentToken());
+    }
+  }
+}
@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 
 /**
  * A texture and its sampler.
@@ -20,11 +22,13 @@ public class GLTFTexture extends GLTFChildOfRootProperty {
    * and auto filtering should be used.
    */
   private GLTFSampler sampler = defaultSampler;
+  private int samplerIndex = -1;
   /**
    * The index of the image used by this texture. When undefined, it is expected that an extension
    * or other mechanism will supply an alternate texture source, otherwise behavior is undefined.
    */
   private GLTFImage sourceImage;
+  private int sourceImageIndex = -1;
 
   public GLTFImage getSourceImage() {
     return sourceImage;
@@ -32,7 +36,7 @@ public class GLTFTexture extends GLTFChildOfRootProperty {
 
   @JsonProperty("source")
   private void setSourceImage(int index) {
-    gltf.indexResolvers.add(() -> sourceImage = gltf.getImage(index));
+    this.sourceImageIndex = index;
   }
 
   public GLTFSampler getSampler() {
@@ -41,6 +45,37 @@ public class GLTFTexture extends GLTFChildOfRootProperty {
 
   @JsonProperty("sampler")
   private void setSampler(int index) {
-    gltf.indexResolvers.add(() -> sampler = gltf.getSampler(index));
+    this.samplerIndex = index;
+  }
+
+  @Override
+  void resolveIndices() {
+    if (sourceImageIndex >= 0) {
+      sourceImage = gltf.getImage(sourceImageIndex);
+    }
+    if (samplerIndex >= 0) {
+      sampler = gltf.getSampler(samplerIndex);
+    }
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    GLTF gltf = validator.getGltf();
+    validator.checkIndex("source", sourceImageIndex, gltf.getImageCount());
+    validator.checkIndex("sampler", samplerIndex, gltf.getSamplerCount());
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "source":
+        sourceImageIndex = p.getIntValue();
+        return true;
+      case "sampler":
+        samplerIndex = p.getIntValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
   }
 }
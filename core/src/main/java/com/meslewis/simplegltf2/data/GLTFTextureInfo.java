@@ -7,6 +7,8 @@
 package com.meslewis.simplegltf2.data;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -21,6 +23,7 @@ public class GLTFTextureInfo extends GLTFProperty {
    */
   @NotNull
   private GLTFTexture texture;
+  private int textureIndex = -1;
   /**
    * This integer value is used to construct a string in the format `TEXCOORD_<set index>` which is
    * a reference to a key in mesh.primitives.attributes (e.g. A value of `0` corresponds to
@@ -41,7 +44,34 @@ public class GLTFTextureInfo extends GLTFProperty {
 
   @JsonProperty("index")
   private void setTexture(int index) {
-    gltf.indexResolvers.add(() -> texture = gltf.getTexture(index));
+    this.textureIndex = index;
+  }
+
+  @Override
+  void validate(StructuralValidator validator) {
+    validator.checkRequiredIndex("texture", textureIndex, validator.getGltf().getTextureCount());
+    validator.require(texCoord >= 0, "texCoord must not be negative");
+  }
+
+  @Override
+  void resolveIndices() {
+    if (textureIndex >= 0) {
+      texture = gltf.getTexture(textureIndex);
+    }
+  }
+
+  @Override
+  boolean readProperty(JsonParser p, String name) throws IOException {
+    switch (name) {
+      case "index":
+        textureIndex = p.getIntValue();
+        return true;
+      case "texCoord":
+        texCoord = p.getIntValue();
+        return true;
+      default:
+        return super.readProperty(p, name);
+    }
   }
 
   public static class GLTFNormalTextureInfo extends GLTFTextureInfo {
@@ -58,6 +88,15 @@ public class GLTFTextureInfo extends GLTFProperty {
     public float getScale() {
       return scale;
     }
+
+    @Override
+    boolean readProperty(JsonParser p, String name) throws IOException {
+      if ("scale".equals(name)) {
+        scale = p.getFloatValue();
+        return true;
+      }
+      return super.readProperty(p, name);
+    }
   }
 
   /**
@@ -80,5 +119,14 @@ public class GLTFTextureInfo extends GLTFProperty {
     public float getStrength() {
       return strength;
     }
+
+    @Override
+    boolean readProperty(JsonParser p, String name) throws IOException {
+      if ("strength".equals(name)) {
+        strength = p.getFloatValue();
+        return true;
+      }
+      return super.readProperty(p, name);
+    }
   }
 }
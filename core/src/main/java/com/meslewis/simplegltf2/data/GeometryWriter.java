@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Writes the vertices and indices of a {@link GLTFMeshPrimitive} into new accessors held in
+ * memory, for the passes that reorder, strip or weld its vertices. Accessors the primitive pointed
+ * at before are never written to, other primitives may share them. Those an earlier pass wrote are
+ * freed once no primitive points at them, so they must not be read after the rewrite.
+ */
+final class GeometryWriter {
+
+  /**
+   * Primitive mode of triangle lists
+   */
+  static final int TRIANGLES = 4;
+
+  private GeometryWriter() {
+  }
+
+  /**
+   * Run callable in the current fork-join pool if called from one, otherwise in pool
+   */
+  static <T> T invoke(ForkJoinPool pool, Callable<T> callable) {
+    ForkJoinTask<T> task = ForkJoinTask.adapt(callable);
+    return ForkJoinTask.inForkJoinPool() ? task.invoke() : pool.invoke(task);
+  }
+
+  /**
+   * Apply pass to the primitives of mesh in parallel, see {@link #invoke(ForkJoinPool, Callable)}
+   *
+   * @return the result for each primitive, in order
+   */
+  static <T> List<T> forEachPrimitive(ForkJoinPool pool, GLTFMesh mesh,
+      Function<GLTFMeshPrimitive, T> pass) {
+    return invoke(pool, () -> {
+      List<ForkJoinTask<T>> tasks = new ArrayList<>();
+      for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+        tasks.add(ForkJoinTask.adapt(() -> pass.apply(primitive)));
+      }
+      List<T> results = new ArrayList<>();
+      for (ForkJoinTask<T> task : ForkJoinTask.invokeAll(tasks)) {
+        results.add(task.join());
+      }
+      return results;
+    });
+  }
+
+  /**
+   * @return the indices of primitive, or null if it has none
+   */
+  static int[] readIndices(GLTFMeshPrimitive primitive) {
+    GLTFAccessor accessor = primitive.getIndicesAccessor().orElse(null);
+    if (accessor == null) {
+      return null;
+    }
+    int[] indices = new int[accessor.getElementCount()];
+    accessor.readIndices(0, indices.length, indices, 0);
+    return indices;
+  }
+
+  /**
+   * @return the indices of primitive, checked to be whole triangles of existing vertices
+   * @throws IllegalArgumentException if primitive is not indexed TRIANGLES or an index is out of
+   *                                  range
+   */
+  static int[] readTriangles(GLTFMeshPrimitive primitive) {
+    if (primitive.getMode() != TRIANGLES) {
+      throw new IllegalArgumentException("Primitive must be TRIANGLES, mode is "
+          + primitive.getMode());
+    }
+    int[] indices = readIndices(primitive);
+    if (indices == null) {
+      throw new IllegalArgumentException("Primitive has no indices");
+    }
+    if (indices.length % 3 != 0) {
+      throw new IllegalArgumentException(
+          indices.length + " indices is not a whole number of triangles");
+    }
+    checkIndices(indices, getVertexCount(primitive));
+    return indices;
+  }
+
+  /**
+   * @throws IllegalArgumentException if an index is out of range
+   */
+  static void checkIndices(int[] indices, int vertexCount) {
+    for (int index : indices) {
+      if (index < 0 || index >= vertexCount) {
+        throw new IllegalArgumentException("Index " + Integer.toUnsignedString(index)
+            + " is out of range for " + vertexCount + " vertices");
+      }
+    }
+  }
+
+  /**
+   * @return the element count of the attributes of primitive
+   * @throws IllegalArgumentException if it has no attributes
+   */
+  static int getVertexCount(GLTFMeshPrimitive primitive) {
+    if (primitive.getAttributes() == null || primitive.getAttributes().isEmpty()) {
+      throw new IllegalArgumentException("Primitive has no attributes");
+    }
+    return primitive.getAttributes().values().iterator().next().getElementCount();
+  }
+
+  /**
+   * Copy elements of source into a new accessor, element i being element newToOld[i] of source.
+   * Min and max are kept when newToOld is as long as source, which callers only pass when it is
+   * a permutation.
+   */
+  static GLTFAccessor remap(GLTFAccessor source, int[] newToOld) {
+    int size = source.getPrimitiveType().getSizeInBytes();
+    int elementSize = source.getDataType().getPrimitiveCount() * size;
+    int stride = source.getByteStride() > 0 ? source.getByteStride() : elementSize;
+    BufferSegment data = source.getSegment();
+    ByteBuffer dest = allocate(source.gltf, (long) newToOld.length * elementSize);
+    if (data.isContiguous() && elementSize % 4 == 0 && stride % 4 == 0) {
+      ByteBuffer from = data.asByteBuffer();
+      for (int i = 0, to = 0; i < newToOld.length; i++) {
+        int element = newToOld[i] * stride;
+        for (int b = 0; b < elementSize; b += 4, to += 4) {
+          dest.putInt(to, from.getInt(element + b));
+        }
+      }
+    } else {
+      for (int i = 0, to = 0; i < newToOld.length; i++) {
+        long element = (long) newToOld[i] * stride;
+        for (int b = 0; b < elementSize; b++, to++) {
+          dest.put(to, data.get(element + b));
+        }
+      }
+    }
+    GLTFAccessor accessor = GLTFAccessor.ofData(source.gltf, source.getPrimitiveType(),
+        source.getDataType(), source.isNormalized(), newToOld.length, dest);
+    if (newToOld.length == source.getElementCount()) {
+      accessor.setMinMax(source.getMin(), source.getMax());
+    }
+    return accessor;
+  }
+
+  /**
+   * @param type UNSIGNED_BYTE, UNSIGNED_SHORT or UNSIGNED_INT, wide enough for every index
+   */
+  static GLTFAccessor writeIndices(GLTF gltf, int[] indices, GLTFAccessorComponentType type) {
+    ByteBuffer dest = allocate(gltf, (long) indices.length * type.getSizeInBytes());
+    for (int i = 0; i < indices.length; i++) {
+      switch (type) {
+        case UNSIGNED_BYTE:
+          dest.put(i, (byte) indices[i]);
+          break;
+        case UNSIGNED_SHORT:
+          dest.putShort(i * 2, (short) indices[i]);
+          break;
+        case UNSIGNED_INT:
+          dest.putInt(i * 4, indices[i]);
+          break;
+        default:
+          throw new IllegalArgumentException("Indices can't be " + type);
+      }
+    }
+    return GLTFAccessor.ofData(gltf, type, GLTFAccessorDataType.SCALAR, false, indices.length,
+        dest);
+  }
+
+  /**
+   * Remap every attribute and morph target of primitive through newToOld, see {@link
+   * #remap(GLTFAccessor, int[])}, and point primitive at them and at indices. Accessors are
+   * remapped in parallel, in the current fork-join pool if called from one. Accessors written by an
+   * earlier pass that primitive no longer uses are freed unless another primitive uses them.
+   *
+   * @param indices   already in terms of the new vertices
+   * @param indexType see {@link #writeIndices(GLTF, int[], GLTFAccessorComponentType)}
+   */
+  static void rewrite(GLTFMeshPrimitive primitive, int[] newToOld, int[] indices,
+      GLTFAccessorComponentType indexType) {
+    //Attributes can share an accessor, remap it once
+    Map<GLTFAccessor, GLTFAccessor> remapped = new IdentityHashMap<>();
+    primitive.getAttributes().values().forEach(source -> remapped.put(source, null));
+    if (primitive.getMorphTargets() != null) {
+      primitive.getMorphTargets()
+          .forEach(target -> target.values().forEach(source -> remapped.put(source, null)));
+    }
+    List<GLTFAccessor> sources = new ArrayList<>(remapped.keySet());
+    GLTFAccessor[] results = new GLTFAccessor[sources.size()];
+    GLTFAccessor[] indicesAccessor = new GLTFAccessor[1];
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (int i = 0; i < sources.size(); i++) {
+      int source = i;
+      tasks.add(ForkJoinTask.adapt(() -> {
+        results[source] = remap(sources.get(source), newToOld);
+      }));
+    }
+    if (indices != null) {
+      tasks.add(ForkJoinTask.adapt(() -> {
+        indicesAccessor[0] = writeIndices(primitive.gltf, indices, indexType);
+      }));
+    }
+    ForkJoinTask.invokeAll(tasks);
+    for (int i = 0; i < sources.size(); i++) {
+      remapped.put(sources.get(i), results[i]);
+    }
+
+    List<Map<String, GLTFAccessor>> morphTargets = null;
+    if (primitive.getMorphTargets() != null) {
+      morphTargets = new ArrayList<>();
+      for (Map<String, GLTFAccessor> target : primitive.getMorphTargets()) {
+        morphTargets.add(replace(target, remapped));
+      }
+    }
+    List<GLTFAccessor> replaced = new ArrayList<>(sources);
+    primitive.getIndicesAccessor().ifPresent(replaced::add);
+    synchronized (primitive.gltf) {
+      primitive.setGeometry(replace(primitive.getAttributes(), remapped), indicesAccessor[0],
+          morphTargets);
+      primitive.gltf.releaseUnreferenced(replaced);
+    }
+  }
+
+  /**
+   * Point primitive at other indices, keeping its vertices. Indices written by an earlier pass
+   * that it no longer uses are freed unless another primitive uses them.
+   */
+  static void replaceIndices(GLTFMeshPrimitive primitive, GLTFAccessor indices) {
+    synchronized (primitive.gltf) {
+      List<GLTFAccessor> replaced = new ArrayList<>();
+      primitive.getIndicesAccessor().ifPresent(replaced::add);
+      primitive.setGeometry(primitive.getAttributes(), indices, primitive.getMorphTargets());
+      primitive.gltf.releaseUnreferenced(replaced);
+    }
+  }
+
+  /**
+   * Replace the primitives of mesh, freeing accessors written by an earlier pass that only the
+   * primitives taken out used.
+   */
+  static void replacePrimitives(GLTFMesh mesh, List<GLTFMeshPrimitive> primitives) {
+    synchronized (mesh.gltf) {
+      List<GLTFAccessor> replaced = new ArrayList<>();
+      for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+        replaced.addAll(primitive.getAttributes().values());
+        primitive.getIndicesAccessor().ifPresent(replaced::add);
+        if (primitive.getMorphTargets() != null) {
+          primitive.getMorphTargets().forEach(target -> replaced.addAll(target.values()));
+        }
+      }
+      mesh.setPrimitives(primitives);
+      mesh.gltf.releaseUnreferenced(replaced);
+    }
+  }
+
+  private static Map<String, GLTFAccessor> replace(Map<String, GLTFAccessor> accessors,
+      Map<GLTFAccessor, GLTFAccessor> remapped) {
+    Map<String, GLTFAccessor> replaced = new LinkedHashMap<>();
+    accessors.forEach((name, accessor) -> replaced.put(name, remapped.get(accessor)));
+    return replaced;
+  }
+
+  private static ByteBuffer allocate(GLTF gltf, long size) {
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+          "Rewritten accessor is " + size + " bytes, too large for a ByteBuffer");
+    }
+    gltf.checkOpen();
+    return ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
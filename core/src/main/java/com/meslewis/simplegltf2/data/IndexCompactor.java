@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Shrinks the index and vertex data of indexed primitives:
+ * <ul>
+ * <li>Vertices no index refers to are removed from every attribute and morph target, the others
+ * keeping their order.</li>
+ * <li>Indices become UNSIGNED_SHORT when the vertices left fit it. UNSIGNED_INT indices are
+ * narrowed, halving their size, and UNSIGNED_BYTE indices are widened, as many drivers convert
+ * them on the CPU.</li>
+ * <li>With {@link #setSplit(boolean)}, POINTS, LINES and TRIANGLES primitives with more vertices
+ * than UNSIGNED_SHORT can address are split into parts that each fit it, at the cost of copying
+ * the vertices parts share.</li>
+ * </ul>
+ * Primitives are rewritten in place as by {@link MeshOptimizer}. The old-to-new vertex tables are
+ * built and applied in parallel, parts and the primitives of a mesh are written in parallel.
+ */
+public final class IndexCompactor {
+
+  /**
+   * Most vertices UNSIGNED_SHORT indices can address, 65535 being reserved for primitive restart
+   */
+  public static final int MAX_SHORT_VERTICES = 65535;
+
+  private final ForkJoinPool pool;
+  private boolean split;
+
+  /**
+   * Run on the common pool
+   */
+  public IndexCompactor() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public IndexCompactor(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Set whether {@link #compact(GLTFMesh)} splits primitives too large for UNSIGNED_SHORT indices,
+   * false by default. Parts cost a draw call each.
+   *
+   * @return this
+   */
+  public IndexCompactor setSplit(boolean split) {
+    this.split = split;
+    return this;
+  }
+
+  /**
+   * Compact primitive and rewrite it in place. It is never split, see {@link
+   * #compact(GLTFMesh)}.
+   *
+   * @throws IllegalArgumentException if primitive has no indices or an index is out of range
+   */
+  public Report compact(GLTFMeshPrimitive primitive) {
+    return GeometryWriter.invoke(pool, () -> compactNow(primitive, null));
+  }
+
+  /**
+   * Compact the primitives of mesh in parallel. Primitives that are split are replaced by their
+   * parts in {@link GLTFMesh#getPrimitives()}.
+   *
+   * @return a report for each primitive, in the order they were before
+   * @throws IllegalArgumentException if a primitive has no indices or an index is out of range,
+   *                                  primitives before it may have been rewritten
+   */
+  public List<Report> compact(GLTFMesh mesh) {
+    List<GLTFMeshPrimitive> primitives = mesh.getPrimitives();
+    Map<GLTFMeshPrimitive, List<GLTFMeshPrimitive>> parts = new IdentityHashMap<>();
+    if (split) {
+      primitives.forEach(primitive -> parts.put(primitive, new ArrayList<>()));
+    }
+    List<Report> reports = GeometryWriter.forEachPrimitive(pool, mesh,
+        primitive -> compactNow(primitive, parts.get(primitive)));
+    if (split) {
+      List<GLTFMeshPrimitive> replaced = new ArrayList<>();
+      primitives.forEach(primitive -> replaced.addAll(parts.get(primitive)));
+      if (replaced.size() != primitives.size()) {
+        GeometryWriter.replacePrimitives(mesh, replaced);
+      }
+    }
+    return reports;
+  }
+
+  /**
+   * @param parts null if primitive must not be split, otherwise primitive or its parts are added
+   */
+  private Report compactNow(GLTFMeshPrimitive primitive, List<GLTFMeshPrimitive> parts) {
+    GLTFAccessorComponentType type = primitive.getIndicesAccessor()
+        .orElseThrow(() -> new IllegalArgumentException("Primitive has no indices"))
+        .getPrimitiveType();
+    int[] indices = GeometryWriter.readIndices(primitive);
+    int vertexCount = GeometryWriter.getVertexCount(primitive);
+    GeometryWriter.checkIndices(indices, vertexCount);
+    int[] newToOld = stripUnused(indices, vertexCount);
+
+    int groupSize = getGroupSize(primitive.getMode());
+    if (parts != null && newToOld.length > MAX_SHORT_VERTICES
+        && type == GLTFAccessorComponentType.UNSIGNED_INT && groupSize > 0) {
+      if (indices.length % groupSize != 0) {
+        throw new IllegalArgumentException(indices.length + " indices is not a whole number of "
+            + groupSize + " vertex primitives");
+      }
+      return splitNow(primitive, indices, newToOld, groupSize, vertexCount, parts);
+    }
+
+    //A primitive already using 65535 as an index keeps UNSIGNED_SHORT
+    GLTFAccessorComponentType compacted =
+        newToOld.length <= MAX_SHORT_VERTICES || type == GLTFAccessorComponentType.UNSIGNED_SHORT
+            ? GLTFAccessorComponentType.UNSIGNED_SHORT : GLTFAccessorComponentType.UNSIGNED_INT;
+    if (newToOld.length < vertexCount) {
+      GeometryWriter.rewrite(primitive, newToOld, indices, compacted);
+    } else if (compacted != type) {
+      GeometryWriter.replaceIndices(primitive,
+          GeometryWriter.writeIndices(primitive.gltf, indices, compacted));
+    }
+    if (parts != null) {
+      parts.add(primitive);
+    }
+    return new Report(indices.length, vertexCount, newToOld.length, type, compacted, 1);
+  }
+
+  private Report splitNow(GLTFMeshPrimitive primitive, int[] indices, int[] newToOld,
+      int groupSize, int vertexCount, List<GLTFMeshPrimitive> parts) {
+    int[] starts = splitGroups(indices, newToOld.length, groupSize, MAX_SHORT_VERTICES);
+    int partCount = starts.length - 1;
+    GLTFMeshPrimitive[] written = new GLTFMeshPrimitive[partCount];
+    int[] partVertices = new int[partCount];
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (int p = 0; p < partCount; p++) {
+      int part = p;
+      tasks.add(ForkJoinTask.adapt(() -> {
+        int[] partIndices = Arrays.copyOfRange(indices, starts[part], starts[part + 1]);
+        int[] partToOld = localize(partIndices);
+        for (int i = 0; i < partToOld.length; i++) {
+          partToOld[i] = newToOld[partToOld[i]];
+        }
+        GLTFMeshPrimitive partPrimitive = primitive.withIndices(null);
+        GeometryWriter.rewrite(partPrimitive, partToOld, partIndices,
+            GLTFAccessorComponentType.UNSIGNED_SHORT);
+        written[part] = partPrimitive;
+        partVertices[part] = partToOld.length;
+      }));
+    }
+    ForkJoinTask.invokeAll(tasks);
+    parts.addAll(Arrays.asList(written));
+    return new Report(indices.length, vertexCount, Arrays.stream(partVertices).sum(),
+        GLTFAccessorComponentType.UNSIGNED_INT, GLTFAccessorComponentType.UNSIGNED_SHORT,
+        partCount);
+  }
+
+  /**
+   * @return vertices per point, line or triangle of a list mode, 0 for strips, fans and loops
+   */
+  private static int getGroupSize(int mode) {
+    switch (mode) {
+      case 0:
+        return 1;
+      case 1:
+        return 2;
+      case 4:
+        return 3;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Number the vertices indices use from 0, in their order, and rewrite indices to match. Both
+   * the table of used vertices and the rewrite are built in parallel.
+   *
+   * @return for each used vertex, its old number
+   */
+  static int[] stripUnused(int[] indices, int vertexCount) {
+    //1 for used vertices, then summed so it holds each used vertex's new number plus one
+    int[] oldToNew = new int[vertexCount];
+    IntStream.range(0, indices.length).parallel().forEach(i -> oldToNew[indices[i]] = 1);
+    Arrays.parallelPrefix(oldToNew, Integer::sum);
+    int used = vertexCount == 0 ? 0 : oldToNew[vertexCount - 1];
+    int[] newToOld = new int[used];
+    IntStream.range(0, vertexCount).parallel().forEach(v -> {
+      if (oldToNew[v] != (v == 0 ? 0 : oldToNew[v - 1])) {
+        newToOld[oldToNew[v] - 1] = v;
+      }
+    });
+    IntStream.range(0, indices.length).parallel()
+        .forEach(i -> indices[i] = oldToNew[indices[i]] - 1);
+    return newToOld;
+  }
+
+  /**
+   * Cut indices into runs of whole groups that each use at most maxVertices vertices, keeping
+   * the order of groups
+   *
+   * @return the first index of each run, then indices.length
+   */
+  static int[] splitGroups(int[] indices, int vertexCount, int groupSize, int maxVertices) {
+    //The run that last used each vertex, plus one
+    int[] usedBy = new int[vertexCount];
+    int[] starts = new int[16];
+    int runs = 1;
+    int runVertices = 0;
+    for (int g = 0; g < indices.length; g += groupSize) {
+      int added = 0;
+      for (int k = 0; k < groupSize; k++) {
+        if (usedBy[indices[g + k]] != runs && isFirstInGroup(indices, g, k)) {
+          added++;
+        }
+      }
+      if (runVertices + added > maxVertices) {
+        if (runs == starts.length) {
+          starts = Arrays.copyOf(starts, runs * 2);
+        }
+        starts[runs++] = g;
+        runVertices = 0;
+      }
+      for (int k = 0; k < groupSize; k++) {
+        if (usedBy[indices[g + k]] != runs) {
+          usedBy[indices[g + k]] = runs;
+          runVertices++;
+        }
+      }
+    }
+    starts = Arrays.copyOf(starts, runs + 1);
+    starts[runs] = indices.length;
+    return starts;
+  }
+
+  private static boolean isFirstInGroup(int[] indices, int group, int k) {
+    for (int j = 0; j < k; j++) {
+      if (indices[group + j] == indices[group + k]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Number the vertices of a part from 0, in their old order, and rewrite indices to match
+   *
+   * @return for each vertex of the part, its number before
+   */
+  private static int[] localize(int[] indices) {
+    int[] vertices = indices.clone();
+    Arrays.sort(vertices);
+    int count = 0;
+    for (int i = 0; i < vertices.length; i++) {
+      if (i == 0 || vertices[i] != vertices[i - 1]) {
+        vertices[count++] = vertices[i];
+      }
+    }
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = Arrays.binarySearch(vertices, 0, count, indices[i]);
+    }
+    return Arrays.copyOf(vertices, count);
+  }
+
+  /**
+   * Sizes of a primitive before and after compaction. Vertices after include those copied into
+   * more than one part.
+   */
+  public static final class Report {
+
+    private final int indexCount;
+    private final int verticesBefore;
+    private final int verticesAfter;
+    private final GLTFAccessorComponentType indexTypeBefore;
+    private final GLTFAccessorComponentType indexTypeAfter;
+    private final int partCount;
+
+    Report(int indexCount, int verticesBefore, int verticesAfter,
+        GLTFAccessorComponentType indexTypeBefore, GLTFAccessorComponentType indexTypeAfter,
+        int partCount) {
+      this.indexCount = indexCount;
+      this.verticesBefore = verticesBefore;
+      this.verticesAfter = verticesAfter;
+      this.indexTypeBefore = indexTypeBefore;
+      this.indexTypeAfter = indexTypeAfter;
+      this.partCount = partCount;
+    }
+
+    public int getIndexCount() {
+      return indexCount;
+    }
+
+    public int getVerticesBefore() {
+      return verticesBefore;
+    }
+
+    public int getVerticesAfter() {
+      return verticesAfter;
+    }
+
+    public GLTFAccessorComponentType getIndexTypeBefore() {
+      return indexTypeBefore;
+    }
+
+    public GLTFAccessorComponentType getIndexTypeAfter() {
+      return indexTypeAfter;
+    }
+
+    public long getIndexBytesBefore() {
+      return (long) indexCount * indexTypeBefore.getSizeInBytes();
+    }
+
+    public long getIndexBytesAfter() {
+      return (long) indexCount * indexTypeAfter.getSizeInBytes();
+    }
+
+    /**
+     * @return primitives the primitive was split into, 1 if it was not split
+     */
+    public int getPartCount() {
+      return partCount;
+    }
+
+    @Override
+    public String toString() {
+      return "Report{indices=" + indexCount + ", vertices " + verticesBefore + " -> "
+          + verticesAfter + ", " + indexTypeBefore + " -> " + indexTypeAfter + ", parts="
+          + partCount + "}";
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * The attributes of a {@link GLTFMeshPrimitive} copied into one vertex buffer, ready for upload.
+ * Attributes keep their component type and are laid out in the order they were asked for, each
+ * starting on a 4 byte boundary, and the stride is a multiple of 4. Sparse values are applied and
+ * attributes without a bufferView are written as zeros.
+ * <p>
+ * The buffer is owned by the GLTF and must not be used after it is closed.
+ */
+public final class InterleavedVertices {
+
+  private final List<String> attributes;
+  private final GLTFAccessor[] accessors;
+  private final int[] offsets;
+  private final int stride;
+  private final int vertexCount;
+  private final ByteBuffer buffer;
+
+  private InterleavedVertices(List<String> attributes, GLTFAccessor[] accessors, int[] offsets,
+      int stride, int vertexCount, ByteBuffer buffer) {
+    this.attributes = attributes;
+    this.accessors = accessors;
+    this.offsets = offsets;
+    this.stride = stride;
+    this.vertexCount = vertexCount;
+    this.buffer = buffer;
+  }
+
+  static InterleavedVertices of(GLTFMeshPrimitive primitive, List<String> attributes) {
+    GLTFAccessor[] accessors = primitive.getAttributeAccessors(attributes);
+    int vertexCount = accessors[0].getElementCount();
+    int[] offsets = new int[accessors.length];
+    int stride = 0;
+    for (int a = 0; a < accessors.length; a++) {
+      offsets[a] = stride;
+      stride = align(stride + elementSize(accessors[a]));
+    }
+    long size = (long) stride * vertexCount;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+          "Interleaved vertices are " + size + " bytes, too large for a ByteBuffer");
+    }
+
+    primitive.gltf.checkOpen();
+    ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    for (int a = 0; a < accessors.length; a++) {
+      copy(accessors[a], buffer, offsets[a], stride);
+    }
+    primitive.gltf.own(buffer);
+    return new InterleavedVertices(attributes, accessors, offsets, stride, vertexCount, buffer);
+  }
+
+  private static int elementSize(GLTFAccessor accessor) {
+    return accessor.getDataType().getPrimitiveCount() * accessor.getPrimitiveType()
+        .getSizeInBytes();
+  }
+
+  private static int align(int offset) {
+    return (offset + 3) & ~3;
+  }
+
+  private static void copy(GLTFAccessor accessor, ByteBuffer dest, int offset, int stride) {
+    int elementSize = elementSize(accessor);
+    copy(accessor.getSegment(), accessor.getByteStride() > 0 ? accessor.getByteStride()
+            : elementSize, accessor.getElementCount(), elementSize,
+        accessor.getPrimitiveType().getSizeInBytes(), dest, offset, stride);
+  }
+
+  /**
+   * Copy count elements of source into dest. Each element inside one chunk of source is copied
+   * with a single bulk put. An element straddling two chunks is copied one component at a time,
+   * so no component is split between reads.
+   *
+   * @param size bytes of each component
+   */
+  static void copy(BufferSegment source, int sourceStride, int count, int elementSize, int size,
+      ByteBuffer dest, int offset, int stride) {
+    ByteBuffer to = dest.duplicate();
+    //The chunk of source being read, [runStart, runEnd) of the segment
+    ByteBuffer run = null;
+    long runStart = 0;
+    long runEnd = 0;
+    long from = 0;
+    int position = offset;
+    for (int v = 0; v < count; v++, from += sourceStride, position += stride) {
+      if (from >= runEnd) {
+        runStart = from;
+        runEnd = source.chunkEnd(from);
+        run = source.slice(runStart, runEnd - runStart).asByteBuffer();
+      }
+      if (from + elementSize <= runEnd) {
+        int local = (int) (from - runStart);
+        run.limit(local + elementSize).position(local);
+        to.position(position);
+        to.put(run);
+      } else {
+        copyComponents(source, from, elementSize / size, size, dest, position);
+      }
+    }
+  }
+
+  private static void copyComponents(BufferSegment source, long from, int components, int size,
+      ByteBuffer dest, int to) {
+    for (int c = 0; c < components; c++) {
+      long component = from + c * size;
+      switch (size) {
+        case 1:
+          dest.put(to + c, source.get(component));
+          break;
+        case 2:
+          dest.putShort(to + c * 2, source.getShort(component));
+          break;
+        default:
+          dest.putInt(to + c * 4, source.getInt(component));
+      }
+    }
+  }
+
+  /**
+   * @return a little endian view of the vertex data, stride times vertex count bytes
+   */
+  public ByteBuffer getBuffer() {
+    return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return bytes from the start of one vertex to the next
+   */
+  public int getStride() {
+    return stride;
+  }
+
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * @return the attribute names in the order they are laid out
+   */
+  public List<String> getAttributes() {
+    return attributes;
+  }
+
+  /**
+   * @return offset of attribute from the start of each vertex
+   * @throws IllegalArgumentException if attribute is not in this buffer
+   */
+  public int getOffset(String attribute) {
+    return offsets[indexOf(attribute)];
+  }
+
+  /**
+   * @return the accessor attribute was copied from, for its component type, data type and
+   * normalization
+   * @throws IllegalArgumentException if attribute is not in this buffer
+   */
+  public GLTFAccessor getAccessor(String attribute) {
+    return accessors[indexOf(attribute)];
+  }
+
+  private int indexOf(String attribute) {
+    int index = attributes.indexOf(attribute);
+    if (index < 0) {
+      throw new IllegalArgumentException(attribute + " is not one of " + attributes);
+    }
+    return index;
+  }
+}
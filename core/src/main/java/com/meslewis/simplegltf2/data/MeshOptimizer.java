@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Reorders the triangles and vertices of indexed TRIANGLES primitives for the GPU, in three passes:
+ * <ol>
+ * <li>Tipsify (Sander, Nehab and Barczak, 2007) orders triangles for a FIFO post-transform vertex
+ * cache.</li>
+ * <li>The result is cut into clusters whose cache efficiency stays within a threshold of it, and
+ * clusters facing away from the mesh centroid are drawn first to reduce overdraw.</li>
+ * <li>Vertices are renumbered in the order the indices first use them, so vertex fetches walk the
+ * vertex buffers forwards.</li>
+ * </ol>
+ * The primitive is rewritten in place: it is pointed at new accessors held in memory, see {@link
+ * GLTFMeshPrimitive#getAttributes()}, and the accessors it used before are left untouched for any
+ * other primitive sharing them. Vertices no indices refer to are kept, after the others.
+ * <p>
+ * Reading the indices and positions, measuring the input, building cluster sort keys, writing
+ * attributes and optimizing the primitives of a mesh run as fork-join tasks. Tipsify itself is
+ * sequential. A primitive must not be read or rewritten by another thread while a pass rewrites
+ * it.
+ */
+public final class MeshOptimizer {
+
+  public static final int DEFAULT_CACHE_SIZE = 16;
+  public static final float DEFAULT_OVERDRAW_THRESHOLD = 1.05f;
+
+  private final ForkJoinPool pool;
+  private int cacheSize = DEFAULT_CACHE_SIZE;
+  private float overdrawThreshold = DEFAULT_OVERDRAW_THRESHOLD;
+
+  /**
+   * Run on the common pool
+   */
+  public MeshOptimizer() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public MeshOptimizer(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Set the number of vertices in the simulated post-transform cache that triangles are ordered
+   * for and ACMR and ATVR are measured with, {@link #DEFAULT_CACHE_SIZE} by default.
+   *
+   * @return this
+   */
+  public MeshOptimizer setCacheSize(int cacheSize) {
+    if (cacheSize < 3) {
+      throw new IllegalArgumentException("The cache must hold a triangle, was " + cacheSize);
+    }
+    this.cacheSize = cacheSize;
+    return this;
+  }
+
+  /**
+   * Set how much the overdraw pass may raise the ACMR of a cluster to cut it into smaller ones,
+   * which sort better. {@link #DEFAULT_OVERDRAW_THRESHOLD} by default, 1 keeps clusters only where
+   * the cache starts over.
+   *
+   * @return this
+   */
+  public MeshOptimizer setOverdrawThreshold(float overdrawThreshold) {
+    if (!(overdrawThreshold >= 1)) {
+      throw new IllegalArgumentException(
+          "The threshold must be at least 1, was " + overdrawThreshold);
+    }
+    this.overdrawThreshold = overdrawThreshold;
+    return this;
+  }
+
+  /**
+   * Optimize primitive and rewrite it in place
+   *
+   * @throws IllegalArgumentException if primitive is not indexed TRIANGLES or an index is out of
+   *                                  range
+   */
+  public Report optimize(GLTFMeshPrimitive primitive) {
+    return GeometryWriter.invoke(pool, () -> optimizeNow(primitive));
+  }
+
+  /**
+   * Optimize the primitives of mesh in parallel
+   *
+   * @return a report for each primitive, in order
+   * @throws IllegalArgumentException if a primitive is not indexed TRIANGLES, primitives before it
+   *                                  may have been rewritten
+   */
+  public List<Report> optimize(GLTFMesh mesh) {
+    return GeometryWriter.forEachPrimitive(pool, mesh, this::optimizeNow);
+  }
+
+  private Report optimizeNow(GLTFMeshPrimitive primitive) {
+    int[] indices = GeometryWriter.readTriangles(primitive);
+    int vertexCount = GeometryWriter.getVertexCount(primitive);
+    GLTFAccessor position = primitive.getAttributes().get("POSITION");
+
+    ForkJoinTask<Integer> missesBefore = ForkJoinTask
+        .adapt(() -> countMisses(indices, vertexCount, cacheSize)).fork();
+    ForkJoinTask<float[]> positions = null;
+    if (position != null && position.getDataType() == GLTFAccessorDataType.VEC3) {
+      positions = ForkJoinTask.adapt(() -> {
+        float[] read = new float[vertexCount * 3];
+        position.readFloats(0, vertexCount, read, 0);
+        return read;
+      }).fork();
+    }
+
+    int[] optimized = tipsify(indices, vertexCount, cacheSize);
+    if (positions != null) {
+      optimized = optimizeOverdraw(optimized, positions.join(), vertexCount, cacheSize,
+          overdrawThreshold);
+    }
+    int[] newToOld = optimizeVertexFetch(optimized, vertexCount);
+    int missesAfter = countMisses(optimized, vertexCount, cacheSize);
+
+    GeometryWriter.rewrite(primitive, newToOld, optimized,
+        primitive.getIndicesAccessor().orElseThrow().getPrimitiveType());
+    return new Report(indices.length / 3, countReferenced(optimized, vertexCount),
+        missesBefore.join(), missesAfter);
+  }
+
+  /**
+   * Order triangles for a FIFO cache of cacheSize vertices, fanning around one vertex at a time
+   * and moving on to a vertex still in the cache when the fan is done.
+   *
+   * @return the triangles of indices in their new order
+   */
+  static int[] tipsify(int[] indices, int vertexCount, int cacheSize) {
+    //Triangles using each vertex, compressed by vertex
+    int[] offsets = new int[vertexCount + 1];
+    for (int index : indices) {
+      offsets[index + 1]++;
+    }
+    int maxValence = 0;
+    for (int v = 0; v < vertexCount; v++) {
+      maxValence = Math.max(maxValence, offsets[v + 1]);
+      offsets[v + 1] += offsets[v];
+    }
+    int[] adjacency = new int[indices.length];
+    int[] fill = Arrays.copyOf(offsets, vertexCount);
+    for (int i = 0; i < indices.length; i++) {
+      adjacency[fill[indices[i]]++] = i / 3;
+    }
+
+    //Triangles not yet emitted using each vertex
+    int[] live = new int[vertexCount];
+    for (int v = 0; v < vertexCount; v++) {
+      live[v] = offsets[v + 1] - offsets[v];
+    }
+    int[] cacheTime = new int[vertexCount];
+    boolean[] emitted = new boolean[indices.length / 3];
+    int[] deadEnd = new int[indices.length];
+    int deadEndSize = 0;
+    int[] candidates = new int[maxValence * 3];
+    int[] dest = new int[indices.length];
+    int out = 0;
+    int time = cacheSize + 1;
+    int cursor = 0;
+
+    int fan = nextLive(live, cursor);
+    while (fan >= 0) {
+      int candidateCount = 0;
+      for (int a = offsets[fan]; a < offsets[fan + 1]; a++) {
+        int triangle = adjacency[a];
+        if (emitted[triangle]) {
+          continue;
+        }
+        emitted[triangle] = true;
+        for (int k = 0; k < 3; k++) {
+          int v = indices[triangle * 3 + k];
+          dest[out++] = v;
+          deadEnd[deadEndSize++] = v;
+          candidates[candidateCount++] = v;
+          live[v]--;
+          if (time - cacheTime[v] > cacheSize) {
+            cacheTime[v] = time++;
+          }
+        }
+      }
+
+      //Prefer the oldest vertex that will still be cached once its own fan is emitted
+      fan = -1;
+      int best = -1;
+      for (int c = 0; c < candidateCount; c++) {
+        int v = candidates[c];
+        if (live[v] > 0) {
+          int priority = 0;
+          if (time - cacheTime[v] + 2 * live[v] <= cacheSize) {
+            priority = time - cacheTime[v];
+          }
+          if (priority > best) {
+            best = priority;
+            fan = v;
+          }
+        }
+      }
+      while (fan == -1 && deadEndSize > 0) {
+        int v = deadEnd[--deadEndSize];
+        if (live[v] > 0) {
+          fan = v;
+        }
+      }
+      if (fan == -1) {
+        cursor = nextLive(live, cursor);
+        fan = cursor;
+      }
+    }
+    return dest;
+  }
+
+  /**
+   * @return the first vertex from start on with triangles left, or -1
+   */
+  private static int nextLive(int[] live, int start) {
+    for (int v = start; v < live.length; v++) {
+      if (live[v] > 0) {
+        return v;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Cut triangles ordered for the cache into clusters wherever the cache starts over, cut those
+   * further while their ACMR stays within threshold of the whole cluster's, then draw the
+   * clusters facing furthest away from the mesh centroid first.
+   *
+   * @param positions 3 floats per vertex
+   * @return the triangles in their new order
+   */
+  static int[] optimizeOverdraw(int[] indices, float[] positions, int vertexCount,
+      int cacheSize, float threshold) {
+    int triangleCount = indices.length / 3;
+    FifoCache cache = new FifoCache(vertexCount, cacheSize);
+    int[] hard = new int[triangleCount + 1];
+    int hardCount = 0;
+    for (int t = 0; t < triangleCount; t++) {
+      if (cache.misses(indices, t) == 3 || t == 0) {
+        hard[hardCount++] = t;
+      }
+    }
+    hard[hardCount] = triangleCount;
+
+    int[] clusters = new int[triangleCount + 1];
+    int clusterCount = 0;
+    for (int h = 0; h < hardCount; h++) {
+      int start = hard[h];
+      int end = hard[h + 1];
+      cache.reset();
+      int misses = 0;
+      for (int t = start; t < end; t++) {
+        misses += cache.misses(indices, t);
+      }
+      float limit = misses / (float) (end - start) * threshold;
+
+      cache.reset();
+      clusters[clusterCount++] = start;
+      int clusterStart = start;
+      misses = 0;
+      for (int t = start; t < end - 1; t++) {
+        misses += cache.misses(indices, t);
+        if (misses <= limit * (t - clusterStart + 1)) {
+          clusters[clusterCount++] = t + 1;
+          clusterStart = t + 1;
+          misses = 0;
+          cache.reset();
+        }
+      }
+    }
+    clusters[clusterCount] = triangleCount;
+
+    //Area weighted centroid and normal of each cluster, the centroid as a sum yet to be divided
+    double[] sums = new double[clusterCount * 7];
+    IntStream.range(0, clusterCount).parallel()
+        .forEach(c -> sumCluster(indices, positions, clusters[c], clusters[c + 1], sums, c * 7));
+    double[] centroid = new double[3];
+    double area = 0;
+    for (int c = 0; c < clusterCount; c++) {
+      for (int i = 0; i < 3; i++) {
+        centroid[i] += sums[c * 7 + i];
+      }
+      area += sums[c * 7 + 3];
+    }
+    for (int i = 0; i < 3 && area > 0; i++) {
+      centroid[i] /= area;
+    }
+
+    //Sort key in the high half, cluster in the low half, so equal keys keep their order
+    long[] order = new long[clusterCount];
+    IntStream.range(0, clusterCount).parallel().forEach(c -> {
+      int s = c * 7;
+      double clusterArea = sums[s + 3];
+      double normalLength = Math.sqrt(sums[s + 4] * sums[s + 4] + sums[s + 5] * sums[s + 5]
+          + sums[s + 6] * sums[s + 6]);
+      float key = 0;
+      if (clusterArea > 0 && normalLength > 0) {
+        double dot = 0;
+        for (int i = 0; i < 3; i++) {
+          dot += (sums[s + i] / clusterArea - centroid[i]) * sums[s + 4 + i];
+        }
+        key = (float) (dot / normalLength);
+      }
+      order[c] = (long) sortable(-key) << 32 | c;
+    });
+    Arrays.sort(order);
+
+    int[] dest = new int[indices.length];
+    int out = 0;
+    for (long entry : order) {
+      int c = (int) entry;
+      int length = (clusters[c + 1] - clusters[c]) * 3;
+      System.arraycopy(indices, clusters[c] * 3, dest, out, length);
+      out += length;
+    }
+    return dest;
+  }
+
+  /**
+   * Write centroid times area, area and unnormalized normal of triangles [start, end) to sums at
+   * offset
+   */
+  private static void sumCluster(int[] indices, float[] positions, int start, int end,
+      double[] sums, int offset) {
+    for (int t = start; t < end; t++) {
+      int a = indices[t * 3] * 3;
+      int b = indices[t * 3 + 1] * 3;
+      int c = indices[t * 3 + 2] * 3;
+      double abx = positions[b] - positions[a];
+      double aby = positions[b + 1] - positions[a + 1];
+      double abz = positions[b + 2] - positions[a + 2];
+      double acx = positions[c] - positions[a];
+      double acy = positions[c + 1] - positions[a + 1];
+      double acz = positions[c + 2] - positions[a + 2];
+      double nx = aby * acz - abz * acy;
+      double ny = abz * acx - abx * acz;
+      double nz = abx * acy - aby * acx;
+      double area = Math.sqrt(nx * nx + ny * ny + nz * nz) / 2;
+      for (int i = 0; i < 3; i++) {
+        sums[offset + i] += area * (positions[a + i] + positions[b + i] + positions[c + i]) / 3;
+      }
+      sums[offset + 3] += area;
+      sums[offset + 4] += nx;
+      sums[offset + 5] += ny;
+      sums[offset + 6] += nz;
+    }
+  }
+
+  /**
+   * @return an int that sorts as value does
+   */
+  private static int sortable(float value) {
+    int bits = Float.floatToIntBits(value);
+    return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+  }
+
+  /**
+   * Renumber vertices in the order indices first use them, rewriting indices. Vertices no index
+   * uses follow the others in their old order.
+   *
+   * @return the old vertex of each new vertex
+   */
+  static int[] optimizeVertexFetch(int[] indices, int vertexCount) {
+    int[] oldToNew = new int[vertexCount];
+    Arrays.fill(oldToNew, -1);
+    int[] newToOld = new int[vertexCount];
+    int next = 0;
+    for (int i = 0; i < indices.length; i++) {
+      int v = indices[i];
+      if (oldToNew[v] < 0) {
+        oldToNew[v] = next;
+        newToOld[next++] = v;
+      }
+      indices[i] = oldToNew[v];
+    }
+    for (int v = 0; v < vertexCount; v++) {
+      if (oldToNew[v] < 0) {
+        newToOld[next++] = v;
+      }
+    }
+    return newToOld;
+  }
+
+  /**
+   * @return vertices transformed drawing indices through a FIFO cache of cacheSize vertices
+   */
+  static int countMisses(int[] indices, int vertexCount, int cacheSize) {
+    FifoCache cache = new FifoCache(vertexCount, cacheSize);
+    int misses = 0;
+    for (int t = 0; t < indices.length / 3; t++) {
+      misses += cache.misses(indices, t);
+    }
+    return misses;
+  }
+
+  private static int countReferenced(int[] indices, int vertexCount) {
+    boolean[] referenced = new boolean[vertexCount];
+    int count = 0;
+    for (int index : indices) {
+      if (!referenced[index]) {
+        referenced[index] = true;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * A FIFO post-transform cache. A vertex is cached if fewer than size vertices were added after
+   * it.
+   */
+  private static final class FifoCache {
+
+    private final int[] added;
+    private final int size;
+    private int time;
+
+    FifoCache(int vertexCount, int size) {
+      this.added = new int[vertexCount];
+      this.size = size;
+      this.time = size + 1;
+    }
+
+    void reset() {
+      time += size + 1;
+    }
+
+    /**
+     * Draw triangle of indices
+     *
+     * @return vertices of it that were not cached
+     */
+    int misses(int[] indices, int triangle) {
+      int misses = 0;
+      for (int k = 0; k < 3; k++) {
+        int v = indices[triangle * 3 + k];
+        if (time - added[v] > size) {
+          added[v] = time++;
+          misses++;
+        }
+      }
+      return misses;
+    }
+  }
+
+  /**
+   * Cache efficiency of a primitive before and after optimization. ACMR is vertices transformed
+   * per triangle, at least 0.5 for large meshes and at most 3. ATVR is vertices transformed per
+   * vertex used, 1 at best.
+   */
+  public static final class Report {
+
+    private final int triangleCount;
+    private final int vertexCount;
+    private final int missesBefore;
+    private final int missesAfter;
+
+    Report(int triangleCount, int vertexCount, int missesBefore, int missesAfter) {
+      this.triangleCount = triangleCount;
+      this.vertexCount = vertexCount;
+      this.missesBefore = missesBefore;
+      this.missesAfter = missesAfter;
+    }
+
+    public int getTriangleCount() {
+      return triangleCount;
+    }
+
+    /**
+     * @return vertices used by at least one triangle
+     */
+    public int getVertexCount() {
+      return vertexCount;
+    }
+
+    public float getACMRBefore() {
+      return ratio(missesBefore, triangleCount);
+    }
+
+    public float getACMRAfter() {
+      return ratio(missesAfter, triangleCount);
+    }
+
+    public float getATVRBefore() {
+      return ratio(missesBefore, vertexCount);
+    }
+
+    public float getATVRAfter() {
+      return ratio(missesAfter, vertexCount);
+    }
+
+    private static float ratio(int misses, int count) {
+      return count == 0 ? 0 : misses / (float) count;
+    }
+
+    @Override
+    public String toString() {
+      return "Report{triangles=" + triangleCount + ", vertices=" + vertexCount + ", ACMR "
+          + getACMRBefore() + " -> " + getACMRAfter() + ", ATVR " + getATVRBefore() + " -> "
+          + getATVRAfter() + "}";
+    }
+  }
+}
@@ -0,0 +1,844 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Simplifies indexed TRIANGLES primitives by collapsing edges in order of quadric error (Garland
+ * and Heckbert, 1997), and builds MSFT_lod chains from the results.
+ * <p>
+ * Each vertex collapses onto a neighbor, so a simplified primitive keeps the vertices of the
+ * original and only its indices change. Its cost is the squared distance from the neighbor to the
+ * area weighted planes of the triangles merged into the vertex, plus how far NORMAL and TEXCOORD_0
+ * at the neighbor are from what the triangles losing the vertex interpolate there. Vertices where
+ * attributes are split, such as UV seams and hard edges, are locked, as are vertices on
+ * non-manifold edges and, unless {@link #setLockBorders(boolean)} is turned off, on the border of
+ * the mesh. Collapses that would flip a triangle are skipped.
+ * <p>
+ * Collapses are made in passes: the best collapse of every vertex is found in parallel, then
+ * collapses that don't touch each other are made in order of cost. Levels and primitives of a mesh
+ * are simplified in parallel too.
+ */
+public final class MeshSimplifier {
+
+  /**
+   * Extension listing the nodes that are lower levels of detail of a node
+   */
+  public static final String MSFT_LOD = "MSFT_lod";
+  /**
+   * Extra of a node with MSFT_lod holding the screen coverage below which each level is used
+   */
+  public static final String MSFT_SCREENCOVERAGE = "MSFT_screencoverage";
+
+  /**
+   * Quadric coefficients xx, xy, xz, yy, yz, zz, xw, yw, zw, ww, then the area they sum
+   */
+  private static final int QUADRIC = 11;
+  /**
+   * Weight of the planes holding unlocked borders in place, relative to triangle planes
+   */
+  private static final double BORDER_WEIGHT = 10;
+  /**
+   * Smallest cosine between a triangle's normal before and after a collapse, about 45 degrees
+   */
+  private static final double FLIP_COSINE = 0.7;
+  /**
+   * Area ratio below which a triangle is flattened by a collapse
+   */
+  private static final double FLAT = 1e-6;
+  /**
+   * How far above the cost of the collapse reaching the target a pass may go
+   */
+  private static final double PASS_SLACK = 1.5;
+
+  private final ForkJoinPool pool;
+  private boolean lockBorders = true;
+  private float normalWeight = 0.5f;
+  private float texCoordWeight = 1;
+  private float maxError = 1;
+  private float screenError = 0.001f;
+
+  /**
+   * Run on the common pool
+   */
+  public MeshSimplifier() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public MeshSimplifier(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Set whether vertices on the border of the mesh stay where they are, true by default. Off, they
+   * may slide along the border.
+   *
+   * @return this
+   */
+  public MeshSimplifier setLockBorders(boolean lockBorders) {
+    this.lockBorders = lockBorders;
+    return this;
+  }
+
+  /**
+   * Set the weight of NORMAL differences against position error, 0.5 by default, 0 ignores them
+   *
+   * @return this
+   */
+  public MeshSimplifier setNormalWeight(float normalWeight) {
+    this.normalWeight = checkWeight(normalWeight);
+    return this;
+  }
+
+  /**
+   * Set the weight of TEXCOORD_0 differences against position error, 1 by default, 0 ignores them
+   *
+   * @return this
+   */
+  public MeshSimplifier setTexCoordWeight(float texCoordWeight) {
+    this.texCoordWeight = checkWeight(texCoordWeight);
+    return this;
+  }
+
+  /**
+   * Set the largest error of a collapse, relative to the extent of the primitive, 1 by default. A
+   * primitive stops simplifying when its next collapse would exceed it, even above its target.
+   *
+   * @return this
+   */
+  public MeshSimplifier setMaxError(float maxError) {
+    this.maxError = checkWeight(maxError);
+    return this;
+  }
+
+  /**
+   * Set the error, as a fraction of the screen, a level of detail may show before a finer one is
+   * used. 0.001 by default. Sets the coverages of {@link #generateLODs(GLTFNode, float...)}.
+   *
+   * @return this
+   */
+  public MeshSimplifier setScreenError(float screenError) {
+    if (!(screenError > 0)) {
+      throw new IllegalArgumentException("Screen error must be positive, was " + screenError);
+    }
+    this.screenError = screenError;
+    return this;
+  }
+
+  /**
+   * Simplify primitive to at most ratio of its triangles, or as close as the max error allows
+   *
+   * @return a primitive sharing the attributes, morph targets and material of primitive with new
+   * indices of the same component type. It belongs to no mesh.
+   * @throws IllegalArgumentException if primitive is not indexed TRIANGLES with VEC3 POSITION or
+   *                                  ratio is not in (0, 1]
+   */
+  public GLTFMeshPrimitive simplify(GLTFMeshPrimitive primitive, float ratio) {
+    checkRatio(ratio);
+    return GeometryWriter.invoke(pool, () -> withIndices(primitive, simplifyNow(primitive, ratio)));
+  }
+
+  /**
+   * Simplify the mesh of node to each ratio of its triangles and make the results lower levels of
+   * detail of node, coarsest last. Each level is added to the GLTF as a mesh and a node without
+   * transform or children, listed in the MSFT_lod extension of node. {@link #MSFT_SCREENCOVERAGE}
+   * extras hold the screen coverage of the mesh below which each level, then nothing, is drawn,
+   * chosen so the error of a level is at most the screen error where it is used.
+   *
+   * @param ratios decreasing, each in (0, 1]
+   * @return the nodes added, in order
+   * @throws IllegalArgumentException if node has no mesh, a primitive is not indexed TRIANGLES
+   *                                  with VEC3 POSITION or ratios are not decreasing
+   */
+  public List<GLTFNode> generateLODs(GLTFNode node, float... ratios) {
+    GLTFMesh mesh = node.getMesh()
+        .orElseThrow(() -> new IllegalArgumentException("Node has no mesh"));
+    for (int i = 0; i < ratios.length; i++) {
+      checkRatio(ratios[i]);
+      if (i > 0 && ratios[i] >= ratios[i - 1]) {
+        throw new IllegalArgumentException("Ratios must decrease, " + Arrays.toString(ratios));
+      }
+    }
+    List<GLTFMeshPrimitive> primitives = mesh.getPrimitives();
+    List<ForkJoinTask<Level>> tasks = new ArrayList<>();
+    for (float ratio : ratios) {
+      for (GLTFMeshPrimitive primitive : primitives) {
+        tasks.add(ForkJoinTask.adapt(() -> simplifyNow(primitive, ratio)));
+      }
+    }
+    GeometryWriter.invoke(pool, () -> ForkJoinTask.invokeAll(tasks));
+
+    GLTF gltf = node.gltf;
+    List<GLTFNode> nodes = new ArrayList<>();
+    List<Integer> ids = new ArrayList<>();
+    List<Float> coverages = new ArrayList<>();
+    //Primitive errors are relative to their own extent, levels are compared by the mesh's
+    float[] meshBox = null;
+    for (int p = 0; p < primitives.size(); p++) {
+      meshBox = union(meshBox, tasks.get(p).join().box);
+    }
+    double meshExtent = meshBox == null ? 1 : extent(meshBox);
+    float coverage = 1;
+    for (int i = 0; i < ratios.length; i++) {
+      float error = 0;
+      List<GLTFMeshPrimitive> simplified = new ArrayList<>();
+      for (int p = 0; p < primitives.size(); p++) {
+        Level level = tasks.get(i * primitives.size() + p).join();
+        simplified.add(withIndices(primitives.get(p), level));
+        error = Math.max(error, (float) (level.error * extent(level.box) / meshExtent));
+      }
+      GLTFMesh levelMesh = GLTFMesh.of(gltf, levelName(mesh.getName(), i + 1), simplified,
+          mesh.getWeights());
+      gltf.addMesh(levelMesh);
+      GLTFNode level = GLTFNode.levelOf(node, levelMesh, levelName(node.getName(), i + 1));
+      gltf.addNode(level);
+      nodes.add(level);
+      ids.add(level.getIndex());
+
+      //A mesh covering c of the screen spans about sqrt(c) of it, so its error shows as
+      //error * sqrt(c) of the screen
+      if (error > 0) {
+        coverage = Math.min(coverage, (screenError / error) * (screenError / error));
+      }
+      coverages.add(coverage);
+    }
+    coverages.add(Math.min(coverage, screenError * screenError));
+
+    Map<String, Object> lod = new LinkedHashMap<>();
+    lod.put("ids", ids);
+    node.getExtensions().put(MSFT_LOD, lod);
+    node.getExtras().put(MSFT_SCREENCOVERAGE, coverages);
+    gltf.addExtensionUsed(MSFT_LOD);
+    return nodes;
+  }
+
+  private static float checkWeight(float weight) {
+    if (!(weight >= 0)) {
+      throw new IllegalArgumentException("Must not be negative, was " + weight);
+    }
+    return weight;
+  }
+
+  private static void checkRatio(float ratio) {
+    if (!(ratio > 0 && ratio <= 1)) {
+      throw new IllegalArgumentException("Ratio must be in (0, 1], was " + ratio);
+    }
+  }
+
+  private static String levelName(String name, int level) {
+    return name == null ? null : name + "_LOD" + level;
+  }
+
+  private static GLTFMeshPrimitive withIndices(GLTFMeshPrimitive primitive, Level level) {
+    return primitive.withIndices(GeometryWriter.writeIndices(primitive.gltf, level.indices,
+        primitive.getIndicesAccessor().orElseThrow().getPrimitiveType()));
+  }
+
+  private Level simplifyNow(GLTFMeshPrimitive primitive, float ratio) {
+    int[] indices = GeometryWriter.readTriangles(primitive);
+    int vertexCount = GeometryWriter.getVertexCount(primitive);
+    GLTFAccessor position = primitive.getAttributes().get("POSITION");
+    if (position == null || position.getDataType() != GLTFAccessorDataType.VEC3) {
+      throw new IllegalArgumentException("Primitive has no VEC3 POSITION");
+    }
+    ForkJoinTask<float[]> attributes = ForkJoinTask
+        .adapt(() -> readAttributes(primitive, vertexCount)).fork();
+    float[] positions = read(position, vertexCount);
+    float[] values = attributes.join();
+    int attributeCount = vertexCount == 0 ? 0 : values.length / vertexCount;
+    int target = (int) (indices.length / 3 * (double) ratio);
+    return simplify(indices, vertexCount, positions, values, attributeCount, lockBorders, target,
+        maxError);
+  }
+
+  /**
+   * @return NORMAL and TEXCOORD_0 of each vertex, those with a weight, scaled by the square root
+   * of their weight
+   */
+  private float[] readAttributes(GLTFMeshPrimitive primitive, int vertexCount) {
+    List<float[]> read = new ArrayList<>();
+    List<Float> scales = new ArrayList<>();
+    int count = 0;
+    GLTFAccessor normal = primitive.getAttributes().get("NORMAL");
+    if (normal != null && normal.getDataType() == GLTFAccessorDataType.VEC3 && normalWeight > 0) {
+      read.add(read(normal, vertexCount));
+      scales.add((float) Math.sqrt(normalWeight));
+      count += 3;
+    }
+    GLTFAccessor texCoord = primitive.getAttributes().get("TEXCOORD_0");
+    if (texCoord != null && texCoord.getDataType() == GLTFAccessorDataType.VEC2
+        && texCoordWeight > 0) {
+      read.add(read(texCoord, vertexCount));
+      scales.add((float) Math.sqrt(texCoordWeight));
+      count += 2;
+    }
+    float[] values = new float[vertexCount * count];
+    int offset = 0;
+    for (int a = 0; a < read.size(); a++) {
+      float[] attribute = read.get(a);
+      float scale = scales.get(a);
+      int components = attribute.length / Math.max(vertexCount, 1);
+      for (int v = 0; v < vertexCount; v++) {
+        for (int c = 0; c < components; c++) {
+          values[v * count + offset + c] = attribute[v * components + c] * scale;
+        }
+      }
+      offset += components;
+    }
+    return values;
+  }
+
+  private static float[] read(GLTFAccessor accessor, int vertexCount) {
+    float[] values = new float[vertexCount * accessor.getDataType().getPrimitiveCount()];
+    accessor.readFloats(0, vertexCount, values, 0);
+    return values;
+  }
+
+  /**
+   * Collapse edges of indices until at most targetTriangles remain or the next collapse would
+   * exceed maxError.
+   *
+   * @param attributes  attributeCount values for each vertex, weighted by scaling
+   * @param lockBorders keep vertices on an edge used by one triangle in place
+   */
+  static Level simplify(int[] indices, int vertexCount, float[] positions, float[] attributes,
+      int attributeCount, boolean lockBorders, int targetTriangles, float maxError) {
+    Collapser collapser = new Collapser(indices, vertexCount, positions, attributes,
+        attributeCount, lockBorders);
+    float error = collapser.collapse(targetTriangles, maxError);
+    return new Level(collapser.getIndices(), error, box(positions, vertexCount));
+  }
+
+  /**
+   * @return for each vertex, the first vertex with the same position
+   */
+  static int[] weldPositions(float[] positions, int vertexCount) {
+    int capacity = Integer.highestOneBit(Math.max(vertexCount, 1)) * 4;
+    int mask = capacity - 1;
+    int[] table = new int[capacity];
+    Arrays.fill(table, -1);
+    int[] welded = new int[vertexCount];
+    for (int v = 0; v < vertexCount; v++) {
+      //Adding 0 turns -0 into 0 so both hash the same
+      int x = Float.floatToIntBits(positions[v * 3] + 0f);
+      int y = Float.floatToIntBits(positions[v * 3 + 1] + 0f);
+      int z = Float.floatToIntBits(positions[v * 3 + 2] + 0f);
+      int hash = x * 0x9E3779B1 ^ y * 0x85EBCA77 ^ z * 0xC2B2AE3D;
+      int slot = (hash ^ hash >>> 15) & mask;
+      while (true) {
+        int other = table[slot];
+        if (other < 0) {
+          table[slot] = v;
+          welded[v] = v;
+          break;
+        }
+        if (Float.floatToIntBits(positions[other * 3] + 0f) == x
+            && Float.floatToIntBits(positions[other * 3 + 1] + 0f) == y
+            && Float.floatToIntBits(positions[other * 3 + 2] + 0f) == z) {
+          welded[v] = other;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+    return welded;
+  }
+
+  /**
+   * @return min x, y, z then max x, y, z of positions
+   */
+  private static float[] box(float[] positions, int vertexCount) {
+    float[] box = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+        Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+    for (int i = 0; i < vertexCount * 3; i++) {
+      box[i % 3] = Math.min(box[i % 3], positions[i]);
+      box[3 + i % 3] = Math.max(box[3 + i % 3], positions[i]);
+    }
+    return box;
+  }
+
+  /**
+   * @param a null for none
+   * @return the box holding both a and b
+   */
+  private static float[] union(float[] a, float[] b) {
+    if (a == null) {
+      return b.clone();
+    }
+    float[] union = new float[6];
+    for (int c = 0; c < 3; c++) {
+      union[c] = Math.min(a[c], b[c]);
+      union[3 + c] = Math.max(a[3 + c], b[3 + c]);
+    }
+    return union;
+  }
+
+  /**
+   * @return the largest side of box, or 1 if it has no size, which errors are relative to
+   */
+  private static double extent(float[] box) {
+    double extent = Math.max((double) box[3] - box[0],
+        Math.max((double) box[4] - box[1], (double) box[5] - box[2]));
+    return extent > 0 ? extent : 1;
+  }
+
+  /**
+   * Indices of a simplified primitive and the square root of the largest collapse cost paid,
+   * relative to the extent of the primitive's box
+   */
+  static final class Level {
+
+    final int[] indices;
+    final float error;
+    /**
+     * Box of the primitive's positions, see {@link #box(float[], int)}
+     */
+    final float[] box;
+
+    Level(int[] indices, float error, float[] box) {
+      this.indices = indices;
+      this.error = error;
+      this.box = box;
+    }
+  }
+
+  private static final class Collapser {
+
+    private final int vertexCount;
+    /**
+     * Positions scaled so the largest side of their box is 1
+     */
+    private final double[] positions;
+    private final float[] attributes;
+    private final int attributeCount;
+    private final boolean[] locked;
+    private final double[] quadrics;
+    private int[] indices;
+    private int triangleCount;
+
+    //Triangles using each vertex, compressed by vertex, rebuilt each pass
+    private final int[] offsets;
+    private int[] adjacency;
+    //Best collapse of each vertex in the current pass
+    private final int[] best;
+    private final double[] cost;
+
+    Collapser(int[] indices, int vertexCount, float[] positions, float[] attributes,
+        int attributeCount, boolean lockBorders) {
+      this.vertexCount = vertexCount;
+      this.attributes = attributes;
+      this.attributeCount = attributeCount;
+      this.indices = indices.clone();
+      this.triangleCount = indices.length / 3;
+      this.positions = normalize(positions, vertexCount);
+      this.locked = new boolean[vertexCount];
+      this.quadrics = new double[vertexCount * QUADRIC];
+      this.offsets = new int[vertexCount + 1];
+      this.best = new int[vertexCount];
+      this.cost = new double[vertexCount];
+
+      int[] welded = weldPositions(positions, vertexCount);
+      lockSeams(welded);
+      addTriangleQuadrics();
+      classifyEdges(welded, lockBorders);
+    }
+
+    int[] getIndices() {
+      return Arrays.copyOf(indices, triangleCount * 3);
+    }
+
+    private static double[] normalize(float[] positions, int vertexCount) {
+      float[] box = box(positions, vertexCount);
+      double extent = extent(box);
+      double[] normalized = new double[vertexCount * 3];
+      for (int i = 0; i < vertexCount * 3; i++) {
+        normalized[i] = (positions[i] - box[i % 3]) / extent;
+      }
+      return normalized;
+    }
+
+    /**
+     * Lock vertices sharing their position with another vertex, where attributes are split
+     */
+    private void lockSeams(int[] welded) {
+      boolean[] referenced = new boolean[vertexCount];
+      for (int index : indices) {
+        referenced[index] = true;
+      }
+      int[] wedges = new int[vertexCount];
+      for (int v = 0; v < vertexCount; v++) {
+        if (referenced[v]) {
+          wedges[welded[v]]++;
+        }
+      }
+      for (int v = 0; v < vertexCount; v++) {
+        locked[v] = referenced[v] && wedges[welded[v]] > 1;
+      }
+    }
+
+    private void addTriangleQuadrics() {
+      double[] normal = new double[3];
+      for (int t = 0; t < triangleCount; t++) {
+        int a = indices[t * 3];
+        double length = normal(a, indices[t * 3 + 1], indices[t * 3 + 2], normal);
+        if (length == 0) {
+          continue;
+        }
+        double area = length / 2;
+        double x = normal[0] / length;
+        double y = normal[1] / length;
+        double z = normal[2] / length;
+        double d = -(x * positions[a * 3] + y * positions[a * 3 + 1] + z * positions[a * 3 + 2]);
+        for (int k = 0; k < 3; k++) {
+          int v = indices[t * 3 + k];
+          addPlane(v, x, y, z, d, area);
+          quadrics[v * QUADRIC + 10] += area;
+        }
+      }
+    }
+
+    /**
+     * Lock vertices on non-manifold edges, and on borders if lockBorders, otherwise add planes
+     * through border edges, perpendicular to their triangle, to keep them in place
+     */
+    private void classifyEdges(int[] welded, boolean lockBorders) {
+      long[] edges = new long[triangleCount * 3];
+      int edgeCount = 0;
+      for (int i = 0; i < triangleCount * 3; i++) {
+        int a = welded[indices[i]];
+        int b = welded[indices[next(i)]];
+        if (a != b) {
+          edges[edgeCount++] = (long) a << 32 | b;
+        }
+      }
+      edges = Arrays.copyOf(edges, edgeCount);
+      Arrays.parallelSort(edges);
+
+      double[] normal = new double[3];
+      for (int i = 0; i < triangleCount * 3; i++) {
+        int va = indices[i];
+        int vb = indices[next(i)];
+        int a = welded[va];
+        int b = welded[vb];
+        if (a == b) {
+          continue;
+        }
+        int same = count(edges, (long) a << 32 | b);
+        int opposite = count(edges, (long) b << 32 | a);
+        if (same > 1 || opposite > 1 || (opposite == 0 && lockBorders)) {
+          locked[va] = true;
+          locked[vb] = true;
+        } else if (opposite == 0) {
+          int t = i - i % 3;
+          double length = normal(indices[t], indices[t + 1], indices[t + 2], normal);
+          if (length == 0) {
+            continue;
+          }
+          double ex = positions[vb * 3] - positions[va * 3];
+          double ey = positions[vb * 3 + 1] - positions[va * 3 + 1];
+          double ez = positions[vb * 3 + 2] - positions[va * 3 + 2];
+          double x = ey * normal[2] - ez * normal[1];
+          double y = ez * normal[0] - ex * normal[2];
+          double z = ex * normal[1] - ey * normal[0];
+          double planeLength = Math.sqrt(x * x + y * y + z * z);
+          if (planeLength == 0) {
+            continue;
+          }
+          x /= planeLength;
+          y /= planeLength;
+          z /= planeLength;
+          double d = -(x * positions[va * 3] + y * positions[va * 3 + 1]
+              + z * positions[va * 3 + 2]);
+          double weight = (ex * ex + ey * ey + ez * ez) * BORDER_WEIGHT;
+          addPlane(va, x, y, z, d, weight);
+          addPlane(vb, x, y, z, d, weight);
+        }
+      }
+    }
+
+    private static int next(int corner) {
+      return corner % 3 == 2 ? corner - 2 : corner + 1;
+    }
+
+    private static int count(long[] sorted, long key) {
+      int found = Arrays.binarySearch(sorted, key);
+      if (found < 0) {
+        return 0;
+      }
+      int first = found;
+      int last = found;
+      while (first > 0 && sorted[first - 1] == key) {
+        first--;
+      }
+      while (last + 1 < sorted.length && sorted[last + 1] == key) {
+        last++;
+      }
+      return last - first + 1;
+    }
+
+    /**
+     * Store the unnormalized normal of triangle abc in normal
+     *
+     * @return its length, twice the area of the triangle
+     */
+    private double normal(int a, int b, int c, double[] normal) {
+      double e0x = positions[b * 3] - positions[a * 3];
+      double e0y = positions[b * 3 + 1] - positions[a * 3 + 1];
+      double e0z = positions[b * 3 + 2] - positions[a * 3 + 2];
+      double e1x = positions[c * 3] - positions[a * 3];
+      double e1y = positions[c * 3 + 1] - positions[a * 3 + 1];
+      double e1z = positions[c * 3 + 2] - positions[a * 3 + 2];
+      normal[0] = e0y * e1z - e0z * e1y;
+      normal[1] = e0z * e1x - e0x * e1z;
+      normal[2] = e0x * e1y - e0y * e1x;
+      return Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+    }
+
+    private void addPlane(int v, double a, double b, double c, double d, double weight) {
+      int q = v * QUADRIC;
+      quadrics[q] += weight * a * a;
+      quadrics[q + 1] += weight * a * b;
+      quadrics[q + 2] += weight * a * c;
+      quadrics[q + 3] += weight * b * b;
+      quadrics[q + 4] += weight * b * c;
+      quadrics[q + 5] += weight * c * c;
+      quadrics[q + 6] += weight * a * d;
+      quadrics[q + 7] += weight * b * d;
+      quadrics[q + 8] += weight * c * d;
+      quadrics[q + 9] += weight * d * d;
+    }
+
+    private double evaluate(int v, double x, double y, double z) {
+      int q = v * QUADRIC;
+      return quadrics[q] * x * x + 2 * quadrics[q + 1] * x * y + 2 * quadrics[q + 2] * x * z
+          + quadrics[q + 3] * y * y + 2 * quadrics[q + 4] * y * z + quadrics[q + 5] * z * z
+          + 2 * quadrics[q + 6] * x + 2 * quadrics[q + 7] * y + 2 * quadrics[q + 8] * z
+          + quadrics[q + 9];
+    }
+
+    /**
+     * @return the square root of the largest cost paid
+     */
+    float collapse(int targetTriangles, float maxError) {
+      double limit = (double) maxError * maxError;
+      double error = 0;
+      int[] into = new int[vertexCount];
+      boolean[] touched = new boolean[vertexCount];
+      long[] order = new long[vertexCount];
+      while (triangleCount > targetTriangles) {
+        buildAdjacency();
+        IntStream.range(0, vertexCount).parallel().forEach(this::findCollapse);
+
+        //Costs are not negative, so their bits sort like them
+        int candidates = 0;
+        for (int v = 0; v < vertexCount; v++) {
+          if (best[v] >= 0 && cost[v] <= limit) {
+            order[candidates++] = (long) Float.floatToIntBits((float) cost[v]) << 32 | v;
+          }
+        }
+        Arrays.parallelSort(order, 0, candidates);
+        //A collapse removes about two triangles. Stop well before the pass reaches collapses
+        //much dearer than needed, the next pass may find cheaper ones around those made.
+        double passLimit = Double.POSITIVE_INFINITY;
+        if (candidates > 0) {
+          int goal = Math.min(candidates - 1, (triangleCount - targetTriangles) / 2);
+          passLimit = Float.intBitsToFloat((int) (order[goal] >>> 32)) * PASS_SLACK;
+        }
+
+        for (int v = 0; v < vertexCount; v++) {
+          into[v] = v;
+        }
+        Arrays.fill(touched, false);
+        int remaining = triangleCount;
+        int collapses = 0;
+        for (int i = 0; i < candidates && remaining > targetTriangles; i++) {
+          int a = (int) order[i];
+          int b = best[a];
+          if (cost[a] > passLimit && collapses > 0) {
+            break;
+          }
+          if (touched[a] || touched[b]) {
+            continue;
+          }
+          for (int j = offsets[a]; j < offsets[a + 1]; j++) {
+            int t = adjacency[j] * 3;
+            boolean removed = false;
+            for (int k = 0; k < 3; k++) {
+              touched[indices[t + k]] = true;
+              removed |= indices[t + k] == b;
+            }
+            if (removed) {
+              remaining--;
+            }
+          }
+          for (int k = 0; k < QUADRIC; k++) {
+            quadrics[b * QUADRIC + k] += quadrics[a * QUADRIC + k];
+          }
+          into[a] = b;
+          error = Math.max(error, cost[a]);
+          collapses++;
+        }
+        if (collapses == 0) {
+          break;
+        }
+
+        int out = 0;
+        for (int t = 0; t < triangleCount; t++) {
+          int a = into[indices[t * 3]];
+          int b = into[indices[t * 3 + 1]];
+          int c = into[indices[t * 3 + 2]];
+          if (a != b && b != c && a != c) {
+            indices[out++] = a;
+            indices[out++] = b;
+            indices[out++] = c;
+          }
+        }
+        triangleCount = out / 3;
+      }
+      return (float) Math.sqrt(error);
+    }
+
+    private void buildAdjacency() {
+      Arrays.fill(offsets, 0);
+      int corners = triangleCount * 3;
+      for (int i = 0; i < corners; i++) {
+        offsets[indices[i] + 1]++;
+      }
+      for (int v = 0; v < vertexCount; v++) {
+        offsets[v + 1] += offsets[v];
+      }
+      adjacency = new int[corners];
+      int[] fill = Arrays.copyOf(offsets, vertexCount);
+      for (int i = 0; i < corners; i++) {
+        adjacency[fill[indices[i]]++] = i / 3;
+      }
+    }
+
+    /**
+     * Find the cheapest neighbor of a that a can collapse onto without flipping a triangle. It
+     * stays valid while no collapse touches a triangle of a.
+     */
+    private void findCollapse(int a) {
+      best[a] = -1;
+      if (locked[a]) {
+        return;
+      }
+      double bestCost = Double.POSITIVE_INFINITY;
+      for (int j = offsets[a]; j < offsets[a + 1]; j++) {
+        int t = adjacency[j] * 3;
+        for (int k = 0; k < 3; k++) {
+          int b = indices[t + k];
+          if (b == a) {
+            continue;
+          }
+          double c = cost(a, b);
+          if (c < bestCost && !flips(a, b)) {
+            bestCost = c;
+            best[a] = b;
+          }
+        }
+      }
+      cost[a] = bestCost;
+    }
+
+    private double cost(int a, int b) {
+      double x = positions[b * 3];
+      double y = positions[b * 3 + 1];
+      double z = positions[b * 3 + 2];
+      double area = quadrics[a * QUADRIC + 10] + quadrics[b * QUADRIC + 10];
+      double error = evaluate(a, x, y, z) + evaluate(b, x, y, z);
+      error = Math.max(area > 0 ? error / area : error, 0);
+      return attributeCount == 0 ? error : error + attributeError(a, b);
+    }
+
+    /**
+     * @return the area weighted mean squared difference between the attributes of b and those the
+     * triangles of a not using b interpolate at b
+     */
+    private double attributeError(int a, int b) {
+      double error = 0;
+      double totalArea = 0;
+      for (int j = offsets[a]; j < offsets[a + 1]; j++) {
+        int t = adjacency[j] * 3;
+        int k = indices[t] == a ? 0 : indices[t + 1] == a ? 1 : 2;
+        int c = indices[t + (k + 1) % 3];
+        int d = indices[t + (k + 2) % 3];
+        if (c == b || d == b) {
+          continue;
+        }
+        //Barycentric coordinates of b projected on the plane of acd
+        double d00 = 0;
+        double d01 = 0;
+        double d11 = 0;
+        double d20 = 0;
+        double d21 = 0;
+        for (int i = 0; i < 3; i++) {
+          double e0 = positions[c * 3 + i] - positions[a * 3 + i];
+          double e1 = positions[d * 3 + i] - positions[a * 3 + i];
+          double e2 = positions[b * 3 + i] - positions[a * 3 + i];
+          d00 += e0 * e0;
+          d01 += e0 * e1;
+          d11 += e1 * e1;
+          d20 += e2 * e0;
+          d21 += e2 * e1;
+        }
+        double denominator = d00 * d11 - d01 * d01;
+        if (!(denominator > 0)) {
+          continue;
+        }
+        double v = (d11 * d20 - d01 * d21) / denominator;
+        double w = (d00 * d21 - d01 * d20) / denominator;
+        double u = 1 - v - w;
+        double squared = 0;
+        for (int i = 0; i < attributeCount; i++) {
+          double difference = u * attributes[a * attributeCount + i]
+              + v * attributes[c * attributeCount + i] + w * attributes[d * attributeCount + i]
+              - attributes[b * attributeCount + i];
+          squared += difference * difference;
+        }
+        double area = Math.sqrt(denominator) / 2;
+        error += area * squared;
+        totalArea += area;
+      }
+      return totalArea > 0 ? error / totalArea : 0;
+    }
+
+    /**
+     * @return whether moving a onto b turns a triangle of a too far from where it faced, or
+   * flattens it
+     */
+    private boolean flips(int a, int b) {
+      double[] before = new double[3];
+      double[] after = new double[3];
+      for (int j = offsets[a]; j < offsets[a + 1]; j++) {
+        int t = adjacency[j] * 3;
+        int k = indices[t] == a ? 0 : indices[t + 1] == a ? 1 : 2;
+        int c = indices[t + (k + 1) % 3];
+        int d = indices[t + (k + 2) % 3];
+        if (c == b || d == b) {
+          continue;
+        }
+        double beforeLength = normal(a, c, d, before);
+        double afterLength = normal(b, c, d, after);
+        double dot = before[0] * after[0] + before[1] * after[1] + before[2] * after[2];
+        if (dot < FLIP_COSINE * beforeLength * afterLength
+            || afterLength <= beforeLength * FLAT) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
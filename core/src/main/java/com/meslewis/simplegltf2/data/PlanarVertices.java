@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.List;
+
+/**
+ * The attributes of a {@link GLTFMeshPrimitive} decoded to floats, one array per component, e.g.
+ * all x of POSITION, then all y, then all z. Values are converted as {@link
+ * GLTFAccessor#getFloat(long)} does, with sparse values applied. Suited to processing many vertices
+ * at once on the CPU.
+ * <p>
+ * The arrays are shared, not copied, and must not be modified.
+ */
+public final class PlanarVertices {
+
+  /**
+   * Vertices decoded per call to readFloats
+   */
+  private static final int BATCH = 1024;
+
+  private final List<String> attributes;
+  private final float[][][] components;
+  private final int vertexCount;
+
+  private PlanarVertices(List<String> attributes, float[][][] components, int vertexCount) {
+    this.attributes = attributes;
+    this.components = components;
+    this.vertexCount = vertexCount;
+  }
+
+  static PlanarVertices of(GLTFMeshPrimitive primitive, List<String> attributes) {
+    GLTFAccessor[] accessors = primitive.getAttributeAccessors(attributes);
+    int vertexCount = accessors[0].getElementCount();
+    float[][][] components = new float[accessors.length][][];
+    for (int a = 0; a < accessors.length; a++) {
+      components[a] = split(accessors[a]);
+    }
+    return new PlanarVertices(attributes, components, vertexCount);
+  }
+
+  private static float[][] split(GLTFAccessor accessor) {
+    int count = accessor.getElementCount();
+    int componentCount = accessor.getDataType().getPrimitiveCount();
+    float[][] planes = new float[componentCount][count];
+    float[] batch = new float[Math.min(count, BATCH) * componentCount];
+    for (int first = 0; first < count; first += BATCH) {
+      int n = Math.min(BATCH, count - first);
+      accessor.readFloats(first, n, batch, 0);
+      for (int v = 0, in = 0; v < n; v++) {
+        for (int c = 0; c < componentCount; c++) {
+          planes[c][first + v] = batch[in++];
+        }
+      }
+    }
+    return planes;
+  }
+
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  public List<String> getAttributes() {
+    return attributes;
+  }
+
+  /**
+   * @return the number of components of attribute, e.g. 3 for a VEC3
+   * @throws IllegalArgumentException if attribute is not decoded here
+   */
+  public int getComponentCount(String attribute) {
+    return components[indexOf(attribute)].length;
+  }
+
+  /**
+   * @return component of attribute for every vertex
+   * @throws IllegalArgumentException if attribute is not decoded here
+   */
+  public float[] getComponent(String attribute, int component) {
+    return components[indexOf(attribute)][component];
+  }
+
+  private int indexOf(String attribute) {
+    int index = attributes.indexOf(attribute);
+    if (index < 0) {
+      throw new IllegalArgumentException(attribute + " is not one of " + attributes);
+    }
+    return index;
+  }
+}
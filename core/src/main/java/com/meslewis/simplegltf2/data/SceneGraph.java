@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Quaternionfc;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+/**
+ * An immutable, array based copy of the node hierarchy of a {@link GLTF}. Node i is {@code
+ * gltf.getNodes().get(i)}, see {@link GLTFNode#getIndex()}. Children and scene roots are kept in
+ * compressed rows, in the order the file lists them, and transforms are packed into float arrays,
+ * so walking a scene of millions of nodes touches a handful of arrays instead of an object per
+ * node.
+ * <p>
+ * Built from resolved references, so it reflects {@link DependencyClosure#retainIn(GLTF)} if that
+ * ran first. Later changes to the GLTF are not seen.
+ */
+public final class SceneGraph {
+
+  private final int nodeCount;
+  /**
+   * Parent of each node, -1 for nodes no other node lists as a child
+   */
+  private final int[] parents;
+  /**
+   * Children of node i are children[childOffsets[i]] up to children[childOffsets[i + 1]]
+   */
+  private final int[] childOffsets;
+  private final int[] children;
+  private final int[] rootOffsets;
+  private final int[] roots;
+  /**
+   * Every node reachable from a node without a parent, each after its parent
+   */
+  private final int[] order;
+  private final float[] translations;
+  private final float[] rotations;
+  private final float[] scales;
+  /**
+   * Offset into matrices of each node's matrix, -1 for TRS nodes. Null if no node has a matrix.
+   */
+  private final int[] matrixOffsets;
+  private final float[] matrices;
+  /**
+   * Index of each node's mesh, skin and camera, -1 for none. Null if no node has one.
+   */
+  private final int[] meshes;
+  private final int[] skins;
+  private final int[] cameras;
+
+  private SceneGraph(GLTF gltf) {
+    List<GLTFNode> nodes = gltf.getNodes().orElse(Collections.emptyList());
+    nodeCount = nodes.size();
+    parents = new int[nodeCount];
+    childOffsets = new int[nodeCount + 1];
+    translations = new float[nodeCount * 3];
+    rotations = new float[nodeCount * 4];
+    scales = new float[nodeCount * 3];
+
+    int childCount = 0;
+    int matrixCount = 0;
+    for (GLTFNode node : nodes) {
+      childCount += node.getChildren().map(Set::size).orElse(0);
+      if (node.getMatrix() != null) {
+        matrixCount++;
+      }
+    }
+
+    children = new int[childCount];
+    matrixOffsets = matrixCount == 0 ? null : new int[nodeCount];
+    matrices = matrixCount == 0 ? null : new float[matrixCount * 16];
+    Arrays.fill(parents, -1);
+    int child = 0;
+    int matrix = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      GLTFNode node = nodes.get(i);
+      childOffsets[i] = child;
+      if (node.getChildren().isPresent()) {
+        for (GLTFNode childNode : node.getChildren().get()) {
+          int index = childNode.getIndex();
+          children[child++] = index;
+          //A node listed twice is invalid, keep its first parent
+          if (parents[index] == -1) {
+            parents[index] = i;
+          }
+        }
+      }
+
+      Vector3fc t = node.getTranslation();
+      translations[i * 3] = t.x();
+      translations[i * 3 + 1] = t.y();
+      translations[i * 3 + 2] = t.z();
+      Quaternionfc r = node.getRotation();
+      rotations[i * 4] = r.x();
+      rotations[i * 4 + 1] = r.y();
+      rotations[i * 4 + 2] = r.z();
+      rotations[i * 4 + 3] = r.w();
+      Vector3fc s = node.getScale();
+      scales[i * 3] = s.x();
+      scales[i * 3 + 1] = s.y();
+      scales[i * 3 + 2] = s.z();
+
+      if (matrixOffsets != null) {
+        if (node.getMatrix() != null) {
+          node.getMatrix().get(matrices, matrix);
+          matrixOffsets[i] = matrix;
+          matrix += 16;
+        } else {
+          matrixOffsets[i] = -1;
+        }
+      }
+    }
+    childOffsets[nodeCount] = child;
+
+    meshes = column(nodes, GLTFNode::getMesh,
+        indexOf(gltf.getMeshCount(), gltf::getMesh));
+    skins = column(nodes, GLTFNode::getSkin,
+        indexOf(gltf.getSkinCount(), gltf::getSkin));
+    cameras = column(nodes, GLTFNode::getCamera,
+        indexOf(gltf.getCameraCount(), gltf::getCamera));
+
+    List<GLTFScene> scenes = gltf.getSceneCount() == 0
+        ? Collections.emptyList() : gltf.getScenes();
+    rootOffsets = new int[scenes.size() + 1];
+    int rootCount = 0;
+    for (GLTFScene scene : scenes) {
+      rootCount += scene.getRootNodes() == null ? 0 : scene.getRootNodes().size();
+    }
+    roots = new int[rootCount];
+    int root = 0;
+    for (int i = 0; i < scenes.size(); i++) {
+      rootOffsets[i] = root;
+      if (scenes.get(i).getRootNodes() != null) {
+        for (GLTFNode node : scenes.get(i).getRootNodes()) {
+          roots[root++] = node.getIndex();
+        }
+      }
+    }
+    rootOffsets[scenes.size()] = root;
+
+    order = traversalOrder();
+  }
+
+  /**
+   * Copy the node hierarchy of gltf, after its indices have been resolved.
+   */
+  public static SceneGraph of(GLTF gltf) {
+    return new SceneGraph(gltf);
+  }
+
+  private static <T> Map<T, Integer> indexOf(int count, IntFunction<T> get) {
+    Map<T, Integer> indices = new IdentityHashMap<>(count);
+    for (int i = 0; i < count; i++) {
+      indices.put(get.apply(i), i);
+    }
+    return indices;
+  }
+
+  private static <T> int[] column(List<GLTFNode> nodes, Function<GLTFNode, Optional<T>> property,
+      Map<T, Integer> indices) {
+    int[] column = null;
+    for (int i = 0; i < nodes.size(); i++) {
+      Optional<T> value = property.apply(nodes.get(i));
+      if (value.isPresent()) {
+        if (column == null) {
+          column = new int[nodes.size()];
+          Arrays.fill(column, -1);
+        }
+        column[i] = indices.get(value.get());
+      }
+    }
+    return column;
+  }
+
+  /**
+   * Depth first from each node without a parent, children in order. Only the parent in parents
+   * leads to a node, so nodes in a cycle, which a valid file can't have, are left out.
+   */
+  private int[] traversalOrder() {
+    int[] order = new int[nodeCount];
+    int[] stack = new int[nodeCount];
+    int size = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      if (parents[i] != -1) {
+        continue;
+      }
+      int top = 0;
+      stack[top++] = i;
+      while (top > 0) {
+        int node = stack[--top];
+        order[size++] = node;
+        for (int c = childOffsets[node + 1] - 1; c >= childOffsets[node]; c--) {
+          if (parents[children[c]] == node) {
+            stack[top++] = children[c];
+          }
+        }
+      }
+    }
+    return size == nodeCount ? order : Arrays.copyOf(order, size);
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * @return the index of node's parent, or -1 if it has none
+   */
+  public int getParent(int node) {
+    return parents[node];
+  }
+
+  public int getChildCount(int node) {
+    return childOffsets[node + 1] - childOffsets[node];
+  }
+
+  /**
+   * @return the index of node's i-th child
+   */
+  public int getChild(int node, int i) {
+    return children[childOffsets[node] + i];
+  }
+
+  /**
+   * @return the number of scenes, indexed as in {@link GLTF#getScenes()}
+   */
+  public int getSceneCount() {
+    return rootOffsets.length - 1;
+  }
+
+  public int getRootCount(int scene) {
+    return rootOffsets[scene + 1] - rootOffsets[scene];
+  }
+
+  /**
+   * @return the index of the i-th root node of scene
+   */
+  public int getRoot(int scene, int i) {
+    return roots[rootOffsets[scene] + i];
+  }
+
+  /**
+   * Every node reachable from a node without a parent, each one after its parent, e.g. to compute
+   * world transforms in one pass.
+   *
+   * @return a copy of the node indices
+   */
+  public int[] getTraversalOrder() {
+    return order.clone();
+  }
+
+  public Vector3f getTranslation(int node, Vector3f dest) {
+    return dest.set(translations[node * 3], translations[node * 3 + 1],
+        translations[node * 3 + 2]);
+  }
+
+  public Quaternionf getRotation(int node, Quaternionf dest) {
+    return dest.set(rotations[node * 4], rotations[node * 4 + 1], rotations[node * 4 + 2],
+        rotations[node * 4 + 3]);
+  }
+
+  public Vector3f getScale(int node, Vector3f dest) {
+    return dest.set(scales[node * 3], scales[node * 3 + 1], scales[node * 3 + 2]);
+  }
+
+  /**
+   * @return true if node has a matrix rather than translation, rotation and scale
+   */
+  public boolean hasMatrix(int node) {
+    return matrixOffsets != null && matrixOffsets[node] >= 0;
+  }
+
+  /**
+   * @return the transform of node relative to its parent
+   */
+  public Matrix4f getLocalMatrix(int node, Matrix4f dest) {
+    if (hasMatrix(node)) {
+      return dest.set(matrices, matrixOffsets[node]);
+    }
+    return dest.translationRotateScale(
+        translations[node * 3], translations[node * 3 + 1], translations[node * 3 + 2],
+        rotations[node * 4], rotations[node * 4 + 1], rotations[node * 4 + 2],
+        rotations[node * 4 + 3],
+        scales[node * 3], scales[node * 3 + 1], scales[node * 3 + 2]);
+  }
+
+  /**
+   * Compute the world transform of every node in {@link #getTraversalOrder()}, column major, 16
+   * floats per node starting at node * 16. Entries of nodes outside that order are not written.
+   *
+   * @param dest at least 16 * {@link #getNodeCount()} floats
+   */
+  public void computeWorldMatrices(float[] dest) {
+    Matrix4f local = new Matrix4f();
+    Matrix4f world = new Matrix4f();
+    for (int node : order) {
+      getLocalMatrix(node, local);
+      int parent = parents[node];
+      if (parent == -1) {
+        world.set(local);
+      } else {
+        world.set(dest, parent * 16).mul(local);
+      }
+      world.get(dest, node * 16);
+    }
+  }
+
+  /**
+   * @return the index of node's mesh, or -1 if it has none
+   */
+  public int getMesh(int node) {
+    return meshes == null ? -1 : meshes[node];
+  }
+
+  /**
+   * @return the index of node's skin, or -1 if it has none
+   */
+  public int getSkin(int node) {
+    return skins == null ? -1 : skins[node];
+  }
+
+  /**
+   * @return the index of node's camera, or -1 if it has none
+   */
+  public int getCamera(int node) {
+    return cameras == null ? -1 : cameras[node];
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Hand written checks for the structural rules of glTF 2.0: required properties, index references
+ * in range, and byte ranges that fit inside what they reference.
+ * <p>
+ * Runs on the raw indices read from JSON, before {@link GLTF#applyLookupMap()}, so a bad index is
+ * reported instead of failing resolution. No message is built and no error list is allocated unless
+ * an error is found. The few rules that need buffer data are checked by {@link
+ * #validateData(GLTF)} once references are resolved.
+ */
+public final class StructuralValidator {
+
+  private final GLTF gltf;
+  private List<String> errors;
+
+  /**
+   * Name of the top level array, and index in it, of the object being checked
+   */
+  private String owner = "gltf";
+  private int ownerIndex = -1;
+
+  private StructuralValidator(GLTF gltf) {
+    this.gltf = gltf;
+  }
+
+  /**
+   * @return a description of every rule gltf breaks, empty if it is structurally valid
+   */
+  public static List<String> validate(GLTF gltf) {
+    StructuralValidator validator = new StructuralValidator(gltf);
+    gltf.validate(validator);
+    return validator.errors == null ? Collections.emptyList() : validator.errors;
+  }
+
+  /**
+   * Check the rules that need buffer data: that sparse indices strictly increase and are below the
+   * count of their accessor. Runs on resolved references, after {@link GLTF#applyLookupMap()}, and
+   * reads the sparse indices of every accessor, fetching the buffers holding them.
+   *
+   * @return a description of every rule gltf breaks, empty if its data is structurally valid
+   */
+  public static List<String> validateData(GLTF gltf) {
+    StructuralValidator validator = new StructuralValidator(gltf);
+    gltf.validateData(validator);
+    return validator.errors == null ? Collections.emptyList() : validator.errors;
+  }
+
+  void validateAll(String owner, List<? extends GLTFProperty> properties) {
+    validateAll(owner, properties, GLTFProperty::validate);
+  }
+
+  <T extends GLTFProperty> void validateAll(String owner, List<T> properties,
+      BiConsumer<T, StructuralValidator> check) {
+    if (properties == null) {
+      return;
+    }
+    for (int i = 0; i < properties.size(); i++) {
+      this.owner = owner;
+      this.ownerIndex = i;
+      check.accept(properties.get(i), this);
+    }
+    this.owner = "gltf";
+    this.ownerIndex = -1;
+  }
+
+  GLTF getGltf() {
+    return gltf;
+  }
+
+  /**
+   * Record an error against the object currently being checked
+   */
+  void error(String message) {
+    if (errors == null) {
+      errors = new ArrayList<>();
+    }
+    if (ownerIndex < 0) {
+      errors.add(owner + ": " + message);
+    } else {
+      errors.add(owner + "[" + ownerIndex + "]: " + message);
+    }
+  }
+
+  /**
+   * Record message if condition is false. Pass only constant messages, test the condition and call
+   * {@link #error(String)} for one built from values, so nothing is built for valid objects.
+   */
+  void require(boolean condition, String message) {
+    if (!condition) {
+      error(message);
+    }
+  }
+
+  /**
+   * Check an optional index, -1 meaning it was not defined.
+   *
+   * @return true if the index is defined and refers to an existing object
+   */
+  boolean checkIndex(String property, int index, int count) {
+    if (index < 0) {
+      if (index != -1) {
+        error(property + " must not be negative, was " + index);
+      }
+      return false;
+    }
+    if (index >= count) {
+      error(property + " " + index + " out of range, only " + count + " defined");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Check an index that must be defined.
+   *
+   * @return true if the index refers to an existing object
+   */
+  boolean checkRequiredIndex(String property, int index, int count) {
+    if (index == -1) {
+      error(property + " is required");
+      return false;
+    }
+    return checkIndex(property, index, count);
+  }
+
+  void checkIndices(String property, int[] indices, int count) {
+    if (indices == null) {
+      return;
+    }
+    for (int index : indices) {
+      checkIndex(property, index, count);
+    }
+  }
+
+  /**
+   * Check that elementCount elements starting at byteOffset fit inside bufferView.
+   */
+  void checkRange(String property, GLTFBufferView bufferView, long byteOffset,
+      GLTFAccessorComponentType componentType, int componentCount, int elementCount) {
+    if (byteOffset < 0) {
+      error(property + " byteOffset must not be negative");
+      return;
+    }
+    if (componentType == null || elementCount < 1) {
+      return;
+    }
+    if (byteOffset % componentType.getSizeInBytes() != 0) {
+      error(property + " byteOffset " + byteOffset + " is not a multiple of component size "
+          + componentType.getSizeInBytes());
+    }
+    long elementSize = (long) componentType.getSizeInBytes() * componentCount;
+    long stride = bufferView.getByteStride() > 0 ? bufferView.getByteStride() : elementSize;
+    long end = byteOffset + stride * (elementCount - 1) + elementSize;
+    if (end > bufferView.getByteLength()) {
+      error(property + " needs " + end + " bytes but its bufferView is only "
+          + bufferView.getByteLength() + " bytes long");
+    }
+  }
+}
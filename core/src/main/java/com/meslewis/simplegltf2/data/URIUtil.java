@@ -9,6 +9,7 @@ package com.meslewis.simplegltf2.data;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,11 @@ public class URIUtil {
 
   private static final Logger logger = LoggerFactory.getLogger(URIUtil.class);
 
+  /**
+   * Base 64 characters decoded per step, a multiple of 4
+   */
+  private static final int DECODE_CHUNK_SIZE = 16 * 1024;
+
   /**
    * Handles getting a general stream from any URI contained in a GLTF file. Supports relative and
    * absolute URI's
@@ -24,25 +30,77 @@ public class URIUtil {
    */
   public static ByteBuffer getDirectBufferFromGeneralURI(GLTF base, URI path) {
     if (path != null && path.getScheme() != null) {
-      return dataURIToDirectBuffer(path);
+      base.checkOpen();
+      ByteBuffer decoded = dataURIToDirectBuffer(path);
+      base.own(decoded);
+      return decoded;
     } else {
       return pathURIToDirectBuffer(base, path);
     }
   }
 
   /**
-   * GLTF data uri's are always base 64 encoded
+   * Get length bytes starting at offset from a file referenced by a GLTF. Data URIs can't be read
+   * in part, use {@link #getDirectBufferFromGeneralURI(GLTF, URI)} for those.
+   */
+  static ByteBuffer getDirectBufferFromGeneralURI(GLTF base, URI path, long offset, int length) {
+    return base.getDirectByteBuffer(resolve(base, path), offset, length);
+  }
+
+  /**
+   * GLTF data uri's are always base 64 encoded. The data is decoded straight from the URI's
+   * string into a direct buffer of exactly the decoded size, a chunk at a time, so no copy of the
+   * whole payload is made on the heap.
    *
    * @param uri
    * @return
    */
   private static ByteBuffer dataURIToDirectBuffer(URI uri) {
-    Base64.Decoder decoder = Base64.getMimeDecoder();
-    String encodedData = uri.getSchemeSpecificPart();
+    String encodedData = uri.getRawSchemeSpecificPart();
+    if (encodedData.indexOf('%') >= 0) {
+      //Escaped characters need decoding first, not expected in base 64 data
+      encodedData = uri.getSchemeSpecificPart();
+    }
     // ',' is always the last character before the data
-    encodedData = encodedData.substring(encodedData.indexOf(',') + 1);
-    ByteBuffer buf = ByteBuffer.allocateDirect(encodedData.length()).order(ByteOrder.LITTLE_ENDIAN);
-    return buf.put(decoder.decode(encodedData.getBytes())).rewind();
+    int start = encodedData.indexOf(',') + 1;
+
+    //First pass counts base 64 characters, ignoring padding, line breaks and anything else the
+    //MIME decoder would skip, to size the buffer exactly
+    int characters = 0;
+    for (int i = start; i < encodedData.length(); i++) {
+      if (isBase64(encodedData.charAt(i))) {
+        characters++;
+      }
+    }
+    int decodedLength = (characters * 3) / 4;
+    ByteBuffer buf = ByteBuffer.allocateDirect(decodedLength).order(ByteOrder.LITTLE_ENDIAN);
+
+    //Second pass decodes one chunk of whole 4 character groups at a time
+    Base64.Decoder decoder = Base64.getDecoder();
+    byte[] encodedChunk = new byte[DECODE_CHUNK_SIZE];
+    byte[] decodedChunk = new byte[DECODE_CHUNK_SIZE / 4 * 3];
+    int count = 0;
+    for (int i = start; i < encodedData.length(); i++) {
+      char c = encodedData.charAt(i);
+      if (isBase64(c)) {
+        encodedChunk[count++] = (byte) c;
+        if (count == encodedChunk.length) {
+          buf.put(decodedChunk, 0, decoder.decode(encodedChunk, decodedChunk));
+          count = 0;
+        }
+      }
+    }
+    if (count > 0) {
+      //Unpadded tail, the decoder accepts 2 or 3 trailing characters without padding
+      byte[] tail = Arrays.copyOf(encodedChunk, count);
+      buf.put(decodedChunk, 0, decoder.decode(tail, decodedChunk));
+    }
+    return buf.rewind();
+  }
+
+  private static boolean isBase64(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+        || c == '+' || c == '/';
   }
 
   /**
@@ -53,10 +111,16 @@ public class URIUtil {
    * @return
    */
   private static ByteBuffer pathURIToDirectBuffer(GLTF gltf, URI path) {
-    URI resolvedURI = null;
-    if (path != null) {
-      resolvedURI = gltf.resolveURI(path.getPath());
+    return gltf.getDirectByteBuffer(resolve(gltf, path));
+  }
+
+  /**
+   * @return path resolved against the GLTF file, null for the bin chunk of a glb
+   */
+  private static URI resolve(GLTF gltf, URI path) {
+    if (path == null) {
+      return null;
     }
-    return gltf.getGltfImporter().getDirectByteBuffer(resolvedURI);
+    return gltf.resolveURI(path.getPath());
   }
 }
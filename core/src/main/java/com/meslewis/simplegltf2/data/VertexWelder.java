@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Merges the duplicate vertices of a primitive and draws it through indices, so unindexed
+ * primitives from exporters that write every triangle corner are drawn with glDrawElements and
+ * transform each vertex once.
+ * <p>
+ * Two vertices are duplicates when every attribute and every morph target holds the same values
+ * for both, the stored integers of integer components rather than the floats they normalize to.
+ * An attribute given an epsilon instead compares its values as {@link GLTFAccessor#getFloat(long)}
+ * reads them, rounded to the nearest multiple of epsilon, so values such as 0 and 1 sit in the
+ * middle of a cell. Vertices closer than epsilon across a cell edge stay apart. The first vertex of
+ * each set of duplicates is kept, and vertices keep their order.
+ * <p>
+ * Vertices are keyed and hashed in parallel, then entered in an open addressing table of vertex
+ * numbers. Primitives are rewritten in place as by {@link MeshOptimizer}.
+ */
+public final class VertexWelder {
+
+  private final ForkJoinPool pool;
+  private final Map<String, Float> epsilons = new HashMap<>();
+
+  /**
+   * Run on the common pool
+   */
+  public VertexWelder() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public VertexWelder(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Round values of attribute, and of the morph target attribute of the same name, to multiples of
+   * epsilon before comparing them. 0, the default, compares them exactly.
+   *
+   * @param attribute e.g. "NORMAL" or "TEXCOORD_0"
+   * @return this
+   */
+  public VertexWelder setEpsilon(String attribute, float epsilon) {
+    if (!(epsilon >= 0) || Float.isInfinite(epsilon)) {
+      throw new IllegalArgumentException(
+          "Epsilon must be finite and not negative, was " + epsilon);
+    }
+    epsilons.put(attribute, epsilon);
+    return this;
+  }
+
+  /**
+   * Weld primitive and rewrite it in place with indices, UNSIGNED_SHORT if the vertices left fit
+   * and UNSIGNED_INT otherwise. An unindexed primitive is given indices even when no vertex is
+   * duplicated, so the passes needing them can run on it. Vertices indices don't use are dropped.
+   *
+   * @throws IllegalArgumentException if primitive has no attributes or an index is out of range
+   */
+  public Report weld(GLTFMeshPrimitive primitive) {
+    return GeometryWriter.invoke(pool, () -> weldNow(primitive));
+  }
+
+  /**
+   * Weld the primitives of mesh in parallel
+   *
+   * @return a report for each primitive, in order
+   * @throws IllegalArgumentException if a primitive has no attributes or an index is out of range,
+   *                                  primitives before it may have been rewritten
+   */
+  public List<Report> weld(GLTFMesh mesh) {
+    return GeometryWriter.forEachPrimitive(pool, mesh, this::weldNow);
+  }
+
+  private Report weldNow(GLTFMeshPrimitive primitive) {
+    int vertexCount = GeometryWriter.getVertexCount(primitive);
+    int[] indices = GeometryWriter.readIndices(primitive);
+    boolean indexed = indices != null;
+    if (indexed) {
+      GeometryWriter.checkIndices(indices, vertexCount);
+    }
+
+    //Accessors in a fixed order, each with the epsilon of its attribute name
+    List<GLTFAccessor> accessors = new ArrayList<>();
+    List<Float> accessorEpsilons = new ArrayList<>();
+    addAccessors(primitive.getAttributes(), accessors, accessorEpsilons);
+    if (primitive.getMorphTargets() != null) {
+      for (Map<String, GLTFAccessor> target : primitive.getMorphTargets()) {
+        addAccessors(target, accessors, accessorEpsilons);
+      }
+    }
+    int[][] components = new int[accessors.size()][];
+    List<ForkJoinTask<?>> reads = new ArrayList<>();
+    for (int a = 0; a < accessors.size(); a++) {
+      int accessor = a;
+      reads.add(ForkJoinTask.adapt(() -> {
+        components[accessor] = componentKeys(accessors.get(accessor),
+            accessorEpsilons.get(accessor), vertexCount);
+      }));
+    }
+    ForkJoinTask.invokeAll(reads);
+
+    int[] oldToNew = new int[vertexCount];
+    int[] newToOld = weld(keys(components, vertexCount), vertexCount, oldToNew);
+    int[] welded;
+    if (indexed) {
+      welded = indices;
+      IntStream.range(0, welded.length).parallel().forEach(i -> welded[i] = oldToNew[welded[i]]);
+      //Vertices no index uses were welded too, drop them
+      int[] usedToWelded = IndexCompactor.stripUnused(welded, newToOld.length);
+      for (int i = 0; i < usedToWelded.length; i++) {
+        usedToWelded[i] = newToOld[usedToWelded[i]];
+      }
+      newToOld = usedToWelded;
+    } else {
+      welded = oldToNew;
+    }
+
+    GLTFAccessorComponentType type = newToOld.length <= IndexCompactor.MAX_SHORT_VERTICES
+        ? GLTFAccessorComponentType.UNSIGNED_SHORT : GLTFAccessorComponentType.UNSIGNED_INT;
+    if (!indexed || newToOld.length < vertexCount) {
+      GeometryWriter.rewrite(primitive, newToOld, welded, type);
+    }
+    return new Report(welded.length, vertexCount, newToOld.length, indexed);
+  }
+
+  private void addAccessors(Map<String, GLTFAccessor> attributes, List<GLTFAccessor> accessors,
+      List<Float> accessorEpsilons) {
+    attributes.forEach((name, accessor) -> {
+      accessors.add(accessor);
+      accessorEpsilons.add(epsilons.getOrDefault(name, 0f));
+    });
+  }
+
+  /**
+   * Key each component of the first vertexCount elements of accessor. Integer components compared
+   * exactly are keyed by their value, as normalizing them can map two values to one float, e.g.
+   * BYTE -128 and -127 both to -1.
+   *
+   * @param epsilon 0 to compare exactly
+   * @return the components of each element as ints, int bits of their float values or multiples
+   * of epsilon
+   */
+  static int[] componentKeys(GLTFAccessor accessor, float epsilon, int vertexCount) {
+    int[] keys = new int[vertexCount * accessor.getDataType().getPrimitiveCount()];
+    if (epsilon == 0 && accessor.getPrimitiveType() != GLTFAccessorComponentType.FLOAT) {
+      accessor.readIndices(0, vertexCount, keys, 0);
+      return keys;
+    }
+    float[] values = new float[keys.length];
+    accessor.readFloats(0, vertexCount, values, 0);
+    for (int i = 0; i < values.length; i++) {
+      if (epsilon > 0) {
+        keys[i] = Math.round(values[i] / epsilon);
+      } else {
+        //Adding 0 turns -0 into 0 so both compare equal
+        keys[i] = Float.floatToIntBits(values[i] + 0f);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * @param components the component keys of each vertex for each accessor, see {@link
+   *                   #componentKeys(GLTFAccessor, float, int)}
+   * @return the key of each vertex, the component keys of each accessor one after the other
+   */
+  static int[] keys(int[][] components, int vertexCount) {
+    int width = 0;
+    for (int[] accessor : components) {
+      width += accessor.length / Math.max(vertexCount, 1);
+    }
+    int[] keys = new int[vertexCount * width];
+    int keyWidth = width;
+    IntStream.range(0, vertexCount).parallel().forEach(v -> {
+      int k = v * keyWidth;
+      for (int[] accessor : components) {
+        int count = accessor.length / vertexCount;
+        System.arraycopy(accessor, v * count, keys, k, count);
+        k += count;
+      }
+    });
+    return keys;
+  }
+
+  /**
+   * Number each distinct key from 0 in the order it first appears
+   *
+   * @param oldToNew filled with the number of each vertex's key
+   * @return the first vertex with each key
+   */
+  static int[] weld(int[] keys, int vertexCount, int[] oldToNew) {
+    int width = vertexCount == 0 ? 0 : keys.length / vertexCount;
+    int[] hashes = new int[vertexCount];
+    IntStream.range(0, vertexCount).parallel().forEach(v -> {
+      int hash = 0;
+      for (int k = v * width; k < (v + 1) * width; k++) {
+        hash = (hash ^ keys[k]) * 0x9E3779B1;
+        hash = Integer.rotateLeft(hash, 15);
+      }
+      hashes[v] = hash ^ hash >>> 16;
+    });
+
+    //Slots hold the first vertex with a key, or -1
+    int capacity = Integer.highestOneBit(Math.max(vertexCount, 1)) * 4;
+    int mask = capacity - 1;
+    int[] table = new int[capacity];
+    Arrays.fill(table, -1);
+    int[] newToOld = new int[vertexCount];
+    int count = 0;
+    for (int v = 0; v < vertexCount; v++) {
+      int slot = hashes[v] & mask;
+      while (true) {
+        int other = table[slot];
+        if (other < 0) {
+          table[slot] = v;
+          oldToNew[v] = count;
+          newToOld[count++] = v;
+          break;
+        }
+        if (hashes[other] == hashes[v]
+            && Arrays.equals(keys, other * width, (other + 1) * width, keys, v * width,
+            (v + 1) * width)) {
+          oldToNew[v] = oldToNew[other];
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+    return Arrays.copyOf(newToOld, count);
+  }
+
+  /**
+   * Vertex counts of a primitive before and after welding
+   */
+  public static final class Report {
+
+    private final int indexCount;
+    private final int verticesBefore;
+    private final int verticesAfter;
+    private final boolean indexedBefore;
+
+    Report(int indexCount, int verticesBefore, int verticesAfter, boolean indexedBefore) {
+      this.indexCount = indexCount;
+      this.verticesBefore = verticesBefore;
+      this.verticesAfter = verticesAfter;
+      this.indexedBefore = indexedBefore;
+    }
+
+    public int getIndexCount() {
+      return indexCount;
+    }
+
+    public int getVerticesBefore() {
+      return verticesBefore;
+    }
+
+    public int getVerticesAfter() {
+      return verticesAfter;
+    }
+
+    public boolean isIndexedBefore() {
+      return indexedBefore;
+    }
+
+    @Override
+    public String toString() {
+      return "Report{indices=" + indexCount + ", vertices " + verticesBefore + " -> "
+          + verticesAfter + (indexedBefore ? "" : ", was unindexed") + "}";
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.defaultImplementation;
+
+import com.meslewis.simplegltf2.BufferIO;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Shares buffers between loads. Wraps another BufferIO and keeps what it returns, keyed by URI and
+ * byte range and, for files, size and modification time so a changed file is fetched again. Old
+ * versions of a changed file are left to be evicted.
+ * <p>
+ * Cached bytes are kept under a budget by evicting the least recently used buffers. A buffer still
+ * used by a load is only released to the wrapped BufferIO once every load using it has released
+ * it. Safe to share between threads and importers.
+ */
+public class CachingBufferIO implements BufferIO {
+
+  private final BufferIO source;
+  private final long byteBudget;
+
+  /**
+   * Cached entries, least recently used first
+   */
+  private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * Every buffer handed out and not yet released, and the entry it is a view of
+   */
+  private final Map<ByteBuffer, Entry> outstanding = new IdentityHashMap<>();
+
+  private long cachedBytes;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param source     BufferIO to fetch and release buffers through
+   * @param byteBudget most bytes to keep cached, a single buffer larger than this is not cached
+   */
+  public CachingBufferIO(BufferIO source, long byteBudget) {
+    this.source = Objects.requireNonNull(source);
+    this.byteBudget = byteBudget;
+  }
+
+  /**
+   * @return a new view of the cached buffer for uri. Each one must be passed to {@link
+   * #release(ByteBuffer)} once it is no longer used.
+   */
+  @Override
+  public ByteBuffer getDirectByteBuffer(URI uri) {
+    return get(Key.of(uri, -1, -1));
+  }
+
+  /**
+   * Ranges are cached separately from each other and from the whole file.
+   */
+  @Override
+  public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+    return get(Key.of(uri, offset, length));
+  }
+
+  private ByteBuffer get(Key key) {
+    synchronized (this) {
+      Entry entry = cache.get(key);
+      if (entry != null) {
+        hitCount++;
+        return checkOut(entry);
+      }
+      missCount++;
+    }
+
+    //Fetch without holding the lock, so other URIs can still be served
+    ByteBuffer fetched = key.length < 0 ? source.getDirectByteBuffer(key.uri)
+        : source.getDirectByteBuffer(key.uri, key.offset, key.length);
+    synchronized (this) {
+      Entry entry = cache.get(key);
+      if (entry != null) {
+        //Another thread fetched it first
+        source.release(fetched);
+        return checkOut(entry);
+      }
+      entry = new Entry(fetched);
+      if (fetched.capacity() <= byteBudget) {
+        cache.put(key, entry);
+        entry.cached = true;
+        cachedBytes += fetched.capacity();
+        trim();
+      }
+      return checkOut(entry);
+    }
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    ByteBuffer toRelease = null;
+    synchronized (this) {
+      Entry entry = outstanding.remove(buffer);
+      if (entry == null) {
+        return;
+      }
+      entry.references--;
+      if (entry.references == 0 && !entry.cached) {
+        toRelease = entry.buffer;
+      }
+    }
+    if (toRelease != null) {
+      source.release(toRelease);
+    }
+  }
+
+  /**
+   * Drop every cached buffer. Buffers still in use are released once their loads release them.
+   */
+  public void clear() {
+    synchronized (this) {
+      for (Iterator<Entry> it = cache.values().iterator(); it.hasNext(); ) {
+        Entry entry = it.next();
+        it.remove();
+        uncache(entry);
+      }
+    }
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return bytes held by the cache, not counting evicted buffers still in use
+   */
+  public synchronized long getCachedByteCount() {
+    return cachedBytes;
+  }
+
+  public long getByteBudget() {
+    return byteBudget;
+  }
+
+  private ByteBuffer checkOut(Entry entry) {
+    ByteBuffer view = entry.buffer.duplicate();
+    entry.references++;
+    outstanding.put(view, entry);
+    return view;
+  }
+
+  /**
+   * Evict least recently used entries until the cache fits its budget.
+   */
+  private void trim() {
+    for (Iterator<Entry> it = cache.values().iterator(); it.hasNext() && cachedBytes > byteBudget;
+        ) {
+      Entry entry = it.next();
+      it.remove();
+      evictionCount++;
+      uncache(entry);
+    }
+  }
+
+  /**
+   * Called with the lock held once entry is no longer in the cache map.
+   */
+  private void uncache(Entry entry) {
+    entry.cached = false;
+    cachedBytes -= entry.buffer.capacity();
+    if (entry.references == 0) {
+      //Nothing else can reach the entry now, releasing under the lock is safe
+      source.release(entry.buffer);
+    }
+  }
+
+  private static final class Entry {
+
+    private final ByteBuffer buffer;
+    private int references;
+    private boolean cached;
+
+    private Entry(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+  }
+
+  /**
+   * URI and byte range, a length of -1 meaning the whole file, plus the size and modification time
+   * of files
+   */
+  private static final class Key {
+
+    private final URI uri;
+    private final long offset;
+    private final int length;
+    private final long size;
+    private final long modified;
+
+    private Key(URI uri, long offset, int length, long size, long modified) {
+      this.uri = uri;
+      this.offset = offset;
+      this.length = length;
+      this.size = size;
+      this.modified = modified;
+    }
+
+    static Key of(URI uri, long offset, int length) {
+      if ("file".equals(uri.getScheme())) {
+        try {
+          Path path = Paths.get(uri);
+          BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+          return new Key(uri, offset, length, attributes.size(),
+              attributes.lastModifiedTime().toMillis());
+        } catch (IOException | RuntimeException e) {
+          //Let the source report missing files
+        }
+      }
+      return new Key(uri, offset, length, -1, -1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return offset == key.offset && length == key.length && size == key.size
+          && modified == key.modified && uri.equals(key.uri);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(uri, offset, length, size, modified);
+    }
+  }
+}
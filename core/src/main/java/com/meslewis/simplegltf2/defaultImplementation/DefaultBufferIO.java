@@ -7,6 +7,7 @@
 package com.meslewis.simplegltf2.defaultImplementation;
 
 import com.meslewis.simplegltf2.BufferIO;
+import com.meslewis.simplegltf2.DirectBuffers;
 import java.io.IOError;
 import java.io.IOException;
 import java.net.URI;
@@ -37,4 +38,33 @@ public class DefaultBufferIO implements BufferIO {
       throw new IOError(new Throwable("Could not get input stream for file: " + uri.toString()));
     }
   }
+
+  @Override
+  public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+    try (FileChannel fileChanel = FileChannel.open(Paths.get(uri),
+        EnumSet.of(StandardOpenOption.READ))) {
+      try {
+        return fileChanel.map(MapMode.READ_ONLY, offset, length);
+      } catch (UnsupportedOperationException e) { //Thrown by .map on a JarFileSystem entry
+        ByteBuffer rangeBuffer = ByteBuffer.allocateDirect(length);
+        while (rangeBuffer.hasRemaining()) {
+          if (fileChanel.read(rangeBuffer, offset + rangeBuffer.position()) < 0) {
+            throw new IOException("Range ends past the end of " + uri);
+          }
+        }
+        rangeBuffer.rewind();
+        return rangeBuffer;
+      }
+    } catch (IOException e) {
+      throw new IOError(new Throwable("Could not get input stream for file: " + uri.toString()));
+    }
+  }
+
+  /**
+   * Every call maps or allocates new memory, so it is always safe to unmap it here.
+   */
+  @Override
+  public void release(ByteBuffer buffer) {
+    DirectBuffers.free(buffer);
+  }
 }
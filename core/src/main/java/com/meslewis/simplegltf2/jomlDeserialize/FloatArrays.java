@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.jomlDeserialize;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+
+final class FloatArrays {
+
+  private FloatArrays() {
+  }
+
+  /**
+   * Read a JSON array of exactly count numbers from the token stream, without going through a
+   * float[] deserializer.
+   */
+  static float[] read(JsonParser p, DeserializationContext ctxt, JsonDeserializer<?> src,
+      int count) throws IOException {
+    if (!p.isExpectedStartArrayToken()) {
+      throw ctxt.wrongTokenException(p, src.handledType(), JsonToken.START_ARRAY, null);
+    }
+    float[] values = new float[count];
+    int read = 0;
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      if (read == count) {
+        ctxt.reportInputMismatch(src, "Expected %d numbers but found more", count);
+      }
+      values[read++] = p.getFloatValue();
+    }
+    if (read != count) {
+      ctxt.reportInputMismatch(src, "Expected %d numbers but found %d", count, read);
+    }
+    return values;
+  }
+}
@@ -19,12 +19,12 @@ public class Matrix4fDeserializer extends StdDeserializer<Matrix4f> {
   }
 
   protected Matrix4fDeserializer() {
-    this(null);
+    this(Matrix4f.class);
   }
 
   @Override
   public Matrix4f deserialize(JsonParser p, DeserializationContext ctxt)
       throws IOException {
-    return new Matrix4f().set(p.readValueAs(float[].class));
+    return new Matrix4f().set(FloatArrays.read(p, ctxt, this, 16));
   }
 }
@@ -19,13 +19,13 @@ public class QuaternionfDeserializer extends StdDeserializer<Quaternionf> {
   }
 
   protected QuaternionfDeserializer() {
-    this(null);
+    this(Quaternionf.class);
   }
 
   @Override
   public Quaternionf deserialize(JsonParser p, DeserializationContext ctxt)
       throws IOException {
-    float[] value = p.readValueAs(float[].class);
+    float[] value = FloatArrays.read(p, ctxt, this, 4);
     return new Quaternionf(value[0], value[1], value[2], value[3]);
   }
 }
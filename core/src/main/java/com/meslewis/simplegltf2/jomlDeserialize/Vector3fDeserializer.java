@@ -19,13 +19,13 @@ public class Vector3fDeserializer extends StdDeserializer<Vector3f> {
   }
 
   protected Vector3fDeserializer() {
-    this(null);
+    this(Vector3f.class);
   }
 
   @Override
   public Vector3f deserialize(JsonParser p, DeserializationContext ctxt)
       throws IOException {
-    float[] values = p.readValueAs(float[].class);
+    float[] values = FloatArrays.read(p, ctxt, this, 3);
     return new Vector3f(values[0], values[1], values[2]);
   }
 }
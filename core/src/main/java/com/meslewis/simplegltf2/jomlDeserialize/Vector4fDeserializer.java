@@ -19,13 +19,13 @@ public class Vector4fDeserializer extends StdDeserializer<Vector4f> {
   }
 
   protected Vector4fDeserializer() {
-    this(null);
+    this(Vector4f.class);
   }
 
   @Override
   public Vector4f deserialize(JsonParser p, DeserializationContext ctxt)
       throws IOException {
-    float[] values = p.readValueAs(float[].class);
+    float[] values = FloatArrays.read(p, ctxt, this, 4);
     return new Vector4f(values[0], values[1], values[2], values[3]);
   }
 }
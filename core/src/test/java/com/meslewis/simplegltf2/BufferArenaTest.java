@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BufferArenaTest {
+
+  /**
+   * Fetches through DefaultBufferIO and records the buffers it gets back. Closes arena during each
+   * fetch when set, as a load finishing on another thread after close would.
+   */
+  private static class ClosingBufferIO implements BufferIO {
+
+    private final BufferIO source = new DefaultBufferIO();
+    private final List<ByteBuffer> released = new ArrayList<>();
+    private BufferArena arena;
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri) {
+      ByteBuffer buffer = source.getDirectByteBuffer(uri);
+      if (arena != null) {
+        arena.close();
+      }
+      return buffer;
+    }
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+      return source.getDirectByteBuffer(uri, offset, length);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+      released.add(buffer);
+      source.release(buffer);
+    }
+  }
+
+  @TempDir
+  Path dir;
+
+  private URI file(int length) throws IOException {
+    return Files.write(dir.resolve("data.bin"), new byte[length]).toUri();
+  }
+
+  @Test
+  public void testCountsDropOnClose() throws IOException {
+    ClosingBufferIO source = new ClosingBufferIO();
+    BufferArena arena = new BufferArena(source);
+    ByteBuffer mapped = arena.getDirectByteBuffer(file(1000));
+    arena.register(ByteBuffer.allocateDirect(300));
+    //Heap buffers hold no direct memory
+    arena.register(ByteBuffer.allocate(50));
+    assertEquals(1000, arena.getMappedByteCount());
+    assertEquals(300, arena.getDirectByteCount());
+
+    arena.close();
+    assertTrue(arena.isClosed());
+    assertEquals(0, arena.getMappedByteCount());
+    assertEquals(0, arena.getDirectByteCount());
+    assertEquals(List.of(mapped), source.released);
+    assertThrows(IllegalStateException.class, () -> arena.getDirectByteBuffer(file(10)));
+  }
+
+  @Test
+  public void testReleaseOneBuffer() throws IOException {
+    ClosingBufferIO source = new ClosingBufferIO();
+    BufferArena arena = new BufferArena(source);
+    ByteBuffer mapped = arena.getDirectByteBuffer(file(1000));
+    ByteBuffer direct = ByteBuffer.allocateDirect(300);
+    arena.register(direct);
+
+    arena.release(mapped);
+    arena.release(direct);
+    assertEquals(0, arena.getMappedByteCount());
+    assertEquals(0, arena.getDirectByteCount());
+    assertEquals(List.of(mapped), source.released);
+    //Already released, so close has nothing left to give back
+    arena.close();
+    assertEquals(List.of(mapped), source.released);
+  }
+
+  @Test
+  public void testRegisterAfterClose() {
+    BufferArena arena = new BufferArena(new DefaultBufferIO());
+    arena.close();
+    assertThrows(IllegalStateException.class,
+        () -> arena.register(ByteBuffer.allocateDirect(300)));
+    assertEquals(0, arena.getDirectByteCount());
+  }
+
+  @Test
+  public void testFetchFinishingAfterClose() throws IOException {
+    ClosingBufferIO source = new ClosingBufferIO();
+    BufferArena arena = new BufferArena(source);
+    source.arena = arena;
+    URI uri = file(1000);
+
+    assertThrows(IllegalStateException.class, () -> arena.getDirectByteBuffer(uri));
+    //The arena never owned it, but it was still given back
+    assertEquals(1, source.released.size());
+    assertEquals(0, arena.getMappedByteCount());
+  }
+
+  @Test
+  public void testCloseTwice() throws IOException {
+    ClosingBufferIO source = new ClosingBufferIO();
+    BufferArena arena = new BufferArena(source);
+    ByteBuffer mapped = arena.getDirectByteBuffer(file(1000));
+    arena.close();
+    arena.close();
+    assertEquals(1, source.released.size());
+    assertSame(mapped, source.released.get(0));
+  }
+}
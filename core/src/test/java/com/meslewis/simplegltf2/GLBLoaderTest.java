@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAccessor;
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GLBLoaderTest {
+
+  private static final int MAGIC = 0x46546C67;
+  private static final int JSON = 0x4E4F534A;
+  private static final int BIN = 0x004E4942;
+
+  /**
+   * 5 bytes, so the chunk needs padding
+   */
+  private static final byte[] JSON_DATA = "{ }  ".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] BIN_DATA = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+  /**
+   * Writes the chunks of a .glb, then puts a header in front of them
+   */
+  private static final class GLBWriter {
+
+    private final ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+
+    /**
+     * @param paddingInLength whether the chunk length counts the padding after data, as writers
+     *                        are meant to
+     */
+    GLBWriter chunk(int type, byte[] data, boolean paddingInLength) {
+      int padding = -data.length & 3;
+      writeInt(chunks, data.length + (paddingInLength ? padding : 0));
+      writeInt(chunks, type);
+      chunks.writeBytes(data);
+      for (int i = 0; i < padding; i++) {
+        chunks.write(type == JSON ? ' ' : 0);
+      }
+      return this;
+    }
+
+    /**
+     * @param lengthChange added to the real length in the header
+     */
+    byte[] toBytes(int magic, int version, int lengthChange) {
+      ByteArrayOutputStream glb = new ByteArrayOutputStream();
+      writeInt(glb, magic);
+      writeInt(glb, version);
+      writeInt(glb, 12 + chunks.size() + lengthChange);
+      glb.writeBytes(chunks.toByteArray());
+      return glb.toByteArray();
+    }
+
+    byte[] toBytes() {
+      return toBytes(MAGIC, 2, 0);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+      out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+    }
+  }
+
+  @TempDir
+  Path dir;
+
+  private static GLBWriter jsonAndBin(boolean paddingInLength) {
+    return new GLBWriter().chunk(JSON, JSON_DATA, paddingInLength)
+        .chunk(BIN, BIN_DATA, paddingInLength);
+  }
+
+  private GLBLoader readFile(byte[] glb) throws IOException {
+    Path path = Files.write(dir.resolve("test.glb"), glb);
+    GLBLoader loader = new GLBLoader(new BufferArena(new DefaultBufferIO()));
+    loader.procesGLB(path.toUri());
+    return loader;
+  }
+
+  private static GLBLoader readStream(byte[] glb) throws IOException {
+    GLBLoader loader = new GLBLoader(new BufferArena(new DefaultBufferIO()));
+    loader.procesGLB(Channels.newChannel(new ByteArrayInputStream(glb)), Runnable::run);
+    return loader;
+  }
+
+  /**
+   * Assert both ways of reading glb find the JSON and BIN chunks
+   */
+  private void assertChunks(byte[] glb) throws IOException {
+    for (GLBLoader loader : new GLBLoader[]{readFile(glb), readStream(glb)}) {
+      assertChunk(JSON_DATA, loader.jsonData());
+      assertChunk(BIN_DATA, loader.binData());
+    }
+  }
+
+  /**
+   * Assert chunk holds data, followed by any padding its length counted
+   */
+  private static void assertChunk(byte[] data, ByteBuffer chunk) {
+    int padded = data.length + (-data.length & 3);
+    assertTrue(chunk.remaining() == data.length || chunk.remaining() == padded);
+    assertEquals(ByteBuffer.wrap(data), chunk.slice(0, data.length));
+  }
+
+  /**
+   * Assert both ways of reading glb fail before returning, with a message containing message
+   */
+  private void assertRejected(byte[] glb, String message) {
+    IOException fromFile = assertThrows(IOException.class, () -> readFile(glb));
+    assertTrue(fromFile.getMessage().contains(message), fromFile.getMessage());
+    IOException fromStream = assertThrows(IOException.class, () -> readStream(glb));
+    assertTrue(fromStream.getMessage().contains(message), fromStream.getMessage());
+  }
+
+  /**
+   * @return why reading the BIN chunk from a stream failed
+   */
+  private static Throwable binFailure(byte[] glb) throws IOException {
+    GLBLoader loader = readStream(glb);
+    CompletionException e = assertThrows(CompletionException.class, loader::binData);
+    return e.getCause().getCause();
+  }
+
+  @Test
+  public void testChunks() throws IOException {
+    assertChunks(jsonAndBin(true).toBytes());
+  }
+
+  @Test
+  public void testPaddingOutsideChunkLength() throws IOException {
+    assertChunks(jsonAndBin(false).toBytes());
+  }
+
+  @Test
+  public void testUnknownChunksSkipped() throws IOException {
+    byte[] unknown = {9, 9, 9, 9, 9, 9};
+    assertChunks(new GLBWriter().chunk(JSON, JSON_DATA, true).chunk(0x12345678, unknown, true)
+        .chunk(BIN, BIN_DATA, true).chunk(0x12345678, unknown, false).toBytes());
+  }
+
+  @Test
+  public void testBadMagic() {
+    assertRejected(jsonAndBin(true).toBytes(0x12345678, 2, 0), "not a valid glb");
+  }
+
+  @Test
+  public void testBadVersion() {
+    assertRejected(jsonAndBin(true).toBytes(MAGIC, 1, 0), "Unsupported GLB version 1");
+  }
+
+  @Test
+  public void testFirstChunkNotJSON() {
+    assertRejected(new GLBWriter().chunk(BIN, BIN_DATA, true).chunk(JSON, JSON_DATA, true)
+        .toBytes(), "First GLB chunk must be JSON");
+  }
+
+  @Test
+  public void testHeaderLengthTooLong() throws IOException {
+    byte[] glb = jsonAndBin(true).toBytes(MAGIC, 2, 16);
+    assertThrows(EOFException.class, () -> readFile(glb));
+    //A stream can't know it is short until it runs out
+    assertTrue(binFailure(glb) instanceof EOFException);
+  }
+
+  @Test
+  public void testHeaderLengthTooShort() throws IOException {
+    //Ends inside the BIN chunk
+    byte[] glb = jsonAndBin(true).toBytes(MAGIC, 2, -4);
+    IOException fromFile = assertThrows(IOException.class, () -> readFile(glb));
+    assertTrue(fromFile.getMessage().contains("runs past the end"), fromFile.getMessage());
+    Throwable fromStream = binFailure(glb);
+    assertTrue(fromStream.getMessage().contains("runs past the end"), fromStream.getMessage());
+  }
+
+  @Test
+  public void testTruncated() throws IOException {
+    byte[] glb = jsonAndBin(true).toBytes();
+    //Inside the JSON chunk
+    byte[] inJSON = Arrays.copyOf(glb, 22);
+    assertThrows(EOFException.class, () -> readFile(inJSON));
+    assertThrows(EOFException.class, () -> readStream(inJSON));
+    //Inside the BIN chunk
+    byte[] inBin = Arrays.copyOf(glb, glb.length - 4);
+    assertThrows(EOFException.class, () -> readFile(inBin));
+    assertTrue(binFailure(inBin) instanceof EOFException);
+    //Inside the header
+    byte[] inHeader = Arrays.copyOf(glb, 8);
+    assertThrows(EOFException.class, () -> readFile(inHeader));
+    assertThrows(EOFException.class, () -> readStream(inHeader));
+  }
+
+  @Test
+  public void testBufferWithoutBinChunk() throws IOException {
+    byte[] json = ("{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":12}],"
+        + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":12}],"
+        + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":1,"
+        + "\"type\":\"VEC3\"}],"
+        + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0}}]}]}")
+        .getBytes(StandardCharsets.UTF_8);
+    Path path = Files.write(dir.resolve("nobin.glb"),
+        new GLBWriter().chunk(JSON, json, true).toBytes());
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFAccessor positions = gltf.getMeshes().orElseThrow().get(0).getPrimitives().get(0)
+          .getAttributes().get("POSITION");
+      IllegalStateException e = assertThrows(IllegalStateException.class,
+          () -> positions.getFloat(0));
+      assertTrue(e.getMessage().contains("no BIN chunk"), e.getMessage());
+    }
+  }
+}
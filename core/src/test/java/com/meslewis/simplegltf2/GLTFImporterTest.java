@@ -6,22 +6,414 @@
 
 package com.meslewis.simplegltf2;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter.ParseEngine;
 import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAccessor;
+import com.meslewis.simplegltf2.data.GLTFAnimation;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler.GLTFInterpolation;
+import com.meslewis.simplegltf2.data.GLTFBuffer;
+import com.meslewis.simplegltf2.data.GLTFChannel;
+import com.meslewis.simplegltf2.data.GLTFImage;
+import com.meslewis.simplegltf2.data.GLTFMesh;
+import com.meslewis.simplegltf2.data.GLTFMeshPrimitive;
+import com.meslewis.simplegltf2.data.GLTFNode;
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import com.meslewis.simplegltf2.generator.SceneGenerator.Format;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
 
 public class GLTFImporterTest {
 
+  /**
+   * Fetches through DefaultBufferIO, failing URIs ending with failSuffix, and records every buffer
+   * it hands out and gets back
+   */
+  private static class RecordingBufferIO implements BufferIO {
+
+    private final BufferIO source = new DefaultBufferIO();
+    private final String failSuffix;
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private final Set<ByteBuffer> fetched = newIdentitySet();
+    private final Set<ByteBuffer> released = newIdentitySet();
+
+    private RecordingBufferIO(String failSuffix) {
+      this.failSuffix = failSuffix;
+    }
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri) {
+      return record(uri, source.getDirectByteBuffer(uri));
+    }
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+      return record(uri, source.getDirectByteBuffer(uri, offset, length));
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+      released.add(buffer);
+      source.release(buffer);
+    }
+
+    private ByteBuffer record(URI uri, ByteBuffer buffer) {
+      if (failSuffix != null && uri.toString().endsWith(failSuffix)) {
+        source.release(buffer);
+        throw new UncheckedIOException(new IOException("Failed to fetch " + uri));
+      }
+      fetchCount.incrementAndGet();
+      fetched.add(buffer);
+      return buffer;
+    }
+
+    private static Set<ByteBuffer> newIdentitySet() {
+      return Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+  }
+
+  @TempDir
+  Path dir;
+
+  private static SceneGenerator externalModel() {
+    return new SceneGenerator().nodes(20, 3).meshes(3, 200).sparseMorphTargets(true).skin(4)
+        .textures(2, 8);
+  }
+
+  /**
+   * @return node names, then the values of every accessor of every mesh, then the bytes of every
+   * image
+   */
+  private static List<String> describe(GLTF gltf) {
+    List<String> description = new ArrayList<>();
+    for (GLTFNode node : gltf.getNodes().orElseThrow()) {
+      description.add(node.getName());
+    }
+    List<GLTFAccessor> accessors = new ArrayList<>();
+    for (GLTFMesh mesh : gltf.getMeshes().orElseThrow()) {
+      for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+        accessors.addAll(primitive.getAttributes().values());
+        primitive.getIndicesAccessor().ifPresent(accessors::add);
+        if (primitive.getMorphTargets() != null) {
+          primitive.getMorphTargets().forEach(target -> accessors.addAll(target.values()));
+        }
+      }
+    }
+    for (GLTFAccessor accessor : accessors) {
+      float[] values = new float[accessor.getPrimitiveCount()];
+      accessor.readFloats(0, accessor.getElementCount(), values, 0);
+      description.add(Arrays.toString(values));
+    }
+    for (GLTFImage image : gltf.getImages().orElseThrow()) {
+      ByteBuffer data = image.getDirectByteBuffer();
+      byte[] bytes = new byte[data.remaining()];
+      data.get(bytes);
+      description.add(Arrays.toString(bytes));
+    }
+    return description;
+  }
+
+  /**
+   * @return what each engine reads from the JSON itself: node transforms and references,
+   * primitive and accessor metadata, and animation channels and samplers
+   */
+  private static List<String> describeProperties(GLTF gltf) {
+    List<String> description = new ArrayList<>();
+    for (GLTFNode node : gltf.getNodes().orElseThrow()) {
+      description.add(node.getIndex() + " " + node.getMatrix() + " " + node.getTranslation() + " "
+          + node.getRotation() + " " + node.getScale() + " " + Arrays.toString(node.getWeights())
+          + " " + node.getChildren().map(children -> children.stream().map(GLTFNode::getIndex)
+              .collect(Collectors.toList())).orElse(List.of())
+          + " " + node.getMesh().map(GLTFMesh::getName).orElse("-")
+          + " " + node.getSkin().map(skin -> skin.getJoints().size()).orElse(-1));
+    }
+    for (GLTFMesh mesh : gltf.getMeshes().orElseThrow()) {
+      for (GLTFMeshPrimitive primitive : mesh.getPrimitives()) {
+        description.add(mesh.getName() + " " + primitive.getMode() + " "
+            + primitive.getAttributes().keySet() + " " + primitive.getMaterial().isPresent());
+        for (GLTFAccessor accessor : primitive.getAttributes().values()) {
+          description.add(describe(accessor));
+        }
+        primitive.getIndicesAccessor().map(GLTFImporterTest::describe)
+            .ifPresent(description::add);
+      }
+    }
+    for (GLTFAnimation animation : gltf.getAnimations().orElse(List.of())) {
+      for (GLTFChannel channel : animation.getChannels()) {
+        description.add(channel.getAnimationSamplerIndex() + " " + channel.getTarget().getPath()
+            + " " + channel.getTarget().getNode().map(GLTFNode::getIndex).orElse(-1));
+      }
+      for (GLTFAnimationSampler sampler : animation.getSamplers()) {
+        description.add(sampler.getInterpolation() + " " + describe(sampler.getInput()) + " "
+            + describe(sampler.getOutput()));
+      }
+    }
+    return description;
+  }
+
+  private static String describe(GLTFAccessor accessor) {
+    return accessor.getDataType() + " " + accessor.getPrimitiveType() + " "
+        + accessor.getElementCount() + " " + accessor.getTarget() + " "
+        + Arrays.toString(accessor.getMin()) + " " + Arrays.toString(accessor.getMax());
+  }
+
+  @Test
+  public void testStreamingMatchesDatabind() throws IOException {
+    GLTFImporter databind = new GLTFImporter();
+    databind.setParseEngine(ParseEngine.DATABIND);
+    GLTFImporter streaming = new GLTFImporter();
+    streaming.setParseEngine(ParseEngine.STREAMING);
+    for (Format format : Format.values()) {
+      Path path = externalModel().animation(6, 8, GLTFInterpolation.CUBICSPLINE).format(format)
+          .write(dir, "engines-" + format);
+      try (GLTF expected = databind.load(path.toUri());
+          GLTF actual = streaming.load(path.toUri())) {
+        assertEquals(describeProperties(expected), describeProperties(actual), format.name());
+        assertEquals(describe(expected), describe(actual), format.name());
+      }
+    }
+  }
+
+  @Test
+  public void testLoadAsyncMatchesLoad() throws IOException {
+    Path path = externalModel().write(dir, "model");
+    GLTFImporter importer = new GLTFImporter();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (GLTF loaded = importer.load(path.toUri());
+        GLTF loadedAsync = importer.loadAsync(path.toUri(), executor).join()) {
+      assertEquals(describe(loaded), describe(loadedAsync));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLoadGLBStreamMatchesLoad() throws IOException {
+    //Images are in the BIN chunk too, so the stream holds the whole model
+    Path path = externalModel().format(Format.GLB).write(dir, "stream");
+    GLTFImporter importer = new GLTFImporter();
+    try (InputStream in = Files.newInputStream(path);
+        GLTF streamed = importer.loadGLB(in, path.toUri());
+        GLTF loaded = importer.load(path.toUri())) {
+      assertEquals(describe(loaded), describe(streamed));
+    }
+  }
+
+  @Test
+  public void testConcurrentLoadsMatchSequential() throws Exception {
+    List<Path> paths = new ArrayList<>();
+    for (Format format : Format.values()) {
+      paths.add(externalModel().seed(paths.size()).format(format).write(dir, "shared-" + format));
+    }
+    GLTFImporter importer = new GLTFImporter();
+    List<List<String>> expected = new ArrayList<>();
+    for (Path path : paths) {
+      try (GLTF gltf = importer.load(path.toUri())) {
+        expected.add(describe(gltf));
+      }
+    }
+
+    //Every model several times over, all through the one importer
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> loads = new ArrayList<>();
+      for (int i = 0; i < 6 * paths.size(); i++) {
+        Path path = paths.get(i % paths.size());
+        loads.add(executor.submit(() -> {
+          try (GLTF gltf = importer.load(path.toUri())) {
+            return describe(gltf);
+          }
+        }));
+      }
+      for (int i = 0; i < loads.size(); i++) {
+        assertEquals(expected.get(i % paths.size()), loads.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLoadAsyncResolvesBeforeCompleting() throws IOException {
+    Path path = externalModel().write(dir, "resolved");
+    RecordingBufferIO bufferIO = new RecordingBufferIO(null);
+    GLTFImporter importer = new GLTFImporter();
+    importer.setBufferIO(bufferIO);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (GLTF gltf = importer.loadAsync(path.toUri(), executor).join()) {
+      for (GLTFBuffer buffer : gltf.getBuffers().orElseThrow()) {
+        assertTrue(buffer.isResident());
+      }
+      int fetches = bufferIO.fetchCount.get();
+      //The .gltf, the .bin and both .png files
+      assertEquals(4, fetches);
+      describe(gltf);
+      assertEquals(fetches, bufferIO.fetchCount.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLoadAsyncFailureClosesGLTF() throws IOException {
+    Path path = externalModel().write(dir, "failing");
+    RecordingBufferIO bufferIO = new RecordingBufferIO(".bin");
+    GLTFImporter importer = new GLTFImporter();
+    importer.setBufferIO(bufferIO);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      CompletableFuture<GLTF> future = importer.loadAsync(path.toUri(), executor);
+      CompletionException e = assertThrows(CompletionException.class, future::join);
+      assertTrue(e.getCause() instanceof UncheckedIOException, e.toString());
+      //The .gltf and both .png files were fetched, and given back when the GLTF was closed
+      assertEquals(3, bufferIO.fetchCount.get());
+      synchronized (bufferIO.fetched) {
+        for (ByteBuffer buffer : bufferIO.fetched) {
+          assertTrue(bufferIO.released.contains(buffer));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLoadGLBAsyncParseFailureWaitsForBin() throws IOException {
+    Path path = externalModel().format(Format.GLB).write(dir, "bad-json");
+    byte[] glb = Files.readAllBytes(path);
+    //The JSON chunk starts after the 12 byte header and 8 byte chunk header
+    glb[20] = '[';
+    Files.write(path, glb);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (FileChannel channel = FileChannel.open(path)) {
+      CompletableFuture<GLTF> future = new GLTFImporter().loadGLBAsync(channel, path.toUri(),
+          executor);
+      CompletionException e = assertThrows(CompletionException.class, future::join);
+      assertTrue(e.getCause() instanceof UncheckedIOException, e.toString());
+      //The BIN chunk was read to the end before the load failed
+      assertEquals(glb.length, channel.position());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLoadStats() throws IOException {
+    for (Format format : new Format[]{Format.GLTF, Format.GLB}) {
+      Path path = externalModel().format(format).write(dir, "stats-" + format);
+      try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+        describe(gltf);
+        LoadStats stats = gltf.getLoadStats();
+        assertTrue(stats.getJSONParseNanos() > 0, stats.toString());
+        assertTrue(stats.getLookupNanos() > 0, stats.toString());
+        assertEquals(format == Format.GLB, stats.getGLBNanos() > 0, stats.toString());
+        long fileBytes = Files.size(path);
+        if (format == Format.GLB) {
+          //Images are in the BIN chunk, so only the .glb is read
+          assertEquals(1, stats.getBufferReadCount(), stats.toString());
+          assertEquals(fileBytes, stats.getBufferReadBytes(), stats.toString());
+        } else {
+          long imageBytes = 0;
+          for (GLTFImage image : gltf.getImages().orElseThrow()) {
+            imageBytes += image.getDirectByteBuffer().remaining();
+          }
+          //The .gltf, the ranges of the .bin in use and both images
+          assertEquals(4, stats.getBufferReadCount(), stats.toString());
+          assertTrue(stats.getBufferReadBytes() > fileBytes + imageBytes, stats.toString());
+        }
+        assertTrue(stats.getBufferReadNanos() > 0, stats.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testCloseReleasesEverything() throws IOException {
+    for (Format format : Format.values()) {
+      Path path = externalModel().format(format).write(dir, "closed-" + format);
+      RecordingBufferIO bufferIO = new RecordingBufferIO(null);
+      GLTFImporter importer = new GLTFImporter();
+      importer.setBufferIO(bufferIO);
+      GLTF gltf = importer.load(path.toUri());
+      describe(gltf);
+      GLTFAccessor positions = gltf.getMeshes().orElseThrow().get(0).getPrimitives().get(0)
+          .getAttributes().get("POSITION");
+      if (format == Format.EMBEDDED) {
+        //Decoded data URIs, the .gltf itself was let go after parsing
+        assertTrue(gltf.getDirectByteCount() > 0);
+      } else {
+        assertTrue(gltf.getMappedByteCount() > 0, format.toString());
+      }
+
+      gltf.close();
+      assertEquals(0, gltf.getMappedByteCount(), format.toString());
+      assertEquals(0, gltf.getDirectByteCount(), format.toString());
+      //Including the .glb, and with it its BIN chunk
+      assertEquals(bufferIO.fetched, bufferIO.released, format.toString());
+      assertThrows(IllegalStateException.class, () -> positions.getFloat(0));
+      assertThrows(IllegalStateException.class, () -> describe(gltf));
+    }
+  }
+
+  @Test
+  public void testCloseFreesStreamedBinChunk() throws IOException {
+    Path path = externalModel().format(Format.GLB).write(dir, "streamed");
+    GLTF gltf;
+    try (InputStream in = Files.newInputStream(path)) {
+      gltf = new GLTFImporter().loadGLB(in, path.toUri());
+    }
+    //The BIN chunk was read into a direct buffer the GLTF owns
+    long binLength = gltf.getBuffers().orElseThrow().get(0).getByteLength();
+    assertTrue(gltf.getDirectByteCount() >= binLength);
+
+    gltf.close();
+    assertEquals(0, gltf.getDirectByteCount());
+    assertEquals(0, gltf.getMappedByteCount());
+  }
+
   @TestFactory
   public Collection<DynamicTest> testKhronosModelsGLTFDeserialization() {
+    return khronosModelTests(GLTFImporter.instance);
+  }
+
+  @TestFactory
+  public Collection<DynamicTest> testKhronosModelsStreamingDeserialization() {
+    GLTFImporter importer = new GLTFImporter();
+    importer.setParseEngine(ParseEngine.STREAMING);
+    return khronosModelTests(importer);
+  }
+
+  private Collection<DynamicTest> khronosModelTests(GLTFImporter importer) {
     //Tests loading .gltf and .glb files from Khronos glTF-sample-Models repo
     URI uri = new File("").toURI().resolve("../sample-models/glTF-Sample-Models/2.0/");
 
@@ -34,13 +426,13 @@ public class GLTFImporterTest {
         .map(file -> DynamicTest.dynamicTest(
             "Deserialize file: " + file.getName(),
             () -> {
-              assert (importGLTF(file) != null);
+              assert (importGLTF(importer, file) != null);
             }))
         .collect(Collectors.toList());
   }
 
-  private GLTF importGLTF(File file) {
-    return GLTFImporter.instance.load(file.toURI());
+  private GLTF importGLTF(GLTFImporter importer, File file) {
+    return importer.load(file.toURI());
   }
 
   private void getAllFileChildren(File file, List<File> retList) {
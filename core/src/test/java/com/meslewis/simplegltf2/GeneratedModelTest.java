@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.meslewis.simplegltf2.GLTFImporter.ValidationLevel;
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAccessor;
+import com.meslewis.simplegltf2.data.GLTFAccessorComponentType;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler.GLTFInterpolation;
+import com.meslewis.simplegltf2.data.GLTFMeshPrimitive;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import com.meslewis.simplegltf2.generator.SceneGenerator.Format;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Loads models written by {@link SceneGenerator}, with full validation. Validation problems fail
+ * an assertion.
+ */
+public class GeneratedModelTest {
+
+  @TempDir
+  Path dir;
+
+  private static SceneGenerator everything() {
+    return new SceneGenerator()
+        .nodes(40, 3)
+        .meshes(5, 300)
+        .valuesComponentType(GLTFAccessorComponentType.SHORT)
+        .texCoordComponentType(GLTFAccessorComponentType.UNSIGNED_SHORT)
+        .sparseMorphTargets(true)
+        .skin(12)
+        .animation(100, 16, GLTFInterpolation.CUBICSPLINE)
+        .textures(2, 8);
+  }
+
+  private static GLTF load(Path path) {
+    GLTFImporter importer = new GLTFImporter();
+    importer.setValidationLevel(ValidationLevel.FULL);
+    return importer.load(path.toUri());
+  }
+
+  @Test
+  public void testEveryFormatLoads() throws IOException {
+    for (Format format : Format.values()) {
+      for (boolean interleaved : new boolean[]{false, true}) {
+        Path path = everything().format(format).interleaved(interleaved)
+            .write(dir, format + "-" + interleaved);
+        try (GLTF gltf = load(path)) {
+          //40 nodes, 12 joints and the skinned node
+          assertEquals(53, gltf.getNodes().orElseThrow().size());
+          assertEquals(6, gltf.getMeshes().orElseThrow().size());
+          assertEquals(2, gltf.getImages().orElseThrow().size());
+          assertEquals(100, gltf.getAnimations().orElseThrow().get(0).getChannels().size());
+
+          //300 vertices round up to an 18 by 17 grid
+          GLTFMeshPrimitive primitive = gltf.getMeshes().orElseThrow().get(1).getPrimitives()
+              .get(0);
+          GLTFAccessor values = primitive.getAttributes().get("_VALUES");
+          assertEquals(306, values.getElementCount());
+          assertEquals(GLTFAccessorComponentType.SHORT.intToFloat((5 * 31 + 1) & 0x7F),
+              values.getFloat(5));
+          assertEquals(17 * 16 * 6, primitive.getIndicesAccessor().orElseThrow()
+              .getPrimitiveCount());
+          assertEquals(1f, primitive.getAttributes().get("TEXCOORD_0").getFloat(1), 1e-4f);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testOutputIsReproducible() throws IOException {
+    Path first = everything().format(Format.GLB).write(dir, "first");
+    Path second = everything().format(Format.GLB).write(dir, "second");
+
+    assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.data.GLTF;
+import com.meslewis.simplegltf2.data.GLTFAccessor;
+import com.meslewis.simplegltf2.data.GLTFAccessorComponentType;
+import com.meslewis.simplegltf2.data.GLTFImage;
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SnapshotCacheTest {
+
+  @TempDir
+  Path dir;
+
+  private static SceneGenerator model(long seed) {
+    return new SceneGenerator()
+        .seed(seed)
+        .nodes(10, 2)
+        .meshes(3, 100)
+        .interleaved(true)
+        .valuesComponentType(GLTFAccessorComponentType.FLOAT)
+        .textures(2, 4);
+  }
+
+  private static GLTFAccessor attribute(GLTF gltf, String name) {
+    return gltf.getMeshes().orElseThrow().get(2).getPrimitives().get(0).getAttributes()
+        .get(name);
+  }
+
+  @Test
+  public void testSnapshotMatchesSource() throws IOException {
+    URI source = model(0).write(dir, "model").toUri();
+    SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), new GLTFImporter());
+
+    try (GLTF direct = new GLTFImporter().load(source); GLTF cooked = cache.load(source)) {
+      assertTrue(cache.isFresh(source));
+      GLTFAccessor expected = attribute(direct, "_VALUES");
+      GLTFAccessor actual = attribute(cooked, "_VALUES");
+      for (int i = 0; i < expected.getPrimitiveCount(); i++) {
+        assertEquals(expected.getFloat(i), actual.getFloat(i));
+      }
+      //Bounds are filled in while cooking
+      assertEquals(3, actual.getMin().length);
+      assertEquals(1f, actual.getMax()[0]);
+
+      GLTFImage image = cooked.getImages().orElseThrow().get(1);
+      assertNull(image.getURI());
+      assertEquals("image/png", image.getMimeType());
+      assertEquals(direct.getImages().orElseThrow().get(1).getDirectByteBuffer(),
+          image.getDirectByteBuffer());
+    }
+  }
+
+  @Test
+  public void testChangedSourceIsCookedAgain() throws IOException {
+    URI source = model(0).write(dir, "model").toUri();
+    Path bin = dir.resolve("model.bin");
+    SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), new GLTFImporter());
+    //The seed shapes the ripple along z
+    float before;
+    try (GLTF gltf = cache.load(source)) {
+      before = attribute(gltf, "POSITION").getFloat(2);
+    }
+    byte[] snapshot = Files.readAllBytes(cache.getSnapshotPath(source));
+
+    //Touched but unchanged
+    Files.setLastModifiedTime(bin, FileTime.fromMillis(
+        Files.getLastModifiedTime(bin).toMillis() + 10_000));
+    assertTrue(cache.isFresh(source));
+
+    //Different content, with a timestamp past the file system resolution
+    model(1).write(dir, "model");
+    Files.setLastModifiedTime(bin, FileTime.fromMillis(
+        Files.getLastModifiedTime(bin).toMillis() + 20_000));
+    assertFalse(cache.isFresh(source));
+    try (GLTF gltf = cache.load(source)) {
+      assertTrue(cache.isFresh(source));
+      assertNotEquals(before, attribute(gltf, "POSITION").getFloat(2));
+    }
+    assertFalse(Arrays.equals(snapshot, Files.readAllBytes(cache.getSnapshotPath(source))));
+  }
+
+  @Test
+  public void testSnapshotReadThroughImporterBufferIO() throws IOException {
+    URI source = model(0).write(dir, "model").toUri();
+    List<URI> fetched = Collections.synchronizedList(new ArrayList<>());
+    GLTFImporter importer = new GLTFImporter();
+    importer.setBufferIO(new DefaultBufferIO() {
+      @Override
+      public ByteBuffer getDirectByteBuffer(URI uri) {
+        fetched.add(uri);
+        return super.getDirectByteBuffer(uri);
+      }
+    });
+    SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), importer);
+    URI snapshotURI = cache.getSnapshotPath(source).toUri();
+
+    cache.cook(source);
+    fetched.clear();
+    try (GLTF gltf = cache.load(source)) {
+      assertNotNull(gltf);
+      assertEquals(List.of(snapshotURI), fetched);
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BoundsServiceTest {
+
+  private static final float EPSILON = 1e-4f;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testWithoutDeclaredMinMax() throws IOException {
+    //Positions (1, 2, 3), (-1, 0, 5), (3, -2, 1)
+    Path path = dir.resolve("positions.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"byteLength\":36,\"uri\":\"data:application/octet-stream;base64,"
+        + "AACAPwAAAEAAAEBAAACAvwAAAAAAAKBAAABAQAAAAMAAAIA/\"}],"
+        + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":36}],"
+        + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":3,\"type\":\"VEC3\"}],"
+        + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0}}]}]}")
+        .getBytes(StandardCharsets.UTF_8));
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      BoundsService service = BoundsService.getDefault();
+      float[][] minMax = service.getMinMax(gltf.getAccessor(0));
+      assertArrayEquals(new float[]{-1, -2, 1}, minMax[0]);
+      assertArrayEquals(new float[]{3, 2, 5}, minMax[1]);
+      assertSame(minMax, service.getMinMax(gltf.getAccessor(0)));
+
+      GLTFMesh mesh = gltf.getMesh(0);
+      Bounds bounds = service.getBounds(mesh.getPrimitives().get(0));
+      assertEquals(new Vector3f(1, 0, 3), bounds.getCenter());
+      //(3, -2, 1) is the furthest from the center
+      assertEquals((float) Math.sqrt(12), bounds.getRadius(), EPSILON);
+      assertSame(bounds, service.getBounds(mesh.getPrimitives().get(0)));
+      assertSame(bounds, service.getBoundsAsync(mesh.getPrimitives().get(0)).join());
+      assertSame(bounds, service.getBounds(mesh));
+    }
+  }
+
+  @Test
+  public void testQuantizedDeclaredMinMax() throws IOException {
+    //SHORT positions (32767, -32767, 0), (-16384, 16384, 100)
+    ByteBuffer data = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+    for (short value : new short[]{32767, -32767, 0, -16384, 16384, 100}) {
+      data.putShort(value);
+    }
+    String accessor = "{\"bufferView\":0,\"componentType\":5122,\"normalized\":true,"
+        + "\"count\":2,\"type\":\"VEC3\"";
+    Path path = dir.resolve("quantized.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"byteLength\":12,\"uri\":\"data:application/octet-stream;base64,"
+        + Base64.getEncoder().encodeToString(data.array()) + "\"}],"
+        + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":12}],"
+        + "\"accessors\":[" + accessor + ",\"min\":[-16384,-32767,0],\"max\":[32767,16384,100]},"
+        + accessor + "}]}").getBytes(StandardCharsets.UTF_8));
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      BoundsService service = BoundsService.getDefault();
+      //Declared in raw shorts, returned normalized like the data
+      float[][] declared = service.getMinMax(gltf.getAccessor(0));
+      assertArrayEquals(new float[]{-16384 / 32767f, -1, 0}, declared[0]);
+      assertArrayEquals(new float[]{1, 16384 / 32767f, 100 / 32767f}, declared[1]);
+      assertSame(declared, service.getMinMax(gltf.getAccessor(0)));
+
+      float[][] computed = service.getMinMax(gltf.getAccessor(1));
+      assertArrayEquals(computed[0], declared[0]);
+      assertArrayEquals(computed[1], declared[1]);
+    }
+  }
+
+  @Test
+  public void testLargeAccessorMatchesScan() throws IOException {
+    Path path = new SceneGenerator().meshes(1, BoundsService.LEAF_ELEMENTS * 5 / 2)
+        .write(dir, "large");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      ForkJoinPool pool = new ForkJoinPool(4);
+      BoundsService service = new BoundsService(pool);
+      for (String attribute : new String[]{"POSITION", "NORMAL", "TEXCOORD_0"}) {
+        GLTFAccessor accessor = primitive.getAttributes().get(attribute);
+        int components = accessor.getDataType().getPrimitiveCount();
+        float[] min = new float[components];
+        float[] max = new float[components];
+        for (int c = 0; c < components; c++) {
+          min[c] = Float.POSITIVE_INFINITY;
+          max[c] = Float.NEGATIVE_INFINITY;
+        }
+        for (int i = 0; i < accessor.getPrimitiveCount(); i++) {
+          min[i % components] = Math.min(min[i % components], accessor.getFloat(i));
+          max[i % components] = Math.max(max[i % components], accessor.getFloat(i));
+        }
+        float[][] minMax = service.getMinMax(accessor);
+        assertArrayEquals(min, minMax[0], attribute);
+        assertArrayEquals(max, minMax[1], attribute);
+      }
+
+      Bounds bounds = service.getBounds(primitive);
+      GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+      float radius = 0;
+      Vector3f position = new Vector3f();
+      for (int i = 0; i < positions.getElementCount(); i++) {
+        positions.readInto(i, position);
+        radius = Math.max(radius, position.distance(bounds.getCenter()));
+      }
+      assertEquals(radius, bounds.getRadius(), EPSILON);
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSceneContainsEveryVertex() throws IOException, ExecutionException,
+      InterruptedException {
+    Path path = new SceneGenerator().nodes(20, 3).meshes(2, 50).write(dir, "scene");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFScene scene = gltf.getScenes().get(0);
+      Bounds bounds = BoundsService.getDefault().getBoundsAsync(scene).get();
+      assertSame(bounds, BoundsService.getDefault().getBounds(scene));
+
+      SceneGraph graph = SceneGraph.of(gltf);
+      float[] worlds = new float[graph.getNodeCount() * 16];
+      graph.computeWorldMatrices(worlds);
+      Matrix4f world = new Matrix4f();
+      Vector3f position = new Vector3f();
+      for (int node = 0; node < graph.getNodeCount(); node++) {
+        world.set(worlds, node * 16);
+        GLTFAccessor positions = gltf.getMesh(graph.getMesh(node)).getPrimitives().get(0)
+            .getAttributes().get("POSITION");
+        for (int i = 0; i < positions.getElementCount(); i++) {
+          positions.readInto(i, position);
+          world.transformPosition(position);
+          assertTrue(position.distance(bounds.getCenter()) <= bounds.getRadius() + EPSILON);
+          for (int c = 0; c < 3; c++) {
+            assertTrue(position.get(c) >= bounds.getMin().get(c) - EPSILON);
+            assertTrue(position.get(c) <= bounds.getMax().get(c) + EPSILON);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRewriteForgetsBounds() throws IOException {
+    Path path = new SceneGenerator().nodes(1, 1).meshes(1, 50).write(dir, "rewrite");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFScene scene = gltf.getScenes().get(0);
+      GLTFMesh mesh = gltf.getMesh(0);
+      GLTFMeshPrimitive primitive = mesh.getPrimitives().get(0);
+      BoundsService service = BoundsService.getDefault();
+      Bounds before = service.getBounds(scene);
+      Bounds meshBefore = service.getBounds(mesh);
+
+      //Move every vertex 100 along x
+      GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+      int count = positions.getElementCount();
+      ByteBuffer moved = ByteBuffer.allocateDirect(count * 12).order(ByteOrder.LITTLE_ENDIAN);
+      Vector3f position = new Vector3f();
+      for (int i = 0; i < count; i++) {
+        positions.readInto(i, position);
+        moved.putFloat(position.x + 100).putFloat(position.y).putFloat(position.z);
+      }
+      Map<String, GLTFAccessor> attributes = new LinkedHashMap<>(primitive.getAttributes());
+      attributes.put("POSITION", GLTFAccessor.ofData(gltf, GLTFAccessorComponentType.FLOAT,
+          GLTFAccessorDataType.VEC3, false, count, moved.clear()));
+      primitive.setGeometry(attributes, primitive.getIndicesAccessor().orElse(null),
+          primitive.getMorphTargets());
+
+      Bounds meshAfter = service.getBounds(mesh);
+      assertEquals(meshBefore.getMin().x() + 100, meshAfter.getMin().x(), EPSILON);
+      assertEquals(meshBefore.getMax().x() + 100, meshAfter.getMax().x(), EPSILON);
+      assertTrue(service.getBounds(scene).getMax().x() > before.getMax().x() + 50);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.Test;
+
+public class BufferSegmentTest {
+
+  /**
+   * Floats 0 to 3 split into chunks of 5, 0, 6 and 5 bytes
+   */
+  private static BufferSegment splitFloats() {
+    ByteBuffer whole = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 4; i++) {
+      whole.putFloat(i);
+    }
+    return new BufferSegment(whole.slice(0, 5), whole.slice(5, 0), whole.slice(5, 6),
+        whole.slice(11, 5));
+  }
+
+  @Test
+  public void testReadsStraddlingChunks() {
+    BufferSegment segment = splitFloats();
+
+    assertEquals(16, segment.length());
+    assertFalse(segment.isContiguous());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(i, segment.getFloat(i * 4L));
+    }
+  }
+
+  @Test
+  public void testSliceKeepsOffsets() {
+    BufferSegment slice = splitFloats().slice(4, 8);
+
+    assertEquals(8, slice.length());
+    assertEquals(1f, slice.getFloat(0));
+    assertEquals(2f, slice.getFloat(4));
+  }
+
+  @Test
+  public void testReadsAreBoundsChecked() {
+    BufferSegment segment = splitFloats();
+
+    assertThrows(IndexOutOfBoundsException.class, () -> segment.getInt(13));
+    assertThrows(IndexOutOfBoundsException.class, () -> segment.get(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> segment.slice(8, 9));
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.LoadOptions;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DependencyClosureTest {
+
+  @TempDir
+  Path dir;
+
+  private Path path;
+
+  /**
+   * Two scenes, each with its own mesh and buffer. The second scene has a skinned node whose
+   * joints sit outside it, the only animation moves one of those joints. Every buffer is separate,
+   * so what a load keeps shows in which buffers are left.
+   */
+  @BeforeEach
+  public void writeModel() throws IOException {
+    path = dir.resolve("closure.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},\"scene\":0,"
+        + "\"scenes\":[{\"nodes\":[0]},{\"nodes\":[2]}],"
+        + "\"nodes\":["
+        + "{\"name\":\"root0\",\"children\":[1],\"mesh\":0},"
+        + "{\"name\":\"child0\"},"
+        + "{\"name\":\"root1\",\"children\":[3],\"mesh\":1},"
+        + "{\"name\":\"skinned\",\"mesh\":0,\"skin\":0},"
+        + "{\"name\":\"joint0\",\"children\":[5]},"
+        + "{\"name\":\"joint1\"},"
+        + "{\"name\":\"unused\"}],"
+        + "\"skins\":[{\"joints\":[4,5],\"skeleton\":4,\"inverseBindMatrices\":2}],"
+        + "\"animations\":[{\"channels\":[{\"sampler\":0,"
+        + "\"target\":{\"node\":4,\"path\":\"translation\"}}],"
+        + "\"samplers\":[{\"input\":3,\"output\":4}]}],"
+        + "\"meshes\":[{\"name\":\"mesh0\",\"primitives\":[{\"attributes\":{\"POSITION\":0}}]},"
+        + "{\"name\":\"mesh1\",\"primitives\":[{\"attributes\":{\"POSITION\":1}}]}],"
+        + "\"accessors\":["
+        + accessor(0, 0, 5126, 3, "VEC3") + ","
+        + accessor(1, 0, 5126, 3, "VEC3") + ","
+        + accessor(2, 0, 5126, 2, "MAT4") + ","
+        + accessor(3, 0, 5126, 1, "SCALAR") + ","
+        + accessor(3, 4, 5126, 1, "VEC3") + "],"
+        + "\"bufferViews\":["
+        + "{\"buffer\":0,\"byteLength\":36},{\"buffer\":1,\"byteLength\":36},"
+        + "{\"buffer\":2,\"byteLength\":128},{\"buffer\":3,\"byteLength\":16}],"
+        + "\"buffers\":[" + buffer("scene0", 36) + "," + buffer("scene1", 36) + ","
+        + buffer("skin", 128) + "," + buffer("animation", 16) + "]}")
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String accessor(int bufferView, int byteOffset, int componentType, int count,
+      String type) {
+    return "{\"bufferView\":" + bufferView + ",\"byteOffset\":" + byteOffset
+        + ",\"componentType\":" + componentType + ",\"count\":" + count + ",\"type\":\"" + type
+        + "\"}";
+  }
+
+  private static String buffer(String name, int byteLength) {
+    return "{\"name\":\"" + name + "\",\"byteLength\":" + byteLength
+        + ",\"uri\":\"data:application/octet-stream;base64,"
+        + Base64.getEncoder().encodeToString(new byte[byteLength]) + "\"}";
+  }
+
+  private GLTF load(LoadOptions options) {
+    return new GLTFImporter().load(path.toUri(), options);
+  }
+
+  private static List<String> nodeNames(GLTF gltf) {
+    return gltf.getNodes().orElseThrow().stream().map(GLTFNode::getName)
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> bufferNames(GLTF gltf) {
+    return gltf.getBuffers().orElseThrow().stream().map(GLTFBuffer::getName)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testAll() {
+    try (GLTF gltf = load(LoadOptions.all())) {
+      assertEquals(7, gltf.getNodeCount());
+      assertEquals(2, gltf.getMeshCount());
+      assertEquals(5, gltf.getAccessorCount());
+      assertEquals(List.of("scene0", "scene1", "skin", "animation"), bufferNames(gltf));
+    }
+  }
+
+  @Test
+  public void testDefaultSceneDropsOtherScenes() {
+    try (GLTF gltf = load(LoadOptions.defaultScene())) {
+      assertEquals(List.of("root0", "child0"), nodeNames(gltf));
+      assertEquals(1, gltf.getSceneCount());
+      assertSame(gltf.getScenes().get(0), gltf.getDefaultScene().orElseThrow());
+      assertEquals("mesh0", gltf.getMesh(0).getName());
+      assertEquals(1, gltf.getMeshCount());
+      assertEquals(0, gltf.getSkinCount());
+      //The animation moves a joint outside the scene
+      assertTrue(gltf.getAnimations().orElseThrow().isEmpty());
+      assertEquals(1, gltf.getAccessorCount());
+      assertEquals(List.of("scene0"), bufferNames(gltf));
+    }
+  }
+
+  @Test
+  public void testNodesKeepSkinAndJoints() {
+    try (GLTF gltf = load(LoadOptions.nodes(3))) {
+      //Joints come along with the skin, though they aren't below the node
+      assertEquals(List.of("skinned", "joint0", "joint1"), nodeNames(gltf));
+      assertEquals(0, gltf.getSceneCount());
+      assertFalse(gltf.getDefaultScene().isPresent());
+      assertEquals(1, gltf.getSkinCount());
+      GLTFSkin skin = gltf.getSkin(0);
+      assertEquals(List.of("joint0", "joint1"), skin.getJoints().stream()
+          .map(GLTFNode::getName).collect(Collectors.toList()));
+      assertEquals("joint0", skin.getSkeletonRootNode().orElseThrow().getName());
+      assertEquals(2, skin.getInverseBindMatricesAccessor().orElseThrow().getElementCount());
+      assertEquals("mesh0", gltf.getMesh(0).getName());
+      assertEquals(1, gltf.getAnimations().orElseThrow().size());
+      assertEquals(List.of("scene0", "skin", "animation"), bufferNames(gltf));
+    }
+  }
+
+  @Test
+  public void testWithoutAnimations() {
+    try (GLTF gltf = load(LoadOptions.nodes(3).setIncludeAnimations(false))) {
+      assertTrue(gltf.getAnimations().orElseThrow().isEmpty());
+      //Positions and inverse bind matrices, not the animation's input and output
+      assertEquals(2, gltf.getAccessorCount());
+      assertEquals(List.of("scene0", "skin"), bufferNames(gltf));
+    }
+  }
+
+  @Test
+  public void testIndicesAfterRetain() {
+    try (GLTF gltf = load(LoadOptions.scene(1))) {
+      List<GLTFNode> nodes = gltf.getNodes().orElseThrow();
+      assertEquals(List.of("root1", "skinned", "joint0", "joint1"), nodeNames(gltf));
+      for (int i = 0; i < nodes.size(); i++) {
+        assertEquals(i, nodes.get(i).getIndex());
+        assertSame(nodes.get(i), gltf.getNode(i));
+      }
+
+      SceneGraph graph = SceneGraph.of(gltf);
+      assertEquals(4, graph.getNodeCount());
+      assertEquals(1, graph.getSceneCount());
+      assertEquals(1, graph.getRootCount(0));
+      assertEquals(0, graph.getRoot(0, 0));
+      assertEquals(0, graph.getParent(1));
+      assertEquals(2, graph.getParent(3));
+      //joint0 is only reachable through the skin
+      assertEquals(-1, graph.getParent(2));
+      //Meshes and skins are indexed in the lists that are left
+      List<String> meshes = new ArrayList<>();
+      for (int node = 0; node < graph.getNodeCount(); node++) {
+        int mesh = graph.getMesh(node);
+        meshes.add(mesh < 0 ? null : gltf.getMesh(mesh).getName());
+      }
+      assertEquals("mesh1", meshes.get(0));
+      assertEquals("mesh0", meshes.get(1));
+      assertEquals(2, gltf.getMeshCount());
+      assertSame(gltf.getSkin(graph.getSkin(1)), nodes.get(1).getSkin().orElseThrow());
+      assertFalse(nodes.get(0).getSkin().isPresent());
+      assertEquals(-1, graph.getSkin(0));
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GLTFAccessorTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testSparseOverBufferView() throws IOException {
+    //Floats 1, 2, 3, 4, then sparse index 2 as a byte and value 9
+    Path path = dir.resolve("sparse.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"byteLength\":24,\"uri\":\"data:application/octet-stream;base64,"
+        + "AACAPwAAAEAAAEBAAACAQAIAAAAAABBB\"}],"
+        + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":16},"
+        + "{\"buffer\":0,\"byteOffset\":16,\"byteLength\":1},"
+        + "{\"buffer\":0,\"byteOffset\":20,\"byteLength\":4}],"
+        + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":4,"
+        + "\"type\":\"SCALAR\",\"sparse\":{\"count\":1,"
+        + "\"indices\":{\"bufferView\":1,\"componentType\":5121},"
+        + "\"values\":{\"bufferView\":2}}}]}").getBytes(StandardCharsets.UTF_8));
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFAccessor accessor = gltf.getAccessor(0);
+      float[] expected = {1, 2, 9, 4};
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(expected[i], accessor.getFloat(i));
+      }
+      float[] read = new float[3];
+      accessor.readFloats(1, 3, read, 0);
+      assertArrayEquals(new float[]{2, 9, 4}, read);
+
+      ByteBuffer data = accessor.getData();
+      assertEquals(16, data.remaining());
+      assertEquals(9f, data.getFloat(8));
+      assertEquals(9f, accessor.getFloat(2));
+    }
+  }
+
+  @Test
+  public void testSparseWithoutBufferView() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 100).sparseMorphTargets(true)
+        .write(dir, "morph");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFAccessor target = gltf.getMeshes().orElseThrow().get(0).getPrimitives().get(0)
+          .getMorphTargets().get(0).get("POSITION");
+      int count = target.getElementCount();
+      long direct = gltf.getDirectByteCount();
+
+      float[] read = new float[count * 3];
+      target.readFloats(0, count, read, 0);
+      for (int i = 0; i < count; i++) {
+        float z = i % 4 == 0 ? 0.1f : 0f;
+        assertEquals(z, read[i * 3 + 2]);
+        assertEquals(z, target.getFloat(i * 3 + 2));
+        assertEquals(0f, target.getFloat(i * 3));
+      }
+      float[] window = new float[9];
+      target.readFloats(3, 3, window, 0);
+      assertArrayEquals(new float[]{0, 0, 0, 0, 0, 0.1f, 0, 0, 0}, window);
+      assertEquals(direct, gltf.getDirectByteCount());
+
+      ByteBuffer data = target.getData();
+      assertEquals(count * 12, data.remaining());
+      assertEquals(0.1f, data.getFloat(4 * 12 + 8));
+      assertEquals(0f, data.getFloat(5 * 12 + 8));
+      assertEquals(direct + count * 12, gltf.getDirectByteCount());
+    }
+  }
+
+  @Test
+  public void testBulkReadsMatchGetFloat() throws IOException {
+    for (GLTFAccessorComponentType type : GLTFAccessorComponentType.values()) {
+      for (boolean interleaved : new boolean[]{false, true}) {
+        Path path = new SceneGenerator().meshes(1, 400).valuesComponentType(type)
+            .indexComponentType(interleaved ? GLTFAccessorComponentType.UNSIGNED_SHORT
+                : GLTFAccessorComponentType.UNSIGNED_INT)
+            .interleaved(interleaved).write(dir, type + "-" + interleaved);
+
+        try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+          GLTFMeshPrimitive primitive = gltf.getMeshes().orElseThrow().get(0).getPrimitives()
+              .get(0);
+          GLTFAccessor values = primitive.getAttributes().get("_VALUES");
+          int count = values.getElementCount();
+          float[] read = new float[count * 3 + 1];
+          values.readFloats(0, count, read, 1);
+          FloatBuffer direct = ByteBuffer.allocateDirect(count * 12)
+              .order(ByteOrder.nativeOrder()).asFloatBuffer();
+          values.readFloats(0, count, direct);
+          FloatBuffer all = values.getFloatBuffer();
+          Vector3f vector = new Vector3f();
+          for (int i = 0; i < count * 3; i++) {
+            assertEquals(values.getFloat(i), read[i + 1], type + " " + i);
+            assertEquals(values.getFloat(i), direct.get(i));
+            assertEquals(values.getFloat(i), all.get(i));
+          }
+          values.readInto(count - 1, vector);
+          assertEquals(values.getFloat(count * 3 - 1), vector.z);
+
+          GLTFAccessor indices = primitive.getIndicesAccessor().orElseThrow();
+          int[] ints = new int[indices.getElementCount()];
+          indices.readIndices(0, ints.length, ints, 0);
+          IntBuffer intBuffer = IntBuffer.allocate(ints.length);
+          indices.readIndices(0, ints.length, intBuffer);
+          for (int i = 0; i < ints.length; i++) {
+            assertEquals(indices.getFloat(i), indices.getPrimitiveType().intToFloat(ints[i]));
+            assertEquals(ints[i], intBuffer.get(i));
+          }
+          assertThrows(IndexOutOfBoundsException.class,
+              () -> values.readFloats(1, count, new float[count * 3], 0));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.meslewis.simplegltf2.BufferIO;
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GLTFBufferTest {
+
+  /**
+   * GLTFBuffer.MAX_REGION_SIZE
+   */
+  private static final long MAX_REGION_SIZE = 1 << 30;
+  private static final int GAP = 64 * 1024;
+
+  /**
+   * Fetches through DefaultBufferIO, recording the ranges fetched from .bin files
+   */
+  private static class RangeRecordingBufferIO implements BufferIO {
+
+    private final BufferIO source = new DefaultBufferIO();
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri) {
+      if (uri.toString().endsWith(".bin")) {
+        ranges.add("whole");
+      }
+      return source.getDirectByteBuffer(uri);
+    }
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri, long offset, int length) {
+      ranges.add(offset + "+" + length);
+      return source.getDirectByteBuffer(uri, offset, length);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+      source.release(buffer);
+    }
+  }
+
+  @TempDir
+  Path dir;
+
+  /**
+   * A bufferView ending 8 bytes short of MAX_REGION_SIZE past its start. It is never read, so never
+   * fetched.
+   */
+  private static final long BIG_OFFSET = 200_000;
+  private static final long BIG_END = BIG_OFFSET + MAX_REGION_SIZE - 8;
+  /**
+   * Offsets of 16 byte bufferViews in a sparse buffer a little over {@link #MAX_REGION_SIZE} long,
+   * each holding 4 floats. The first three are within the gap of each other and share a region, the
+   * fourth is further away. The last starts 4 bytes after the big bufferView, close enough to merge
+   * with it if there were room.
+   */
+  private static final long[] OFFSETS = {0, 1024, 1040 + GAP, 1056 + GAP * 2 + 4, BIG_END + 4};
+  private static final long LENGTH = BIG_END + 64;
+
+  private Path writeSparseModel() throws IOException {
+    Path bin = dir.resolve("sparse.bin");
+    try (RandomAccessFile file = new RandomAccessFile(bin.toFile(), "rw")) {
+      file.setLength(LENGTH);
+      ByteBuffer floats = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+      for (int view = 0; view < OFFSETS.length; view++) {
+        floats.clear();
+        for (int i = 0; i < 4; i++) {
+          floats.putFloat(view * 4 + i);
+        }
+        file.seek(OFFSETS[view]);
+        file.write(floats.array());
+      }
+    }
+
+    StringBuilder bufferViews = new StringBuilder();
+    StringBuilder accessors = new StringBuilder();
+    for (int view = 0; view < OFFSETS.length; view++) {
+      bufferViews.append("{\"buffer\":0,\"byteOffset\":").append(OFFSETS[view])
+          .append(",\"byteLength\":16},");
+      accessors.append(view == 0 ? "" : ",").append("{\"bufferView\":").append(view)
+          .append(",\"componentType\":5126,\"count\":4,\"type\":\"SCALAR\"}");
+    }
+    bufferViews.append("{\"buffer\":0,\"byteOffset\":").append(BIG_OFFSET)
+        .append(",\"byteLength\":").append(BIG_END - BIG_OFFSET).append("}");
+
+    Path path = dir.resolve("sparse.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"uri\":\"sparse.bin\",\"byteLength\":" + LENGTH + "}],"
+        + "\"bufferViews\":[" + bufferViews + "],"
+        + "\"accessors\":[" + accessors + "]}").getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  @Test
+  public void testRegions() throws IOException {
+    Path path = writeSparseModel();
+    RangeRecordingBufferIO bufferIO = new RangeRecordingBufferIO();
+    GLTFImporter importer = new GLTFImporter();
+    importer.setBufferIO(bufferIO);
+
+    try (GLTF gltf = importer.load(path.toUri())) {
+      for (int pass = 0; pass < 2; pass++) {
+        for (int view = 0; view < OFFSETS.length; view++) {
+          float[] values = new float[4];
+          gltf.getAccessor(view).readFloats(0, 4, values, 0);
+          assertArrayEquals(new float[]{view * 4, view * 4 + 1, view * 4 + 2, view * 4 + 3},
+              values);
+        }
+      }
+      assertEquals(List.of(
+          //Exactly GAP apart, still coalesced
+          "0+" + (1056 + GAP),
+          //Further apart, a region of its own
+          OFFSETS[3] + "+16",
+          //Would take the region past MAX_REGION_SIZE, so starts one of its own at its bufferView
+          //rather than being split across two regions and fetched on every read
+          OFFSETS[4] + "+16"), bufferIO.ranges);
+      assertFalse(gltf.getBuffer(0).isResident());
+    }
+  }
+
+  @Test
+  public void testRangeAcrossRegionsFetchedOnce() throws IOException {
+    Path path = writeSparseModel();
+    RangeRecordingBufferIO bufferIO = new RangeRecordingBufferIO();
+    GLTFImporter importer = new GLTFImporter();
+    importer.setBufferIO(bufferIO);
+
+    try (GLTF gltf = importer.load(path.toUri())) {
+      GLTFBuffer buffer = gltf.getBuffer(0);
+      //The last 8 bytes of the first region and 8 bytes of the gap after it
+      long start = 1056 + GAP - 8;
+      ByteBuffer first = buffer.getData(start, 16);
+      ByteBuffer again = buffer.getData(start, 16);
+      ByteBuffer inside = buffer.getData(start + 4, 8);
+      assertEquals(first, again);
+      assertEquals(first.slice(4, 8), inside);
+      assertEquals(List.of(start + "+16"), bufferIO.ranges);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.GLTFImporter.ParseEngine;
+import com.meslewis.simplegltf2.GLTFImporter.ValidationLevel;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GLTFDataModuleTest {
+
+  private static final String BUFFER = "\"buffers\":[{\"byteLength\":12,"
+      + "\"uri\":\"data:application/octet-stream;base64,AACAPwAAAEAAAEBA\"}],"
+      + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":12,\"target\":34962}],"
+      + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":1,\"type\":\"VEC3\","
+      + "\"min\":[1,2,3],\"max\":[1,2,3]}],"
+      + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0},\"mode\":0}]}],";
+
+  @TempDir
+  Path dir;
+
+  private Path write(String name, String nodes) throws IOException {
+    Path path = dir.resolve(name + ".gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"}," + BUFFER + "\"nodes\":[" + nodes
+        + "]}").getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  private static GLTF load(Path path, ParseEngine engine) {
+    GLTFImporter importer = new GLTFImporter();
+    importer.setParseEngine(engine);
+    importer.setValidationLevel(ValidationLevel.OFF);
+    return importer.load(path.toUri());
+  }
+
+  @Test
+  public void testDatabindMatchesStreaming() throws IOException {
+    Path path = write("nodes", "{\"name\":\"root\",\"mesh\":0,\"children\":[1],"
+        + "\"translation\":[1,2,3],\"rotation\":[0,0,1,0],\"scale\":[2,2,2],"
+        + "\"weights\":[0.25,0.5]},"
+        + "{\"matrix\":[1,0,0,0,0,1,0,0,0,0,1,0,4,5,6,1],\"extras\":{\"tag\":1}}");
+
+    for (ParseEngine engine : ParseEngine.values()) {
+      try (GLTF gltf = load(path, engine)) {
+        GLTFNode root = gltf.getNodes().orElseThrow().get(0);
+        assertEquals("root", root.getName());
+        assertEquals(new Vector3f(1, 2, 3), root.getTranslation());
+        assertEquals(new Quaternionf(0, 0, 1, 0), root.getRotation());
+        assertEquals(new Vector3f(2, 2, 2), root.getScale());
+        assertArrayEquals(new float[]{0.25f, 0.5f}, root.getWeights());
+        assertEquals(gltf.getNodes().orElseThrow().get(1),
+            root.getChildren().orElseThrow().iterator().next());
+
+        GLTFNode child = gltf.getNodes().orElseThrow().get(1);
+        assertEquals(new Matrix4f().translation(4, 5, 6), child.getMatrix());
+        assertEquals(1, ((Number) child.getExtras().get("tag")).intValue());
+
+        GLTFMeshPrimitive primitive = root.getMesh().orElseThrow().getPrimitives().get(0);
+        assertEquals(0, primitive.getMode());
+        GLTFAccessor position = primitive.getAttributes().get("POSITION");
+        assertEquals(GLTFBufferViewTarget.ARRAY_BUFFER, position.getTarget());
+        assertEquals(3f, position.getFloat(2));
+        assertArrayEquals(new float[]{1, 2, 3}, position.getMax());
+      }
+    }
+  }
+
+  /**
+   * Load through loadAsync, which reports why a load failed instead of returning null.
+   */
+  private static Throwable loadFailure(Path path, ParseEngine engine) {
+    GLTFImporter importer = new GLTFImporter();
+    importer.setParseEngine(engine);
+    importer.setValidationLevel(ValidationLevel.OFF);
+    CompletionException e = assertThrows(CompletionException.class,
+        () -> importer.loadAsync(path.toUri(), Runnable::run).join());
+    Throwable cause = e.getCause();
+    while (cause instanceof UncheckedIOException) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  @Test
+  public void testDatabindRejectsBadNodes() throws IOException {
+    assertNull(load(write("unknown", "{\"unknown\":1}"), ParseEngine.DATABIND));
+    GLTF gltf = load(write("unknown-streaming", "{\"unknown\":1}"), ParseEngine.STREAMING);
+    assertNotNull(gltf);
+    gltf.close();
+  }
+
+  @Test
+  public void testWrongArrayLengthsRejected() throws IOException {
+    Path shortTranslation = write("short", "{\"translation\":[1,2]}");
+    Path longScale = write("long", "{\"scale\":[1,2,3,4]}");
+    Path shortRotation = write("rotation", "{\"rotation\":[0,0,1]}");
+    Path shortMatrix = write("matrix", "{\"matrix\":[1,0,0,0,0,1,0,0,0,0,1,0,4,5,6]}");
+    for (ParseEngine engine : ParseEngine.values()) {
+      assertParseError(loadFailure(shortTranslation, engine), "Expected 3 numbers but found 2");
+      assertParseError(loadFailure(longScale, engine), "Expected 3 numbers but found more");
+      assertParseError(loadFailure(shortRotation, engine), "Expected 4 numbers but found 3");
+      assertParseError(loadFailure(shortMatrix, engine), "Expected 16 numbers but found 15");
+    }
+  }
+
+  private static void assertParseError(Throwable failure, String message) {
+    assertTrue(failure instanceof JsonProcessingException, () -> String.valueOf(failure));
+    assertTrue(failure.getMessage().contains(message), failure::getMessage);
+  }
+}
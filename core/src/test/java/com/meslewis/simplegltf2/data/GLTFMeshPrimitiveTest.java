@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GLTFMeshPrimitiveTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testVertexLayouts() throws IOException {
+    for (boolean interleaved : new boolean[]{false, true}) {
+      Path path = new SceneGenerator().meshes(1, 100)
+          .texCoordComponentType(GLTFAccessorComponentType.UNSIGNED_BYTE)
+          .valuesComponentType(GLTFAccessorComponentType.SHORT)
+          .interleaved(interleaved).write(dir, "layout-" + interleaved);
+
+      try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+        GLTFMeshPrimitive primitive = gltf.getMeshes().orElseThrow().get(0).getPrimitives()
+            .get(0);
+        GLTFAccessor texCoords = primitive.getAttributes().get("TEXCOORD_0");
+        GLTFAccessor values = primitive.getAttributes().get("_VALUES");
+        GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+
+        InterleavedVertices vertices = primitive
+            .getInterleavedVertices("TEXCOORD_0", "_VALUES", "POSITION");
+        assertSame(vertices, primitive.getInterleavedVertices("TEXCOORD_0", "_VALUES",
+            "POSITION"));
+        //2 bytes padded to 4, 6 bytes padded to 8, then 12
+        assertEquals(0, vertices.getOffset("TEXCOORD_0"));
+        assertEquals(4, vertices.getOffset("_VALUES"));
+        assertEquals(12, vertices.getOffset("POSITION"));
+        assertEquals(24, vertices.getStride());
+        assertEquals(List.of("TEXCOORD_0", "_VALUES", "POSITION"), vertices.getAttributes());
+        ByteBuffer buffer = vertices.getBuffer();
+        assertEquals(24 * positions.getElementCount(), buffer.remaining());
+        for (int v = 0; v < positions.getElementCount(); v++) {
+          int vertex = v * vertices.getStride();
+          assertEquals(texCoords.getFloat(v * 2 + 1),
+              GLTFAccessorComponentType.UNSIGNED_BYTE.intToFloat(buffer.get(vertex + 1) & 0xFF));
+          assertEquals(values.getFloat(v * 3 + 2),
+              GLTFAccessorComponentType.SHORT.intToFloat(buffer.getShort(vertex + 4 + 4)));
+          assertEquals(positions.getFloat(v * 3), buffer.getFloat(vertex + 12));
+        }
+
+        PlanarVertices planar = primitive.getPlanarVertices();
+        assertEquals(List.copyOf(primitive.getAttributes().keySet()), planar.getAttributes());
+        assertEquals(3, planar.getComponentCount("POSITION"));
+        float[] y = planar.getComponent("POSITION", 1);
+        for (int v = 0; v < positions.getElementCount(); v++) {
+          assertEquals(positions.getFloat(v * 3 + 1), y[v]);
+        }
+
+        assertThrows(IllegalArgumentException.class,
+            () -> primitive.getInterleavedVertices("COLOR_0"));
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IndexCompactorTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testStripAndNarrow() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 4096).sparseMorphTargets(true)
+        .indexComponentType(GLTFAccessorComponentType.UNSIGNED_INT).write(dir, "strip");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      //A simplified level refers to a fraction of the vertices it shares with the original
+      GLTFMeshPrimitive primitive = new MeshSimplifier()
+          .simplify(gltf.getMesh(0).getPrimitives().get(0), 0.25f);
+      List<String> before = Triangles.of(primitive);
+
+      IndexCompactor.Report report = new IndexCompactor().compact(primitive);
+      assertEquals(4096, report.getVerticesBefore());
+      assertTrue(report.getVerticesAfter() < 4096, report.toString());
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_SHORT, report.getIndexTypeAfter());
+      assertEquals(report.getIndexBytesBefore() / 2, report.getIndexBytesAfter());
+
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_SHORT,
+          primitive.getIndicesAccessor().orElseThrow().getPrimitiveType());
+      for (GLTFAccessor accessor : Triangles.accessors(primitive)) {
+        assertEquals(report.getVerticesAfter(), accessor.getElementCount());
+      }
+      assertEquals(before, Triangles.of(primitive));
+    }
+  }
+
+  @Test
+  public void testWidenBytes() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 100)
+        .indexComponentType(GLTFAccessorComponentType.UNSIGNED_BYTE).write(dir, "bytes");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+      List<String> before = Triangles.of(primitive);
+
+      IndexCompactor.Report report = new IndexCompactor().compact(primitive);
+      assertEquals(100, report.getVerticesAfter());
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_SHORT,
+          primitive.getIndicesAccessor().orElseThrow().getPrimitiveType());
+      //Every vertex is used, so only the indices are written
+      assertSame(positions, primitive.getAttributes().get("POSITION"));
+      assertEquals(before, Triangles.of(primitive));
+    }
+  }
+
+  @Test
+  public void testSplit() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 70000).write(dir, "split");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMesh mesh = gltf.getMesh(0);
+      List<String> before = Triangles.of(mesh.getPrimitives().get(0));
+
+      List<IndexCompactor.Report> reports = new IndexCompactor().setSplit(true).compact(mesh);
+      IndexCompactor.Report report = reports.get(0);
+      assertEquals(1, reports.size());
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_INT, report.getIndexTypeBefore());
+      assertEquals(mesh.getPrimitives().size(), report.getPartCount());
+      assertTrue(report.getPartCount() > 1, report.toString());
+
+      List<String> after = new ArrayList<>();
+      for (GLTFMeshPrimitive part : mesh.getPrimitives()) {
+        assertEquals(GLTFAccessorComponentType.UNSIGNED_SHORT,
+            part.getIndicesAccessor().orElseThrow().getPrimitiveType());
+        assertTrue(GeometryWriter.getVertexCount(part) <= IndexCompactor.MAX_SHORT_VERTICES);
+        after.addAll(Triangles.of(part));
+      }
+      Collections.sort(after);
+      assertEquals(before, after);
+    }
+  }
+
+  @Test
+  public void testReleasesReplacedAccessors() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 70000).write(dir, "release-split");
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      //Optimizing writes accessors the GLTF owns, which splitting then replaces
+      GLTFMesh mesh = gltf.getMesh(0);
+      new MeshOptimizer().optimize(mesh);
+      long direct = gltf.getDirectByteCount();
+      long replaced = writtenBytes(mesh.getPrimitives());
+      new IndexCompactor().setSplit(true).compact(mesh);
+      assertTrue(mesh.getPrimitives().size() > 1);
+      assertEquals(direct - replaced + writtenBytes(mesh.getPrimitives()),
+          gltf.getDirectByteCount());
+    }
+
+    path = new SceneGenerator().meshes(1, 100)
+        .indexComponentType(GLTFAccessorComponentType.UNSIGNED_INT).write(dir, "release-narrow");
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      new MeshOptimizer().optimize(primitive);
+      GLTFAccessor indices = primitive.getIndicesAccessor().orElseThrow();
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_INT, indices.getPrimitiveType());
+      long direct = gltf.getDirectByteCount();
+      //Every vertex is used, so only the indices are written
+      new IndexCompactor().compact(primitive);
+      assertEquals(direct - indices.getSizeInBytes() / 2, gltf.getDirectByteCount());
+    }
+  }
+
+  /**
+   * @return bytes of the distinct accessors of primitives
+   */
+  private static long writtenBytes(List<GLTFMeshPrimitive> primitives) {
+    Set<GLTFAccessor> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (GLTFMeshPrimitive primitive : primitives) {
+      distinct.addAll(Triangles.accessors(primitive));
+      primitive.getIndicesAccessor().ifPresent(distinct::add);
+    }
+    return distinct.stream().mapToLong(GLTFAccessor::getSizeInBytes).sum();
+  }
+}
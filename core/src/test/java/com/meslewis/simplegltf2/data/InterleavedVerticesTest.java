@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.Test;
+
+public class InterleavedVerticesTest {
+
+  /**
+   * 4 VEC3 short elements 8 bytes apart, holding 1 to 12
+   */
+  private static ByteBuffer strided() {
+    ByteBuffer whole = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    for (int v = 0; v < 4; v++) {
+      for (int c = 0; c < 3; c++) {
+        whole.putShort(v * 8 + c * 2, (short) (v * 3 + c + 1));
+      }
+    }
+    return whole;
+  }
+
+  /**
+   * Copy 4 elements into a buffer with a 12 byte stride, starting 4 bytes in
+   */
+  private static ByteBuffer copy(BufferSegment source) {
+    ByteBuffer dest = ByteBuffer.allocate(48).order(ByteOrder.LITTLE_ENDIAN);
+    InterleavedVertices.copy(source, 8, 4, 6, 2, dest, 4, 12);
+    //The destination's position is untouched
+    assertEquals(0, dest.position());
+    return dest;
+  }
+
+  private static void assertCopied(ByteBuffer dest) {
+    for (int v = 0; v < 4; v++) {
+      for (int c = 0; c < 3; c++) {
+        assertEquals(v * 3 + c + 1, dest.getShort(4 + v * 12 + c * 2));
+      }
+      //Gaps between attributes are left alone
+      assertEquals(0, dest.getInt(v * 12));
+    }
+  }
+
+  @Test
+  public void testCopyContiguous() {
+    assertCopied(copy(BufferSegment.of(strided())));
+  }
+
+  @Test
+  public void testCopyAcrossChunks() {
+    ByteBuffer whole = strided();
+    //The second and third elements straddle chunks, both in the middle of a component
+    BufferSegment source = BufferSegment.of(whole.slice(0, 11), whole.slice(11, 0),
+        whole.slice(11, 10), whole.slice(21, 11));
+    assertEquals(11, source.chunkEnd(10));
+    assertEquals(21, source.chunkEnd(11));
+    assertCopied(copy(source));
+  }
+}
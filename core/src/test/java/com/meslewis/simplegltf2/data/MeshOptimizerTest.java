@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MeshOptimizerTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testOptimizeShuffledGrid() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 4096).shuffleTriangles(true)
+        .sparseMorphTargets(true).write(dir, "shuffled");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+      List<String> before = Triangles.ignoringRotation(primitive);
+
+      List<MeshOptimizer.Report> reports = new MeshOptimizer().optimize(gltf.getMesh(0));
+      MeshOptimizer.Report report = reports.get(0);
+      assertEquals(1, reports.size());
+      assertEquals(before.size(), report.getTriangleCount());
+      assertEquals(4096, report.getVertexCount());
+      assertTrue(report.getACMRBefore() > 2, report.toString());
+      assertTrue(report.getACMRAfter() < 1, report.toString());
+      assertTrue(report.getATVRAfter() < report.getATVRBefore(), report.toString());
+
+      //The same triangles, wound the same way, with the same vertex data
+      assertNotSame(positions, primitive.getAttributes().get("POSITION"));
+      assertEquals(before, Triangles.ignoringRotation(primitive));
+
+      //Vertices are numbered in the order indices first use them
+      GLTFAccessor indices = primitive.getIndicesAccessor().orElseThrow();
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_SHORT, indices.getPrimitiveType());
+      int next = 0;
+      for (int index : GeometryWriter.readIndices(primitive)) {
+        assertTrue(index <= next);
+        next = Math.max(next, index + 1);
+      }
+    }
+  }
+
+  @Test
+  public void testRepeatedPassesFreeReplacedAccessors() throws IOException {
+    Path path = new SceneGenerator().meshes(2, 1024).shuffleTriangles(true)
+        .sparseMorphTargets(true).write(dir, "repeated");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      int accessorCount = gltf.getAccessorCount();
+      MeshOptimizer optimizer = new MeshOptimizer();
+      optimizer.optimize(gltf.getMesh(0));
+      long direct = gltf.getDirectByteCount();
+      optimizer.optimize(gltf.getMesh(0));
+      optimizer.optimize(gltf.getMesh(0));
+      assertEquals(direct, gltf.getDirectByteCount());
+      assertEquals(accessorCount, gltf.getAccessorCount());
+
+      //Accessors another primitive still uses are kept
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      GLTFMeshPrimitive other = gltf.getMesh(1).getPrimitives().get(0);
+      other.setGeometry(primitive.getAttributes(), primitive.getIndicesAccessor().orElseThrow(),
+          primitive.getMorphTargets());
+      List<String> before = Triangles.ignoringRotation(other);
+      optimizer.optimize(gltf.getMesh(0));
+      assertTrue(gltf.getDirectByteCount() > direct);
+      assertEquals(before, Triangles.ignoringRotation(other));
+    }
+  }
+}
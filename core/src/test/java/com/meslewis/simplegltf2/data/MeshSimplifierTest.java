@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MeshSimplifierTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testSimplifyGrid() throws IOException {
+    //A 64 by 64 grid over the unit square, facing +z
+    Path path = new SceneGenerator().meshes(1, 4096).write(dir, "grid");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      int triangles = primitive.getIndicesAccessor().orElseThrow().getElementCount() / 3;
+
+      GLTFMeshPrimitive simplified = new MeshSimplifier().simplify(primitive, 0.25f);
+      GLTFAccessor indices = simplified.getIndicesAccessor().orElseThrow();
+      assertTrue(indices.getElementCount() / 3 <= triangles / 4);
+      int[] read = GeometryWriter.readIndices(simplified);
+      assertEquals(primitive.getIndicesAccessor().orElseThrow().getPrimitiveType(),
+          indices.getPrimitiveType());
+      assertSame(primitive.getAttributes(), simplified.getAttributes());
+
+      GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+      boolean[] referenced = new boolean[positions.getElementCount()];
+      double area = 0;
+      for (int t = 0; t < read.length; t += 3) {
+        float[][] corners = new float[3][3];
+        for (int k = 0; k < 3; k++) {
+          int vertex = read[t + k];
+          referenced[vertex] = true;
+          positions.readFloats(vertex, 1, corners[k], 0);
+        }
+        //No triangle flipped over
+        double z = (corners[1][0] - corners[0][0]) * (corners[2][1] - corners[0][1])
+            - (corners[1][1] - corners[0][1]) * (corners[2][0] - corners[0][0]);
+        assertTrue(z > 0);
+        area += z / 2;
+      }
+      //Borders are locked, so the square is still covered
+      assertEquals(1, area, 1e-4);
+      for (int vertex = 0; vertex < referenced.length; vertex++) {
+        int column = vertex % 64;
+        int row = vertex / 64;
+        if (column == 0 || row == 0 || column == 63 || row == 63) {
+          assertTrue(referenced[vertex], "Border vertex " + vertex);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSimplifiedKeepsWrittenAttributes() throws IOException {
+    //Unindexed, so welding writes new attributes that the simplified primitive then shares
+    Path path = new SceneGenerator().meshes(1, 4096).unindexed(true).write(dir, "shared");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMesh mesh = gltf.getMesh(0);
+      new VertexWelder().weld(mesh);
+      GLTFMeshPrimitive simplified = new MeshSimplifier()
+          .simplify(mesh.getPrimitives().get(0), 0.5f);
+      GLTFAccessor positions = simplified.getAttributes().get("POSITION");
+      float[] before = new float[positions.getPrimitiveCount()];
+      positions.readFloats(0, positions.getElementCount(), before, 0);
+
+      //Reordering the mesh's vertices lets go of the welded attributes in the mesh only
+      new MeshOptimizer().optimize(mesh);
+      assertNotSame(positions, mesh.getPrimitives().get(0).getAttributes().get("POSITION"));
+      float[] after = new float[before.length];
+      positions.readFloats(0, positions.getElementCount(), after, 0);
+      assertArrayEquals(before, after);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGenerateLODs() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 4096).write(dir, "lods");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFNode node = gltf.getNodes().orElseThrow().get(0);
+      GLTFMeshPrimitive original = gltf.getMesh(0).getPrimitives().get(0);
+      int nodeCount = gltf.getNodes().orElseThrow().size();
+
+      List<GLTFNode> levels = new MeshSimplifier().generateLODs(node, 0.5f, 0.25f, 0.1f);
+      assertEquals(3, levels.size());
+      assertEquals(nodeCount + 3, gltf.getNodes().orElseThrow().size());
+      assertTrue(gltf.getExtensionsUsed().orElseThrow().contains(MeshSimplifier.MSFT_LOD));
+
+      List<Integer> ids = (List<Integer>) ((Map<String, Object>) node.getExtensions()
+          .get(MeshSimplifier.MSFT_LOD)).get("ids");
+      int triangles = original.getIndicesAccessor().orElseThrow().getElementCount() / 3;
+      for (int i = 0; i < levels.size(); i++) {
+        GLTFNode level = levels.get(i);
+        assertSame(level, gltf.getNodes().orElseThrow().get(ids.get(i)));
+        assertEquals("node-0_LOD" + (i + 1), level.getName());
+        GLTFMeshPrimitive primitive = level.getMesh().orElseThrow().getPrimitives().get(0);
+        assertSame(original.getAttributes().get("POSITION"),
+            primitive.getAttributes().get("POSITION"));
+        int levelTriangles = primitive.getIndicesAccessor().orElseThrow().getElementCount() / 3;
+        assertTrue(levelTriangles < triangles);
+        triangles = levelTriangles;
+      }
+
+      List<Float> coverages = (List<Float>) node.getExtras()
+          .get(MeshSimplifier.MSFT_SCREENCOVERAGE);
+      assertEquals(4, coverages.size());
+      for (int i = 1; i < coverages.size(); i++) {
+        assertTrue(coverages.get(i) <= coverages.get(i - 1), coverages.toString());
+      }
+      assertTrue(coverages.get(0) <= 1);
+      assertTrue(coverages.get(3) > 0);
+    }
+  }
+
+  @Test
+  public void testLODErrorRelativeToMesh() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 4096).write(dir, "parts");
+    MeshSimplifier simplifier = new MeshSimplifier().setNormalWeight(0).setTexCoordWeight(0)
+        .setScreenError(1e-5f);
+
+    //A rippled primitive a tenth the size, on its own
+    float alone = lodCoverage(path, simplifier, false);
+    //The same inside a flat primitive the full size, which simplifies without error
+    float combined = lodCoverage(path, simplifier, true);
+    //Measured against the whole mesh its error is a tenth, seen on 100 times the screen area
+    assertTrue(alone * 100 < 1, String.valueOf(alone));
+    assertEquals(alone * 100, combined, alone);
+  }
+
+  @SuppressWarnings("unchecked")
+  private float lodCoverage(Path path, MeshSimplifier simplifier, boolean withFlat)
+      throws IOException {
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFNode node = gltf.getNodes().orElseThrow().get(0);
+      GLTFMesh mesh = node.getMesh().orElseThrow();
+      GLTFMeshPrimitive rippled = mesh.getPrimitives().get(0);
+      GLTFMeshPrimitive small = scaled(rippled, 0.1f, 0.1f);
+      mesh.setPrimitives(withFlat ? List.of(scaled(rippled, 1, 0), small) : List.of(small));
+      simplifier.generateLODs(node, 0.25f);
+      return ((List<Float>) node.getExtras().get(MeshSimplifier.MSFT_SCREENCOVERAGE)).get(0);
+    }
+  }
+
+  /**
+   * @return a primitive drawing primitive with x and y scaled by xy and z by z
+   */
+  private static GLTFMeshPrimitive scaled(GLTFMeshPrimitive primitive, float xy, float z) {
+    GLTFAccessor positions = primitive.getAttributes().get("POSITION");
+    float[] values = new float[positions.getPrimitiveCount()];
+    positions.readFloats(0, positions.getElementCount(), values, 0);
+    ByteBuffer data = ByteBuffer.allocateDirect(values.length * Float.BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < values.length; i++) {
+      data.putFloat(i * Float.BYTES, values[i] * (i % 3 == 2 ? z : xy));
+    }
+    Map<String, GLTFAccessor> attributes = new LinkedHashMap<>(primitive.getAttributes());
+    attributes.put("POSITION", GLTFAccessor.ofData(primitive.gltf, GLTFAccessorComponentType.FLOAT,
+        GLTFAccessorDataType.VEC3, false, positions.getElementCount(), data));
+    GLTFMeshPrimitive scaled = primitive.withIndices(primitive.getIndicesAccessor().orElseThrow());
+    scaled.setGeometry(attributes, primitive.getIndicesAccessor().orElseThrow(),
+        primitive.getMorphTargets());
+    return scaled;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SceneGraphTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testKeepsDocumentOrder() throws IOException {
+    Path path = dir.resolve("order.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},\"scene\":0,"
+        + "\"scenes\":[{\"nodes\":[3,0]}],"
+        + "\"accessors\":[{\"componentType\":5126,\"count\":1,\"type\":\"VEC3\"}],"
+        + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0}}]}],"
+        + "\"nodes\":[{\"children\":[2,1,4]},{\"mesh\":0},{},"
+        + "{\"matrix\":[1,0,0,0,0,1,0,0,0,0,1,0,5,6,7,1]},{\"translation\":[1,2,3]}]}")
+        .getBytes(StandardCharsets.UTF_8));
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      List<GLTFNode> nodes = gltf.getNodes().orElseThrow();
+      assertEquals(List.of(nodes.get(2), nodes.get(1), nodes.get(4)),
+          List.copyOf(nodes.get(0).getChildren().orElseThrow()));
+      assertEquals(3, gltf.getDefaultScene().orElseThrow().getRootNodes().iterator().next()
+          .getIndex());
+
+      SceneGraph graph = SceneGraph.of(gltf);
+      assertEquals(5, graph.getNodeCount());
+      assertEquals(3, graph.getChildCount(0));
+      assertEquals(2, graph.getChild(0, 0));
+      assertEquals(4, graph.getChild(0, 2));
+      assertEquals(0, graph.getParent(4));
+      assertEquals(-1, graph.getParent(3));
+      assertEquals(3, graph.getRoot(0, 0));
+      assertArrayEquals(new int[]{0, 2, 1, 4, 3}, graph.getTraversalOrder());
+      assertEquals(0, graph.getMesh(1));
+      assertEquals(-1, graph.getMesh(0));
+      assertEquals(-1, graph.getSkin(1));
+      assertTrue(graph.hasMatrix(3));
+      assertFalse(graph.hasMatrix(4));
+      assertEquals(6, graph.getLocalMatrix(3, new Matrix4f()).m31());
+    }
+  }
+
+  @Test
+  public void testWorldMatricesMatchHierarchy() throws IOException {
+    Path path = new SceneGenerator().nodes(200, 3).meshes(2, 4).skin(5).write(dir, "tree");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      SceneGraph graph = SceneGraph.of(gltf);
+      float[] world = new float[graph.getNodeCount() * 16];
+      graph.computeWorldMatrices(world);
+
+      List<GLTFNode> nodes = gltf.getNodes().orElseThrow();
+      assertEquals(0, graph.getSkin(nodes.size() - 1));
+      for (GLTFNode node : nodes) {
+        Matrix4f expected = new Matrix4f();
+        for (int i = node.getIndex(); i != -1; i = graph.getParent(i)) {
+          GLTFNode ancestor = nodes.get(i);
+          expected.mulLocal(new Matrix4f().translationRotateScale(ancestor.getTranslation(),
+              ancestor.getRotation(), ancestor.getScale()));
+        }
+        assertTrue(expected.equals(new Matrix4f().set(world, node.getIndex() * 16), 1e-4f),
+            node.getName());
+      }
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.GLTFImporter.ValidationLevel;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StructuralValidatorTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testValid() throws IOException {
+    Path path = write("valid", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2,\"type\":\"VEC3\","
+            + "\"min\":[0,0,0],\"max\":[0,0,0]}");
+
+    try (GLTF gltf = load(path, ValidationLevel.STRUCTURAL)) {
+      assertNotNull(gltf);
+      assertEquals(List.of(), StructuralValidator.validate(gltf));
+    }
+  }
+
+  @Test
+  public void testBufferViewOutOfRange() throws IOException {
+    Path path = write("bufferView", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":1,\"componentType\":5126,\"count\":2,\"type\":\"VEC3\"}");
+
+    assertTrue(rejection(path).contains("accessors[0]: bufferView 1 out of range"));
+    //Without checks the index is left to resolution, which can't follow it
+    assertNull(load(path, ValidationLevel.OFF));
+  }
+
+  @Test
+  public void testAccessorPastBufferView() throws IOException {
+    //3 VEC3 floats are 36 bytes
+    Path path = write("past", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":3,\"type\":\"VEC3\"}");
+
+    assertRejected(path, "accessors[0]: accessor needs 36 bytes but its bufferView is only 24");
+  }
+
+  @Test
+  public void testAccessorPastStridedBufferView() throws IOException {
+    //2 VEC3 floats fit in 24 bytes packed, but not 16 bytes apart
+    Path path = write("strided", "{\"buffer\":0,\"byteLength\":24,\"byteStride\":16}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2,\"type\":\"VEC3\"}");
+
+    assertRejected(path, "accessors[0]: accessor needs 28 bytes but its bufferView is only 24");
+  }
+
+  @Test
+  public void testMinMaxLength() throws IOException {
+    Path path = write("minMax", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2,\"type\":\"VEC3\","
+            + "\"min\":[0,0],\"max\":[0,0,0,0]}");
+
+    String rejection = assertRejected(path, "accessors[0]: min must have 3 components");
+    assertTrue(rejection.contains("accessors[0]: max must have 3 components"), rejection);
+  }
+
+  @Test
+  public void testSparseCount() throws IOException {
+    Path path = write("sparse", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2,\"type\":\"SCALAR\","
+            + "\"sparse\":{\"count\":3,\"indices\":{\"bufferView\":0,\"componentType\":5121},"
+            + "\"values\":{\"bufferView\":0}}}");
+
+    assertRejected(path, "accessors[0]: sparse count must be in [1, accessor count], was 3");
+  }
+
+  @Test
+  public void testSparseIndicesNotIncreasing() throws IOException {
+    //Both indices read 0 from the zero filled buffer
+    Path path = write("unordered", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2,\"type\":\"SCALAR\","
+            + "\"sparse\":{\"count\":2,\"indices\":{\"bufferView\":0,\"componentType\":5121},"
+            + "\"values\":{\"bufferView\":0}}}");
+
+    assertDataRejected(path, "accessors[0]: sparse indices must strictly increase, index 1 is 0");
+    //Read without validation, the indices are refused rather than searched wrongly
+    try (GLTF gltf = load(path, ValidationLevel.OFF)) {
+      GLTFAccessor accessor = gltf.getAccessor(0);
+      assertThrows(IllegalStateException.class, () -> accessor.getFloat(0));
+    }
+  }
+
+  @Test
+  public void testSparseIndexOutOfRange() throws IOException {
+    //The buffer starts with byte 5, index 5 of a 2 element accessor
+    Path path = write("sparseRange", "BQAA" + "A".repeat(28), "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2,\"type\":\"SCALAR\","
+            + "\"sparse\":{\"count\":1,\"indices\":{\"bufferView\":0,\"componentType\":5121},"
+            + "\"values\":{\"bufferView\":0}}}");
+
+    assertDataRejected(path, "accessors[0]: sparse index 5 out of range for accessor count 2");
+  }
+
+  @Test
+  public void testMissingComponentType() throws IOException {
+    Path path = write("componentType", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"count\":2,\"type\":\"VEC3\"}");
+
+    assertRejected(path, "accessors[0]: componentType is required");
+  }
+
+  @Test
+  public void testMissingType() throws IOException {
+    Path path = write("type", "{\"buffer\":0,\"byteLength\":24}",
+        "{\"bufferView\":0,\"componentType\":5126,\"count\":2}");
+
+    assertRejected(path, "accessors[0]: type is required");
+  }
+
+  /**
+   * Assert a STRUCTURAL load fails with error, and an OFF load succeeds and reports the same
+   * error when validated afterwards.
+   *
+   * @return why the STRUCTURAL load failed
+   */
+  private String assertRejected(Path path, String error) throws IOException {
+    String rejection = rejection(path);
+    assertTrue(rejection.contains(error), rejection);
+    try (GLTF gltf = load(path, ValidationLevel.OFF)) {
+      assertNotNull(gltf);
+      List<String> errors = StructuralValidator.validate(gltf);
+      assertTrue(errors.stream().anyMatch(e -> e.contains(error)), errors.toString());
+    }
+    return rejection;
+  }
+
+  /**
+   * Assert STRUCTURAL loads fail with error found in the buffer data, and an OFF load succeeds
+   * and reports the same error when its data is validated afterwards
+   */
+  private void assertDataRejected(Path path, String error) throws IOException {
+    String rejection = rejection(path);
+    assertTrue(rejection.contains(error), rejection);
+    assertNull(load(path, ValidationLevel.STRUCTURAL));
+    try (GLTF gltf = load(path, ValidationLevel.OFF)) {
+      assertNotNull(gltf);
+      assertEquals(List.of(), StructuralValidator.validate(gltf));
+      List<String> errors = StructuralValidator.validateData(gltf);
+      assertTrue(errors.stream().anyMatch(e -> e.contains(error)), errors.toString());
+    }
+  }
+
+  /**
+   * @return why a STRUCTURAL load of path failed
+   */
+  private static String rejection(Path path) {
+    GLTFImporter importer = new GLTFImporter();
+    importer.setValidationLevel(ValidationLevel.STRUCTURAL);
+    CompletionException e = assertThrows(CompletionException.class,
+        () -> importer.loadAsync(path.toUri(), Runnable::run).join());
+    return e.getCause().getMessage();
+  }
+
+  private static GLTF load(Path path, ValidationLevel level) {
+    GLTFImporter importer = new GLTFImporter();
+    importer.setValidationLevel(level);
+    return importer.load(path.toUri());
+  }
+
+  /**
+   * Write a .gltf with one 24 byte zero filled buffer, one bufferView and one accessor
+   */
+  private Path write(String name, String bufferView, String accessor) throws IOException {
+    return write(name, "A".repeat(32), bufferView, accessor);
+  }
+
+  /**
+   * @param buffer 24 bytes in base 64
+   */
+  private Path write(String name, String buffer, String bufferView, String accessor)
+      throws IOException {
+    Path path = dir.resolve(name + ".gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"byteLength\":24,"
+        + "\"uri\":\"data:application/octet-stream;base64," + buffer + "\"}],"
+        + "\"bufferViews\":[" + bufferView + "],"
+        + "\"accessors\":[" + accessor + "]}").getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The triangles of a primitive by the values of their vertices, to check that a pass which
+ * renumbers, reorders or rewrites vertices draws the same thing.
+ */
+final class Triangles {
+
+  private Triangles() {
+  }
+
+  /**
+   * @return every triangle as the values of its vertices in order, sorted. Indexed or not.
+   */
+  static List<String> of(GLTFMeshPrimitive primitive) {
+    List<String> triangles = new ArrayList<>();
+    for (String[] vertices : read(primitive)) {
+      triangles.add(vertices[0] + vertices[1] + vertices[2]);
+    }
+    Collections.sort(triangles);
+    return triangles;
+  }
+
+  /**
+   * @return every triangle as the values of its vertices starting from the smallest, so the
+   * winding is kept but not which vertex comes first, sorted
+   */
+  static List<String> ignoringRotation(GLTFMeshPrimitive primitive) {
+    List<String> triangles = new ArrayList<>();
+    for (String[] vertices : read(primitive)) {
+      int first = 0;
+      for (int k = 1; k < 3; k++) {
+        if (vertices[k].compareTo(vertices[first]) < 0) {
+          first = k;
+        }
+      }
+      triangles.add(vertices[first] + vertices[(first + 1) % 3] + vertices[(first + 2) % 3]);
+    }
+    Collections.sort(triangles);
+    return triangles;
+  }
+
+  /**
+   * @return the attributes of primitive, then those of each morph target
+   */
+  static List<GLTFAccessor> accessors(GLTFMeshPrimitive primitive) {
+    List<GLTFAccessor> accessors = new ArrayList<>(primitive.getAttributes().values());
+    if (primitive.getMorphTargets() != null) {
+      for (Map<String, GLTFAccessor> target : primitive.getMorphTargets()) {
+        accessors.addAll(target.values());
+      }
+    }
+    return accessors;
+  }
+
+  private static List<String[]> read(GLTFMeshPrimitive primitive) {
+    List<GLTFAccessor> accessors = accessors(primitive);
+    int[] indices = GeometryWriter.readIndices(primitive);
+    int count = indices != null ? indices.length : GeometryWriter.getVertexCount(primitive);
+    List<String[]> triangles = new ArrayList<>();
+    for (int t = 0; t < count / 3; t++) {
+      String[] vertices = new String[3];
+      for (int k = 0; k < 3; k++) {
+        int vertex = indices != null ? indices[t * 3 + k] : t * 3 + k;
+        StringBuilder values = new StringBuilder();
+        for (GLTFAccessor accessor : accessors) {
+          float[] element = new float[accessor.getDataType().getPrimitiveCount()];
+          accessor.readFloats(vertex, 1, element, 0);
+          values.append(Arrays.toString(element));
+        }
+        vertices[k] = values.toString();
+      }
+      triangles.add(vertices);
+    }
+    return triangles;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.BufferArena;
+import com.meslewis.simplegltf2.defaultImplementation.DefaultBufferIO;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class URIUtilTest {
+
+  private static final String PREFIX = "data:application/octet-stream;base64,";
+
+  /**
+   * Bytes one 16 KB chunk of base 64 characters decodes to
+   */
+  private static final int CHUNK_BYTES = 16 * 1024 / 4 * 3;
+
+  /**
+   * @return length seeded bytes, starting with 0xFB 0xEF 0xFF which encode to "++//"
+   */
+  private static byte[] payload(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    byte[] start = {(byte) 0xFB, (byte) 0xEF, (byte) 0xFF};
+    System.arraycopy(start, 0, bytes, 0, Math.min(length, start.length));
+    return bytes;
+  }
+
+  /**
+   * Decode a data URI, checking the buffer is exactly the decoded size
+   */
+  private static byte[] decode(String uri) {
+    BufferArena arena = new BufferArena(new DefaultBufferIO());
+    try (GLTF gltf = new GLTF(arena, arena, null)) {
+      ByteBuffer decoded = URIUtil.getDirectBufferFromGeneralURI(gltf, URI.create(uri));
+      assertTrue(decoded.isDirect());
+      assertEquals(0, decoded.position());
+      assertEquals(decoded.capacity(), decoded.limit());
+      byte[] bytes = new byte[decoded.remaining()];
+      decoded.get(bytes);
+      return bytes;
+    }
+  }
+
+  @Test
+  public void testPadded() {
+    for (int length = 1; length <= 6; length++) {
+      byte[] bytes = payload(length);
+      assertArrayEquals(bytes, decode(PREFIX + Base64.getEncoder().encodeToString(bytes)));
+    }
+  }
+
+  @Test
+  public void testUnpaddedTails() {
+    //One byte past a whole group leaves 2 characters, two bytes leave 3
+    for (int length : new int[]{3, 4, 5, 3001, 3002}) {
+      byte[] bytes = payload(length);
+      String encoded = Base64.getEncoder().withoutPadding().encodeToString(bytes);
+      assertEquals(length % 3 == 0 ? 0 : length % 3 + 1, encoded.length() % 4);
+      assertArrayEquals(bytes, decode(PREFIX + encoded));
+    }
+  }
+
+  @Test
+  public void testLongerThanOneChunk() {
+    for (int length : new int[]{CHUNK_BYTES, CHUNK_BYTES + 1, CHUNK_BYTES * 3 + 2}) {
+      byte[] bytes = payload(length);
+      assertArrayEquals(bytes, decode(PREFIX + Base64.getEncoder().encodeToString(bytes)));
+      //Line breaks are skipped, so they don't move the chunk boundaries
+      assertArrayEquals(bytes, decode(PREFIX + Base64.getMimeEncoder().encodeToString(bytes)
+          .replace("\r\n", "%0D%0A")));
+    }
+  }
+
+  @Test
+  public void testEscapedCharacters() {
+    byte[] bytes = payload(100);
+    String encoded = Base64.getEncoder().encodeToString(bytes);
+    assertTrue(encoded.startsWith("++//"));
+    assertArrayEquals(bytes, decode(PREFIX + encoded.replace("+", "%2B").replace("/", "%2F")
+        .replace("=", "%3D")));
+  }
+}
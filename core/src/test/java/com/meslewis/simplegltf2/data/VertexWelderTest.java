@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.generator.SceneGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class VertexWelderTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testWeldUnindexedGrid() throws IOException {
+    //A 64 by 64 grid written as 63 * 63 * 2 triangles of 3 vertices each
+    Path path = new SceneGenerator().meshes(1, 4096).unindexed(true).write(dir, "unindexed");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      assertFalse(primitive.getIndicesAccessor().isPresent());
+      List<String> before = Triangles.of(primitive);
+
+      List<VertexWelder.Report> reports = new VertexWelder().weld(gltf.getMesh(0));
+      VertexWelder.Report report = reports.get(0);
+      assertEquals(1, reports.size());
+      assertFalse(report.isIndexedBefore());
+      assertEquals(63 * 63 * 6, report.getVerticesBefore());
+      assertEquals(4096, report.getVerticesAfter());
+      assertEquals(63 * 63 * 6, report.getIndexCount());
+
+      GLTFAccessor indices = primitive.getIndicesAccessor().orElseThrow();
+      assertEquals(GLTFAccessorComponentType.UNSIGNED_SHORT, indices.getPrimitiveType());
+      for (GLTFAccessor accessor : primitive.getAttributes().values()) {
+        assertEquals(4096, accessor.getElementCount());
+      }
+      assertEquals(before, Triangles.of(primitive));
+    }
+  }
+
+  @Test
+  public void testEpsilon() throws IOException {
+    //Two triangles of a quad whose shared corners are written 1e-6 apart
+    float[] positions = {
+        0, 0, 0, 1, 0, 0, 0, 1, 0,
+        1.000001f, 0, 0, 1, 1, 0, 0, 1.000001f, 0};
+    ByteBuffer data = ByteBuffer.allocate(positions.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+    for (float position : positions) {
+      data.putFloat(position);
+    }
+    Path path = dir.resolve("quad.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"byteLength\":72,\"uri\":\"data:application/octet-stream;base64,"
+        + Base64.getEncoder().encodeToString(data.array()) + "\"}],"
+        + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":72}],"
+        + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":6,\"type\":\"VEC3\","
+        + "\"min\":[0,0,0],\"max\":[1.000001,1.000001,0]}],"
+        + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0}},"
+        + "{\"attributes\":{\"POSITION\":0}}]}]}").getBytes(StandardCharsets.UTF_8));
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      List<GLTFMeshPrimitive> primitives = gltf.getMesh(0).getPrimitives();
+      assertEquals(6, new VertexWelder().weld(primitives.get(0)).getVerticesAfter());
+      assertEquals(4, new VertexWelder().setEpsilon("POSITION", 1e-4f).weld(primitives.get(1))
+          .getVerticesAfter());
+
+      GLTFAccessor indices = primitives.get(1).getIndicesAccessor().orElseThrow();
+      int[] read = new int[6];
+      indices.readIndices(0, 6, read, 0);
+      assertEquals("[0, 1, 2, 1, 3, 2]", Arrays.toString(read));
+    }
+  }
+
+  @Test
+  public void testNormalizedIntegersCompareStoredValues() throws IOException {
+    //Three vertices at the origin whose BYTE values -128, -127, -128 all normalize to -1
+    ByteBuffer data = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+    data.position(36);
+    data.put((byte) -128).put((byte) -127).put((byte) -128);
+    Path path = dir.resolve("bytes.gltf");
+    Files.write(path, ("{\"asset\":{\"version\":\"2.0\"},"
+        + "\"buffers\":[{\"byteLength\":40,\"uri\":\"data:application/octet-stream;base64,"
+        + Base64.getEncoder().encodeToString(data.array()) + "\"}],"
+        + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":36},"
+        + "{\"buffer\":0,\"byteOffset\":36,\"byteLength\":3}],"
+        + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":3,\"type\":\"VEC3\","
+        + "\"min\":[0,0,0],\"max\":[0,0,0]},"
+        + "{\"bufferView\":1,\"componentType\":5120,\"normalized\":true,\"count\":3,"
+        + "\"type\":\"SCALAR\"}],"
+        + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0,\"_VALUE\":1}}]}]}")
+        .getBytes(StandardCharsets.UTF_8));
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      GLTFAccessor values = primitive.getAttributes().get("_VALUE");
+      assertEquals(values.getFloat(0), values.getFloat(1));
+
+      assertEquals(2, new VertexWelder().weld(primitive).getVerticesAfter());
+      int[] read = new int[3];
+      primitive.getIndicesAccessor().orElseThrow().readIndices(0, 3, read, 0);
+      assertEquals("[0, 1, 0]", Arrays.toString(read));
+      primitive.getAttributes().get("_VALUE").readIndices(0, 2, read, 0);
+      assertEquals(-128, read[0]);
+      assertEquals(-127, read[1]);
+    }
+  }
+
+  @Test
+  public void testIndexedWithoutDuplicates() throws IOException {
+    Path path = new SceneGenerator().meshes(1, 100).write(dir, "indexed");
+
+    try (GLTF gltf = new GLTFImporter().load(path.toUri())) {
+      GLTFMeshPrimitive primitive = gltf.getMesh(0).getPrimitives().get(0);
+      GLTFAccessor indices = primitive.getIndicesAccessor().orElseThrow();
+
+      VertexWelder.Report report = new VertexWelder().weld(primitive);
+      assertTrue(report.isIndexedBefore());
+      assertEquals(100, report.getVerticesAfter());
+      //Nothing to weld, so nothing is written
+      assertSame(indices, primitive.getIndicesAccessor().orElseThrow());
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.defaultImplementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.meslewis.simplegltf2.BufferIO;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CachingBufferIOTest {
+
+  /**
+   * Hands out a new buffer per fetch and records releases
+   */
+  private static class CountingBufferIO implements BufferIO {
+
+    private int fetches;
+    private final List<ByteBuffer> released = new ArrayList<>();
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri) {
+      fetches++;
+      return ByteBuffer.allocateDirect(Integer.parseInt(uri.getSchemeSpecificPart()));
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+      released.add(buffer);
+    }
+  }
+
+  @Test
+  public void testRepeatedFetchIsServedFromCache() {
+    CountingBufferIO source = new CountingBufferIO();
+    CachingBufferIO caching = new CachingBufferIO(source, 1000);
+    URI uri = URI.create("size:100");
+
+    ByteBuffer first = caching.getDirectByteBuffer(uri);
+    ByteBuffer second = caching.getDirectByteBuffer(uri);
+
+    assertNotSame(first, second);
+    assertEquals(1, source.fetches);
+    assertEquals(1, caching.getHitCount());
+    assertEquals(1, caching.getMissCount());
+    assertEquals(100, caching.getCachedByteCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvictedOverBudget() {
+    CountingBufferIO source = new CountingBufferIO();
+    CachingBufferIO caching = new CachingBufferIO(source, 250);
+    URI a = URI.create("size:100");
+    URI b = URI.create("size:101");
+    URI c = URI.create("size:102");
+
+    caching.release(caching.getDirectByteBuffer(a));
+    caching.release(caching.getDirectByteBuffer(b));
+    caching.release(caching.getDirectByteBuffer(a));
+    caching.release(caching.getDirectByteBuffer(c));
+
+    //b was used least recently
+    assertEquals(1, caching.getEvictionCount());
+    assertEquals(1, source.released.size());
+    assertEquals(101, source.released.get(0).capacity());
+    assertEquals(202, caching.getCachedByteCount());
+  }
+
+  @Test
+  public void testEvictedBufferIsReleasedOnlyWhenUnused() {
+    CountingBufferIO source = new CountingBufferIO();
+    CachingBufferIO caching = new CachingBufferIO(source, 150);
+
+    ByteBuffer inUse = caching.getDirectByteBuffer(URI.create("size:100"));
+    caching.release(caching.getDirectByteBuffer(URI.create("size:101")));
+
+    assertEquals(1, caching.getEvictionCount());
+    assertTrue(source.released.isEmpty());
+
+    caching.release(inUse);
+    assertEquals(1, source.released.size());
+  }
+
+  @Test
+  public void testChangedFileIsFetchedAgain() throws IOException {
+    Path file = Files.createTempFile("caching", ".bin");
+    try {
+      Files.write(file, new byte[16]);
+      CountingFileBufferIO source = new CountingFileBufferIO();
+      CachingBufferIO caching = new CachingBufferIO(source, 1000);
+
+      caching.release(caching.getDirectByteBuffer(file.toUri()));
+      Files.write(file, new byte[32]);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+      ByteBuffer changed = caching.getDirectByteBuffer(file.toUri());
+
+      assertEquals(2, source.fetches);
+      assertEquals(32, changed.capacity());
+      assertEquals(0, caching.getHitCount());
+
+      //Unmap before deleting
+      caching.release(changed);
+      caching.clear();
+      assertEquals(0, caching.getCachedByteCount());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static class CountingFileBufferIO extends DefaultBufferIO {
+
+    private int fetches;
+
+    @Override
+    public ByteBuffer getDirectByteBuffer(URI uri) {
+      fetches++;
+      return super.getDirectByteBuffer(uri);
+    }
+  }
+}
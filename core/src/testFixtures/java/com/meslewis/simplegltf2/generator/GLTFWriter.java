@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.generator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.meslewis.simplegltf2.data.GLTFAccessorComponentType;
+import com.meslewis.simplegltf2.generator.SceneGenerator.Format;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+
+/**
+ * glTF JSON plus a single binary buffer that every bufferView points into. Binary data goes
+ * straight to a temporary file beside the output, so buffers can be larger than the heap.
+ */
+final class GLTFWriter implements AutoCloseable {
+
+  static final int ARRAY_BUFFER = 34962;
+  static final int ELEMENT_ARRAY_BUFFER = 34963;
+
+  private static final long MAX_GLB_LENGTH = 0xFFFFFFFFL;
+
+  final ObjectMapper mapper = new ObjectMapper();
+  final ObjectNode root = mapper.createObjectNode();
+  private final Path binPath;
+  private final FileChannel bin;
+
+  GLTFWriter(Path dir) throws IOException {
+    root.putObject("asset").put("version", "2.0").put("generator", "SimpleGLTF2 SceneGenerator");
+    binPath = Files.createTempFile(dir, "generator", ".bin");
+    bin = FileChannel.open(binPath, StandardOpenOption.WRITE);
+  }
+
+  ArrayNode array(String name) {
+    return root.has(name) ? (ArrayNode) root.get(name) : root.putArray(name);
+  }
+
+  int size(String name) {
+    return array(name).size();
+  }
+
+  ObjectNode add(String name) {
+    return array(name).addObject();
+  }
+
+  /**
+   * Appends data, from its position to its limit, as a new bufferView
+   *
+   * @param byteStride 0 for tightly packed
+   * @param target 0 for none
+   * @return index of the bufferView
+   */
+  int bufferView(ByteBuffer data, int byteStride, int target) throws IOException {
+    //Every accessor component type is at most 4 bytes
+    long offset = (bin.position() + 3) & ~3L;
+    int length = data.remaining();
+    bin.position(offset);
+    while (data.hasRemaining()) {
+      bin.write(data);
+    }
+    ObjectNode view = add("bufferViews").put("buffer", 0).put("byteOffset", offset)
+        .put("byteLength", length);
+    if (byteStride > 0) {
+      view.put("byteStride", byteStride);
+    }
+    if (target > 0) {
+      view.put("target", target);
+    }
+    return size("bufferViews") - 1;
+  }
+
+  /**
+   * @param bufferView -1 for an accessor without one
+   * @return the new accessor, last in "accessors"
+   */
+  ObjectNode accessor(int bufferView, int byteOffset, GLTFAccessorComponentType type,
+      String dataType, int count) {
+    ObjectNode accessor = add("accessors");
+    if (bufferView >= 0) {
+      accessor.put("bufferView", bufferView).put("byteOffset", byteOffset);
+    }
+    return accessor.put("componentType", type.getValue()).put("type", dataType)
+        .put("count", count);
+  }
+
+  /**
+   * Image stored the way the format stores buffers: a file beside a .gltf, a data URI in an
+   * embedded .gltf or a bufferView in a .glb.
+   *
+   * @return index of the image
+   */
+  int image(Path dir, String fileName, byte[] png, Format format) throws IOException {
+    ObjectNode image = add("images");
+    switch (format) {
+      case GLTF:
+        Files.write(dir.resolve(fileName), png);
+        image.put("uri", fileName);
+        break;
+      case EMBEDDED:
+        image.put("uri", "data:image/png;base64," + Base64.getEncoder().encodeToString(png));
+        break;
+      case GLB:
+        image.put("bufferView", bufferView(ByteBuffer.wrap(png), 0, 0))
+            .put("mimeType", "image/png");
+        break;
+    }
+    return size("images") - 1;
+  }
+
+  Path write(Path dir, String name, Format format) throws IOException {
+    long length = bin.size();
+    bin.close();
+    ObjectNode json = root.deepCopy();
+    ObjectNode buffer = length > 0 ? json.putArray("buffers").addObject().put("byteLength", length)
+        : null;
+    switch (format) {
+      case GLTF:
+        if (buffer != null) {
+          buffer.put("uri", name + ".bin");
+          Files.move(binPath, dir.resolve(name + ".bin"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        break;
+      case EMBEDDED:
+        if (buffer != null) {
+          buffer.put("uri", "data:application/octet-stream;base64,"
+              + Base64.getEncoder().encodeToString(Files.readAllBytes(binPath)));
+        }
+        break;
+      case GLB:
+        Path glb = dir.resolve(name + ".glb");
+        try (OutputStream out = Files.newOutputStream(glb)) {
+          writeGLB(out, mapper.writeValueAsBytes(json), length);
+        }
+        return glb;
+    }
+    Path gltf = dir.resolve(name + ".gltf");
+    mapper.writeValue(gltf.toFile(), json);
+    return gltf;
+  }
+
+  private void writeGLB(OutputStream out, byte[] json, long binLength) throws IOException {
+    int jsonLength = (json.length + 3) & ~3;
+    long paddedBin = (binLength + 3) & ~3L;
+    long total = 12 + 8 + jsonLength + (binLength > 0 ? 8 + paddedBin : 0);
+    if (total > MAX_GLB_LENGTH) {
+      throw new IllegalArgumentException("A .glb is limited to 4 GB, this one is " + total
+          + " bytes");
+    }
+    ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(0x46546C67).putInt(2).putInt((int) total);
+    header.putInt(jsonLength).putInt(0x4E4F534A);
+    out.write(header.array());
+    out.write(json);
+    for (int i = json.length; i < jsonLength; i++) {
+      out.write(' ');
+    }
+    if (binLength > 0) {
+      ByteBuffer binHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+      binHeader.putInt((int) paddedBin).putInt(0x004E4942);
+      out.write(binHeader.array());
+      Files.copy(binPath, out);
+      out.write(new byte[(int) (paddedBin - binLength)]);
+    }
+  }
+
+  /**
+   * Removes the temporary binary file, if it wasn't moved into place
+   */
+  @Override
+  public void close() throws IOException {
+    bin.close();
+    Files.deleteIfExists(binPath);
+  }
+}
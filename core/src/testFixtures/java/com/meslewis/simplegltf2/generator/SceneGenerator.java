@@ -0,0 +1,763 @@
+/*
+ * Copyright (c) 2020. Morgan Lewis <https://github.com/MESLewis>
+ * This file is part of the SimpleGLTF2 project which is released under the MIT License.
+ * See <https://github.com/MESLewis/SimpleGLTF2/blob/master/LICENSE> for more information
+ */
+
+package com.meslewis.simplegltf2.generator;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.meslewis.simplegltf2.data.GLTFAccessorComponentType;
+import com.meslewis.simplegltf2.data.GLTFAnimationSampler.GLTFInterpolation;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+/**
+ * Writes valid glTF files of any size from a handful of parameters, so tests and benchmarks run on
+ * reproducible inputs without downloading sample models. The same parameters always produce the
+ * same bytes.
+ * <ul>
+ * <li>Nodes "node-0" to "node-(count - 1)" fill a tree breadth first, node i being a child of node
+ * (i - 1) / fanOut. Node 0 is the only root of scene 0. Every other node has a seeded translation
+ * and rotation, and node i instances mesh i % meshCount.</li>
+ * <li>Mesh m, "mesh-m", is one triangle grid with POSITION, NORMAL and TEXCOORD_0, indexed unless
+ * {@link #unindexed(boolean)}. It can also have a VEC3 "_VALUES" attribute and a morph target
+ * whose POSITION accessor is sparse.</li>
+ * <li>A skin adds a chain of "joint-j" nodes under node 0, and beside them a node "skinned" whose
+ * strip mesh, the last mesh, runs along the chain.</li>
+ * <li>Animation channel c targets node c % nodeCount, its path moving from translation to rotation
+ * to scale each time c passes a multiple of nodeCount. Channels share their accessors.</li>
+ * <li>Texture t is a generated PNG with its own material "material-t", used by mesh m when
+ * m % textureCount is t.</li>
+ * </ul>
+ */
+public final class SceneGenerator {
+
+  /**
+   * Vertex buffers must fit a ByteBuffer
+   */
+  public static final int MAX_VERTICES = 1 << 24;
+
+  private static final String[] PATHS = {"translation", "rotation", "scale"};
+  private static final double TWO_PI = Math.PI * 2;
+
+  private long seed;
+  private int nodeCount = 1;
+  private int fanOut = 2;
+  private int meshCount = 1;
+  private int vertexCount = 4;
+  private boolean interleaved;
+  private GLTFAccessorComponentType texCoordType = GLTFAccessorComponentType.FLOAT;
+  private GLTFAccessorComponentType indexType;
+  private GLTFAccessorComponentType valuesType;
+  private boolean sparseMorphTargets;
+  private boolean shuffleTriangles;
+  private boolean unindexed;
+  private int jointCount;
+  private int channelCount;
+  private int keyframeCount;
+  private GLTFInterpolation interpolation = GLTFInterpolation.LINEAR;
+  private int textureCount;
+  private int textureSize;
+  private Format format = Format.GLTF;
+
+  /**
+   * Seeds node transforms and mesh shapes. Defaults to 0.
+   */
+  public SceneGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * @param fanOut children per node, 1 for a chain count deep. The tree is about log(count) /
+   * log(fanOut) deep otherwise.
+   */
+  public SceneGenerator nodes(int count, int fanOut) {
+    if (count < 1 || fanOut < 1) {
+      throw new IllegalArgumentException("Need at least one node and a fan out of one");
+    }
+    this.nodeCount = count;
+    this.fanOut = fanOut;
+    return this;
+  }
+
+  /**
+   * @param verticesPerMesh rounded up to fill a grid at least 2 vertices square
+   */
+  public SceneGenerator meshes(int count, int verticesPerMesh) {
+    if (count < 0 || verticesPerMesh < 4 || verticesPerMesh > MAX_VERTICES) {
+      throw new IllegalArgumentException("Meshes need 4 to " + MAX_VERTICES + " vertices");
+    }
+    this.meshCount = count;
+    this.vertexCount = verticesPerMesh;
+    return this;
+  }
+
+  /**
+   * Put all of a primitive's attributes in one strided bufferView instead of one each
+   */
+  public SceneGenerator interleaved(boolean interleaved) {
+    this.interleaved = interleaved;
+    return this;
+  }
+
+  /**
+   * FLOAT by default, UNSIGNED_BYTE and UNSIGNED_SHORT are written normalized
+   */
+  public SceneGenerator texCoordComponentType(GLTFAccessorComponentType type) {
+    if (type != GLTFAccessorComponentType.FLOAT
+        && type != GLTFAccessorComponentType.UNSIGNED_BYTE
+        && type != GLTFAccessorComponentType.UNSIGNED_SHORT) {
+      throw new IllegalArgumentException("TEXCOORD_0 can't be " + type);
+    }
+    this.texCoordType = type;
+    return this;
+  }
+
+  /**
+   * Defaults to the smallest of UNSIGNED_SHORT and UNSIGNED_INT that fits the vertex count
+   */
+  public SceneGenerator indexComponentType(GLTFAccessorComponentType type) {
+    if (type != GLTFAccessorComponentType.UNSIGNED_BYTE
+        && type != GLTFAccessorComponentType.UNSIGNED_SHORT
+        && type != GLTFAccessorComponentType.UNSIGNED_INT) {
+      throw new IllegalArgumentException("Indices can't be " + type);
+    }
+    this.indexType = type;
+    return this;
+  }
+
+  /**
+   * Add a VEC3 "_VALUES" attribute of any component type to every mesh. Component n of it is
+   * (n * 31 + mesh) & 0x7F, divided by 127 for FLOAT.
+   */
+  public SceneGenerator valuesComponentType(GLTFAccessorComponentType type) {
+    this.valuesType = type;
+    return this;
+  }
+
+  /**
+   * Give every mesh one morph target moving every fourth vertex 0.1 along z, as a sparse accessor
+   * without a bufferView. The mesh weight is 0.5.
+   */
+  public SceneGenerator sparseMorphTargets(boolean sparseMorphTargets) {
+    this.sparseMorphTargets = sparseMorphTargets;
+    return this;
+  }
+
+  /**
+   * Write the triangles of every grid in a seeded random order, as CAD tessellators tend to,
+   * instead of row by row
+   */
+  public SceneGenerator shuffleTriangles(boolean shuffleTriangles) {
+    this.shuffleTriangles = shuffleTriangles;
+    return this;
+  }
+
+  /**
+   * Write every grid without indices, each corner of each triangle its own vertex, as some
+   * exporters do. Morph targets still move every fourth of these vertices.
+   */
+  public SceneGenerator unindexed(boolean unindexed) {
+    this.unindexed = unindexed;
+    return this;
+  }
+
+  /**
+   * @param joints 0 for no skin
+   */
+  public SceneGenerator skin(int joints) {
+    if (joints < 0 || joints > 65536) {
+      throw new IllegalArgumentException("Skins have 0 to 65536 joints");
+    }
+    this.jointCount = joints;
+    return this;
+  }
+
+  /**
+   * @param channels 0 for no animation, at most 3 per node
+   * @param keyframes at least 2, a thirtieth of a second apart
+   */
+  public SceneGenerator animation(int channels, int keyframes, GLTFInterpolation interpolation) {
+    if (channels < 0 || keyframes < 2) {
+      throw new IllegalArgumentException("Animations need at least 2 keyframes");
+    }
+    this.channelCount = channels;
+    this.keyframeCount = keyframes;
+    this.interpolation = interpolation;
+    return this;
+  }
+
+  /**
+   * @param count 0 for no textures or materials
+   * @param size width and height of each image
+   */
+  public SceneGenerator textures(int count, int size) {
+    if (count < 0 || size < 1) {
+      throw new IllegalArgumentException("Textures need a size of at least 1");
+    }
+    this.textureCount = count;
+    this.textureSize = size;
+    return this;
+  }
+
+  /**
+   * {@link Format#GLTF} by default. Images are stored the same way as the buffer.
+   */
+  public SceneGenerator format(Format format) {
+    this.format = format;
+    return this;
+  }
+
+  /**
+   * Writes name.gltf or name.glb to dir, with any .bin and .png files it refers to
+   *
+   * @return the .gltf or .glb written
+   */
+  public Path write(Path dir, String name) throws IOException {
+    if (channelCount > 3L * nodeCount) {
+      throw new IllegalArgumentException("At most 3 animation channels per node");
+    }
+    try (GLTFWriter writer = new GLTFWriter(dir)) {
+      Random random = new Random(seed);
+      for (int t = 0; t < textureCount; t++) {
+        writeTexture(writer, dir, name, t);
+      }
+      for (int m = 0; m < meshCount; m++) {
+        writeMesh(writer, m, random);
+      }
+      ArrayNode rootChildren = writeNodes(writer, random);
+      if (jointCount > 0) {
+        writeSkin(writer, rootChildren, random);
+      }
+      if (channelCount > 0) {
+        writeAnimation(writer);
+      }
+      if (rootChildren.isEmpty()) {
+        ((ObjectNode) writer.array("nodes").get(0)).remove("children");
+      }
+      writer.root.putArray("scenes").addObject().putArray("nodes").add(0);
+      writer.root.put("scene", 0);
+      return writer.write(dir, name, format);
+    }
+  }
+
+  private void writeTexture(GLTFWriter writer, Path dir, String name, int t) throws IOException {
+    if (t == 0) {
+      writer.add("samplers").put("magFilter", 9729).put("minFilter", 9987);
+    }
+    BufferedImage image = new BufferedImage(textureSize, textureSize, BufferedImage.TYPE_INT_RGB);
+    int color = Color.HSBtoRGB(t * 0.618034f % 1, 0.6f, 0.9f);
+    for (int y = 0; y < textureSize; y++) {
+      for (int x = 0; x < textureSize; x++) {
+        image.setRGB(x, y, ((x ^ y) & 1) == 0 ? color : 0xFFFFFF);
+      }
+    }
+    ByteArrayOutputStream png = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", png);
+    int source = writer.image(dir, name + "-" + t + ".png", png.toByteArray(), format);
+    writer.add("textures").put("sampler", 0).put("source", source);
+    writer.add("materials").put("name", "material-" + t).putObject("pbrMetallicRoughness")
+        .putObject("baseColorTexture").put("index", t);
+  }
+
+  private void writeMesh(GLTFWriter writer, int m, Random random) throws IOException {
+    int columns = Math.max(2, (int) Math.ceil(Math.sqrt(vertexCount)));
+    int rows = Math.max(2, (vertexCount + columns - 1) / columns);
+    int count = columns * rows;
+    List<Attribute> attributes = grid(columns, rows, 1, random);
+    if (valuesType != null) {
+      attributes.add(new Attribute("_VALUES", valuesType, 3, false, values(count, m)));
+    }
+    ObjectNode mesh = writer.add("meshes").put("name", "mesh-" + m);
+    ObjectNode primitive = mesh.putArray("primitives").addObject();
+    if (unindexed) {
+      int[] triangles = triangles(columns, rows, random);
+      List<Attribute> expanded = new ArrayList<>();
+      for (Attribute attribute : attributes) {
+        expanded.add(attribute.expand(triangles));
+      }
+      count = triangles.length;
+      writeAttributes(writer, expanded, count, primitive.putObject("attributes"));
+    } else {
+      writeAttributes(writer, attributes, count, primitive.putObject("attributes"));
+      primitive.put("indices", writeIndices(writer, columns, rows, random));
+    }
+    if (textureCount > 0) {
+      primitive.put("material", m % textureCount);
+    }
+    if (sparseMorphTargets) {
+      primitive.putArray("targets").addObject().put("POSITION", writeSparseTarget(writer, count));
+      mesh.putArray("weights").add(0.5f);
+    }
+  }
+
+  /**
+   * Vertices of a grid one unit wide and height units tall, rippled along z
+   */
+  private List<Attribute> grid(int columns, int rows, float height, Random random) {
+    int count = columns * rows;
+    double amplitude = 0.05 + random.nextDouble() * 0.1;
+    double phaseX = random.nextDouble() * TWO_PI;
+    double phaseY = random.nextDouble() * TWO_PI;
+    ByteBuffer positions = allocate(count * 12);
+    ByteBuffer normals = allocate(count * 12);
+    ByteBuffer texCoords = allocate(count * 2 * texCoordType.getSizeInBytes());
+    float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+    float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        float u = c / (float) (columns - 1);
+        float v = r / (float) (rows - 1);
+        double angleX = TWO_PI * u + phaseX;
+        double angleY = TWO_PI * v + phaseY;
+        float[] position = {u, v * height, (float) (amplitude * Math.sin(angleX)
+            * Math.cos(angleY))};
+        for (int i = 0; i < 3; i++) {
+          positions.putFloat(position[i]);
+          min[i] = Math.min(min[i], position[i]);
+          max[i] = Math.max(max[i], position[i]);
+        }
+        double dx = amplitude * TWO_PI * Math.cos(angleX) * Math.cos(angleY);
+        double dy = -amplitude * TWO_PI * Math.sin(angleX) * Math.sin(angleY) / height;
+        double length = Math.sqrt(dx * dx + dy * dy + 1);
+        normals.putFloat((float) (-dx / length)).putFloat((float) (-dy / length))
+            .putFloat((float) (1 / length));
+        putNormalized(texCoords, u);
+        putNormalized(texCoords, 1 - v);
+      }
+    }
+    List<Attribute> attributes = new ArrayList<>();
+    Attribute position = new Attribute("POSITION", GLTFAccessorComponentType.FLOAT, 3, false,
+        positions);
+    position.min = min;
+    position.max = max;
+    attributes.add(position);
+    attributes.add(new Attribute("NORMAL", GLTFAccessorComponentType.FLOAT, 3, false, normals));
+    attributes.add(new Attribute("TEXCOORD_0", texCoordType, 2,
+        texCoordType != GLTFAccessorComponentType.FLOAT, texCoords));
+    return attributes;
+  }
+
+  private void putNormalized(ByteBuffer buffer, float value) {
+    switch (texCoordType) {
+      case UNSIGNED_BYTE:
+        buffer.put((byte) Math.round(value * 255));
+        break;
+      case UNSIGNED_SHORT:
+        buffer.putShort((short) Math.round(value * 65535));
+        break;
+      default:
+        buffer.putFloat(value);
+    }
+  }
+
+  private ByteBuffer values(int count, int m) {
+    ByteBuffer buffer = allocate(count * 3 * valuesType.getSizeInBytes());
+    for (int n = 0; n < count * 3; n++) {
+      int value = (n * 31 + m) & 0x7F;
+      switch (valuesType) {
+        case BYTE:
+        case UNSIGNED_BYTE:
+          buffer.put((byte) value);
+          break;
+        case SHORT:
+        case UNSIGNED_SHORT:
+          buffer.putShort((short) value);
+          break;
+        case UNSIGNED_INT:
+          buffer.putInt(value);
+          break;
+        default:
+          buffer.putFloat(value / 127f);
+      }
+    }
+    return buffer;
+  }
+
+  /**
+   * Attributes share one bufferView when interleaved. Either way each element starts on a 4 byte
+   * boundary, as the spec requires of vertex attributes.
+   */
+  private void writeAttributes(GLTFWriter writer, List<Attribute> attributes, int count,
+      ObjectNode target) throws IOException {
+    if (interleaved) {
+      writeInterleaved(writer, attributes, count, target);
+    } else {
+      for (Attribute attribute : attributes) {
+        writeInterleaved(writer, List.of(attribute), count, target);
+      }
+    }
+  }
+
+  private void writeInterleaved(GLTFWriter writer, List<Attribute> attributes, int count,
+      ObjectNode target) throws IOException {
+    int stride = 0;
+    for (Attribute attribute : attributes) {
+      stride += attribute.slotSize();
+    }
+    ByteBuffer data = allocate(stride * count);
+    int offset = 0;
+    for (Attribute attribute : attributes) {
+      int size = attribute.elementSize();
+      for (int i = 0; i < count; i++) {
+        for (int b = 0; b < size; b++) {
+          data.put(i * stride + offset + b, attribute.data.get(i * size + b));
+        }
+      }
+      offset += attribute.slotSize();
+    }
+    boolean packed = attributes.size() == 1 && stride == attributes.get(0).elementSize();
+    int view = writer.bufferView(data, packed ? 0 : stride, GLTFWriter.ARRAY_BUFFER);
+    offset = 0;
+    for (Attribute attribute : attributes) {
+      ObjectNode accessor = writer.accessor(view, offset, attribute.type,
+          attribute.components == 2 ? "VEC2" : attribute.components == 3 ? "VEC3" : "VEC4",
+          count);
+      if (attribute.normalized) {
+        accessor.put("normalized", true);
+      }
+      if (attribute.min != null) {
+        putArray(accessor.putArray("min"), attribute.min);
+        putArray(accessor.putArray("max"), attribute.max);
+      }
+      target.put(attribute.name, writer.size("accessors") - 1);
+      offset += attribute.slotSize();
+    }
+  }
+
+  /**
+   * Two counter clockwise triangles per grid cell, facing +z
+   *
+   * @return index of the accessor
+   */
+  private int writeIndices(GLTFWriter writer, int columns, int rows, Random random)
+      throws IOException {
+    int count = columns * rows;
+    GLTFAccessorComponentType type = indexType;
+    if (type == null) {
+      type = count <= 65535 ? GLTFAccessorComponentType.UNSIGNED_SHORT
+          : GLTFAccessorComponentType.UNSIGNED_INT;
+    }
+    //The largest value of each type is reserved for primitive restart
+    if (type != GLTFAccessorComponentType.UNSIGNED_INT
+        && count > (1 << (8 * type.getSizeInBytes())) - 1) {
+      throw new IllegalArgumentException(count + " vertices can't be indexed by " + type);
+    }
+    int[] triangles = triangles(columns, rows, random);
+    ByteBuffer indices = allocate(triangles.length * type.getSizeInBytes());
+    for (int index : triangles) {
+      putIndex(indices, type, index);
+    }
+    writer.accessor(writer.bufferView(indices.rewind(), 0, GLTFWriter.ELEMENT_ARRAY_BUFFER), 0,
+        type, "SCALAR", triangles.length);
+    return writer.size("accessors") - 1;
+  }
+
+  /**
+   * Two counter clockwise triangles per grid cell, facing +z, shuffled if asked
+   */
+  private int[] triangles(int columns, int rows, Random random) {
+    int indexCount = (columns - 1) * (rows - 1) * 6;
+    int[] triangles = new int[indexCount];
+    for (int r = 0, i = 0; r < rows - 1; r++) {
+      for (int c = 0; c < columns - 1; c++) {
+        int corner = r * columns + c;
+        int[] cell = {corner, corner + 1, corner + columns,
+            corner + 1, corner + columns + 1, corner + columns};
+        System.arraycopy(cell, 0, triangles, i, 6);
+        i += 6;
+      }
+    }
+    if (shuffleTriangles) {
+      for (int t = indexCount / 3 - 1; t > 0; t--) {
+        int other = random.nextInt(t + 1);
+        for (int k = 0; k < 3; k++) {
+          int swap = triangles[t * 3 + k];
+          triangles[t * 3 + k] = triangles[other * 3 + k];
+          triangles[other * 3 + k] = swap;
+        }
+      }
+    }
+    return triangles;
+  }
+
+  /**
+   * @return index of the accessor
+   */
+  private int writeSparseTarget(GLTFWriter writer, int count) throws IOException {
+    int sparseCount = (count + 3) / 4;
+    GLTFAccessorComponentType type = count <= 65536 ? GLTFAccessorComponentType.UNSIGNED_SHORT
+        : GLTFAccessorComponentType.UNSIGNED_INT;
+    ByteBuffer indices = allocate(sparseCount * type.getSizeInBytes());
+    ByteBuffer values = allocate(sparseCount * 12);
+    for (int i = 0; i < sparseCount; i++) {
+      putIndex(indices, type, i * 4);
+      values.putFloat(0).putFloat(0).putFloat(0.1f);
+    }
+    ObjectNode accessor = writer.accessor(-1, 0, GLTFAccessorComponentType.FLOAT, "VEC3", count);
+    putArray(accessor.putArray("min"), new float[]{0, 0, 0});
+    putArray(accessor.putArray("max"), new float[]{0, 0, 0.1f});
+    ObjectNode sparse = accessor.putObject("sparse").put("count", sparseCount);
+    sparse.putObject("indices").put("bufferView", writer.bufferView(indices.rewind(), 0, 0))
+        .put("componentType", type.getValue());
+    sparse.putObject("values").put("bufferView", writer.bufferView(values.rewind(), 0, 0));
+    return writer.size("accessors") - 1;
+  }
+
+  /**
+   * Nodes of the tree, children listed in index order
+   *
+   * @return children of node 0
+   */
+  private ArrayNode writeNodes(GLTFWriter writer, Random random) {
+    ArrayNode rootChildren = null;
+    for (int i = 0; i < nodeCount; i++) {
+      ObjectNode node = writer.add("nodes").put("name", "node-" + i);
+      if (meshCount > 0) {
+        node.put("mesh", i % meshCount);
+      }
+      if (i > 0) {
+        node.putArray("translation").add(random.nextFloat() * 2 - 1)
+            .add(random.nextFloat() * 2 - 1).add(random.nextFloat() * 2 - 1);
+        double half = random.nextDouble() * Math.PI;
+        node.putArray("rotation").add(0).add((float) Math.sin(half)).add(0)
+            .add((float) Math.cos(half));
+      }
+      ArrayNode children = node.putArray("children");
+      for (long child = (long) i * fanOut + 1; child <= (long) i * fanOut + fanOut
+          && child < nodeCount; child++) {
+        children.add((int) child);
+      }
+      if (i == 0) {
+        //Kept for now, a skin adds to it
+        rootChildren = children;
+      } else if (children.isEmpty()) {
+        node.remove("children");
+      }
+    }
+    return rootChildren;
+  }
+
+  /**
+   * Joints one unit apart up y from node 0, and a strip mesh two vertices wide with a row of
+   * vertices at each joint, each row fully weighted to its joint
+   */
+  private void writeSkin(GLTFWriter writer, ArrayNode rootChildren, Random random)
+      throws IOException {
+    int first = writer.size("nodes");
+    ArrayNode joints = writer.mapper.createArrayNode();
+    ByteBuffer inverseBindMatrices = allocate(jointCount * 64);
+    for (int j = 0; j < jointCount; j++) {
+      ObjectNode joint = writer.add("nodes").put("name", "joint-" + j);
+      if (j > 0) {
+        joint.putArray("translation").add(0).add(1).add(0);
+      }
+      if (j + 1 < jointCount) {
+        joint.putArray("children").add(first + j + 1);
+      }
+      joints.add(first + j);
+      for (int c = 0; c < 16; c++) {
+        //Column major inverse of a translation j up y
+        inverseBindMatrices.putFloat(c % 5 == 0 ? 1 : (c == 13 ? -j : 0));
+      }
+    }
+    rootChildren.add(first);
+
+    int rows = Math.max(2, jointCount);
+    List<Attribute> attributes = grid(2, rows, rows - 1, random);
+    GLTFAccessorComponentType jointType = jointCount <= 256
+        ? GLTFAccessorComponentType.UNSIGNED_BYTE : GLTFAccessorComponentType.UNSIGNED_SHORT;
+    ByteBuffer jointIndices = allocate(rows * 2 * 4 * jointType.getSizeInBytes());
+    ByteBuffer weights = allocate(rows * 2 * 16);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < 2; c++) {
+        putIndex(jointIndices, jointType, Math.min(r, jointCount - 1));
+        putIndex(jointIndices, jointType, 0);
+        putIndex(jointIndices, jointType, 0);
+        putIndex(jointIndices, jointType, 0);
+        weights.putFloat(1).putFloat(0).putFloat(0).putFloat(0);
+      }
+    }
+    attributes.add(new Attribute("JOINTS_0", jointType, 4, false, jointIndices));
+    attributes.add(new Attribute("WEIGHTS_0", GLTFAccessorComponentType.FLOAT, 4, false,
+        weights));
+    int mesh = writer.size("meshes");
+    ObjectNode primitive = writer.add("meshes").put("name", "mesh-skinned")
+        .putArray("primitives").addObject();
+    writeAttributes(writer, attributes, rows * 2, primitive.putObject("attributes"));
+    primitive.put("indices", writeIndices(writer, 2, rows, random));
+
+    writer.accessor(writer.bufferView(inverseBindMatrices.rewind(), 0, 0), 0,
+        GLTFAccessorComponentType.FLOAT, "MAT4", jointCount);
+    writer.add("skins").put("skeleton", first)
+        .put("inverseBindMatrices", writer.size("accessors") - 1).set("joints", joints);
+    rootChildren.add(writer.size("nodes"));
+    writer.add("nodes").put("name", "skinned").put("mesh", mesh).put("skin", 0);
+  }
+
+  /**
+   * One animation, each channel with its own sampler. Samplers of a path share an output
+   * accessor.
+   */
+  private void writeAnimation(GLTFWriter writer) throws IOException {
+    ByteBuffer times = allocate(keyframeCount * 4);
+    for (int k = 0; k < keyframeCount; k++) {
+      times.putFloat(k / 30f);
+    }
+    ObjectNode input = writer.accessor(writer.bufferView(times.rewind(), 0, 0), 0,
+        GLTFAccessorComponentType.FLOAT, "SCALAR", keyframeCount);
+    input.putArray("min").add(0f);
+    input.putArray("max").add((keyframeCount - 1) / 30f);
+    int inputIndex = writer.size("accessors") - 1;
+
+    int[] outputs = {-1, -1, -1};
+    ObjectNode animation = writer.add("animations").put("name", "animation-0");
+    ArrayNode channels = animation.putArray("channels");
+    ArrayNode samplers = animation.putArray("samplers");
+    for (int c = 0; c < channelCount; c++) {
+      int path = c / nodeCount;
+      if (outputs[path] < 0) {
+        outputs[path] = writeAnimationOutput(writer, path);
+      }
+      channels.addObject().put("sampler", c).putObject("target").put("node", c % nodeCount)
+          .put("path", PATHS[path]);
+      samplers.addObject().put("input", inputIndex).put("output", outputs[path])
+          .put("interpolation", interpolation.name());
+    }
+  }
+
+  /**
+   * Translations round a circle, rotations about y or scales pulsing, with zero tangents for
+   * cubic splines
+   *
+   * @return index of the accessor
+   */
+  private int writeAnimationOutput(GLTFWriter writer, int path) throws IOException {
+    boolean cubic = interpolation == GLTFInterpolation.CUBICSPLINE;
+    int components = path == 1 ? 4 : 3;
+    int count = keyframeCount * (cubic ? 3 : 1);
+    ByteBuffer output = allocate(count * components * 4);
+    for (int k = 0; k < keyframeCount; k++) {
+      if (cubic) {
+        output.put(new byte[components * 4]);
+      }
+      double angle = k * 0.05;
+      switch (path) {
+        case 0:
+          output.putFloat((float) Math.sin(angle)).putFloat(0).putFloat((float) Math.cos(angle));
+          break;
+        case 1:
+          output.putFloat(0).putFloat((float) Math.sin(angle / 2)).putFloat(0)
+              .putFloat((float) Math.cos(angle / 2));
+          break;
+        default:
+          float scale = 1 + 0.25f * (float) Math.sin(angle);
+          output.putFloat(scale).putFloat(scale).putFloat(scale);
+      }
+      if (cubic) {
+        output.put(new byte[components * 4]);
+      }
+    }
+    writer.accessor(writer.bufferView(output.rewind(), 0, 0), 0, GLTFAccessorComponentType.FLOAT,
+        components == 4 ? "VEC4" : "VEC3", count);
+    return writer.size("accessors") - 1;
+  }
+
+  private static void putIndex(ByteBuffer buffer, GLTFAccessorComponentType type, int index) {
+    switch (type) {
+      case UNSIGNED_BYTE:
+        buffer.put((byte) index);
+        break;
+      case UNSIGNED_SHORT:
+        buffer.putShort((short) index);
+        break;
+      default:
+        buffer.putInt(index);
+    }
+  }
+
+  private static void putArray(ArrayNode array, float[] values) {
+    for (float value : values) {
+      array.add(value);
+    }
+  }
+
+  private static ByteBuffer allocate(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  public enum Format {
+    /**
+     * .gltf with an external .bin and .png files
+     */
+    GLTF,
+    /**
+     * .glb with images in bufferViews
+     */
+    GLB,
+    /**
+     * .gltf with the buffer and images in base 64 data URIs
+     */
+    EMBEDDED
+  }
+
+  /**
+   * One vertex attribute, tightly packed until written
+   */
+  private static final class Attribute {
+
+    private final String name;
+    private final GLTFAccessorComponentType type;
+    private final int components;
+    private final boolean normalized;
+    private final ByteBuffer data;
+    private float[] min;
+    private float[] max;
+
+    private Attribute(String name, GLTFAccessorComponentType type, int components,
+        boolean normalized, ByteBuffer data) {
+      this.name = name;
+      this.type = type;
+      this.components = components;
+      this.normalized = normalized;
+      this.data = data;
+    }
+
+    private int elementSize() {
+      return components * type.getSizeInBytes();
+    }
+
+    private int slotSize() {
+      return (elementSize() + 3) & ~3;
+    }
+
+    /**
+     * @return this attribute with element i being element vertices[i] of this one
+     */
+    private Attribute expand(int[] vertices) {
+      int size = elementSize();
+      ByteBuffer expanded = allocate(vertices.length * size);
+      for (int i = 0; i < vertices.length; i++) {
+        for (int b = 0; b < size; b++) {
+          expanded.put(i * size + b, data.get(vertices[i] * size + b));
+        }
+      }
+      Attribute attribute = new Attribute(name, type, components, normalized, expanded);
+      attribute.min = min;
+      attribute.max = max;
+      return attribute;
+    }
+  }
+}
@@ -73,6 +73,7 @@ import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 import com.meslewis.simplegltf2.GLTFImporter;
+import com.meslewis.simplegltf2.LoadOptions;
 import com.meslewis.simplegltf2.data.GLTF;
 import com.meslewis.simplegltf2.data.GLTFAnimation;
 import com.meslewis.simplegltf2.data.GLTFCamera;
@@ -94,6 +95,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.FileHandler;
 import java.util.logging.LogManager;
 import java.util.logging.SimpleFormatter;
@@ -118,7 +120,19 @@ public class SimpleViewer {
   private GLTFImporter gltfImporter;
   private RenderNode rootRenderNode = new RenderNode(null, null);
   private List<RenderAnimation> animations = new ArrayList<>();
+  /**
+   * The file being shown, closed when the next one is loaded
+   */
+  private GLTF gltf;
   private final RenderCamera renderCamera = new RenderCamera();
+  /**
+   * Bounds of the primitives of the file being shown, computed off the render thread
+   */
+  private final List<CompletableFuture<Void>> pendingBounds = new ArrayList<>();
+  /**
+   * Completes once every primitive's bounds are known, the camera is fitted on the next frame
+   */
+  private CompletableFuture<Void> pendingFit;
 
   private long animationStartTime;
 
@@ -378,6 +392,15 @@ public class SimpleViewer {
     rootRenderNode.applyTransform(new Matrix4f());
 
     rootRenderNode.updateSkin();
+
+    if (pendingFit != null && pendingFit.isDone()) {
+      if (pendingFit.isCompletedExceptionally()) {
+        logger.warn("Could not compute scene bounds, camera not fitted");
+      } else {
+        renderCamera.fitViewToScene(rootRenderNode);
+      }
+      pendingFit = null;
+    }
   }
 
   //  private static float debugStep = -0.25f;
@@ -399,13 +422,22 @@ public class SimpleViewer {
     //Clear before loading
     rootRenderNode = new RenderNode(null, null);
     animations.clear();
+    //Bounds tasks read the accessors of the old GLTF, let them finish before freeing its memory
+    CompletableFuture.allOf(pendingBounds.toArray(new CompletableFuture<?>[0]))
+        .exceptionally(t -> null).join();
+    pendingBounds.clear();
+    pendingFit = null;
+    if (gltf != null) {
+      gltf.close();
+    }
 
-    GLTF gltf;
     URI uri = file.toURI();
-    gltf = gltfImporter.load(uri);
+    //Only the scene shown is loaded
+    gltf = gltfImporter.load(uri, LoadOptions.defaultScene());
     if (gltf == null) {
       return;
     }
+    logger.info("Loaded " + uri + ": " + gltf.getLoadStats());
 
     if (gltf.getExtensionsRequired().isPresent()) {
       logger.error("Extensions not supported. Loading next file");
@@ -439,7 +471,7 @@ public class SimpleViewer {
 //    rootRenderNode.applyTransform(sceneScale);
 //    logger.info("Scaling scene by " + delta);
 
-    renderCamera.fitViewToScene(rootRenderNode);
+    pendingFit = CompletableFuture.allOf(pendingBounds.toArray(new CompletableFuture<?>[0]));
 
     animationStartTime = System.currentTimeMillis();
   }
@@ -453,7 +485,9 @@ public class SimpleViewer {
       for (GLTFMeshPrimitive primitive : gltfMesh.getPrimitives()) {
         logger.debug("Processing GLTFMesh. Name: " + gltfMesh.getName());
         //Each primitive gets its own render object.
-        new RenderMeshPrimitive(primitive, null, (RenderMesh) renderNode);
+        RenderMeshPrimitive renderPrimitive =
+            new RenderMeshPrimitive(primitive, null, (RenderMesh) renderNode);
+        pendingBounds.add(renderPrimitive.computeBounds());
       }
     } else {
       renderNode = new RenderNode(node, parent);
@@ -6,6 +6,8 @@
 
 package com.meslewis.simplegltf2.simpleviewer.render;
 
+import com.meslewis.simplegltf2.data.Bounds;
+import com.meslewis.simplegltf2.data.BoundsService;
 import com.meslewis.simplegltf2.data.GLTFAccessor;
 import com.meslewis.simplegltf2.data.GLTFMeshPrimitive;
 import com.meslewis.simplegltf2.data.GLTFNode;
@@ -14,8 +16,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import org.joml.AABBf;
-import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +42,10 @@ public class RenderMeshPrimitive extends RenderNode {
   private final RenderMesh mesh;
   private final GLTFMeshPrimitive primitive;
   private RenderMaterial material;
+  /**
+   * Bounds of the primitive in its own space, empty until {@link #computeBounds()} finishes
+   */
+  private volatile Bounds localBounds = Bounds.EMPTY;
 
   public RenderMeshPrimitive(GLTFMeshPrimitive primitive, GLTFNode node, RenderMesh parentNode) {
     super(node, parentNode);
@@ -136,25 +142,27 @@ public class RenderMeshPrimitive extends RenderNode {
     }
   }
 
+  /**
+   * Start computing the bounds of the primitive on the bounds service's pool, so the render thread
+   * never waits on a pass over the vertices
+   *
+   * @return completes once {@link #getBoundingBox()} includes the primitive
+   */
+  public CompletableFuture<Void> computeBounds() {
+    return BoundsService.getDefault().getBoundsAsync(primitive)
+        .thenAccept(bounds -> localBounds = bounds);
+  }
+
+  /**
+   * @return the world space box of the primitive, empty until {@link #computeBounds()} finishes
+   */
   @Override
   public AABBf getBoundingBox() {
     if (boundingBox == null) {
       boundingBox = new AABBf();
-      GLTFAccessor accessor = this.getPrimitive().getAttributes().get("POSITION");
-
-      if (accessor == null) {
-        return boundingBox;
-      }
-
-      float[] maxList = accessor.getMax();
-      Vector3f max = new Vector3f(maxList[0], maxList[1], maxList[2]);
-
-      float[] minList = accessor.getMin();
-      Vector3f min = new Vector3f(minList[0], minList[1], minList[2]);
-
-      boundingBox.union(max).union(min).transform(getWorldTransform());
     }
-    return boundingBox;
+    //The world transform may have changed since last time
+    return localBounds.transform(getWorldTransform()).getBox(boundingBox);
   }
 
   public Map<String, GLTFAccessor> getGlAttributes() {